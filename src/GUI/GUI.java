@@ -33,9 +33,11 @@ import utils.Interfaces;
  * @see GUI.panels.OperatorRegister
  * @see GUI.panels.CenterCreateNew
  * @see GUI.panels.CityAddData
+ * @see GUI.panels.Diagnostics
  * @see models.MainModel
  * @see utils.Interfaces
  * @see GUI.Theme
+ * @see GUI.QueryService
  * 
  * @author Andrea Tettamanti
  * @author Luca Mascetti
@@ -49,6 +51,11 @@ public class GUI {
      */
     public Theme appTheme = new Theme();
 
+    /**
+     * Il servizio che esegue le interrogazioni dei dati in background.
+     */
+    public QueryService queryService;
+
     private CardLayout cardLayout = new CardLayout();
     private JFrame mainFrame = new MainFrame();
     private Interfaces.UIWindows mainWindowsArea = new MainWindows(cardLayout);
@@ -64,6 +71,7 @@ public class GUI {
     private OperatorRegister operatorRegisterPanel;
     private CenterCreateNew centerCreateNewPanel;
     private CityAddData cityAddDataPanel;
+    private Diagnostics diagnosticsPanel;
 
     /**
      * Costruttore della classe {@code GUI}.
@@ -72,6 +80,8 @@ public class GUI {
      * @param mainModel Il modello dell'applicazione
      */
     public GUI(MainModel mainModel) {
+        queryService = new QueryService(mainFrame);
+
         mainFrame.setJMenuBar(new MenuBar(this));
         mainFrame.add(mainWindowsArea.getMainPanel(), BorderLayout.CENTER);
 
@@ -87,6 +97,7 @@ public class GUI {
         operatorRegisterPanel = new OperatorRegister(mainModel);
         centerCreateNewPanel = new CenterCreateNew(mainModel);
         cityAddDataPanel = new CityAddData(mainModel);
+        diagnosticsPanel = new Diagnostics(mainModel);
     }
 
     /**
@@ -103,6 +114,7 @@ public class GUI {
         addPanel(operatorRegisterPanel.createPanel(this));
         addPanel(centerCreateNewPanel.createPanel(this));
         addPanel(cityAddDataPanel.createPanel(this));
+        addPanel(diagnosticsPanel.createPanel(this));
     }
 
     /**
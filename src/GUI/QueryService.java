@@ -0,0 +1,281 @@
+package GUI;
+
+import java.awt.Component;
+import java.awt.Cursor;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+
+/**
+ * La classe {@code QueryService} esegue le interrogazioni dei dati al di fuori
+ * del thread di gestione degli eventi (EDT), in modo che l'interfaccia non si
+ * blocchi durante le elaborazioni pi&ugrave; lunghe.
+ * <p>
+ * Le operazioni vengono eseguite una alla volta da un unico thread in
+ * background; il risultato, l'avanzamento e gli eventuali errori vengono
+ * restituiti sull'EDT. Ogni operazione &egrave; associata a una chiave: una
+ * nuova operazione con la stessa chiave annulla la precedente, il cui
+ * risultato non viene pi&ugrave; consegnato. Finch&eacute; ci sono operazioni
+ * in corso il componente indicato mostra il cursore di attesa.
+ * </p>
+ * <p>
+ * I metodi di questa classe devono essere invocati dall'EDT.
+ * </p>
+ *
+ * <pre>{@code
+ * gui.queryService.submit("CityQuery",
+ *         progress -> mainModel.data.getCityBy(conditions),
+ *         result -> showResult(result));
+ * }</pre>
+ *
+ * @see GUI.GUI
+ * @see javax.swing.SwingWorker
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class QueryService {
+
+    /**
+     * Un'operazione da eseguire in background.
+     *
+     * @param <T> Il tipo del risultato.
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+
+        /**
+         * Esegue l'operazione.
+         *
+         * @param progress L'avanzamento dell'operazione, da aggiornare e da
+         *                 consultare per interrompere l'elaborazione se
+         *                 l'operazione &egrave; stata annullata.
+         * @return Il risultato dell'operazione.
+         * @throws Exception Se l'operazione non pu&ograve; essere completata.
+         */
+        T run(Progress progress) throws Exception;
+    }
+
+    /**
+     * L'avanzamento di un'operazione in background.
+     */
+    public interface Progress {
+
+        /**
+         * Aggiorna la percentuale di completamento dell'operazione.
+         *
+         * @param percent La percentuale, da 0 a 100.
+         */
+        void update(int percent);
+
+        /**
+         * Indica se l'operazione &egrave; stata annullata.
+         *
+         * @return {@code true} se l'operazione &egrave; stata annullata.
+         */
+        boolean isCancelled();
+    }
+
+    /**
+     * Il thread che esegue le operazioni.
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "QueryService");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Il componente che mostra il cursore di attesa durante le operazioni.
+     */
+    private final Component busyComponent;
+
+    /**
+     * Le operazioni in corso, per chiave.
+     */
+    private final HashMap<String, Task<?>> tasks = new HashMap<>();
+
+    /**
+     * Il numero di operazioni avviate e non ancora terminate.
+     */
+    private int pending = 0;
+
+    /**
+     * Costruttore della classe {@code QueryService}.
+     *
+     * @param busyComponent Il componente che mostra il cursore di attesa durante
+     *                      le operazioni.
+     */
+    public QueryService(Component busyComponent) {
+        this.busyComponent = busyComponent;
+    }
+
+    /**
+     * Avvia un'operazione in background, annullando quella in corso con la
+     * stessa chiave. Gli errori vengono segnalati con una finestra di dialogo.
+     *
+     * @param <T>       Il tipo del risultato.
+     * @param key       La chiave dell'operazione.
+     * @param work      L'operazione da eseguire.
+     * @param onSuccess L'azione eseguita sull'EDT con il risultato.
+     * @return L'operazione avviata.
+     */
+    public <T> Task<T> submit(String key, Work<T> work, Consumer<T> onSuccess) {
+        return submit(key, work, onSuccess, null, null);
+    }
+
+    /**
+     * Avvia un'operazione in background, annullando quella in corso con la
+     * stessa chiave.
+     *
+     * @param <T>        Il tipo del risultato.
+     * @param key        La chiave dell'operazione.
+     * @param work       L'operazione da eseguire.
+     * @param onSuccess  L'azione eseguita sull'EDT con il risultato.
+     * @param onProgress L'azione eseguita sull'EDT a ogni aggiornamento
+     *                   dell'avanzamento (pu&ograve; essere {@code null}).
+     * @param onError    L'azione eseguita sull'EDT se l'operazione fallisce
+     *                   ({@code null} per mostrare una finestra di dialogo).
+     * @return L'operazione avviata.
+     */
+    public <T> Task<T> submit(String key, Work<T> work, Consumer<T> onSuccess, IntConsumer onProgress,
+            Consumer<Exception> onError) {
+        cancel(key);
+
+        Task<T> task = new Task<>(key, work, onSuccess, onError);
+        if (onProgress != null) {
+            task.addPropertyChangeListener(event -> {
+                if ("progress".equals(event.getPropertyName()))
+                    onProgress.accept((Integer) event.getNewValue());
+            });
+        }
+
+        tasks.put(key, task);
+        pending++;
+        updateCursor();
+
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Annulla l'operazione in corso con la chiave specificata, se presente. Il
+     * suo risultato non verr&agrave; consegnato.
+     *
+     * @param key La chiave dell'operazione.
+     */
+    public void cancel(String key) {
+        Task<?> task = tasks.remove(key);
+        if (task != null)
+            task.cancel(false);
+    }
+
+    /**
+     * Indica se &egrave; in corso un'operazione con la chiave specificata.
+     *
+     * @param key La chiave dell'operazione.
+     * @return {@code true} se l'operazione &egrave; in corso.
+     */
+    public boolean isRunning(String key) {
+        return tasks.containsKey(key);
+    }
+
+    /**
+     * Mostra il cursore di attesa se ci sono operazioni in corso.
+     */
+    private void updateCursor() {
+        busyComponent.setCursor(Cursor.getPredefinedCursor(pending > 0 ? Cursor.WAIT_CURSOR : Cursor.DEFAULT_CURSOR));
+    }
+
+    /**
+     * Un'operazione in background avviata da {@code QueryService}.
+     *
+     * @param <T> Il tipo del risultato.
+     */
+    public class Task<T> extends SwingWorker<T, Void> implements Progress {
+
+        /**
+         * La chiave dell'operazione.
+         */
+        private final String key;
+
+        /**
+         * L'operazione da eseguire.
+         */
+        private final Work<T> work;
+
+        /**
+         * L'azione eseguita con il risultato.
+         */
+        private final Consumer<T> onSuccess;
+
+        /**
+         * L'azione eseguita in caso di errore, o {@code null}.
+         */
+        private final Consumer<Exception> onError;
+
+        /**
+         * Crea una nuova operazione.
+         *
+         * @param key       La chiave dell'operazione.
+         * @param work      L'operazione da eseguire.
+         * @param onSuccess L'azione eseguita con il risultato.
+         * @param onError   L'azione eseguita in caso di errore, o {@code null}.
+         */
+        private Task(String key, Work<T> work, Consumer<T> onSuccess, Consumer<Exception> onError) {
+            this.key = key;
+            this.work = work;
+            this.onSuccess = onSuccess;
+            this.onError = onError;
+        }
+
+        @Override
+        public void update(int percent) {
+            setProgress(Math.max(0, Math.min(100, percent)));
+        }
+
+        @Override
+        protected T doInBackground() throws Exception {
+            return work.run(this);
+        }
+
+        @Override
+        protected void done() {
+            pending--;
+            updateCursor();
+
+            if (tasks.get(key) == this)
+                tasks.remove(key);
+
+            if (isCancelled())
+                return;
+
+            try {
+                onSuccess.accept(get());
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+
+                if (onError != null) {
+                    onError.accept(cause);
+                } else {
+                    JOptionPane.showMessageDialog(null,
+                            "Errore durante l'interrogazione dei dati: " + cause.getMessage(),
+                            "Errore",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }
+    }
+}
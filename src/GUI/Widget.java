@@ -1,20 +1,38 @@
 package GUI;
 
+import java.awt.Component;
 import java.awt.Cursor;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Image;
 import java.awt.Insets;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.imageio.ImageIO;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 import utils.Constants;
 
@@ -160,4 +178,248 @@ public class Widget {
             return label;
         }
     }
+
+    /**
+     * Un elenco di suggerimenti mostrato sotto un campo di testo durante la
+     * digitazione.
+     * <p>
+     * A ogni modifica del testo i suggerimenti vengono richiesti alla sorgente
+     * in background, tramite {@link QueryService}, annullando la richiesta
+     * precedente, e mostrati in un menu a comparsa all'arrivo del risultato,
+     * senza togliere il focus al campo. Un
+     * suggerimento si sceglie con le frecce e il tasto Invio oppure con il
+     * mouse; in quel caso l'evento del tasto Invio viene consumato e non
+     * raggiunge le azioni del campo. Il tasto Esc chiude l'elenco.
+     * </p>
+     *
+     * @param <T> Il tipo degli elementi suggeriti.
+     */
+    public static class SuggestionPopup<T> {
+
+        /**
+         * Il servizio che esegue in background la richiesta dei suggerimenti.
+         */
+        private final QueryService queryService;
+
+        /**
+         * La chiave delle richieste dei suggerimenti, propria del campo.
+         */
+        private final String key;
+
+        /**
+         * Il campo di testo a cui sono associati i suggerimenti.
+         */
+        private final JTextField textField;
+
+        /**
+         * La funzione che restituisce i suggerimenti per il testo digitato.
+         */
+        private final Function<String, T[]> source;
+
+        /**
+         * L'azione eseguita alla scelta di un suggerimento.
+         */
+        private final Consumer<T> onSelect;
+
+        /**
+         * Il modello dell'elenco dei suggerimenti.
+         */
+        private final DefaultListModel<T> model = new DefaultListModel<>();
+
+        /**
+         * L'elenco dei suggerimenti.
+         */
+        private final JList<T> list = new JList<>(model);
+
+        /**
+         * Il menu a comparsa che contiene l'elenco.
+         */
+        private final JPopupMenu popup = new JPopupMenu();
+
+        /**
+         * Indica se il testo del campo viene modificato dalla scelta di un
+         * suggerimento, e non dalla digitazione.
+         */
+        private boolean selecting = false;
+
+        /**
+         * Associa un elenco di suggerimenti a un campo di testo.
+         *
+         * @param queryService Il servizio che esegue in background la richiesta
+         *                     dei suggerimenti.
+         * @param key          La chiave delle richieste dei suggerimenti, diversa
+         *                     per ogni campo.
+         * @param textField    Il campo di testo.
+         * @param source       La funzione che restituisce i suggerimenti per il
+         *                     testo digitato, dal pi&ugrave; al meno rilevante;
+         *                     viene eseguita al di fuori dell'EDT.
+         * @param labeler      La funzione che restituisce il testo mostrato per
+         *                     un suggerimento.
+         * @param onSelect     L'azione eseguita alla scelta di un suggerimento.
+         */
+        public SuggestionPopup(QueryService queryService, String key, JTextField textField,
+                Function<String, T[]> source, Function<T, String> labeler, Consumer<T> onSelect) {
+            this.queryService = queryService;
+            this.key = key;
+            this.textField = textField;
+            this.source = source;
+            this.onSelect = onSelect;
+
+            list.setFocusable(false);
+            list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            list.setCellRenderer(new DefaultListCellRenderer() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                        boolean isSelected, boolean cellHasFocus) {
+                    return super.getListCellRendererComponent(list, labeler.apply((T) value), index, isSelected,
+                            cellHasFocus);
+                }
+            });
+
+            JScrollPane scrollPane = new JScrollPane(list);
+            scrollPane.setFocusable(false);
+            scrollPane.getVerticalScrollBar().setFocusable(false);
+
+            popup.setFocusable(false);
+            popup.add(scrollPane);
+
+            textField.getDocument().addDocumentListener(new DocumentListener() {
+                @Override
+                public void insertUpdate(DocumentEvent e) {
+                    refresh();
+                }
+
+                @Override
+                public void removeUpdate(DocumentEvent e) {
+                    refresh();
+                }
+
+                @Override
+                public void changedUpdate(DocumentEvent e) {
+                }
+            });
+
+            textField.addKeyListener(new KeyAdapter() {
+                @Override
+                public void keyPressed(KeyEvent e) {
+                    if (!popup.isVisible())
+                        return;
+
+                    switch (e.getKeyCode()) {
+                        case KeyEvent.VK_DOWN:
+                            moveSelection(1);
+                            e.consume();
+                            break;
+
+                        case KeyEvent.VK_UP:
+                            moveSelection(-1);
+                            e.consume();
+                            break;
+
+                        case KeyEvent.VK_ENTER:
+                            if (list.getSelectedIndex() >= 0) {
+                                select(list.getSelectedValue());
+                                e.consume();
+                            }
+                            break;
+
+                        case KeyEvent.VK_ESCAPE:
+                            popup.setVisible(false);
+                            e.consume();
+                            break;
+                    }
+                }
+            });
+
+            textField.addFocusListener(new FocusAdapter() {
+                @Override
+                public void focusLost(FocusEvent e) {
+                    popup.setVisible(false);
+                }
+            });
+
+            list.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    int index = list.locationToIndex(e.getPoint());
+                    if (index >= 0)
+                        select(model.get(index));
+                }
+            });
+        }
+
+        /**
+         * Richiede in background i suggerimenti per il testo del campo, oppure
+         * nasconde l'elenco se il testo &egrave; vuoto.
+         */
+        private void refresh() {
+            String text = textField.getText();
+            if (selecting || text.isBlank() || !textField.isShowing() || !textField.isEnabled()) {
+                queryService.cancel(key);
+                popup.setVisible(false);
+                return;
+            }
+
+            queryService.submit(key,
+                    progress -> source.apply(text),
+                    this::show,
+                    null,
+                    e -> popup.setVisible(false));
+        }
+
+        /**
+         * Mostra i suggerimenti ricevuti, oppure nasconde l'elenco se non ce ne
+         * sono o se il campo non &egrave; pi&ugrave; visibile.
+         *
+         * @param suggestions I suggerimenti per il testo del campo.
+         */
+        private void show(T[] suggestions) {
+            model.clear();
+            if (suggestions == null || suggestions.length == 0 || !textField.isShowing()) {
+                popup.setVisible(false);
+                return;
+            }
+
+            for (T suggestion : suggestions) {
+                model.addElement(suggestion);
+            }
+
+            list.setVisibleRowCount(Math.min(suggestions.length, Constants.GUI.MAX_SUGGESTIONS));
+            list.setFixedCellWidth(textField.getWidth() - 4);
+            list.clearSelection();
+
+            popup.pack();
+            if (!popup.isVisible())
+                popup.show(textField, 0, textField.getHeight());
+        }
+
+        /**
+         * Sposta la selezione nell'elenco dei suggerimenti.
+         *
+         * @param offset Lo spostamento ({@code 1} in basso, {@code -1} in alto).
+         */
+        private void moveSelection(int offset) {
+            int index = Math.max(0, Math.min(model.size() - 1, list.getSelectedIndex() + offset));
+            list.setSelectedIndex(index);
+            list.ensureIndexIsVisible(index);
+        }
+
+        /**
+         * Chiude l'elenco ed esegue l'azione associata alla scelta di un
+         * suggerimento.
+         *
+         * @param suggestion Il suggerimento scelto.
+         */
+        private void select(T suggestion) {
+            popup.setVisible(false);
+
+            selecting = true;
+            try {
+                onSelect.accept(suggestion);
+            } finally {
+                selecting = false;
+            }
+        }
+    }
 }
@@ -12,6 +12,7 @@ import javax.swing.JOptionPane;
 import GUI.GUI;
 import GUI.panels.CityAddData;
 import GUI.panels.CityQuery;
+import GUI.panels.Diagnostics;
 import GUI.panels.Home;
 import GUI.panels.OperatorHome;
 import GUI.panels.OperatorLogin;
@@ -37,6 +38,7 @@ import models.CurrentOperator;
  * @see GUI.GUI
  * @see GUI.panels.CityAddData
  * @see GUI.panels.CityQuery
+ * @see GUI.panels.Diagnostics
  * @see GUI.panels.Home
  * @see GUI.panels.OperatorHome
  * @see GUI.panels.OperatorLogin
@@ -74,6 +76,8 @@ public class MenuBar extends JMenuBar {
         JMenuItem itemCityAddData = new JMenuItem("Gestisci città");
         JMenuItem itemAreaLogout = new JMenuItem("Logout");
 
+        JMenuItem itemDiagnostics = new JMenuItem("Diagnostica");
+
         JCheckBoxMenuItem itemToggleTheme = new JCheckBoxMenuItem("Tema scuro");
         itemToggleTheme.setSelected(gui.appTheme.isDarkTheme());
 
@@ -85,6 +89,7 @@ public class MenuBar extends JMenuBar {
                 itemOperatorRegistration,
                 itemCityAddData,
                 itemAreaLogout,
+                itemDiagnostics,
                 itemToggleTheme };
 
         itemHome.addActionListener(e -> {
@@ -125,6 +130,10 @@ public class MenuBar extends JMenuBar {
             }
         });
 
+        itemDiagnostics.addActionListener(e -> {
+            gui.goToPanel(Diagnostics.ID, null);
+        });
+
         itemToggleTheme.addActionListener(e -> {
             gui.appTheme.toggleTheme();
         });
@@ -137,6 +146,7 @@ public class MenuBar extends JMenuBar {
         submenuOperator.add(itemOperatorRegistration);
         submenuOperator.add(itemCityAddData);
         submenuOperator.add(itemAreaLogout);
+        add(itemDiagnostics);
         add(itemToggleTheme);
 
         for (JMenuItem jMenuItem : jMenuItems) {
@@ -35,6 +35,7 @@ import utils.Interfaces;
  * all'operatore in caso di errori.
  * 
  * @see GUI.GUI
+ * @see GUI.QueryService
  * @see GUI.Widget
  * @see GUI.layouts.TwoColumns
  * @see models.CurrentOperator
@@ -142,6 +143,40 @@ public class CenterCreateNew extends TwoColumns implements Interfaces.UIPanel {
         listmodelCityIDs.clear();
     }
 
+    /**
+     * Aggiunge all'elenco la citt&agrave; trovata cercandone il nome, oppure
+     * chiede di scegliere tra le citt&agrave; trovate o avvisa che non ne
+     * &egrave; stata trovata nessuna.
+     *
+     * @param result Le citt&agrave; trovate.
+     */
+    private void addCities(RecordCity[] result) {
+        if (result.length > 1) {
+            RecordCity selectedCity = (RecordCity) JOptionPane.showInputDialog(
+                    this,
+                    "Sono state trovate più città con lo stesso nome. Seleziona quella desiderata.",
+                    "Città trovate",
+                    JOptionPane.QUESTION_MESSAGE,
+                    null,
+                    result,
+                    result[0]);
+            if (selectedCity != null) {
+                listmodelCityIDs.addElement(selectedCity.toString());
+                textfieldCityName.setText("");
+            }
+
+        } else if (result.length == 1) {
+            listmodelCityIDs.addElement(result[0].toString());
+            textfieldCityName.setText("");
+        } else {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "La città inserita non è presente nel database.",
+                    "Città non trovata",
+                    JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
     /**
      * Aggiunge azioni agli elementi dell'interfaccia.
      * <p>
@@ -162,39 +197,27 @@ public class CenterCreateNew extends TwoColumns implements Interfaces.UIPanel {
 
             if (!cityName.isEmpty() && !listmodelCityIDs.contains(cityName)) {
 
-                RecordCity[] result = null;
                 List<QueryCondition> conditions = new ArrayList<>();
-
                 conditions.add(new QueryCondition("name", cityName));
-                result = mainModel.data.getCityBy(conditions);
 
-                if (result.length > 1) {
-                    RecordCity selectedCity = (RecordCity) JOptionPane.showInputDialog(
-                            this,
-                            "Sono state trovate più città con lo stesso nome. Seleziona quella desiderata.",
-                            "Città trovate",
-                            JOptionPane.QUESTION_MESSAGE,
-                            null,
-                            result,
-                            result[0]);
-                    if (selectedCity != null) {
-                        listmodelCityIDs.addElement(selectedCity.toString());
-                        textfieldCityName.setText("");
-                    }
-
-                } else if (result.length == 1) {
-                    listmodelCityIDs.addElement(result[0].toString());
-                    textfieldCityName.setText("");
-                } else {
-                    JOptionPane.showMessageDialog(
-                            this,
-                            "La città inserita non è presente nel database.",
-                            "Città non trovata",
-                            JOptionPane.WARNING_MESSAGE);
-                }
+                gui.queryService.submit(ID,
+                        progress -> mainModel.data.getCityBy(conditions),
+                        this::addCities);
             }
         });
 
+        new Widget.SuggestionPopup<RecordCity>(
+                gui.queryService,
+                ID + ".suggestions",
+                textfieldCityName,
+                text -> mainModel.data.getCitySuggestions(text, Constants.GUI.MAX_SUGGESTIONS),
+                city -> city.name() + " (" + city.countryName() + ")",
+                city -> {
+                    if (!listmodelCityIDs.contains(city.toString()))
+                        listmodelCityIDs.addElement(city.toString());
+                    textfieldCityName.setText("");
+                });
+
         listCityIDs.addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
                 int selectedIndex = listCityIDs.getSelectedIndex();
@@ -7,7 +7,9 @@ import GUI.Widget;
 import GUI.layouts.TwoColumns;
 import models.MainModel;
 import models.data.DataQuery.QueryCondition;
+import models.data.SpatialIndex;
 import models.record.RecordCity;
+import utils.Constants;
 import utils.Interfaces;
 
 import java.awt.event.*;
@@ -19,14 +21,17 @@ import java.util.List;
  * query sulla base di dati delle citt&agrave;.
  * <p>
  * Gli utenti possono cercare una citt&agrave; per nome o per coordinate
- * geografiche.
+ * geografiche; se alle coordinate inserite non corrisponde nessuna
+ * citt&agrave; viene proposta la pi&ugrave; vicina.
  * </p>
  * 
  * @see GUI.GUI
+ * @see GUI.QueryService
  * @see GUI.Widget
  * @see GUI.layouts.TwoColumns
  * @see models.MainModel
  * @see models.data.DataQuery.QueryCondition
+ * @see models.data.SpatialIndex
  * @see models.record.RecordCity
  * @see utils.Interfaces
  * 
@@ -78,6 +83,19 @@ public class CityQuery extends TwoColumns implements Interfaces.UIPanel {
      */
     private JComboBox<String> comboboxQueryType = new JComboBox<String>();
 
+    /**
+     * Il risultato di una ricerca per coordinate.
+     *
+     * @param latitude  La latitudine cercata.
+     * @param longitude La longitudine cercata.
+     * @param cities    Le citt&agrave; alle coordinate cercate.
+     * @param nearest   La citt&agrave; pi&ugrave; vicina, se nessuna si trova
+     *                  alle coordinate cercate.
+     */
+    private record CoordinateResult(double latitude, double longitude, RecordCity[] cities,
+            RecordCity[] nearest) {
+    }
+
     /**
      * Costruttore della classe {@code CityQuery}.
      *
@@ -94,7 +112,7 @@ public class CityQuery extends TwoColumns implements Interfaces.UIPanel {
         KeyListener enterKeyListenerCityName = new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
-                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER && !e.isConsumed()) {
                     buttonPerfomQuery.doClick();
                 }
             }
@@ -121,55 +139,41 @@ public class CityQuery extends TwoColumns implements Interfaces.UIPanel {
 
         buttonPerfomQuery.addActionListener(e -> {
 
-            RecordCity[] result = null;
-            List<QueryCondition> conditions = new ArrayList<>();
-
             switch (comboboxQueryType.getSelectedIndex()) {
                 case 0:
-                    String cityName = textfieldCityName.getText();
+                    List<QueryCondition> conditions = new ArrayList<>();
+                    conditions.add(new QueryCondition("name", textfieldCityName.getText()));
 
-                    conditions.add(new QueryCondition("name", cityName));
-                    result = mainModel.data.getCityBy(conditions);
+                    gui.queryService.submit(ID,
+                            progress -> mainModel.data.getCityBy(conditions),
+                            this::showResult);
                     break;
 
                 case 1:
-                    try {
-                        Double latitude = Double.parseDouble(textfieldLatitude.getText().replace(',', '.'));
-                        Double longitude = Double.parseDouble(textfieldLongitude.getText().replace(',', '.'));
+                    double latitude;
+                    double longitude;
 
-                        conditions.add(new QueryCondition("latitude", latitude));
-                        conditions.add(new QueryCondition("longitude", longitude));
-                        result = mainModel.data.getCityBy(conditions);
-                    } catch (Exception exception) {
+                    try {
+                        latitude = Double.parseDouble(textfieldLatitude.getText().replace(',', '.'));
+                        longitude = Double.parseDouble(textfieldLongitude.getText().replace(',', '.'));
+                    } catch (NumberFormatException exception) {
                         JOptionPane.showMessageDialog(null,
                                 "Inserisci delle coordinate valide (es. 45,80819 e 9,0832)",
                                 "Coordinate non valide",
                                 JOptionPane.WARNING_MESSAGE);
                         return;
                     }
-            }
-
-            if (result.length > 1) {
-                RecordCity selectedCity = (RecordCity) JOptionPane.showInputDialog(
-                        this,
-                        "Sono state trovate più città con lo stesso nome. Seleziona quella desiderata.",
-                        "Città trovate",
-                        JOptionPane.QUESTION_MESSAGE,
-                        null,
-                        result,
-                        result[0]);
-                if (selectedCity != null)
-                    gui.goToPanel(CityVisualizer.ID, new Object[] { selectedCity.ID() });
-
-            } else if (result.length == 1) {
-                gui.goToPanel(CityVisualizer.ID, new Object[] { result[0].ID() });
 
-            } else {
-                JOptionPane.showMessageDialog(
-                        this,
-                        "La città inserita non è presente nel sistema.",
-                        "Città non trovata",
-                        JOptionPane.WARNING_MESSAGE);
+                    gui.queryService.submit(ID,
+                            progress -> {
+                                RecordCity[] result = mainModel.data.getCityByCoordinates(latitude, longitude);
+                                RecordCity[] nearest = result.length == 0
+                                        ? mainModel.data.getNearestCities(latitude, longitude, 1)
+                                        : new RecordCity[0];
+                                return new CoordinateResult(latitude, longitude, result, nearest);
+                            },
+                            this::showCoordinateResult);
+                    break;
             }
         });
 
@@ -185,12 +189,83 @@ public class CityQuery extends TwoColumns implements Interfaces.UIPanel {
             }
         });
 
+        new Widget.SuggestionPopup<RecordCity>(
+                gui.queryService,
+                ID + ".suggestions",
+                textfieldCityName,
+                text -> mainModel.data.getCitySuggestions(text, Constants.GUI.MAX_SUGGESTIONS),
+                city -> city.name() + " (" + city.countryName() + ")",
+                city -> {
+                    textfieldCityName.setText(city.name());
+                    gui.goToPanel(CityVisualizer.ID, new Object[] { city.ID() });
+                });
+
         textfieldCityName.addKeyListener(enterKeyListenerCityName);
         textfieldLatitude.addKeyListener(enterKeyListenerCoordinates);
         textfieldLongitude.addKeyListener(enterKeyListenerCoordinates);
 
     }
 
+    /**
+     * Mostra la citt&agrave; trovata, oppure chiede di scegliere tra le
+     * citt&agrave; trovate o avvisa che non ne &egrave; stata trovata nessuna.
+     *
+     * @param result Le citt&agrave; trovate.
+     */
+    private void showResult(RecordCity[] result) {
+        if (result.length > 1) {
+            RecordCity selectedCity = (RecordCity) JOptionPane.showInputDialog(
+                    this,
+                    "Sono state trovate più città con lo stesso nome. Seleziona quella desiderata.",
+                    "Città trovate",
+                    JOptionPane.QUESTION_MESSAGE,
+                    null,
+                    result,
+                    result[0]);
+            if (selectedCity != null)
+                gui.goToPanel(CityVisualizer.ID, new Object[] { selectedCity.ID() });
+
+        } else if (result.length == 1) {
+            gui.goToPanel(CityVisualizer.ID, new Object[] { result[0].ID() });
+
+        } else {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "La città inserita non è presente nel sistema.",
+                    "Città non trovata",
+                    JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
+    /**
+     * Mostra il risultato di una ricerca per coordinate; se nessuna citt&agrave;
+     * si trova alle coordinate inserite propone quella pi&ugrave; vicina.
+     *
+     * @param result Il risultato della ricerca.
+     */
+    private void showCoordinateResult(CoordinateResult result) {
+        if (result.cities().length > 0 || result.nearest().length == 0) {
+            showResult(result.cities());
+            return;
+        }
+
+        RecordCity nearest = result.nearest()[0];
+        long distance = Math.round(SpatialIndex.distanceKm(result.latitude(), result.longitude(),
+                nearest.latitude(), nearest.longitude()));
+
+        Integer answer = JOptionPane.showConfirmDialog(
+                this,
+                "Nessuna città alle coordinate inserite. La più vicina è "
+                        + nearest.name() + " (" + nearest.countryName() + "), a "
+                        + distance + " km. Vuoi visualizzarla?",
+                "Città più vicina",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.QUESTION_MESSAGE);
+
+        if (answer == JOptionPane.YES_OPTION)
+            gui.goToPanel(CityVisualizer.ID, new Object[] { nearest.ID() });
+    }
+
     @Override
     public CityQuery createPanel(GUI gui) {
         this.gui = gui;
@@ -15,12 +15,13 @@ import java.awt.event.MouseEvent;
 import java.util.EventObject;
 
 import GUI.GUI;
+import GUI.QueryService;
 import GUI.Widget;
 import models.MainModel;
-import models.data.DataQuery.QueryCondition;
+import models.data.WeatherAggregate;
+import models.logic.LogicCity.TrendWindow;
 import models.logic.LogicCity.WeatherTableData;
 import models.record.RecordCity;
-import models.record.RecordWeather;
 import utils.Interfaces;
 import utils.Constants.Legend;
 
@@ -33,14 +34,20 @@ import utils.Constants.Legend;
  * selezionata e
  * i dati meteorologici associati.
  * </p>
+ * <p>
+ * Oltre al riepilogo complessivo &egrave; possibile visualizzare l'andamento
+ * dei dati negli ultimi giorni, mesi o anni, letto dai dati aggregati per
+ * periodo.
+ * </p>
  * 
  * @see GUI.GUI
+ * @see GUI.QueryService
  * @see GUI.Widget
  * @see models.MainModel
- * @see models.data.DataQuery.QueryCondition
+ * @see models.data.WeatherAggregate
+ * @see models.logic.LogicCity.TrendWindow
  * @see models.logic.LogicCity.WeatherTableData
  * @see models.record.RecordCity
- * @see models.record.RecordWeather
  * @see utils.Interfaces
  * @see utils.Constants.Legend
  * 
@@ -97,6 +104,58 @@ public class CityVisualizer extends JPanel implements Interfaces.UIPanel {
      */
     private DefaultTableModel defaulmodelTable = new DefaultTableModel();
 
+    /**
+     * Combobox per la scelta del periodo visualizzato.
+     */
+    private JComboBox<String> comboboxWindow = new JComboBox<>();
+
+    /**
+     * Tabella per visualizzare l'andamento dei dati meteorologici.
+     */
+    private JTable tableTrend = new JTable();
+
+    /**
+     * Modello di tabella per l'andamento dei dati meteorologici.
+     */
+    private DefaultTableModel modelTrend = new DefaultTableModel() {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+
+    /**
+     * Pannello a scorrimento che contiene la tabella visualizzata.
+     */
+    private JScrollPane scrollTable = new JScrollPane(table);
+
+    /**
+     * L'ID della citt&agrave; visualizzata.
+     */
+    private Integer cityID;
+
+    /**
+     * Barra di avanzamento del caricamento dei dati della citt&agrave;.
+     */
+    private JProgressBar progressBar = new JProgressBar(0, 100);
+
+    /**
+     * Pannello che contiene la barra di avanzamento, visibile durante il
+     * caricamento.
+     */
+    private JPanel progressPanel;
+
+    /**
+     * I dati di una citt&agrave; caricati in background.
+     *
+     * @param city    La citt&agrave;.
+     * @param summary Le righe del riepilogo (punteggio medio, numero di
+     *                campionamenti e commenti di ogni categoria), o
+     *                {@code null} se non sono presenti dati meteorologici.
+     */
+    private record CityData(RecordCity city, Object[][] summary) {
+    }
+
     /**
      * Pulsante per tornare indietro.
      */
@@ -131,57 +190,119 @@ public class CityVisualizer extends JPanel implements Interfaces.UIPanel {
         buttonToBack.addActionListener(e -> {
             gui.goToPanel(CityQuery.ID, null);
         });
+
+        comboboxWindow.addActionListener(e -> {
+            showSelectedWindow();
+        });
     }
 
     /**
-     * Carica i dati relativi a una citt&agrave; specifica e li visualizza nella
-     * tabella.
+     * Mostra il riepilogo complessivo oppure l'andamento dei dati
+     * meteorologici nella finestra temporale selezionata, calcolato in
+     * background.
+     */
+    private void showSelectedWindow() {
+        int index = comboboxWindow.getSelectedIndex();
+        if (index <= 0 || cityID == null) {
+            gui.queryService.cancel(ID + "Trend");
+            scrollTable.setViewportView(table);
+            return;
+        }
+
+        Integer trendCityID = cityID;
+        TrendWindow window = TrendWindow.values()[index - 1];
+
+        gui.queryService.submit(ID + "Trend",
+                progress -> mainModel.logicCity.getWeatherTrend(trendCityID, window),
+                rows -> {
+                    modelTrend.setRowCount(0);
+                    for (Object[] row : rows) {
+                        modelTrend.addRow(row);
+                    }
+                    scrollTable.setViewportView(tableTrend);
+                });
+    }
+
+    /**
+     * Carica in background i dati relativi a una citt&agrave; specifica e li
+     * visualizza nella tabella.
      *
      * @param cityID L'ID della citt&agrave; di cui caricare i dati.
      */
     public void loadDatas(Integer cityID) {
 
-        RecordCity RecordCity = mainModel.data.getCityBy(cityID);
-        textfieldCityName.setText(RecordCity.name());
-        textfieldCountryName.setText(RecordCity.countryName());
-        textfieldLatitude.setText(String.valueOf(RecordCity.latitude()));
-        textfieldLongitude.setText(String.valueOf(RecordCity.longitude()));
+        this.cityID = cityID;
+        comboboxWindow.setSelectedIndex(0);
+        gui.queryService.cancel(ID + "Trend");
+        scrollTable.setViewportView(table);
 
-        QueryCondition condition = new QueryCondition("cityID", cityID);
-        RecordWeather[] weatherRecords = mainModel.data.getWeatherBy(condition);
+        progressBar.setValue(0);
+        progressPanel.setVisible(true);
 
-        if (weatherRecords.length > 0) {
+        QueryService.Task<CityData> task = gui.queryService.submit(ID,
+                progress -> {
+                    RecordCity city = mainModel.data.getCityBy(cityID);
+                    WeatherAggregate weatherAggregate = mainModel.data.getWeatherAggregate(cityID);
 
-            Integer row = 0;
-            WeatherTableData weatherTableData = new WeatherTableData(weatherRecords);
+                    if (weatherAggregate == null)
+                        return new CityData(city, null);
 
-            for (String keyString : WeatherTableData.keys) {
-                Integer avgScore = weatherTableData.getCategoryAvgScore(keyString);
-                Integer recordCount = weatherTableData.getCategoryRecordCount(keyString);
-                String comment = String.join(" | ", weatherTableData.getCategoryComments(keyString));
+                    WeatherTableData weatherTableData = new WeatherTableData(weatherAggregate);
+                    String[] keys = WeatherTableData.keys;
+                    Object[][] summary = new Object[keys.length][];
 
-                if (avgScore != null) {
-                    defaulmodelTable.setValueAt(avgScore.toString(), row, 1);
-                } else {
-                    defaulmodelTable.setValueAt("N/A", row, 1);
-                }
+                    for (int i = 0; i < keys.length && !progress.isCancelled(); i++) {
+                        Integer avgScore = weatherTableData.getCategoryAvgScore(keys[i]);
+                        Integer recordCount = weatherTableData.getCategoryRecordCount(keys[i]);
+                        String comment = String.join(" | ", weatherTableData.getCategoryComments(keys[i]));
 
-                if ("NULL".equals(comment)) {
-                    comment = "";
-                }
+                        if ("NULL".equals(comment)) {
+                            comment = "";
+                        }
 
-                defaulmodelTable.setValueAt(recordCount, row, 2);
-                defaulmodelTable.setValueAt(comment, row, 3);
+                        summary[i] = new Object[] { avgScore != null ? avgScore.toString() : "N/A", recordCount,
+                                comment };
+                        progress.update(100 * (i + 1) / keys.length);
+                    }
 
-                row++;
-            }
+                    return new CityData(city, summary);
+                },
+                this::showDatas,
+                progressBar::setValue,
+                null);
 
-        } else {
+        task.addPropertyChangeListener(event -> {
+            if ("state".equals(event.getPropertyName()) && event.getNewValue() == SwingWorker.StateValue.DONE
+                    && !gui.queryService.isRunning(ID))
+                progressPanel.setVisible(false);
+        });
+    }
+
+    /**
+     * Visualizza i dati di una citt&agrave; caricati in background.
+     *
+     * @param data I dati della citt&agrave;.
+     */
+    private void showDatas(CityData data) {
+        RecordCity recordCity = data.city();
+        textfieldCityName.setText(recordCity.name());
+        textfieldCountryName.setText(recordCity.countryName());
+        textfieldLatitude.setText(String.valueOf(recordCity.latitude()));
+        textfieldLongitude.setText(String.valueOf(recordCity.longitude()));
+
+        if (data.summary() == null) {
             JOptionPane.showMessageDialog(null,
                     "L'operatore non ha ancora inserito dati per la città selezionata.",
                     "Dati mancanti",
                     JOptionPane.WARNING_MESSAGE);
             gui.goToPanel(CityQuery.ID, null);
+            return;
+        }
+
+        for (int row = 0; row < data.summary().length; row++) {
+            defaulmodelTable.setValueAt(data.summary()[row][0], row, 1);
+            defaulmodelTable.setValueAt(data.summary()[row][1], row, 2);
+            defaulmodelTable.setValueAt(data.summary()[row][2], row, 3);
         }
     }
 
@@ -222,6 +343,20 @@ public class CityVisualizer extends JPanel implements Interfaces.UIPanel {
         table.getTableHeader().setReorderingAllowed(false);
         table.setRowHeight(40);
 
+        modelTrend.addColumn("Periodo");
+        modelTrend.addColumn("Numero campionamenti");
+        for (String columnName : tableCategory) {
+            modelTrend.addColumn(columnName);
+        }
+        tableTrend.setModel(modelTrend);
+        tableTrend.getTableHeader().setReorderingAllowed(false);
+        tableTrend.setRowHeight(40);
+
+        comboboxWindow.addItem("Riepilogo complessivo");
+        for (TrendWindow window : TrendWindow.values()) {
+            comboboxWindow.addItem(window.label);
+        }
+
         table.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
@@ -254,12 +389,18 @@ public class CityVisualizer extends JPanel implements Interfaces.UIPanel {
         topPanel.add(new Widget.FormPanel(gui.appTheme, "Nome nazione", textfieldCountryName));
         topPanel.add(new Widget.FormPanel(gui.appTheme, "Latitudine", textfieldLatitude));
         topPanel.add(new Widget.FormPanel(gui.appTheme, "Longitudine", textfieldLongitude));
+        topPanel.add(new Widget.FormPanel(gui.appTheme, "Periodo", comboboxWindow));
+
+        progressBar.setStringPainted(true);
+        progressPanel = new Widget.FormPanel(gui.appTheme, "Caricamento", progressBar);
+        progressPanel.setVisible(false);
+        topPanel.add(progressPanel);
 
         // Crea un nuovo pannello per contenere la tabella
 
         JPanel tablePanel = new JPanel(new BorderLayout());
 
-        tablePanel.add(new JScrollPane(table), BorderLayout.CENTER);
+        tablePanel.add(scrollTable, BorderLayout.CENTER);
 
         // add(table, BorderLayout.CENTER);
 
@@ -0,0 +1,289 @@
+package GUI.panels;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+
+import GUI.GUI;
+import GUI.Widget;
+import models.MainModel;
+import models.metrics.Metrics;
+import utils.Interfaces;
+
+/**
+ * La classe {@code Diagnostics} rappresenta un pannello Swing per la
+ * consultazione delle metriche dell'applicazione.
+ * <p>
+ * Il pannello mostra il valore dei contatori e degli indicatori e, per ogni
+ * timer, il numero di operazioni misurate con la durata media, i principali
+ * percentili e la durata massima in millisecondi. Finch&eacute; il pannello
+ * &egrave; visualizzato i valori vengono aggiornati ogni secondo; le metriche
+ * possono inoltre essere esportate su file.
+ * </p>
+ * <p>
+ * Alcuni indicatori leggono i dati acquisendone i lock, quindi i valori
+ * vengono raccolti in background: una scrittura lunga ritarda
+ * l'aggiornamento della tabella senza bloccare l'interfaccia.
+ * </p>
+ *
+ * @see GUI.GUI
+ * @see GUI.Widget
+ * @see models.MainModel
+ * @see models.metrics.Metrics
+ * @see utils.Interfaces
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class Diagnostics extends JPanel implements Interfaces.UIPanel {
+
+    /**
+     * L'ID univoco per identificare questo pannello.
+     */
+    public static String ID = "Diagnostics";
+
+    /**
+     * L'intervallo di aggiornamento automatico delle metriche, in
+     * millisecondi.
+     */
+    private static final int REFRESH_INTERVAL = 1000;
+
+    /**
+     * Riferimento all'interfaccia utente grafica (GUI) associata al pannello.
+     */
+    private GUI gui;
+
+    /**
+     * La tabella delle metriche.
+     */
+    private JTable table = new JTable();
+
+    /**
+     * Il modello della tabella delle metriche, non modificabile dall'utente.
+     */
+    private DefaultTableModel modelTable = new DefaultTableModel() {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+
+    /**
+     * Pulsante per aggiornare le metriche.
+     */
+    private JButton buttonRefresh = new Widget.Button("Aggiorna");
+
+    /**
+     * Pulsante per esportare le metriche su file.
+     */
+    private JButton buttonExport = new Widget.Button("Esporta su file");
+
+    /**
+     * Pulsante per tornare alla Home.
+     */
+    private JButton buttonToBack = new Widget.Button("Indietro");
+
+    /**
+     * Il timer che aggiorna le metriche mentre il pannello &egrave;
+     * visualizzato.
+     */
+    private javax.swing.Timer refreshTimer = new javax.swing.Timer(REFRESH_INTERVAL, e -> refresh());
+
+    /**
+     * La raccolta dei valori delle metriche in corso, o {@code null} se
+     * nessuna raccolta &egrave; in corso.
+     */
+    private SwingWorker<List<Object[]>, Void> refreshWorker;
+
+    /**
+     * Costruttore della classe {@code Diagnostics}.
+     *
+     * @param mainModel Il modello principale dell'applicazione.
+     */
+    public Diagnostics(MainModel mainModel) {
+    }
+
+    /**
+     * Aggiunge gestori degli eventi ai componenti del pannello.
+     */
+    public void addActionEvent() {
+        buttonRefresh.addActionListener(e -> refresh());
+
+        buttonExport.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+                return;
+
+            String path = fileChooser.getSelectedFile().getPath();
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() throws IOException {
+                    Metrics.dump(path);
+                    return null;
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        get();
+
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+
+                    } catch (ExecutionException exception) {
+                        JOptionPane.showMessageDialog(
+                                Diagnostics.this,
+                                "Errore nel salvataggio delle metriche.",
+                                "Errore",
+                                JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }.execute();
+        });
+
+        buttonToBack.addActionListener(e -> {
+            gui.goToPanel(Home.ID, null);
+        });
+    }
+
+    /**
+     * Avvia la raccolta dei valori correnti delle metriche, al termine della
+     * quale la tabella viene aggiornata. Se una raccolta &egrave; gi&agrave;
+     * in corso non ne viene avviata un'altra. Il timer di aggiornamento viene
+     * fermato se il pannello non &egrave; pi&ugrave; visualizzato.
+     */
+    private void refresh() {
+        if (!ID.equals(gui.getCurrentID())) {
+            refreshTimer.stop();
+            return;
+        }
+
+        if (refreshWorker != null)
+            return;
+
+        refreshWorker = new SwingWorker<>() {
+            @Override
+            protected List<Object[]> doInBackground() {
+                return collectRows();
+            }
+
+            @Override
+            protected void done() {
+                refreshWorker = null;
+
+                try {
+                    List<Object[]> rows = get();
+                    modelTable.setRowCount(0);
+                    for (Object[] row : rows) {
+                        modelTable.addRow(row);
+                    }
+
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+
+                } catch (ExecutionException e) {
+                    // la tabella mantiene i valori precedenti
+                }
+            }
+        };
+        refreshWorker.execute();
+    }
+
+    /**
+     * Legge i valori correnti delle metriche. Non va invocato dall'EDT.
+     *
+     * @return Le righe della tabella, una per metrica.
+     */
+    private static List<Object[]> collectRows() {
+        List<Object[]> rows = new ArrayList<>();
+
+        Metrics.getCounters().forEach((name, counter) -> rows.add(new Object[] {
+                name, "Contatore", counter.getCount(), "", "", "", "", "" }));
+
+        Metrics.getGauges().forEach((name, value) -> rows.add(new Object[] {
+                name, "Indicatore", value == null ? "/" : value, "", "", "", "", "" }));
+
+        Metrics.getTimers().forEach((name, timer) -> rows.add(new Object[] {
+                name, "Timer", timer.getCount(),
+                formatMillis(timer.getMean()),
+                formatMillis(timer.getPercentile(50)),
+                formatMillis(timer.getPercentile(90)),
+                formatMillis(timer.getPercentile(99)),
+                formatMillis(timer.getMax()) }));
+
+        return rows;
+    }
+
+    /**
+     * Converte una durata in millisecondi con tre cifre decimali.
+     *
+     * @param nanos La durata, in nanosecondi.
+     * @return La durata formattata.
+     */
+    private static String formatMillis(double nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    @Override
+    public Diagnostics createPanel(GUI gui) {
+        this.gui = gui;
+
+        modelTable.addColumn("Metrica");
+        modelTable.addColumn("Tipo");
+        modelTable.addColumn("Valore/Conteggio");
+        modelTable.addColumn("Media ms");
+        modelTable.addColumn("p50 ms");
+        modelTable.addColumn("p90 ms");
+        modelTable.addColumn("p99 ms");
+        modelTable.addColumn("Max ms");
+
+        table.setModel(modelTable);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getColumnModel().getColumn(0).setPreferredWidth(250);
+
+        setLayout(new BorderLayout());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        buttonPanel.add(buttonRefresh);
+        buttonPanel.add(buttonExport);
+        buttonPanel.add(buttonToBack);
+
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+
+        gui.appTheme.registerPanel(buttonPanel);
+
+        addActionEvent();
+
+        return this;
+    }
+
+    @Override
+    public String getID() {
+        return ID;
+    }
+
+    /**
+     * Invocato quando il pannello viene aperto. Aggiorna le metriche e avvia
+     * l'aggiornamento automatico.
+     *
+     * @param args Argomenti aggiuntivi (non utilizzati in questo caso).
+     */
+    @Override
+    public void onOpen(Object[] args) {
+        SwingUtilities.invokeLater(() -> {
+            refresh();
+            refreshTimer.start();
+        });
+    }
+
+}
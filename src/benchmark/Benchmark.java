@@ -0,0 +1,197 @@
+package benchmark;
+
+import java.util.Locale;
+
+/**
+ * La classe {@code Benchmark} misura il tempo medio di esecuzione di
+ * un'operazione.
+ * <p>
+ * L'operazione viene eseguita ripetutamente per un certo numero di iterazioni
+ * di riscaldamento, i cui tempi vengono scartati, e poi per le iterazioni di
+ * misura; ogni iterazione dura almeno il tempo indicato ed esegue almeno una
+ * volta l'operazione. Il risultato &egrave; la media dei tempi per operazione
+ * delle iterazioni di misura, con la relativa deviazione standard.
+ * </p>
+ * <p>
+ * Il valore restituito da ogni esecuzione viene conservato, in modo che il
+ * compilatore JIT non possa eliminare il calcolo come inutilizzato.
+ * </p>
+ *
+ * @see benchmark.ModelsBenchmark
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class Benchmark {
+
+    /**
+     * L'operazione misurata.
+     */
+    @FunctionalInterface
+    public interface Operation {
+
+        /**
+         * Esegue una volta l'operazione.
+         *
+         * @return Il risultato dell'operazione.
+         * @throws Exception Se l'operazione non va a buon fine.
+         */
+        Object run() throws Exception;
+    }
+
+    /**
+     * L'ultimo risultato restituito da un'operazione misurata.
+     */
+    private static volatile Object sink;
+
+    /**
+     * Il nome del benchmark.
+     */
+    private final String name;
+
+    /**
+     * L'operazione misurata.
+     */
+    private final Operation operation;
+
+    /**
+     * Costruttore della classe {@code Benchmark}.
+     *
+     * @param name      Il nome del benchmark.
+     * @param operation L'operazione da misurare.
+     */
+    public Benchmark(String name, Operation operation) {
+        this.name = name;
+        this.operation = operation;
+    }
+
+    /**
+     * Restituisce il nome del benchmark.
+     *
+     * @return Il nome del benchmark.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Misura il tempo medio di esecuzione dell'operazione.
+     *
+     * @param warmupIterations Il numero di iterazioni di riscaldamento.
+     * @param iterations       Il numero di iterazioni di misura.
+     * @param iterationTime    La durata minima di ogni iterazione, in
+     *                         millisecondi.
+     * @return Il risultato della misura.
+     * @throws Exception Se l'operazione non va a buon fine.
+     */
+    public Result run(int warmupIterations, int iterations, long iterationTime) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            iterate(iterationTime);
+        }
+
+        double[] times = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            times[i] = iterate(iterationTime);
+        }
+        return new Result(name, times);
+    }
+
+    /**
+     * Esegue una iterazione.
+     *
+     * @param iterationTime La durata minima dell'iterazione, in millisecondi.
+     * @return Il tempo medio per operazione, in nanosecondi.
+     * @throws Exception Se l'operazione non va a buon fine.
+     */
+    private double iterate(long iterationTime) throws Exception {
+        long deadline = iterationTime * 1_000_000L;
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+
+        do {
+            sink = operation.run();
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < deadline);
+
+        return (double) elapsed / operations;
+    }
+
+    /**
+     * La classe {@code Result} rappresenta il risultato della misura di un
+     * benchmark.
+     */
+    public static class Result {
+
+        /**
+         * Il nome del benchmark.
+         */
+        public final String name;
+
+        /**
+         * Il tempo medio per operazione, in microsecondi.
+         */
+        public final double score;
+
+        /**
+         * La deviazione standard del tempo per operazione tra le iterazioni, in
+         * microsecondi.
+         */
+        public final double error;
+
+        /**
+         * Il numero di iterazioni di misura.
+         */
+        public final int count;
+
+        /**
+         * Costruttore della classe {@code Result}.
+         *
+         * @param name  Il nome del benchmark.
+         * @param times I tempi medi per operazione delle iterazioni, in
+         *              nanosecondi.
+         */
+        Result(String name, double[] times) {
+            double sum = 0;
+            for (double time : times) {
+                sum += time;
+            }
+            double mean = times.length > 0 ? sum / times.length : 0;
+
+            double squares = 0;
+            for (double time : times) {
+                squares += (time - mean) * (time - mean);
+            }
+
+            this.name = name;
+            this.count = times.length;
+            this.score = mean / 1000;
+            this.error = times.length > 1 ? Math.sqrt(squares / (times.length - 1)) / 1000 : 0;
+        }
+
+        /**
+         * Restituisce una riga della tabella dei risultati.
+         *
+         * @param parameter Il valore del parametro della misura.
+         * @return La riga formattata.
+         */
+        public String format(Object parameter) {
+            return String.format(Locale.ROOT, "%-32s %10s  avgt  %3d  %14.3f +- %12.3f  us/op",
+                    name, parameter, count, score, error);
+        }
+
+        /**
+         * Restituisce l'intestazione della tabella dei risultati.
+         *
+         * @param parameterName Il nome del parametro della misura.
+         * @return L'intestazione formattata.
+         */
+        public static String header(String parameterName) {
+            return String.format(Locale.ROOT, "%-32s %10s  Mode  Cnt  %14s    %12s  Units",
+                    "Benchmark", "(" + parameterName + ")", "Score", "Error");
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import models.data.DataHandler;
+import models.data.DataQuery.QueryCondition;
+import models.data.DataStorage;
+import models.data.WeatherColumns;
+import models.file.FileHandler;
+import models.logic.LogicCity.WeatherTableData;
+import models.record.RecordCity;
+import models.record.RecordWeather;
+import models.record.RecordWeather.WeatherData;
+import utils.Constants;
+
+/**
+ * La classe {@code ModelsBenchmark} &egrave; il punto di ingresso dei benchmark
+ * del livello dei dati.
+ * <p>
+ * Per ogni dimensione indicata viene generato un insieme di dati sintetici e
+ * viene avviata una JVM separata, che carica i dati generati e misura il
+ * caricamento dei singoli file CSV, le interrogazioni pi&ugrave; frequenti,
+ * l'elaborazione dei dati meteorologici per la tabella e gli inserimenti e gli
+ * aggiornamenti. Ogni dimensione viene misurata in una JVM distinta perch&eacute;
+ * i percorsi dei file di dati sono costanti, e perch&eacute; le misure non
+ * risentano della compilazione e della memoria delle dimensioni precedenti.
+ * </p>
+ * <p>
+ * La misura &egrave; configurabile tramite propriet&agrave; di sistema:
+ * </p>
+ * <ul>
+ * <li>{@code benchmark.sizes}: le dimensioni, cio&egrave; i numeri di record
+ * meteorologici, separate da virgola (predefinito {@code 10000,100000});</li>
+ * <li>{@code benchmark.seed}: il seme dei dati generati (predefinito
+ * {@link SyntheticDataset#DEFAULT_SEED});</li>
+ * <li>{@code benchmark.include}: l'espressione regolare dei nomi dei benchmark
+ * da eseguire (predefinita tutti);</li>
+ * <li>{@code benchmark.warmupIterations}, {@code benchmark.iterations} e
+ * {@code benchmark.iterationTime}: le iterazioni di riscaldamento e di misura e
+ * la loro durata in millisecondi (predefiniti 3, 5 e 1000);</li>
+ * <li>{@code benchmark.directory}: la cartella dei dati generati (predefinita
+ * {@code benchmark} nella cartella temporanea);</li>
+ * <li>{@code benchmark.jvmArgs}: le opzioni delle JVM avviate, separate da
+ * spazi (es. {@code -Xmx4g}).</li>
+ * </ul>
+ * <p>
+ * Le propriet&agrave; {@code benchmark.*}, {@code storage.*} e
+ * {@code metrics.*} vengono inoltrate alle JVM avviate; con
+ * {@code -Dmetrics.enabled=false} &egrave; quindi possibile misurare il costo
+ * delle metriche.
+ * </p>
+ *
+ * @see benchmark.Benchmark
+ * @see benchmark.SyntheticDataset
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ModelsBenchmark {
+
+    /**
+     * Le dimensioni dei dati da misurare.
+     */
+    private static final String SIZES = System.getProperty("benchmark.sizes", "10000,100000");
+
+    /**
+     * Il seme dei dati generati.
+     */
+    private static final long SEED = Long.getLong("benchmark.seed", SyntheticDataset.DEFAULT_SEED);
+
+    /**
+     * L'espressione regolare dei nomi dei benchmark da eseguire.
+     */
+    private static final Pattern INCLUDE = Pattern.compile(System.getProperty("benchmark.include", ".*"));
+
+    /**
+     * Il numero di iterazioni di riscaldamento.
+     */
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("benchmark.warmupIterations", 3);
+
+    /**
+     * Il numero di iterazioni di misura.
+     */
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 5);
+
+    /**
+     * La durata minima di ogni iterazione, in millisecondi.
+     */
+    private static final long ITERATION_TIME = Long.getLong("benchmark.iterationTime", 1000L);
+
+    /**
+     * La cartella in cui vengono generati i dati.
+     */
+    private static final String DIRECTORY = System.getProperty("benchmark.directory",
+            Paths.get(System.getProperty("java.io.tmpdir"), "benchmark").toString());
+
+    /**
+     * Le opzioni delle JVM avviate per le misure.
+     */
+    private static final String JVM_ARGS = System.getProperty("benchmark.jvmArgs", "");
+
+    /**
+     * L'argomento con cui viene avviata la JVM che esegue le misure.
+     */
+    private static final String FORK = "--fork";
+
+    /**
+     * Il numero di citt&agrave; e record campione su cui ruotano le
+     * interrogazioni; &egrave; una potenza di due.
+     */
+    private static final int SAMPLES = 1024;
+
+    /**
+     * La posizione del prossimo campione da utilizzare.
+     */
+    private static int cursor;
+
+    /**
+     * Il metodo principale dei benchmark.
+     * <p>
+     * Termina con codice di uscita diverso da 0 se almeno una misura non
+     * &egrave; andata a buon fine.
+     * </p>
+     *
+     * @param args Nessun argomento; gli argomenti {@code --fork <dimensione>}
+     *             sono riservati alle JVM che eseguono le misure.
+     * @throws Exception Se si verifica un errore nella generazione dei dati o
+     *                   nell'avvio delle JVM.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals(FORK)) {
+            System.exit(measure(new SyntheticDataset(Integer.parseInt(args[1]))));
+        }
+
+        System.out.println(Benchmark.Result.header("size"));
+        int exitCode = 0;
+
+        for (String size : SIZES.split(",")) {
+            int weatherCount = Integer.parseInt(size.trim());
+            Path directory = Paths.get(DIRECTORY, "size-" + weatherCount);
+
+            deleteDirectory(directory);
+            new SyntheticDataset(weatherCount).seed(SEED).write(directory);
+
+            exitCode = Math.max(exitCode, fork(weatherCount, directory));
+        }
+
+        System.exit(exitCode);
+    }
+
+    /**
+     * Avvia la JVM che esegue le misure per una dimensione e ne attende la
+     * terminazione.
+     *
+     * @param weatherCount La dimensione dei dati.
+     * @param directory    La cartella dei dati generati.
+     * @return Il codice di uscita della JVM.
+     * @throws IOException          Se non &egrave; possibile avviare la JVM.
+     * @throws InterruptedException Se l'attesa viene interrotta.
+     */
+    private static int fork(int weatherCount, Path directory) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+
+        for (String option : JVM_ARGS.trim().split("\\s+")) {
+            if (!option.isEmpty())
+                command.add(option);
+        }
+
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if ((key.startsWith("storage.") || key.startsWith("benchmark.") || key.startsWith("metrics."))
+                    && !key.equals("storage.dataDir"))
+                command.add("-D" + key + "=" + System.getProperty(key));
+        }
+        command.add("-Dstorage.dataDir=" + directory);
+
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ModelsBenchmark.class.getName());
+        command.add(FORK);
+        command.add(Integer.toString(weatherCount));
+
+        return new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+
+    /**
+     * Esegue le misure sui dati generati, presenti nella cartella dei file di
+     * dati.
+     *
+     * @param dataset I dati generati.
+     * @return 0 se tutte le misure sono andate a buon fine, 1 altrimenti.
+     */
+    private static int measure(SyntheticDataset dataset) {
+        Random random = new Random(dataset.getWeatherCount());
+        DataHandler handler = new DataHandler();
+
+        RecordCity[] cities = new RecordCity[SAMPLES];
+        RecordWeather[] weathers = new RecordWeather[SAMPLES];
+        RecordWeather[][] cityWeathers = new RecordWeather[SAMPLES][];
+
+        for (int i = 0; i < SAMPLES; i++) {
+            cities[i] = handler.getCityBy(1 + random.nextInt(dataset.getCityCount()));
+            weathers[i] = handler.getWeatherBy(1 + random.nextInt(dataset.getWeatherCount()));
+            cityWeathers[i] = handler.getWeatherBy(new QueryCondition("cityID", cities[i].ID()));
+        }
+
+        WeatherData data = new WeatherData(3, null);
+
+        List<Benchmark> benchmarks = List.of(
+                new Benchmark("load.cities",
+                        () -> load(Constants.Path.Files.CITY, DataStorage::parseCity)),
+                new Benchmark("load.operators",
+                        () -> load(Constants.Path.Files.OPERATOR, DataStorage::parseOperator)),
+                new Benchmark("load.centers",
+                        () -> load(Constants.Path.Files.CENTER, DataStorage::parseCenter)),
+                new Benchmark("load.weathers",
+                        ModelsBenchmark::loadWeathers),
+                new Benchmark("query.cityByName",
+                        () -> handler.getCityBy(new QueryCondition("name", cities[next()].name()))),
+                new Benchmark("query.cityByCoordinates", () -> {
+                    RecordCity city = cities[next()];
+                    return handler.getCityByCoordinates(city.latitude(), city.longitude());
+                }),
+                new Benchmark("query.weatherByCity",
+                        () -> handler.getWeatherBy(new QueryCondition("cityID", cities[next()].ID()))),
+                new Benchmark("logic.weatherTableData",
+                        () -> tableData(cityWeathers[next()])),
+                new Benchmark("handler.insertWeather",
+                        () -> handler.addNewRecord(cities[next()].ID(), 1, "01/01/2024",
+                                data, data, data, data, data, data, data)),
+                new Benchmark("handler.updateWeather", () -> {
+                    RecordWeather weather = weathers[next()];
+                    handler.updateRecord(weather);
+                    return weather;
+                }));
+
+        int exitCode = 0;
+        for (Benchmark benchmark : benchmarks) {
+            if (!INCLUDE.matcher(benchmark.getName()).find())
+                continue;
+
+            try {
+                Benchmark.Result result = benchmark.run(WARMUP_ITERATIONS, ITERATIONS, ITERATION_TIME);
+                System.out.println(result.format(dataset.getWeatherCount()));
+            } catch (Exception e) {
+                System.out.println(benchmark.getName() + ": errore nella misura: " + e);
+                exitCode = 1;
+            }
+        }
+        return exitCode;
+    }
+
+    /**
+     * Restituisce la posizione del prossimo campione da utilizzare.
+     *
+     * @return La posizione del campione.
+     */
+    private static int next() {
+        cursor = (cursor + 1) & (SAMPLES - 1);
+        return cursor;
+    }
+
+    /**
+     * Legge tutti i record di un file di dati, come al caricamento
+     * dell'applicazione.
+     *
+     * @param <T>      Il tipo dei record.
+     * @param filePath Il percorso del file.
+     * @param parser   La funzione che converte i campi di una riga in un record.
+     * @return I record letti.
+     * @throws IOException Se si verifica un errore durante la lettura.
+     */
+    private static <T> List<T> load(String filePath, Function<String[], T> parser) throws IOException {
+        List<T> records = new ArrayList<>();
+        readRecords(filePath, parser, records::add);
+        return records;
+    }
+
+    /**
+     * Legge tutti i record meteorologici nell'archivio a colonne, come al
+     * caricamento dell'applicazione.
+     *
+     * @return L'archivio dei record letti.
+     * @throws IOException Se si verifica un errore durante la lettura.
+     */
+    private static WeatherColumns loadWeathers() throws IOException {
+        WeatherColumns columns = new WeatherColumns();
+        readRecords(Constants.Path.Files.WEATHER, DataStorage::parseWeather,
+                weather -> columns.put(weather.ID(), weather));
+        return columns;
+    }
+
+    /**
+     * Legge i record di un file di dati, in parallelo se abilitato da
+     * {@link Constants.Storage#PARALLEL_LOADING}.
+     *
+     * @param <T>      Il tipo dei record.
+     * @param filePath Il percorso del file.
+     * @param parser   La funzione che converte i campi di una riga in un record.
+     * @param consumer La funzione che riceve ogni record letto.
+     * @throws IOException Se si verifica un errore durante la lettura.
+     */
+    private static <T> void readRecords(String filePath, Function<String[], T> parser, Consumer<T> consumer)
+            throws IOException {
+        if (Constants.Storage.PARALLEL_LOADING) {
+            FileHandler.readRecordsParallel(filePath, parser, consumer, Constants.Storage.LOADING_CHUNK_SIZE);
+        } else {
+            FileHandler.readRecords(filePath, parser, consumer);
+        }
+    }
+
+    /**
+     * Elabora i dati meteorologici di una citt&agrave; per la tabella,
+     * calcolando la media di ogni categoria.
+     *
+     * @param weathers I record meteorologici della citt&agrave;.
+     * @return I dati elaborati.
+     */
+    private static WeatherTableData tableData(RecordWeather[] weathers) {
+        WeatherTableData tableData = new WeatherTableData(weathers);
+        for (String key : WeatherTableData.keys) {
+            tableData.getCategoryAvgScore(key);
+        }
+        return tableData;
+    }
+
+    /**
+     * Elimina una cartella e il suo contenuto, se presente.
+     *
+     * @param directory La cartella da eliminare.
+     * @throws IOException Se si verifica un errore durante l'eliminazione.
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory))
+            return;
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,541 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import models.file.Journal;
+import models.logic.LogicOperator;
+import models.record.RecordCenter;
+import models.record.RecordCity;
+import models.record.RecordOperator;
+import models.record.RecordWeather;
+import models.record.RecordWeather.WeatherData;
+import utils.Constants;
+
+/**
+ * La classe {@code SyntheticDataset} genera un insieme di file di dati
+ * sintetici, nello stesso formato dei file dell'applicazione, per misurarne le
+ * prestazioni e verificarne il comportamento con grandi quantit&agrave; di
+ * dati.
+ * <p>
+ * La dimensione &egrave; il numero di record meteorologici; il numero di
+ * citt&agrave;, centri e operatori viene ricavato da questa, se non indicato.
+ * I dati generati sono validi: ogni centro monitora un insieme di
+ * citt&agrave;, ogni rilevamento &egrave; registrato dal centro della sua
+ * citt&agrave; e ogni operatore pu&ograve; accedere con la password
+ * {@code Password<ID>!}.
+ * </p>
+ * <p>
+ * Il numero di rilevamenti per citt&agrave; segue una distribuzione di Zipf:
+ * con esponente 0 &egrave; uniforme, con esponente maggiore poche citt&agrave;
+ * raccolgono la maggior parte dei rilevamenti. Anche la lunghezza dei commenti
+ * &egrave; asimmetrica: segue una distribuzione esponenziale, limitata alla
+ * lunghezza massima ammessa, quindi la maggior parte dei commenti &egrave;
+ * breve e pochi sono lunghi.
+ * </p>
+ * <p>
+ * La generazione &egrave; deterministica: a parit&agrave; di seme e di
+ * parametri vengono prodotti sempre gli stessi file. I record vengono scritti
+ * man mano che sono generati, quindi la memoria utilizzata non dipende dal
+ * numero di rilevamenti.
+ * </p>
+ *
+ * @see benchmark.ModelsBenchmark
+ * @see mainPackage.GenerateDataset
+ * @see utils.Constants.Path.Files
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class SyntheticDataset {
+
+    /**
+     * Il seme predefinito del generatore di numeri casuali.
+     */
+    public static final long DEFAULT_SEED = 42L;
+
+    /**
+     * La lunghezza massima dei commenti ammessa dall'applicazione.
+     */
+    private static final int MAX_COMMENT_LENGTH = 256;
+
+    /**
+     * Il formato delle date dei record meteorologici.
+     */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /**
+     * La prima data dei rilevamenti generati.
+     */
+    private static final LocalDate FIRST_DATE = LocalDate.of(2014, 1, 1);
+
+    /**
+     * Il numero di giorni coperti dai rilevamenti generati.
+     */
+    private static final int DAYS = 3652;
+
+    /**
+     * Le sillabe dei nomi delle citt&agrave;.
+     */
+    private static final String[] SYLLABLES = {
+            "ba", "ca", "co", "da", "fe", "ga", "gi", "la", "li", "lo", "ma", "me", "mo", "na", "ni",
+            "pa", "po", "ra", "re", "ri", "ro", "sa", "se", "ta", "te", "to", "va", "ve", "vi", "za" };
+
+    /**
+     * I paesi delle citt&agrave;, come coppie di codice e nome.
+     */
+    private static final String[][] COUNTRIES = {
+            { "IT", "Italy" }, { "CH", "Switzerland" }, { "FR", "France" }, { "DE", "Germany" },
+            { "AT", "Austria" }, { "ES", "Spain" }, { "NO", "Norway" }, { "IS", "Iceland" },
+            { "CA", "Canada" }, { "US", "United States" }, { "AR", "Argentina" }, { "NP", "Nepal" } };
+
+    /**
+     * I nomi degli operatori.
+     */
+    private static final String[] FIRST_NAMES = {
+            "Mario", "Luca", "Giulia", "Anna", "Marco", "Sara", "Paolo", "Chiara", "Andrea", "Elena" };
+
+    /**
+     * I cognomi degli operatori.
+     */
+    private static final String[] LAST_NAMES = {
+            "Rossi", "Bianchi", "Ferrari", "Russo", "Colombo", "Ricci", "Marino", "Greco", "Bruno", "Gallo" };
+
+    /**
+     * Le parole dei commenti.
+     */
+    private static final String[] WORDS = {
+            "vento", "forte", "debole", "raffiche", "pioggia", "leggera", "intensa", "nebbia", "sereno",
+            "nuvoloso", "umido", "secco", "freddo", "caldo", "mattina", "sera", "ghiacciaio", "in", "ritiro",
+            "stabile", "misura", "ripetuta", "sensore", "da", "verificare", "neve", "fresca", "valori", "nella",
+            "norma" };
+
+    /**
+     * Il numero di record meteorologici.
+     */
+    private final int weatherCount;
+
+    /**
+     * Il seme del generatore di numeri casuali.
+     */
+    private long seed = DEFAULT_SEED;
+
+    /**
+     * Il numero di citt&agrave;.
+     */
+    private int cityCount;
+
+    /**
+     * Il numero di centri di monitoraggio.
+     */
+    private int centerCount;
+
+    /**
+     * Il numero di operatori.
+     */
+    private int operatorCount;
+
+    /**
+     * L'esponente della distribuzione di Zipf dei rilevamenti per citt&agrave;.
+     */
+    private double readingsSkew = 1.0;
+
+    /**
+     * La probabilit&agrave; che un dato meteorologico abbia un commento.
+     */
+    private double commentRate = 0.1;
+
+    /**
+     * La lunghezza media dei commenti.
+     */
+    private int commentLength = 40;
+
+    /**
+     * Costruttore della classe {@code SyntheticDataset}.
+     * <p>
+     * Vengono generati una citt&agrave; ogni 20 rilevamenti, un centro ogni
+     * 1000 e due operatori per centro, con un minimo di 100 citt&agrave; e 10
+     * centri.
+     * </p>
+     *
+     * @param weatherCount Il numero di record meteorologici da generare.
+     */
+    public SyntheticDataset(int weatherCount) {
+        this.weatherCount = weatherCount;
+        this.cityCount = Math.max(100, weatherCount / 20);
+        this.centerCount = Math.max(10, weatherCount / 1000);
+        this.operatorCount = centerCount * 2;
+    }
+
+    /**
+     * Imposta il seme del generatore di numeri casuali.
+     *
+     * @param seed Il seme.
+     * @return Questo insieme di dati.
+     */
+    public SyntheticDataset seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Imposta il numero di citt&agrave;.
+     *
+     * @param cityCount Il numero di citt&agrave;.
+     * @return Questo insieme di dati.
+     */
+    public SyntheticDataset cities(int cityCount) {
+        this.cityCount = cityCount;
+        return this;
+    }
+
+    /**
+     * Imposta il numero di centri di monitoraggio.
+     *
+     * @param centerCount Il numero di centri, non superiore a quello delle
+     *                    citt&agrave;.
+     * @return Questo insieme di dati.
+     */
+    public SyntheticDataset centers(int centerCount) {
+        this.centerCount = centerCount;
+        return this;
+    }
+
+    /**
+     * Imposta il numero di operatori.
+     *
+     * @param operatorCount Il numero di operatori.
+     * @return Questo insieme di dati.
+     */
+    public SyntheticDataset operators(int operatorCount) {
+        this.operatorCount = operatorCount;
+        return this;
+    }
+
+    /**
+     * Imposta l'esponente della distribuzione di Zipf dei rilevamenti per
+     * citt&agrave; (predefinito 1).
+     *
+     * @param readingsSkew L'esponente: 0 per una distribuzione uniforme, valori
+     *                     maggiori per una distribuzione pi&ugrave;
+     *                     asimmetrica.
+     * @return Questo insieme di dati.
+     */
+    public SyntheticDataset readingsSkew(double readingsSkew) {
+        this.readingsSkew = readingsSkew;
+        return this;
+    }
+
+    /**
+     * Imposta la probabilit&agrave; che un dato meteorologico abbia un commento
+     * (predefinita 0,1).
+     *
+     * @param commentRate La probabilit&agrave;, tra 0 e 1.
+     * @return Questo insieme di dati.
+     */
+    public SyntheticDataset commentRate(double commentRate) {
+        this.commentRate = commentRate;
+        return this;
+    }
+
+    /**
+     * Imposta la lunghezza media dei commenti (predefinita 40 caratteri).
+     *
+     * @param commentLength La lunghezza media, in caratteri.
+     * @return Questo insieme di dati.
+     */
+    public SyntheticDataset commentLength(int commentLength) {
+        this.commentLength = commentLength;
+        return this;
+    }
+
+    /**
+     * Restituisce il numero di citt&agrave; generate.
+     *
+     * @return Il numero di citt&agrave;, con ID da 1 al numero stesso.
+     */
+    public int getCityCount() {
+        return cityCount;
+    }
+
+    /**
+     * Restituisce il numero di centri generati.
+     *
+     * @return Il numero di centri, con ID da 1 al numero stesso.
+     */
+    public int getCenterCount() {
+        return centerCount;
+    }
+
+    /**
+     * Restituisce il numero di operatori generati.
+     *
+     * @return Il numero di operatori, con ID da 1 al numero stesso.
+     */
+    public int getOperatorCount() {
+        return operatorCount;
+    }
+
+    /**
+     * Restituisce il numero di record meteorologici generati.
+     *
+     * @return Il numero di record meteorologici, con ID da 1 al numero stesso.
+     */
+    public int getWeatherCount() {
+        return weatherCount;
+    }
+
+    /**
+     * Scrive i file di dati nella cartella specificata, sostituendo quelli
+     * eventualmente presenti ed eliminandone journal, sequenze, istantanea e
+     * catalogo, che non corrisponderebbero pi&ugrave; ai nuovi dati.
+     *
+     * @param directory La cartella in cui scrivere i file.
+     * @throws IOException              Se si verifica un errore durante la
+     *                                  scrittura.
+     * @throws IllegalArgumentException Se i parametri non sono validi.
+     */
+    public void write(Path directory) throws IOException {
+        if (weatherCount < 0 || cityCount < 1 || centerCount < 1 || centerCount > cityCount || operatorCount < 0)
+            throw new IllegalArgumentException("Numero di record non valido");
+        if (readingsSkew < 0 || commentRate < 0 || commentRate > 1 || commentLength < 1)
+            throw new IllegalArgumentException("Distribuzione non valida");
+
+        Files.createDirectories(directory);
+
+        for (String filePath : new String[] { Constants.Path.Files.CITY, Constants.Path.Files.CENTER,
+                Constants.Path.Files.OPERATOR, Constants.Path.Files.WEATHER }) {
+            Files.deleteIfExists(resolve(directory, filePath + Journal.EXTENSION));
+        }
+        Files.deleteIfExists(resolve(directory, Constants.Path.Files.SEQUENCE));
+        Files.deleteIfExists(resolve(directory, Constants.Path.Files.SNAPSHOT));
+        Files.deleteIfExists(resolve(directory, Constants.Path.Files.CITY_CATALOG));
+
+        writeCities(resolve(directory, Constants.Path.Files.CITY), new Random(seed));
+        writeCenters(resolve(directory, Constants.Path.Files.CENTER));
+        writeOperators(resolve(directory, Constants.Path.Files.OPERATOR), new Random(seed + 1));
+        writeWeathers(resolve(directory, Constants.Path.Files.WEATHER), new Random(seed + 2));
+    }
+
+    /**
+     * Restituisce il percorso di un file di dati in una cartella diversa da
+     * quella dell'applicazione.
+     *
+     * @param directory La cartella.
+     * @param filePath  Il percorso del file di dati dell'applicazione.
+     * @return Il percorso del file con lo stesso nome nella cartella.
+     */
+    private static Path resolve(Path directory, String filePath) {
+        return directory.resolve(Paths.get(filePath).getFileName());
+    }
+
+    /**
+     * Scrive il file delle citt&agrave;, con coordinate distribuite
+     * uniformemente.
+     *
+     * @param path   Il percorso del file.
+     * @param random Il generatore di numeri casuali.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private void writeCities(Path path, Random random) throws IOException {
+        try (BufferedWriter writer = newWriter(path,
+                "City ID", "Name", "ASCII Name", "Country Code", "Country Name", "Latitude", "Longitude")) {
+
+            StringBuilder name = new StringBuilder();
+            for (int ID = 1; ID <= cityCount; ID++) {
+                name.setLength(0);
+                int syllables = 2 + random.nextInt(3);
+                for (int i = 0; i < syllables; i++) {
+                    name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+                }
+                name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+
+                String ASCIIName = name.toString();
+                if (random.nextInt(8) == 0)
+                    name.setCharAt(name.length() - 1, 'à');
+
+                String[] country = COUNTRIES[random.nextInt(COUNTRIES.length)];
+                double latitude = (random.nextInt(180_00000) - 90_00000) / 100_000.0;
+                double longitude = (random.nextInt(360_00000) - 180_00000) / 100_000.0;
+
+                writeLine(writer, new RecordCity(ID, name.toString(), ASCIIName, country[0], country[1],
+                        latitude, longitude));
+            }
+        }
+    }
+
+    /**
+     * Scrive il file dei centri. Le citt&agrave; vengono ripartite a turno tra
+     * i centri, quindi ogni citt&agrave; &egrave; monitorata da un solo centro.
+     *
+     * @param path Il percorso del file.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private void writeCenters(Path path) throws IOException {
+        try (BufferedWriter writer = newWriter(path,
+                "Center ID", "Center Name", "Street Name", "Street Number", "CAP", "Town Name", "District Name",
+                "City IDs")) {
+
+            for (int ID = 1; ID <= centerCount; ID++) {
+                Integer[] cityIDs = new Integer[(cityCount - ID) / centerCount + 1];
+                for (int i = 0; i < cityIDs.length; i++) {
+                    cityIDs[i] = ID + i * centerCount;
+                }
+
+                writeLine(writer, new RecordCenter(ID, "Centro " + ID, "Via Roma", Integer.toString(ID),
+                        String.format(Locale.ROOT, "%05d", 10000 + ID % 90000), "Como", "CO", cityIDs));
+            }
+        }
+    }
+
+    /**
+     * Scrive il file degli operatori, assegnati a turno ai centri.
+     *
+     * @param path   Il percorso del file.
+     * @param random Il generatore di numeri casuali.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private void writeOperators(Path path, Random random) throws IOException {
+        LogicOperator logicOperator = new LogicOperator(null);
+
+        try (BufferedWriter writer = newWriter(path,
+                "Operator ID", "Name Surname", "Tax code", "Email", "Username", "Password", "Center ID")) {
+
+            for (int ID = 1; ID <= operatorCount; ID++) {
+                String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                String username = (firstName + "." + lastName + ID).toLowerCase(Locale.ROOT);
+
+                writeLine(writer, new RecordOperator(ID,
+                        firstName + " " + lastName,
+                        taxCode(random),
+                        username + "@example.com",
+                        username,
+                        logicOperator.hashPassword(username, "Password" + ID + "!"),
+                        1 + (ID - 1) % centerCount));
+            }
+        }
+    }
+
+    /**
+     * Scrive il file dei dati meteorologici. Le citt&agrave; seguono la
+     * distribuzione di Zipf impostata, le date e i punteggi sono distribuiti
+     * uniformemente.
+     *
+     * @param path   Il percorso del file.
+     * @param random Il generatore di numeri casuali.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private void writeWeathers(Path path, Random random) throws IOException {
+        double[] cumulativeWeights = new double[cityCount];
+        double total = 0;
+        for (int rank = 0; rank < cityCount; rank++) {
+            total += 1 / Math.pow(rank + 1, readingsSkew);
+            cumulativeWeights[rank] = total;
+        }
+
+        int[] cityByRank = new int[cityCount];
+        for (int i = 0; i < cityCount; i++) {
+            int j = random.nextInt(i + 1);
+            cityByRank[i] = cityByRank[j];
+            cityByRank[j] = i + 1;
+        }
+
+        try (BufferedWriter writer = newWriter(path,
+                "Record ID", "City ID", "Center ID", "Date", "Wind", "Humidity", "Pressure", "Temperature",
+                "Precipitation", "Glacier elevation", "Mass of glaciers")) {
+
+            WeatherData[] data = new WeatherData[7];
+            for (int ID = 1; ID <= weatherCount; ID++) {
+                int rank = Arrays.binarySearch(cumulativeWeights, random.nextDouble() * total);
+                int cityID = cityByRank[Math.min(rank < 0 ? -rank - 1 : rank, cityCount - 1)];
+
+                for (int i = 0; i < data.length; i++) {
+                    data[i] = new WeatherData(
+                            i > 0 && random.nextInt(20) == 0 ? null : 1 + random.nextInt(5),
+                            random.nextDouble() < commentRate ? comment(random) : Constants.EMPTY_STRING);
+                }
+
+                writeLine(writer, new RecordWeather(ID,
+                        cityID,
+                        1 + (cityID - 1) % centerCount,
+                        FIRST_DATE.plusDays(random.nextInt(DAYS)).format(DATE_FORMAT),
+                        data[0], data[1], data[2], data[3], data[4], data[5], data[6]));
+            }
+        }
+    }
+
+    /**
+     * Genera un commento, di lunghezza distribuita esponenzialmente attorno
+     * alla lunghezza media impostata.
+     *
+     * @param random Il generatore di numeri casuali.
+     * @return Il commento, lungo al pi&ugrave; quanto ammesso
+     *         dall'applicazione.
+     */
+    private String comment(Random random) {
+        int length = (int) Math.min(MAX_COMMENT_LENGTH,
+                Math.ceil(-commentLength * Math.log(1 - random.nextDouble())));
+
+        StringBuilder comment = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        while (true) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (comment.length() + 1 + word.length() > length)
+                break;
+            comment.append(' ').append(word);
+        }
+        comment.setLength(Math.min(comment.length(), length));
+        return comment.toString();
+    }
+
+    /**
+     * Genera un codice fiscale formalmente valido.
+     *
+     * @param random Il generatore di numeri casuali.
+     * @return Il codice fiscale.
+     */
+    private static String taxCode(Random random) {
+        StringBuilder taxCode = new StringBuilder();
+        for (char type : "LLLLLLDDLDDLDDDL".toCharArray()) {
+            taxCode.append(type == 'L' ? (char) ('A' + random.nextInt(26)) : (char) ('0' + random.nextInt(10)));
+        }
+        return taxCode.toString();
+    }
+
+    /**
+     * Apre un file in scrittura e vi scrive la riga di intestazione.
+     *
+     * @param path    Il percorso del file.
+     * @param headers Le intestazioni delle colonne.
+     * @return Lo stream di scrittura del file.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private static BufferedWriter newWriter(Path path, String... headers) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        writeLine(writer, String.join(Constants.CSV_SEPARATOR, headers));
+        return writer;
+    }
+
+    /**
+     * Scrive un record su una riga del file.
+     *
+     * @param writer Lo stream di scrittura del file.
+     * @param record Il record da scrivere.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private static void writeLine(BufferedWriter writer, Object record) throws IOException {
+        writer.write(record.toString());
+        writer.newLine();
+    }
+}
@@ -0,0 +1,107 @@
+package mainPackage;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import benchmark.SyntheticDataset;
+
+/**
+ * La classe {@code GenerateDataset} &egrave; il punto di ingresso per la
+ * generazione di file di dati sintetici, da utilizzare per misure di
+ * prestazioni e prove di carico prolungate.
+ * <p>
+ * Il primo argomento &egrave; la cartella in cui scrivere i file, il secondo
+ * il numero di record meteorologici; gli argomenti successivi, nella forma
+ * {@code --nome=valore}, modificano i parametri della generazione:
+ * </p>
+ * <ul>
+ * <li>{@code --seed}: il seme del generatore di numeri casuali;</li>
+ * <li>{@code --cities}, {@code --centers}, {@code --operators}: il numero di
+ * citt&agrave;, centri e operatori;</li>
+ * <li>{@code --skew}: l'esponente della distribuzione dei rilevamenti per
+ * citt&agrave; (0 per una distribuzione uniforme);</li>
+ * <li>{@code --comments}: la probabilit&agrave; che un dato meteorologico abbia
+ * un commento;</li>
+ * <li>{@code --commentLength}: la lunghezza media dei commenti.</li>
+ * </ul>
+ * <p>
+ * I file generati possono essere utilizzati dall'applicazione avviandola con
+ * la propriet&agrave; di sistema {@code -Dstorage.dataDir=<cartella>}.
+ * </p>
+ *
+ * @see benchmark.SyntheticDataset
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class GenerateDataset {
+
+    /**
+     * Il metodo principale della generazione.
+     * <p>
+     * Termina con codice di uscita 2 se gli argomenti non sono validi o in caso
+     * di errore di scrittura.
+     * </p>
+     *
+     * @param args La cartella, il numero di record meteorologici e i parametri
+     *             della generazione.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Utilizzo: GenerateDataset <cartella> <record meteorologici> [--seed=N] "
+                    + "[--cities=N] [--centers=N] [--operators=N] [--skew=S] [--comments=P] [--commentLength=N]");
+            System.exit(2);
+        }
+
+        try {
+            SyntheticDataset dataset = new SyntheticDataset(Integer.parseInt(args[1]));
+
+            for (int i = 2; i < args.length; i++) {
+                String[] option = args[i].split("=", 2);
+                if (option.length != 2)
+                    throw new IllegalArgumentException("Argomento non valido: " + args[i]);
+
+                switch (option[0]) {
+                    case "--seed":
+                        dataset.seed(Long.parseLong(option[1]));
+                        break;
+                    case "--cities":
+                        dataset.cities(Integer.parseInt(option[1]));
+                        break;
+                    case "--centers":
+                        dataset.centers(Integer.parseInt(option[1]));
+                        break;
+                    case "--operators":
+                        dataset.operators(Integer.parseInt(option[1]));
+                        break;
+                    case "--skew":
+                        dataset.readingsSkew(Double.parseDouble(option[1]));
+                        break;
+                    case "--comments":
+                        dataset.commentRate(Double.parseDouble(option[1]));
+                        break;
+                    case "--commentLength":
+                        dataset.commentLength(Integer.parseInt(option[1]));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Argomento non valido: " + args[i]);
+                }
+            }
+
+            long start = System.nanoTime();
+            dataset.write(Paths.get(args[0]));
+
+            System.out.println(args[0] + ": " + dataset.getCityCount() + " città, "
+                    + dataset.getCenterCount() + " centri, "
+                    + dataset.getOperatorCount() + " operatori, "
+                    + dataset.getWeatherCount() + " record meteorologici generati in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println("Errore nella generazione dei dati: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+}
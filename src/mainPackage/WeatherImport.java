@@ -0,0 +1,72 @@
+package mainPackage;
+
+import java.io.IOException;
+
+import models.data.DataHandler;
+import models.file.FileHandler;
+import models.logic.LogicWeatherImport;
+import models.logic.LogicWeatherImport.ImportResult;
+import models.logic.LogicWeatherImport.RowError;
+
+/**
+ * La classe {@code WeatherImport} &egrave; il punto di ingresso per
+ * l'importazione dei dati meteorologici da file CSV senza interfaccia
+ * grafica.
+ * <p>
+ * Ogni argomento della riga di comando &egrave; il percorso di un file da
+ * importare; per ogni file vengono stampati il numero di righe importate e gli
+ * errori delle righe scartate. I file di dati vengono creati se non esistono.
+ * </p>
+ * 
+ * @see models.data.DataHandler
+ * @see models.file.FileHandler
+ * @see models.logic.LogicWeatherImport
+ * 
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class WeatherImport {
+
+    /**
+     * Il metodo principale dell'importazione.
+     * <p>
+     * Termina con codice di uscita 1 se almeno una riga &egrave; stata scartata
+     * e con codice 2 in caso di errore di lettura o scrittura.
+     * </p>
+     * 
+     * @param args I percorsi dei file CSV da importare.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Utilizzo: WeatherImport <file.csv> [<file.csv> ...]");
+            System.exit(2);
+        }
+
+        new FileHandler();
+        LogicWeatherImport logicWeatherImport = new LogicWeatherImport(new DataHandler());
+        int exitCode = 0;
+
+        for (String filePath : args) {
+            try {
+                ImportResult result = logicWeatherImport.importFile(filePath);
+
+                System.out.println(filePath + ": " + result.imported.size() + " righe importate, "
+                        + result.errors.size() + " scartate");
+                for (RowError error : result.errors) {
+                    System.out.println("  " + error);
+                }
+
+                if (!result.errors.isEmpty())
+                    exitCode = Math.max(exitCode, 1);
+
+            } catch (IOException e) {
+                System.out.println(filePath + ": errore nell'importazione: " + e.getMessage());
+                exitCode = 2;
+            }
+        }
+
+        System.exit(exitCode);
+    }
+}
@@ -23,6 +23,7 @@ import models.logic.*;
  * @see models.logic.LogicOperator
  * @see models.logic.LogicCenter
  * @see models.logic.LogicCity
+ * @see models.logic.LogicWeatherImport
  * 
  * @author Andrea Tettamanti
  * @author Luca Mascetti
@@ -61,6 +62,11 @@ public class MainModel {
      */
     public LogicCity logicCity;
 
+    /**
+     * Gestisce l'inserimento in blocco dei dati meteorologici.
+     */
+    public LogicWeatherImport logicWeatherImport;
+
     /**
      * Costruttore della classe {@code MainModel}.
      * <p>
@@ -75,5 +81,6 @@ public class MainModel {
         logicOperator = new LogicOperator(data);
         logicCenter = new LogicCenter(data);
         logicCity = new LogicCity(data);
+        logicWeatherImport = new LogicWeatherImport(data);
     }
 }
@@ -0,0 +1,755 @@
+package models.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import models.record.RecordCity;
+
+/**
+ * La classe {@code CityCatalog} archivia le citt&agrave; in un file binario di
+ * sola lettura mappato in memoria, invece che come record nella memoria
+ * dell'applicazione.
+ * <p>
+ * Il catalogo contiene un record a lunghezza fissa per ogni citt&agrave;,
+ * ordinato per ID, e una tabella delle stringhe senza duplicati a cui i record
+ * fanno riferimento. La ricerca per ID avviene con una ricerca binaria e i
+ * record {@code RecordCity} vengono creati solo quando richiesti. Il catalogo
+ * contiene inoltre l'ordine dei record per nome, per nome ASCII e per codice
+ * del paese, usati dagli indici restituiti da {@link #index(String)}.
+ * </p>
+ * <p>
+ * Il file viene creato a partire dal file di dati delle citt&agrave; e
+ * riutilizzato finch&eacute; il file di dati e il suo journal non vengono
+ * modificati; essendo mappato in sola lettura, le sue pagine sono condivise
+ * tra pi&ugrave; istanze dell'applicazione sulla stessa macchina. Le
+ * citt&agrave; inserite o modificate durante l'esecuzione vengono conservate
+ * in memoria e sostituiscono quelle del file con lo stesso ID.
+ * </p>
+ * <p>
+ * La classe implementa l'interfaccia {@code Map} per ID, in modo da poter
+ * sostituire la mappa delle citt&agrave; di {@code DataStorage}; non &egrave;
+ * possibile rimuovere citt&agrave;.
+ * </p>
+ *
+ * @see models.data.DataStorage
+ * @see models.data.DataIndex
+ * @see models.record.RecordCity
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class CityCatalog extends AbstractMap<Integer, RecordCity> {
+
+    /**
+     * Identificativo del formato, all'inizio del file.
+     */
+    private static final int MAGIC = 0x4D434C43;
+
+    /**
+     * Versione del formato, da incrementare a ogni modifica del contenuto.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Dimensione dell'intestazione: identificativo, versione, stato del file di
+     * dati e del journal, numero di record, lunghezza della tabella delle
+     * stringhe e codice di controllo.
+     */
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + 4 * Long.BYTES + 2 * Integer.BYTES + Long.BYTES;
+
+    /**
+     * Dimensione di un record: ID, quattro riferimenti a stringhe, latitudine e
+     * longitudine.
+     */
+    private static final int RECORD_SIZE = 5 * Integer.BYTES + 2 * Double.BYTES;
+
+    /**
+     * Riferimento che rappresenta una stringa {@code null}.
+     */
+    private static final int NULL_STRING = -1;
+
+    /**
+     * Posizione del riferimento al nome in un record.
+     */
+    private static final int NAME = 1;
+
+    /**
+     * Posizione del riferimento al nome ASCII in un record.
+     */
+    private static final int ASCII_NAME = 2;
+
+    /**
+     * Posizione del riferimento al codice del paese in un record.
+     */
+    private static final int COUNTRY_CODE = 3;
+
+    /**
+     * Posizione del riferimento al nome del paese in un record.
+     */
+    private static final int COUNTRY_NAME = 4;
+
+    /**
+     * I campi ordinati nel catalogo, nell'ordine in cui sono scritti.
+     */
+    private static final int[] ORDERED_FIELDS = { NAME, ASCII_NAME, COUNTRY_CODE };
+
+    /**
+     * Il contenuto del catalogo, senza intestazione.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Il numero di record del catalogo.
+     */
+    private final int count;
+
+    /**
+     * La posizione degli ordini dei record nel contenuto.
+     */
+    private final int ordersOffset;
+
+    /**
+     * La posizione della tabella delle stringhe nel contenuto.
+     */
+    private final int stringsOffset;
+
+    /**
+     * Le citt&agrave; inserite o modificate dopo la creazione del catalogo, per
+     * ID.
+     */
+    private final HashMap<Integer, RecordCity> changes = new HashMap<>();
+
+    /**
+     * Il numero di citt&agrave; inserite con un ID non presente nel catalogo.
+     */
+    private int addedCount;
+
+    /**
+     * Crea un catalogo a partire dal suo contenuto.
+     *
+     * @param buffer      Il contenuto, senza intestazione.
+     * @param count       Il numero di record.
+     * @param stringsSize La lunghezza in byte della tabella delle stringhe.
+     */
+    private CityCatalog(ByteBuffer buffer, int count, int stringsSize) {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.count = count;
+        this.ordersOffset = count * RECORD_SIZE;
+        this.stringsOffset = ordersOffset + ORDERED_FIELDS.length * count * Integer.BYTES;
+
+        if (this.buffer.capacity() != stringsOffset + stringsSize)
+            throw new IllegalArgumentException("Lunghezza del catalogo non valida");
+    }
+
+    /**
+     * Apre il catalogo delle citt&agrave;, se presente e aggiornato rispetto al
+     * file di dati.
+     *
+     * @param catalogPath  Il percorso del catalogo.
+     * @param dataFilePath Il percorso del file di dati delle citt&agrave;.
+     * @return Il catalogo, o {@code null} se deve essere ricreato.
+     */
+    public static CityCatalog open(String catalogPath, String dataFilePath) {
+        try (FileChannel channel = FileChannel.open(Paths.get(catalogPath), StandardOpenOption.READ)) {
+            ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (file.remaining() < HEADER_SIZE || file.getInt() != MAGIC || file.getInt() != VERSION)
+                return null;
+
+            for (long stamp : StorageSnapshot.readStamps(dataFilePath)) {
+                if (file.getLong() != stamp)
+                    return null;
+            }
+
+            int count = file.getInt();
+            int stringsSize = file.getInt();
+            long checksum = file.getLong();
+
+            CRC32 crc = new CRC32();
+            crc.update(file.duplicate());
+            if (crc.getValue() != checksum)
+                return null;
+
+            return new CityCatalog(file, count, stringsSize);
+
+        } catch (NoSuchFileException e) {
+            return null;
+
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Catalogo delle città non valido, lettura dal file di dati: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Crea il catalogo delle citt&agrave; e lo scrive su file.
+     * <p>
+     * Se il file non pu&ograve; essere scritto il catalogo viene comunque
+     * restituito, mantenendone il contenuto in memoria.
+     * </p>
+     *
+     * @param catalogPath  Il percorso del catalogo.
+     * @param dataFilePath Il percorso del file di dati da cui sono state lette
+     *                     le citt&agrave;, che deve corrispondere a
+     *                     {@code cities}.
+     * @param cities       Le citt&agrave;, con ID distinti.
+     * @return Il catalogo creato.
+     * @throws IOException Se non &egrave; possibile rilevare lo stato del file di
+     *                     dati.
+     */
+    public static CityCatalog build(String catalogPath, String dataFilePath, Collection<RecordCity> cities)
+            throws IOException {
+        long[] stamps = StorageSnapshot.readStamps(dataFilePath);
+        ByteBuffer content = encode(cities);
+        int stringsSize = content.capacity() - cities.size() * (RECORD_SIZE + ORDERED_FIELDS.length * Integer.BYTES);
+
+        CRC32 crc = new CRC32();
+        crc.update(content.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION);
+        for (long stamp : stamps) {
+            header.putLong(stamp);
+        }
+        header.putInt(cities.size()).putInt(stringsSize).putLong(crc.getValue());
+        header.flip();
+
+        Path path = Paths.get(catalogPath);
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryPath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining() || content.hasRemaining()) {
+                    channel.write(new ByteBuffer[] { header, content });
+                }
+                channel.force(true);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            CityCatalog catalog = open(catalogPath, dataFilePath);
+            if (catalog != null)
+                return catalog;
+
+        } catch (IOException e) {
+            System.out.println("Errore nella scrittura del catalogo delle città: " + e.getMessage());
+        }
+
+        content.rewind();
+        return new CityCatalog(content, cities.size(), stringsSize);
+    }
+
+    /**
+     * Codifica le citt&agrave; nel contenuto del catalogo: i record ordinati per
+     * ID, gli ordini dei record per ciascun campo ordinato e la tabella delle
+     * stringhe.
+     *
+     * @param cities Le citt&agrave;, con ID distinti.
+     * @return Il contenuto, posizionato all'inizio.
+     */
+    private static ByteBuffer encode(Collection<RecordCity> cities) {
+        List<RecordCity> sorted = new ArrayList<>(cities);
+        sorted.sort(Comparator.comparingInt(RecordCity::ID));
+        int count = sorted.size();
+
+        HashMap<String, Integer> stringRefs = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[] stringsSize = { 0 };
+        Function<String, Integer> stringRef = string -> string == null ? NULL_STRING
+                : stringRefs.computeIfAbsent(string, key -> {
+                    byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                    strings.add(bytes);
+                    int ref = stringsSize[0];
+                    stringsSize[0] += Integer.BYTES + bytes.length;
+                    return ref;
+                });
+
+        int[][] refs = new int[count][];
+        for (int row = 0; row < count; row++) {
+            RecordCity city = sorted.get(row);
+            refs[row] = new int[] {
+                    city.ID(),
+                    stringRef.apply(city.name()),
+                    stringRef.apply(city.ASCIIName()),
+                    stringRef.apply(city.countryCode()),
+                    stringRef.apply(city.countryName()) };
+        }
+
+        ByteBuffer content = ByteBuffer
+                .allocate(count * (RECORD_SIZE + ORDERED_FIELDS.length * Integer.BYTES) + stringsSize[0])
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        for (int row = 0; row < count; row++) {
+            for (int ref : refs[row]) {
+                content.putInt(ref);
+            }
+            content.putDouble(sorted.get(row).latitude());
+            content.putDouble(sorted.get(row).longitude());
+        }
+
+        for (int field : ORDERED_FIELDS) {
+            String[] keys = new String[count];
+            for (int row = 0; row < count; row++) {
+                keys[row] = orderKey(field, fieldOf(sorted.get(row), field));
+            }
+
+            Integer[] order = new Integer[count];
+            for (int row = 0; row < count; row++) {
+                order[row] = row;
+            }
+            Arrays.sort(order, (a, b) -> compareKeys(keys[a], keys[b]));
+            for (Integer row : order) {
+                content.putInt(row);
+            }
+        }
+
+        for (byte[] bytes : strings) {
+            content.putInt(bytes.length);
+            content.put(bytes);
+        }
+
+        return content.flip();
+    }
+
+    @Override
+    public RecordCity get(Object key) {
+        if (!(key instanceof Integer))
+            return null;
+
+        RecordCity city = changes.get(key);
+        if (city != null)
+            return city;
+
+        int row = rowOf((Integer) key);
+        return row < 0 ? null : recordAt(row);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && (changes.containsKey(key) || rowOf((Integer) key) >= 0);
+    }
+
+    /**
+     * Inserisce una citt&agrave; o sostituisce quella con lo stesso ID. La
+     * citt&agrave; viene conservata in memoria e non modifica il file del
+     * catalogo.
+     *
+     * @param ID   L'ID della citt&agrave;, uguale a {@code city.ID()}.
+     * @param city La citt&agrave; da inserire.
+     * @return La citt&agrave; sostituita, o {@code null} se l'ID non era
+     *         presente.
+     * @throws IllegalArgumentException Se l'ID non coincide con quello della
+     *                                  citt&agrave;.
+     */
+    @Override
+    public RecordCity put(Integer ID, RecordCity city) {
+        if (ID == null || !ID.equals(city.ID()))
+            throw new IllegalArgumentException("ID non valido: " + ID);
+
+        RecordCity oldCity = get(ID);
+        if (oldCity == null)
+            addedCount++;
+        changes.put(ID, city);
+        return oldCity;
+    }
+
+    @Override
+    public int size() {
+        return count + addedCount;
+    }
+
+    /**
+     * Restituisce la dimensione del file del catalogo mappato in memoria, che
+     * non occupa lo heap.
+     *
+     * @return Il numero di byte mappati.
+     */
+    long mappedBytes() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new CityIterator<>() {
+                    @Override
+                    Integer valueAt(int row) {
+                        return idAt(row);
+                    }
+
+                    @Override
+                    Integer valueOf(RecordCity city) {
+                        return city.ID();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CityCatalog.this.size();
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Integer, RecordCity>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, RecordCity>> iterator() {
+                return new CityIterator<>() {
+                    @Override
+                    Entry<Integer, RecordCity> valueAt(int row) {
+                        return new SimpleImmutableEntry<>(idAt(row), recordAt(row));
+                    }
+
+                    @Override
+                    Entry<Integer, RecordCity> valueOf(RecordCity city) {
+                        return new SimpleImmutableEntry<>(city.ID(), city);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CityCatalog.this.size();
+            }
+        };
+    }
+
+    /**
+     * Crea un indice secondario su un campo delle citt&agrave;, che cerca le
+     * citt&agrave; del file nell'ordine memorizzato nel catalogo e quelle
+     * inserite durante l'esecuzione in memoria.
+     *
+     * @param key La chiave di interrogazione: {@code name} o {@code ASCIIName},
+     *            confrontati ignorando le maiuscole, oppure {@code countryCode}.
+     * @return Il nuovo indice, da mantenere allineato tramite
+     *         {@link DataIndex#replace}.
+     * @throws IllegalArgumentException Se la chiave non &egrave; ordinata nel
+     *                                  catalogo.
+     */
+    public DataIndex<RecordCity> index(String key) {
+        switch (key) {
+            case "name":
+                return new KeyIndex(NAME, RecordCity::name, true);
+            case "ASCIIName":
+                return new KeyIndex(ASCII_NAME, RecordCity::ASCIIName, true);
+            case "countryCode":
+                return new KeyIndex(COUNTRY_CODE, RecordCity::countryCode, false);
+            default:
+                throw new IllegalArgumentException("Chiave non ordinata: " + key);
+        }
+    }
+
+    /**
+     * Restituisce il record di una riga del catalogo.
+     *
+     * @param row La riga.
+     * @return Un nuovo record con i dati della riga.
+     */
+    private RecordCity recordAt(int row) {
+        int offset = row * RECORD_SIZE;
+        return new RecordCity(
+                buffer.getInt(offset),
+                stringAt(buffer.getInt(offset + NAME * Integer.BYTES)),
+                stringAt(buffer.getInt(offset + ASCII_NAME * Integer.BYTES)),
+                stringAt(buffer.getInt(offset + COUNTRY_CODE * Integer.BYTES)),
+                stringAt(buffer.getInt(offset + COUNTRY_NAME * Integer.BYTES)),
+                buffer.getDouble(offset + 5 * Integer.BYTES),
+                buffer.getDouble(offset + 5 * Integer.BYTES + Double.BYTES));
+    }
+
+    /**
+     * Restituisce l'ID di una riga del catalogo.
+     *
+     * @param row La riga.
+     * @return L'ID.
+     */
+    private int idAt(int row) {
+        return buffer.getInt(row * RECORD_SIZE);
+    }
+
+    /**
+     * Restituisce la riga del catalogo con l'ID specificato, ignorando le
+     * citt&agrave; inserite durante l'esecuzione.
+     *
+     * @param ID L'ID.
+     * @return La riga, o -1 se l'ID non &egrave; presente.
+     */
+    private int rowOf(int ID) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleID = idAt(middle);
+            if (middleID < ID)
+                low = middle + 1;
+            else if (middleID > ID)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    /**
+     * Restituisce una stringa della tabella delle stringhe.
+     *
+     * @param ref Il riferimento della stringa.
+     * @return La stringa, o {@code null} se il riferimento &egrave;
+     *         {@link #NULL_STRING}.
+     */
+    private String stringAt(int ref) {
+        if (ref == NULL_STRING)
+            return null;
+
+        int offset = stringsOffset + ref;
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        buffer.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Restituisce la chiave di ordinamento di un campo di una riga.
+     *
+     * @param field Il campo ordinato.
+     * @param row   La riga.
+     * @return La chiave, o {@code null} se il campo &egrave; assente.
+     */
+    private String orderKeyAt(int field, int row) {
+        return orderKey(field, stringAt(buffer.getInt(row * RECORD_SIZE + field * Integer.BYTES)));
+    }
+
+    /**
+     * Restituisce la riga in una posizione dell'ordine di un campo.
+     *
+     * @param field    Il campo ordinato.
+     * @param position La posizione nell'ordine.
+     * @return La riga.
+     */
+    private int rowInOrder(int field, int position) {
+        int order = 0;
+        while (ORDERED_FIELDS[order] != field) {
+            order++;
+        }
+        return buffer.getInt(ordersOffset + (order * count + position) * Integer.BYTES);
+    }
+
+    /**
+     * Restituisce la prima posizione dell'ordine di un campo la cui chiave non
+     * precede quella specificata.
+     *
+     * @param field Il campo ordinato.
+     * @param key   La chiave cercata.
+     * @param after {@code true} per cercare la prima chiave che segue quella
+     *              specificata.
+     * @return La posizione, o il numero di record se non presente.
+     */
+    private int boundOf(int field, String key, boolean after) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareKeys(orderKeyAt(field, rowInOrder(field, middle)), key);
+            if (comparison < 0 || (after && comparison == 0))
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Restituisce il valore di un campo ordinato di una citt&agrave;.
+     *
+     * @param city  La citt&agrave;.
+     * @param field Il campo.
+     * @return Il valore del campo.
+     */
+    private static String fieldOf(RecordCity city, int field) {
+        switch (field) {
+            case NAME:
+                return city.name();
+            case ASCII_NAME:
+                return city.ASCIIName();
+            default:
+                return city.countryCode();
+        }
+    }
+
+    /**
+     * Converte il valore di un campo nella sua chiave di ordinamento, con la
+     * stessa normalizzazione usata da {@code DataIndex}.
+     *
+     * @param field Il campo.
+     * @param value Il valore, eventualmente {@code null}.
+     * @return La chiave di ordinamento.
+     */
+    private static String orderKey(int field, String value) {
+        return value == null || field == COUNTRY_CODE ? value : DataIndex.foldCase(value);
+    }
+
+    /**
+     * Confronta due chiavi di ordinamento; la chiave {@code null} precede tutte
+     * le altre.
+     *
+     * @param a La prima chiave.
+     * @param b La seconda chiave.
+     * @return Il risultato del confronto.
+     */
+    private static int compareKeys(String a, String b) {
+        if (a == null || b == null)
+            return a == null ? (b == null ? 0 : -1) : 1;
+        return a.compareTo(b);
+    }
+
+    /**
+     * Iteratore sulle righe del catalogo non sostituite e poi sulle
+     * citt&agrave; inserite durante l'esecuzione.
+     *
+     * @param <E> Il tipo degli elementi restituiti.
+     */
+    private abstract class CityIterator<E> implements Iterator<E> {
+
+        /**
+         * La prossima riga del catalogo da restituire.
+         */
+        private int row = nextRow(0);
+
+        /**
+         * L'iteratore sulle citt&agrave; inserite durante l'esecuzione.
+         */
+        private final Iterator<RecordCity> changed = changes.values().iterator();
+
+        @Override
+        public boolean hasNext() {
+            return row < count || changed.hasNext();
+        }
+
+        @Override
+        public E next() {
+            if (row < count) {
+                E value = valueAt(row);
+                row = nextRow(row + 1);
+                return value;
+            }
+            if (!changed.hasNext())
+                throw new NoSuchElementException();
+            return valueOf(changed.next());
+        }
+
+        /**
+         * Restituisce la prima riga non sostituita a partire da quella
+         * specificata.
+         *
+         * @param from La prima riga da considerare.
+         * @return La riga, o il numero di record se non presente.
+         */
+        private int nextRow(int from) {
+            int next = from;
+            while (next < count && !changes.isEmpty() && changes.containsKey(idAt(next))) {
+                next++;
+            }
+            return next;
+        }
+
+        /**
+         * Restituisce l'elemento corrispondente a una riga del catalogo.
+         *
+         * @param row La riga.
+         * @return L'elemento.
+         */
+        abstract E valueAt(int row);
+
+        /**
+         * Restituisce l'elemento corrispondente a una citt&agrave; inserita
+         * durante l'esecuzione.
+         *
+         * @param city La citt&agrave;.
+         * @return L'elemento.
+         */
+        abstract E valueOf(RecordCity city);
+    }
+
+    /**
+     * Indice secondario su un campo ordinato del catalogo.
+     * <p>
+     * Le citt&agrave; del file vengono cercate con una ricerca binaria
+     * sull'ordine del campo, escludendo quelle sostituite; le citt&agrave;
+     * inserite durante l'esecuzione vengono indicizzate in memoria dalla classe
+     * base.
+     * </p>
+     */
+    private class KeyIndex extends DataIndex<RecordCity> {
+
+        /**
+         * Il campo ordinato.
+         */
+        private final int field;
+
+        /**
+         * Crea un nuovo indice su un campo ordinato.
+         *
+         * @param field        Il campo ordinato.
+         * @param keyExtractor La funzione che estrae il campo da una citt&agrave;.
+         * @param ignoreCase   {@code true} se il campo viene confrontato
+         *                     ignorando le maiuscole.
+         */
+        KeyIndex(int field, Function<RecordCity, Object> keyExtractor, boolean ignoreCase) {
+            super(keyExtractor, ignoreCase);
+            this.field = field;
+        }
+
+        @Override
+        public Collection<RecordCity> get(Object key) {
+            if (!(key instanceof String))
+                return super.get(key);
+
+            String orderKey = orderKey(field, (String) key);
+            int to = boundOf(field, orderKey, true);
+
+            List<RecordCity> cities = new ArrayList<>();
+            for (int position = boundOf(field, orderKey, false); position < to; position++) {
+                int row = rowInOrder(field, position);
+                if (!changes.containsKey(idAt(row)))
+                    cities.add(recordAt(row));
+            }
+            cities.addAll(super.get(key));
+            return Collections.unmodifiableList(cities);
+        }
+    }
+}
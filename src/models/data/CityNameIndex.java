@@ -0,0 +1,550 @@
+package models.data;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+import models.record.RecordCity;
+
+/**
+ * La classe {@code CityNameIndex} rappresenta un indice per il completamento
+ * automatico dei nomi delle citt&agrave;.
+ * <p>
+ * Il nome e il nome ASCII di ogni citt&agrave; vengono normalizzati ignorando
+ * maiuscole, accenti e punteggiatura (ad esempio "Saint-&Eacute;tienne"
+ * diventa "saint etienne") e indicizzati in tre strutture:
+ * </p>
+ * <ul>
+ * <li>un albero ordinato dei nomi, in cui le citt&agrave; il cui nome inizia
+ * con il testo cercato occupano un intervallo contiguo di chiavi;</li>
+ * <li>un albero ordinato delle parole interne al nome, per trovare "etienne"
+ * in "saint etienne";</li>
+ * <li>un indice dei trigrammi, che individua i nomi simili al testo cercato
+ * anche in presenza di errori di battitura.</li>
+ * </ul>
+ * <p>
+ * Le ricerche restituiscono prima le citt&agrave; il cui nome inizia con il
+ * testo cercato, poi quelle in cui lo contiene all'inizio di una parola e
+ * infine quelle che lo contengono con al pi&ugrave; {@link #maxTypos(int)}
+ * errori, ordinate per numero di errori.
+ * </p>
+ * <p>
+ * Le voci dell'indice memorizzano solo l'ID delle citt&agrave;; i record
+ * delle citt&agrave; trovate vengono richiesti alla funzione indicata al
+ * costruttore.
+ * </p>
+ *
+ * @see models.data.DataStorage
+ * @see models.data.DataQuery
+ * @see models.record.RecordCity
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class CityNameIndex {
+
+    /**
+     * Lunghezza minima del testo cercato perch&eacute; vengano tollerati errori
+     * di battitura.
+     */
+    public static final int MIN_FUZZY_LENGTH = 3;
+
+    /**
+     * Un nome normalizzato di una citt&agrave;.
+     */
+    private static class Entry {
+
+        /**
+         * L'ID della citt&agrave;.
+         */
+        final int cityID;
+
+        /**
+         * Il nome normalizzato.
+         */
+        final String key;
+
+        /**
+         * Le posizioni in cui iniziano le parole del nome.
+         */
+        final int[] wordStarts;
+
+        /**
+         * Crea un nome normalizzato.
+         *
+         * @param cityID L'ID della citt&agrave;.
+         * @param key    Il nome normalizzato.
+         */
+        Entry(int cityID, String key) {
+            this.cityID = cityID;
+            this.key = key;
+
+            int count = 1;
+            for (int i = 0; i < key.length(); i++) {
+                if (key.charAt(i) == ' ')
+                    count++;
+            }
+
+            wordStarts = new int[count];
+            for (int i = 0, word = 1; i < key.length(); i++) {
+                if (key.charAt(i) == ' ')
+                    wordStarts[word++] = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Un nome simile al testo cercato.
+     */
+    private static class Match {
+
+        /**
+         * Il nome.
+         */
+        final Entry entry;
+
+        /**
+         * La distanza di modifica dal testo cercato.
+         */
+        final int distance;
+
+        /**
+         * Crea un nome simile al testo cercato.
+         *
+         * @param entry    Il nome.
+         * @param distance La distanza di modifica dal testo cercato.
+         */
+        Match(Entry entry, int distance) {
+            this.entry = entry;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * I nomi normalizzati, in ordine alfabetico.
+     */
+    private final TreeMap<String, List<Entry>> names = new TreeMap<>();
+
+    /**
+     * Le parole dei nomi normalizzati successive alla prima, ciascuna seguita dal
+     * resto del nome, in ordine alfabetico.
+     */
+    private final TreeMap<String, List<Entry>> words = new TreeMap<>();
+
+    /**
+     * Mappa che associa ogni trigramma ai nomi che lo contengono.
+     */
+    private final HashMap<String, List<Entry>> trigrams = new HashMap<>();
+
+    /**
+     * Funzione che restituisce il record di una citt&agrave; dato il suo ID.
+     */
+    private final IntFunction<RecordCity> cityOf;
+
+    /**
+     * Crea un nuovo indice vuoto.
+     *
+     * @param cityOf La funzione che restituisce il record di una citt&agrave;
+     *               indicizzata dato il suo ID.
+     */
+    public CityNameIndex(IntFunction<RecordCity> cityOf) {
+        this.cityOf = cityOf;
+    }
+
+    /**
+     * Aggiunge una citt&agrave; all'indice.
+     *
+     * @param city La citt&agrave; da aggiungere.
+     */
+    public void add(RecordCity city) {
+        for (String key : keysOf(city)) {
+            Entry entry = new Entry(city.ID(), key);
+
+            names.computeIfAbsent(key, k -> new ArrayList<>(1)).add(entry);
+            for (int w = 1; w < entry.wordStarts.length; w++) {
+                words.computeIfAbsent(key.substring(entry.wordStarts[w]), k -> new ArrayList<>(1)).add(entry);
+            }
+
+            for (String trigram : trigramsOf(entry)) {
+                trigrams.computeIfAbsent(trigram, k -> new ArrayList<>(4)).add(entry);
+            }
+        }
+    }
+
+    /**
+     * Rimuove una citt&agrave; dall'indice.
+     *
+     * @param city La citt&agrave; da rimuovere, con i nomi con cui &egrave;
+     *             stata aggiunta.
+     */
+    public void remove(RecordCity city) {
+        for (String key : keysOf(city)) {
+            removeFrom(names, key, city.ID());
+
+            Entry entry = new Entry(city.ID(), key);
+            for (int w = 1; w < entry.wordStarts.length; w++) {
+                removeFrom(words, key.substring(entry.wordStarts[w]), city.ID());
+            }
+
+            for (String trigram : trigramsOf(entry)) {
+                removeFrom(trigrams, trigram, city.ID());
+            }
+        }
+    }
+
+    /**
+     * Sostituisce una citt&agrave; dell'indice con la sua nuova versione.
+     *
+     * @param oldCity La citt&agrave; da rimuovere (pu&ograve; essere
+     *                {@code null}).
+     * @param newCity La citt&agrave; da aggiungere.
+     */
+    public void replace(RecordCity oldCity, RecordCity newCity) {
+        if (oldCity != null)
+            remove(oldCity);
+        add(newCity);
+    }
+
+    /**
+     * Cerca le citt&agrave; il cui nome corrisponde al testo digitato.
+     * <p>
+     * Il testo viene normalizzato come i nomi indicizzati. Una citt&agrave;
+     * compare al pi&ugrave; una volta, nella posizione della sua corrispondenza
+     * migliore.
+     * </p>
+     *
+     * @param text Il testo digitato.
+     * @param k    Il numero massimo di citt&agrave; da restituire.
+     * @return Una lista di al pi&ugrave; {@code k} citt&agrave;, dalla
+     *         corrispondenza migliore alla peggiore.
+     */
+    public List<RecordCity> search(String text, int k) {
+        String query = normalize(text);
+        if (query.isEmpty() || k <= 0)
+            return Collections.emptyList();
+
+        LinkedHashSet<Integer> result = new LinkedHashSet<>();
+
+        collectPrefix(names, query, k, result);
+        collectPrefix(words, query, k, result);
+
+        if (result.size() < k && query.length() >= MIN_FUZZY_LENGTH)
+            collectFuzzy(query, k, result);
+
+        List<RecordCity> cities = new ArrayList<>(result.size());
+        for (int cityID : result) {
+            RecordCity city = cityOf.apply(cityID);
+            if (city != null)
+                cities.add(city);
+        }
+        return cities;
+    }
+
+    /**
+     * Normalizza un nome per l'indicizzazione o la ricerca: rimuove gli accenti,
+     * ignora le maiuscole e riduce ogni sequenza di caratteri diversi da lettere
+     * e cifre a un singolo spazio.
+     *
+     * @param text Il testo da normalizzare.
+     * @return Il testo normalizzato, eventualmente vuoto.
+     */
+    public static String normalize(String text) {
+        if (text == null)
+            return "";
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+
+            if (Character.getType(c) == Character.NON_SPACING_MARK)
+                continue;
+
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && builder.length() > 0)
+                    builder.append(' ');
+                builder.append(Character.toLowerCase(Character.toUpperCase(c)));
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Restituisce il numero massimo di errori di battitura tollerati per un
+     * testo di una certa lunghezza.
+     *
+     * @param length La lunghezza del testo normalizzato.
+     * @return Il numero di errori tollerati.
+     */
+    static int maxTypos(int length) {
+        if (length < MIN_FUZZY_LENGTH)
+            return 0;
+        return length < 8 ? 1 : 2;
+    }
+
+    /**
+     * Aggiunge ai risultati le citt&agrave; con una chiave che inizia con il
+     * testo cercato, in ordine alfabetico.
+     *
+     * @param tree   L'albero delle chiavi.
+     * @param query  Il testo normalizzato.
+     * @param k      Il numero massimo di risultati.
+     * @param result Gli ID delle citt&agrave; trovate, da completare.
+     */
+    private static void collectPrefix(TreeMap<String, List<Entry>> tree, String query, int k,
+            LinkedHashSet<Integer> result) {
+        for (List<Entry> entries : tree.subMap(query, true, query + Character.MAX_VALUE, false).values()) {
+            for (Entry entry : entries) {
+                if (result.size() >= k)
+                    return;
+                result.add(entry.cityID);
+            }
+        }
+    }
+
+    /**
+     * Aggiunge ai risultati le citt&agrave; che contengono, all'inizio di una
+     * parola, il testo cercato con al pi&ugrave; {@link #maxTypos(int)} errori.
+     * <p>
+     * Ogni errore altera al pi&ugrave; tre trigrammi: un nome abbastanza simile
+     * al testo contiene almeno {@code n - 3e} degli {@code n} trigrammi del
+     * testo, quindi compare in almeno uno dei {@code 3e + 1} elenchi di
+     * trigrammi pi&ugrave; brevi (pi&ugrave; due per ogni spazio del testo, i
+     * cui trigrammi a cavallo tra due parole possono mancare nel nome). Soltanto i nomi di questi elenchi vengono
+     * confrontati con il testo, calcolando la distanza di modifica tra il testo
+     * e l'inizio di ciascuna parola del nome; se il testo &egrave; composto da
+     * pi&ugrave; parole, ognuna pu&ograve; corrispondere anche a una parola
+     * diversa del nome.
+     * </p>
+     *
+     * @param query  Il testo normalizzato.
+     * @param k      Il numero massimo di risultati.
+     * @param result Gli ID delle citt&agrave; trovate, da completare.
+     */
+    private void collectFuzzy(String query, int k, LinkedHashSet<Integer> result) {
+        int maxTypos = maxTypos(query.length());
+        String[] queryWords = query.split(" ");
+
+        List<List<Entry>> postings = new ArrayList<>();
+        for (String trigram : trigramsOf(query, false)) {
+            postings.add(trigrams.getOrDefault(trigram, Collections.emptyList()));
+        }
+        postings.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        int lists = Math.min(postings.size(), 3 * maxTypos + 1 + 2 * (queryWords.length - 1));
+        HashSet<Entry> visited = new HashSet<>();
+        List<Match> matches = new ArrayList<>();
+
+        for (List<Entry> entries : postings.subList(0, lists)) {
+            for (Entry entry : entries) {
+                if (!visited.add(entry))
+                    continue;
+
+                int distance = distance(query, entry, maxTypos);
+                if (queryWords.length > 1)
+                    distance = Math.min(distance, wordDistance(queryWords, entry, maxTypos));
+
+                if (distance <= maxTypos && !result.contains(entry.cityID))
+                    matches.add(new Match(entry, distance));
+            }
+        }
+
+        matches.sort((a, b) -> {
+            int compare = Integer.compare(a.distance, b.distance);
+            if (compare == 0)
+                compare = Integer.compare(a.entry.key.length(), b.entry.key.length());
+            if (compare == 0)
+                compare = a.entry.key.compareTo(b.entry.key);
+            return compare;
+        });
+
+        for (Match match : matches) {
+            if (result.size() >= k)
+                return;
+            result.add(match.entry.cityID);
+        }
+    }
+
+    /**
+     * Calcola la minima distanza di modifica tra il testo cercato e l'inizio di
+     * una parola di un nome.
+     *
+     * @param query    Il testo normalizzato.
+     * @param entry    Il nome.
+     * @param maxTypos La distanza oltre la quale il calcolo viene interrotto.
+     * @return La distanza, o un valore maggiore di {@code maxTypos} se la
+     *         distanza lo supera.
+     */
+    private static int distance(String query, Entry entry, int maxTypos) {
+        int distance = maxTypos + 1;
+        for (int start : entry.wordStarts) {
+            distance = Math.min(distance, prefixDistance(query, entry.key, start, maxTypos));
+        }
+        return distance;
+    }
+
+    /**
+     * Calcola la distanza tra un testo di pi&ugrave; parole e un nome,
+     * confrontando ogni parola del testo con la parola del nome pi&ugrave;
+     * simile.
+     *
+     * @param queryWords Le parole del testo normalizzato.
+     * @param entry      Il nome.
+     * @param maxTypos   La distanza oltre la quale il calcolo viene interrotto.
+     * @return La somma delle distanze delle parole, o un valore maggiore di
+     *         {@code maxTypos} se la somma lo supera.
+     */
+    private static int wordDistance(String[] queryWords, Entry entry, int maxTypos) {
+        int total = 0;
+        for (String word : queryWords) {
+            total += distance(word, entry, Math.min(maxTypos - total, maxTypos(word.length())));
+            if (total > maxTypos)
+                return maxTypos + 1;
+        }
+        return total;
+    }
+
+    /**
+     * Calcola la minima distanza di modifica (inserimenti, cancellazioni,
+     * sostituzioni e scambi di caratteri adiacenti) tra il testo cercato e un
+     * prefisso della chiave a partire da una posizione.
+     *
+     * @param query    Il testo normalizzato.
+     * @param key      La chiave normalizzata.
+     * @param start    La posizione della chiave da cui iniziare il confronto.
+     * @param maxTypos La distanza oltre la quale il calcolo viene interrotto.
+     * @return La distanza, o un valore maggiore di {@code maxTypos} se la
+     *         distanza lo supera.
+     */
+    static int prefixDistance(String query, String key, int start, int maxTypos) {
+        int n = query.length();
+        int m = Math.min(key.length() - start, n + maxTypos);
+        if (m < n - maxTypos)
+            return maxTypos + 1;
+
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+            char q = query.charAt(i - 1);
+
+            for (int j = 1; j <= m; j++) {
+                char c = key.charAt(start + j - 1);
+                int cost = q == c ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+
+                if (i > 1 && j > 1 && q == key.charAt(start + j - 2) && query.charAt(i - 2) == c)
+                    value = Math.min(value, previous2[j - 2] + 1);
+
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+
+            if (rowMin > maxTypos)
+                return maxTypos + 1;
+
+            int[] swap = previous2;
+            previous2 = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int distance = Integer.MAX_VALUE;
+        for (int j = 0; j <= m; j++) {
+            distance = Math.min(distance, previous[j]);
+        }
+        return distance;
+    }
+
+    /**
+     * Restituisce i nomi normalizzati distinti di una citt&agrave;.
+     *
+     * @param city La citt&agrave;.
+     * @return Il nome e il nome ASCII normalizzati, senza duplicati e senza nomi
+     *         vuoti.
+     */
+    private static List<String> keysOf(RecordCity city) {
+        List<String> keys = new ArrayList<>(2);
+        for (String name : new String[] { city.name(), city.ASCIIName() }) {
+            String key = normalize(name);
+            if (!key.isEmpty() && !keys.contains(key))
+                keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * Restituisce i trigrammi distinti di un nome, calcolati come se ogni sua
+     * parola fosse preceduta da due spazi, in modo che un testo possa
+     * corrispondere anche all'inizio di una parola interna.
+     *
+     * @param entry Il nome.
+     * @return I trigrammi distinti.
+     */
+    private static List<String> trigramsOf(Entry entry) {
+        LinkedHashSet<String> result = new LinkedHashSet<>(trigramsOf(entry.key, true));
+        for (int w = 1; w < entry.wordStarts.length; w++) {
+            result.add("  " + entry.key.charAt(entry.wordStarts[w]));
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Restituisce i trigrammi distinti di un testo normalizzato, preceduto da due
+     * spazi in modo che anche l'inizio del testo formi dei trigrammi.
+     *
+     * @param text     Il testo normalizzato.
+     * @param complete {@code true} se il testo &egrave; un nome completo, che
+     *                 viene quindi seguito da uno spazio; {@code false} se
+     *                 &egrave; un testo ancora in corso di digitazione.
+     * @return I trigrammi distinti.
+     */
+    private static List<String> trigramsOf(String text, boolean complete) {
+        String padded = "  " + text + (complete ? " " : "");
+        LinkedHashSet<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Rimuove le voci di una citt&agrave; associate a una chiave.
+     *
+     * @param map    La mappa da cui rimuovere le voci.
+     * @param key    La chiave.
+     * @param cityID L'ID della citt&agrave;.
+     */
+    private static void removeFrom(Map<String, List<Entry>> map, String key, int cityID) {
+        List<Entry> entries = map.get(key);
+        if (entries == null)
+            return;
+
+        entries.removeIf(entry -> entry.cityID == cityID);
+        if (entries.isEmpty())
+            map.remove(key);
+    }
+
+}
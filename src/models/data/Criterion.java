@@ -0,0 +1,479 @@
+package models.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import models.data.QueryField.Matching;
+
+/**
+ * La classe {@code Criterion} rappresenta un criterio di selezione dei record,
+ * costruito a partire dai campi tipizzati di {@link QueryField} e combinabile
+ * con gli operatori logici {@link #and(Criterion)}, {@link #or(Criterion)} e
+ * {@link #not(Criterion)}.
+ * <p>
+ * Un criterio &egrave; un albero immutabile: le foglie sono confronti su un
+ * campo, i nodi interni sono congiunzioni, disgiunzioni e negazioni. I valori
+ * dei confronti vengono normalizzati una sola volta alla creazione, e i figli
+ * delle congiunzioni sono ordinati in modo che i confronti pi&ugrave; economici
+ * vengano verificati per primi. La struttura dell'albero &egrave; inoltre
+ * visibile a {@code DataQuery} e {@code WeatherColumns}, che la usano per
+ * scegliere gli indici e per verificare i dati meteorologici direttamente
+ * sulle colonne.
+ * </p>
+ *
+ * @param <T> Il tipo dei record.
+ *
+ * @see models.data.QueryField
+ * @see models.data.Query
+ * @see models.data.DataQuery
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public abstract class Criterion<T> {
+
+    /**
+     * Gli operatori di confronto.
+     */
+    enum Operator {
+        EQUAL,
+        IN,
+        LESS,
+        LESS_EQUAL,
+        GREATER,
+        GREATER_EQUAL,
+        NULL
+    }
+
+    /**
+     * Il criterio soddisfatto da tutti i record.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final Criterion ALL = new All<>();
+
+    /**
+     * Costruttore riservato alle classi interne.
+     */
+    private Criterion() {
+    }
+
+    /**
+     * Verifica se un record soddisfa il criterio.
+     *
+     * @param record Il record da verificare.
+     * @return {@code true} se il record soddisfa il criterio.
+     */
+    public abstract boolean test(T record);
+
+    /**
+     * Restituisce il costo relativo della verifica, usato per ordinare i figli
+     * delle congiunzioni e delle disgiunzioni.
+     *
+     * @return Il costo della verifica.
+     */
+    abstract int cost();
+
+    /**
+     * Crea il criterio soddisfatto dai record che soddisfano sia questo criterio
+     * sia quello specificato.
+     *
+     * @param other L'altro criterio.
+     * @return La congiunzione dei due criteri.
+     */
+    public Criterion<T> and(Criterion<T> other) {
+        return allOf(List.of(this, other));
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record che soddisfano questo criterio o
+     * quello specificato.
+     *
+     * @param other L'altro criterio.
+     * @return La disgiunzione dei due criteri.
+     */
+    public Criterion<T> or(Criterion<T> other) {
+        return anyOf(List.of(this, other));
+    }
+
+    /**
+     * Restituisce il criterio soddisfatto da tutti i record.
+     *
+     * @param <T> Il tipo dei record.
+     * @return Il criterio.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Criterion<T> all() {
+        return ALL;
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record che soddisfano tutti i criteri
+     * specificati.
+     *
+     * @param <T>      Il tipo dei record.
+     * @param criteria I criteri.
+     * @return La congiunzione dei criteri.
+     */
+    public static <T> Criterion<T> allOf(List<Criterion<T>> criteria) {
+        List<Criterion<T>> children = new ArrayList<>();
+        for (Criterion<T> criterion : criteria) {
+            if (criterion instanceof And)
+                children.addAll(((And<T>) criterion).children);
+            else if (!(criterion instanceof All))
+                children.add(criterion);
+        }
+
+        if (children.isEmpty())
+            return all();
+        if (children.size() == 1)
+            return children.get(0);
+        return new And<>(children);
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record che soddisfano almeno uno dei
+     * criteri specificati.
+     *
+     * @param <T>      Il tipo dei record.
+     * @param criteria I criteri.
+     * @return La disgiunzione dei criteri.
+     */
+    public static <T> Criterion<T> anyOf(List<Criterion<T>> criteria) {
+        List<Criterion<T>> children = new ArrayList<>();
+        for (Criterion<T> criterion : criteria) {
+            if (criterion instanceof All)
+                return criterion;
+            if (criterion instanceof Or)
+                children.addAll(((Or<T>) criterion).children);
+            else
+                children.add(criterion);
+        }
+
+        if (children.size() == 1)
+            return children.get(0);
+        return new Or<>(children);
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record che non soddisfano il criterio
+     * specificato.
+     *
+     * @param <T>       Il tipo dei record.
+     * @param criterion Il criterio da negare.
+     * @return La negazione del criterio.
+     */
+    public static <T> Criterion<T> not(Criterion<T> criterion) {
+        if (criterion instanceof Not)
+            return ((Not<T>) criterion).child;
+        return new Not<>(criterion);
+    }
+
+    /**
+     * Restituisce i criteri che devono essere soddisfatti tutti: i figli di una
+     * congiunzione, oppure il criterio stesso.
+     *
+     * @return La lista dei criteri congiunti.
+     */
+    List<Criterion<T>> conjuncts() {
+        return this instanceof All ? Collections.emptyList() : Collections.singletonList(this);
+    }
+
+    /**
+     * Ordina una lista di criteri per costo crescente.
+     *
+     * @param <T>      Il tipo dei record.
+     * @param criteria I criteri.
+     * @return Una lista non modificabile dei criteri ordinati.
+     */
+    private static <T> List<Criterion<T>> sortByCost(List<Criterion<T>> criteria) {
+        List<Criterion<T>> sorted = new ArrayList<>(criteria);
+        sorted.sort(Comparator.comparingInt(Criterion::cost));
+        return List.copyOf(sorted);
+    }
+
+    /**
+     * Il criterio soddisfatto da tutti i record.
+     *
+     * @param <T> Il tipo dei record.
+     */
+    static final class All<T> extends Criterion<T> {
+
+        @Override
+        public boolean test(T record) {
+            return true;
+        }
+
+        @Override
+        int cost() {
+            return 0;
+        }
+    }
+
+    /**
+     * La congiunzione di pi&ugrave; criteri.
+     *
+     * @param <T> Il tipo dei record.
+     */
+    static final class And<T> extends Criterion<T> {
+
+        /**
+         * I criteri congiunti, nell'ordine di verifica.
+         */
+        final List<Criterion<T>> children;
+
+        /**
+         * Crea una congiunzione.
+         *
+         * @param children I criteri congiunti.
+         */
+        private And(List<Criterion<T>> children) {
+            this.children = sortByCost(children);
+        }
+
+        @Override
+        public boolean test(T record) {
+            for (Criterion<T> child : children) {
+                if (!child.test(record))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        int cost() {
+            int cost = 0;
+            for (Criterion<T> child : children) {
+                cost += child.cost();
+            }
+            return cost;
+        }
+
+        @Override
+        List<Criterion<T>> conjuncts() {
+            return children;
+        }
+    }
+
+    /**
+     * La disgiunzione di pi&ugrave; criteri.
+     *
+     * @param <T> Il tipo dei record.
+     */
+    static final class Or<T> extends Criterion<T> {
+
+        /**
+         * I criteri alternativi, nell'ordine di verifica.
+         */
+        final List<Criterion<T>> children;
+
+        /**
+         * Crea una disgiunzione.
+         *
+         * @param children I criteri alternativi.
+         */
+        private Or(List<Criterion<T>> children) {
+            this.children = sortByCost(children);
+        }
+
+        @Override
+        public boolean test(T record) {
+            for (Criterion<T> child : children) {
+                if (child.test(record))
+                    return true;
+            }
+            return false;
+        }
+
+        @Override
+        int cost() {
+            int cost = 0;
+            for (Criterion<T> child : children) {
+                cost += child.cost();
+            }
+            return cost;
+        }
+    }
+
+    /**
+     * La negazione di un criterio.
+     *
+     * @param <T> Il tipo dei record.
+     */
+    static final class Not<T> extends Criterion<T> {
+
+        /**
+         * Il criterio negato.
+         */
+        final Criterion<T> child;
+
+        /**
+         * Crea una negazione.
+         *
+         * @param child Il criterio negato.
+         */
+        private Not(Criterion<T> child) {
+            this.child = child;
+        }
+
+        @Override
+        public boolean test(T record) {
+            return !child.test(record);
+        }
+
+        @Override
+        int cost() {
+            return child.cost();
+        }
+    }
+
+    /**
+     * Il confronto di un campo con uno o pi&ugrave; valori.
+     * <p>
+     * I confronti diversi da {@link Operator#NULL} non sono mai soddisfatti se
+     * il campo &egrave; assente.
+     * </p>
+     *
+     * @param <T> Il tipo dei record.
+     * @param <V> Il tipo del campo.
+     */
+    static final class Comparison<T, V extends Comparable<? super V>> extends Criterion<T> {
+
+        /**
+         * Il campo confrontato.
+         */
+        final QueryField<T, V> field;
+
+        /**
+         * L'operatore di confronto.
+         */
+        final Operator operator;
+
+        /**
+         * I valori del confronto, come specificati.
+         */
+        final List<V> values;
+
+        /**
+         * Il predicato sul valore normalizzato del campo.
+         */
+        private final Predicate<V> predicate;
+
+        /**
+         * Crea un confronto.
+         *
+         * @param field    Il campo confrontato.
+         * @param operator L'operatore di confronto.
+         * @param values   I valori del confronto.
+         */
+        Comparison(QueryField<T, V> field, Operator operator, List<V> values) {
+            this.field = field;
+            this.operator = operator;
+            this.values = values;
+            this.predicate = compile();
+        }
+
+        @Override
+        public boolean test(T record) {
+            return field.anyMatch(record, predicate);
+        }
+
+        @Override
+        int cost() {
+            int cost = field.isMultiValued() ? 2 : 0;
+            if (operator != Operator.EQUAL && operator != Operator.NULL)
+                cost++;
+            if (field.getMatching() != Matching.EXACT)
+                cost++;
+            return cost;
+        }
+
+        /**
+         * Crea il predicato sul valore normalizzato del campo.
+         *
+         * @return Il predicato.
+         */
+        private Predicate<V> compile() {
+            if (operator == Operator.NULL)
+                return value -> value == null;
+
+            if (field.getMatching() == Matching.APPROXIMATE)
+                return compileApproximate();
+
+            if (operator == Operator.IN) {
+                Set<V> targets = new HashSet<>();
+                for (V value : values) {
+                    if (value != null)
+                        targets.add(field.normalize(value));
+                }
+                return value -> value != null && targets.contains(value);
+            }
+
+            V target = field.normalize(values.get(0));
+            if (target == null)
+                return value -> false;
+
+            switch (operator) {
+                case EQUAL:
+                    return value -> target.equals(value);
+                case LESS:
+                    return value -> value != null && value.compareTo(target) < 0;
+                case LESS_EQUAL:
+                    return value -> value != null && value.compareTo(target) <= 0;
+                case GREATER:
+                    return value -> value != null && value.compareTo(target) > 0;
+                default:
+                    return value -> value != null && value.compareTo(target) >= 0;
+            }
+        }
+
+        /**
+         * Crea il predicato per un campo numerico confrontato con tolleranza:
+         * solo l'uguaglianza ammette una tolleranza, gli altri confronti sono
+         * esatti.
+         *
+         * @return Il predicato.
+         */
+        private Predicate<V> compileApproximate() {
+            if (operator != Operator.EQUAL && operator != Operator.IN) {
+                if (values.get(0) == null)
+                    return value -> false;
+
+                double target = ((Number) values.get(0)).doubleValue();
+                switch (operator) {
+                    case LESS:
+                        return value -> value != null && ((Number) value).doubleValue() < target;
+                    case LESS_EQUAL:
+                        return value -> value != null && ((Number) value).doubleValue() <= target;
+                    case GREATER:
+                        return value -> value != null && ((Number) value).doubleValue() > target;
+                    default:
+                        return value -> value != null && ((Number) value).doubleValue() >= target;
+                }
+            }
+
+            double[] targets = values.stream().filter(value -> value != null)
+                    .mapToDouble(value -> ((Number) value).doubleValue()).toArray();
+            double[] epsilons = Arrays.stream(targets).map(DataQuery::generateEpsilon).toArray();
+
+            return value -> {
+                if (value == null)
+                    return false;
+                double number = ((Number) value).doubleValue();
+                for (int i = 0; i < targets.length; i++) {
+                    if (Math.abs(number - targets[i]) < epsilons[i])
+                        return true;
+                }
+                return false;
+            };
+        }
+    }
+
+}
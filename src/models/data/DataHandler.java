@@ -2,17 +2,21 @@ package models.data;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-
-import javax.swing.JOptionPane;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 import models.file.FileHandler;
+import models.file.Journal;
+import models.metrics.Counter;
+import models.metrics.Metrics;
+import models.metrics.Timer;
 import models.record.RecordCenter;
 import models.record.RecordCity;
 import models.record.RecordOperator;
 import models.record.RecordWeather;
 import utils.Constants;
+import utils.Functions;
 
 /**
  * La classe {@code DataHandler} &egrave; responsabile della gestione dei dati
@@ -24,11 +28,25 @@ import utils.Constants;
  * condizioni.
  * </p>
  * <p>
+ * Se abilitato in {@link Constants.Storage#JOURNALING}, inserimenti e
+ * aggiornamenti vengono registrati nel journal del file di dati, che viene
+ * periodicamente compattato nel file stesso.
+ * </p>
+ * <p>
+ * Ogni scrittura mantiene acquisito in scrittura il lock dei dati
+ * dell'entit&agrave; per tutta la durata di controllo, scrittura su file,
+ * aggiornamento in memoria ed eventuale compattazione: i thread di
+ * acquisizione e le interrogazioni dell'interfaccia possono quindi essere
+ * eseguiti in parallelo, e un record &egrave; visibile alle interrogazioni
+ * solo dopo essere stato reso persistente.
+ * </p>
+ * <p>
  * Utilizza un'istanza condivisa di DataStorage per accedere ai dati
  * sottostanti.
  * </p>
  * 
  * @see models.file.FileHandler
+ * @see models.file.Journal
  * @see models.record.RecordCenter
  * @see models.record.RecordCity
  * @see models.record.RecordOperator
@@ -46,7 +64,38 @@ public class DataHandler extends DataQuery {
      * Crea un nuovo gestore dei dati inizializzando l'istanza condivisa di
      * {@code DataStorage}.
      */
-    private static DataStorage dataStorage = new DataStorage();
+    private static final DataStorage dataStorage = new DataStorage();
+
+    /**
+     * Timer degli inserimenti di un record, compresa l'attesa del lock.
+     */
+    private static final Timer insertTimer = Metrics.timer("handler.insert");
+
+    /**
+     * Timer degli inserimenti di un blocco di record meteorologici, compresa
+     * l'attesa del lock.
+     */
+    private static final Timer insertBatchTimer = Metrics.timer("handler.insertBatch");
+
+    /**
+     * Numero di record meteorologici inseriti in blocco.
+     */
+    private static final Counter insertBatchRecords = Metrics.counter("handler.insertBatch.records");
+
+    /**
+     * Timer degli aggiornamenti di un record, compresa l'attesa del lock.
+     */
+    private static final Timer updateTimer = Metrics.timer("handler.update");
+
+    /**
+     * Timer delle compattazioni dei journal.
+     */
+    private static final Timer compactTimer = Metrics.timer("handler.compact");
+
+    /**
+     * Numero di errori di scrittura mostrati all'utente.
+     */
+    private static final Counter writeErrors = Metrics.counter("handler.writeErrors");
 
     /**
      * Crea un nuovo gestore dei dati inizializzando l'istanza condivisa di
@@ -61,21 +110,18 @@ public class DataHandler extends DataQuery {
     }
 
     /**
-     * Genera una chiave primaria unica per una mappa di dati.
+     * Genera una chiave primaria unica a partire dalla sequenza di un'entit&agrave;.
+     * <p>
+     * La sequenza viene inizializzata al caricamento dei dati, quindi la
+     * generazione avviene in tempo costante, indipendentemente dal numero di
+     * record presenti.
+     * </p>
      *
-     * @param map La mappa di dati di cui generare la chiave primaria.
-     * @return Una chiave primaria unica basata sugli ID esistenti nella mappa.
+     * @param sequence La sequenza delle chiavi primarie dell'entit&agrave;.
+     * @return Una chiave primaria unica, maggiore di tutti gli ID esistenti.
      */
-    public Integer generatePrimaryKey(HashMap<Integer, ?> map) {
-        int highestKey = 0;
-
-        for (int key : map.keySet()) {
-            if (key > highestKey) {
-                highestKey = key;
-            }
-        }
-
-        return highestKey + 1;
+    public Integer generatePrimaryKey(IdSequence sequence) {
+        return sequence.next();
     }
 
     /**
@@ -100,7 +146,7 @@ public class DataHandler extends DataQuery {
             Integer centerID) {
 
         RecordOperator operator = new RecordOperator(
-                generatePrimaryKey(dataStorage.operatorMap),
+                generatePrimaryKey(dataStorage.operatorSequence),
                 nameSurname,
                 taxCode,
                 email,
@@ -108,27 +154,32 @@ public class DataHandler extends DataQuery {
                 password,
                 centerID);
 
-        List<QueryCondition> conditions = new ArrayList<>();
-        conditions.add(new QueryCondition("username", username));
-        conditions.add(new QueryCondition("password", password));
-
-        RecordOperator[] result = getOperatorBy(conditions);
-        if (result.length > 0) {
-            throw new IllegalArgumentException("L'utente esiste già");
-        }
-
+        boolean written = false;
+        long start = System.nanoTime();
+        Lock lock = dataStorage.operatorLock.writeLock();
+        lock.lock();
         try {
-            FileHandler.appendToFile(Constants.Path.Files.OPERATOR, operator.toString());
-            dataStorage.operatorMap.put(operator.ID(), operator);
+            List<RecordOperator> result = select(Query.operators()
+                    .where(QueryField.Operator.USERNAME.equalTo(username))
+                    .where(QueryField.Operator.PASSWORD.equalTo(password))
+                    .limit(1));
+            if (!result.isEmpty()) {
+                throw new IllegalArgumentException("L'utente esiste già");
+            }
+
+            appendRecord(Constants.Path.Files.OPERATOR, operator);
+            dataStorage.putOperator(operator);
+            written = true;
+            compactIfNeeded(Constants.Path.Files.OPERATOR, dataStorage.operatorMap);
             return operator;
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(
-                    null,
-                    "Errore nella scrittura dei dati.",
-                    "Errore",
-                    JOptionPane.ERROR_MESSAGE);
+            // il messaggio viene mostrato dopo aver rilasciato il lock
+        } finally {
+            lock.unlock();
+            insertTimer.record(System.nanoTime() - start);
         }
-        return null;
+        showWriteError("Errore nella scrittura dei dati.");
+        return written ? operator : null;
     }
 
     /**
@@ -155,7 +206,7 @@ public class DataHandler extends DataQuery {
             Integer[] cityIDs) {
 
         RecordCenter center = new RecordCenter(
-                generatePrimaryKey(dataStorage.centerMap),
+                generatePrimaryKey(dataStorage.centerSequence),
                 centerName,
                 streetName,
                 streetNumber,
@@ -164,33 +215,37 @@ public class DataHandler extends DataQuery {
                 districtName,
                 cityIDs);
 
-        List<QueryCondition> conditions = new ArrayList<>();
-
-        conditions.add(new QueryCondition("centerName", centerName));
-        conditions.add(new QueryCondition("streetName", streetName));
-        conditions.add(new QueryCondition("streetNumber", streetNumber));
-        conditions.add(new QueryCondition("CAP", CAP));
-        conditions.add(new QueryCondition("townName", townName));
-        conditions.add(new QueryCondition("districtName", districtName));
-        conditions.add(new QueryCondition("cityID", cityIDs));
-
-        RecordCenter[] result = getCenterBy(conditions);
-        if (result.length > 0) {
-            throw new IllegalArgumentException("Il centro esiste già");
-        }
-
+        boolean written = false;
+        long start = System.nanoTime();
+        Lock lock = dataStorage.centerLock.writeLock();
+        lock.lock();
         try {
-            FileHandler.appendToFile(Constants.Path.Files.CENTER, center.toString());
-            dataStorage.centerMap.put(center.ID(), center);
+            List<RecordCenter> result = select(Query.centers()
+                    .where(QueryField.Center.CENTER_NAME.equalTo(centerName))
+                    .where(QueryField.Center.STREET_NAME.equalTo(streetName))
+                    .where(QueryField.Center.STREET_NUMBER.equalTo(streetNumber))
+                    .where(QueryField.Center.CAP.equalTo(CAP))
+                    .where(QueryField.Center.TOWN_NAME.equalTo(townName))
+                    .where(QueryField.Center.DISTRICT_NAME.equalTo(districtName))
+                    .where(QueryField.Center.CITY_ID.in(cityIDs))
+                    .limit(1));
+            if (!result.isEmpty()) {
+                throw new IllegalArgumentException("Il centro esiste già");
+            }
+
+            appendRecord(Constants.Path.Files.CENTER, center);
+            dataStorage.putCenter(center);
+            written = true;
+            compactIfNeeded(Constants.Path.Files.CENTER, dataStorage.centerMap);
             return center;
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(
-                    null,
-                    "Errore nella scrittura dei dati.",
-                    "Errore",
-                    JOptionPane.ERROR_MESSAGE);
+            // il messaggio viene mostrato dopo aver rilasciato il lock
+        } finally {
+            lock.unlock();
+            insertTimer.record(System.nanoTime() - start);
         }
-        return null;
+        showWriteError("Errore nella scrittura dei dati.");
+        return written ? center : null;
     }
 
     /**
@@ -208,6 +263,9 @@ public class DataHandler extends DataQuery {
      * @param glacierElevation Dati sull'elevazione dei ghiacciai.
      * @param glacierMass      Dati sulla massa dei ghiacciai.
      * @return Il record meteorologico appena aggiunto.
+     * @throws IllegalArgumentException Se un punteggio non &egrave;
+     *                                  rappresentabile; in tal caso il record
+     *                                  non viene aggiunto.
      */
     public RecordWeather addNewRecord(
             Integer cityID,
@@ -222,7 +280,7 @@ public class DataHandler extends DataQuery {
             RecordWeather.WeatherData glacierMass) {
 
         RecordWeather newWeather = new RecordWeather(
-                generatePrimaryKey(dataStorage.weatherMap),
+                generatePrimaryKey(dataStorage.weatherSequence),
                 cityID,
                 centerID,
                 date,
@@ -234,17 +292,140 @@ public class DataHandler extends DataQuery {
                 glacierElevation,
                 glacierMass);
 
+        boolean written = false;
+        long start = System.nanoTime();
+        Lock lock = dataStorage.weatherLock.writeLock();
+        lock.lock();
         try {
-            FileHandler.appendToFile(Constants.Path.Files.WEATHER, newWeather.toString());
-            dataStorage.weatherMap.put(newWeather.ID(), newWeather);
+            dataStorage.putWeather(newWeather);
+            try {
+                appendRecord(Constants.Path.Files.WEATHER, newWeather);
+            } catch (IOException | RuntimeException e) {
+                dataStorage.removeWeather(newWeather);
+                throw e;
+            }
+            written = true;
+            compactIfNeeded(Constants.Path.Files.WEATHER, dataStorage.getWeatherRecords());
             return newWeather;
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(null,
-                    "Errore nella scrittura dei dati!",
-                    "Errore",
-                    JOptionPane.ERROR_MESSAGE);
+            // il messaggio viene mostrato dopo aver rilasciato il lock
+        } finally {
+            lock.unlock();
+            insertTimer.record(System.nanoTime() - start);
+        }
+        showWriteError("Errore nella scrittura dei dati!");
+        return written ? newWeather : null;
+    }
+
+    /**
+     * Aggiunge un blocco di record meteorologici al sistema.
+     * <p>
+     * Le chiavi primarie vengono riservate in blocco e i record vengono resi
+     * persistenti con un'unica scrittura, attendendo una sola volta che siano
+     * scritti su disco. Gli ID dei record ricevuti vengono ignorati; i record
+     * devono essere gi&agrave; stati validati.
+     * </p>
+     * <p>
+     * Il journal non viene compattato, per non riscrivere l'intero file di dati
+     * a ogni blocco: la compattazione avviene al termine dell'importazione
+     * tramite {@link #compactWeathersIfNeeded()} oppure alla scrittura singola
+     * successiva.
+     * </p>
+     *
+     * @param weathers I record meteorologici da aggiungere.
+     * @return I record meteorologici aggiunti, con le chiavi primarie assegnate,
+     *         nello stesso ordine di quelli ricevuti.
+     * @throws IOException              Se si verifica un errore durante la
+     *                                  scrittura; in tal caso nessun record
+     *                                  viene aggiunto.
+     * @throws IllegalArgumentException Se un punteggio di un record non
+     *                                  &egrave; rappresentabile; in tal caso
+     *                                  nessun record viene aggiunto.
+     */
+    public List<RecordWeather> addNewRecords(List<RecordWeather> weathers) throws IOException {
+        List<RecordWeather> newWeathers = new ArrayList<>(weathers.size());
+        if (weathers.isEmpty())
+            return newWeathers;
+
+        int firstID = dataStorage.weatherSequence.reserve(weathers.size());
+
+        List<String> lines = new ArrayList<>(weathers.size());
+        for (RecordWeather weather : weathers) {
+            RecordWeather newWeather = new RecordWeather(
+                    firstID + newWeathers.size(),
+                    weather.cityID(),
+                    weather.centerID(),
+                    weather.date(),
+                    weather.wind(),
+                    weather.humidity(),
+                    weather.pressure(),
+                    weather.temperature(),
+                    weather.precipitation(),
+                    weather.glacierElevation(),
+                    weather.glacierMass());
+
+            newWeathers.add(newWeather);
+            lines.add(newWeather.toString());
+        }
+
+        boolean reindexed = true;
+        long start = System.nanoTime();
+        Lock lock = dataStorage.weatherLock.writeLock();
+        lock.lock();
+        try {
+            int added = 0;
+            try {
+                for (RecordWeather newWeather : newWeathers) {
+                    dataStorage.putWeather(newWeather);
+                    added++;
+                }
+
+                if (Constants.Storage.JOURNALING) {
+                    FileHandler.getJournal(Constants.Path.Files.WEATHER).appendAll(lines);
+                } else {
+                    FileHandler.appendAllToFile(Constants.Path.Files.WEATHER, lines);
+                }
+            } catch (IOException | RuntimeException e) {
+                for (RecordWeather newWeather : newWeathers.subList(0, added)) {
+                    dataStorage.removeWeather(newWeather);
+                }
+                throw e;
+            }
+            insertBatchRecords.add(newWeathers.size());
+            if (!Constants.Storage.JOURNALING) {
+                try {
+                    dataStorage.writtenToFile(Constants.Path.Files.WEATHER);
+                } catch (IOException e) {
+                    // i record sono già nel file, il messaggio viene mostrato dopo aver rilasciato il lock
+                    reindexed = false;
+                }
+            }
+        } finally {
+            lock.unlock();
+            insertBatchTimer.record(System.nanoTime() - start);
+        }
+
+        if (!reindexed)
+            showWriteError("Errore nella lettura dei dati.");
+        return newWeathers;
+    }
+
+    /**
+     * Compatta il journal dei dati meteorologici se ha raggiunto la soglia
+     * prevista. Viene invocato al termine di un'importazione, dato che i
+     * blocchi di record non compattano il journal.
+     *
+     * @throws IOException Se si verifica un errore durante la compattazione;
+     *                     i record restano comunque nel journal.
+     */
+    public void compactWeathersIfNeeded() throws IOException {
+        Lock lock = dataStorage.weatherLock.writeLock();
+        lock.lock();
+        try {
+            compactIfNeeded(Constants.Path.Files.WEATHER, dataStorage.getWeatherRecords());
+        } finally {
+            lock.unlock();
         }
-        return null;
     }
 
     /**
@@ -253,8 +434,21 @@ public class DataHandler extends DataQuery {
      * @param city Il record citt&agrave; da aggiornare.
      */
     public void updateRecord(RecordCity city) {
-        updateRecord(Constants.Path.Files.CITY, city.ID(), city);
-        dataStorage.cityMap.put(city.ID(), city);
+        long start = System.nanoTime();
+        Lock lock = dataStorage.cityLock.writeLock();
+        lock.lock();
+        try {
+            updateRecord(Constants.Path.Files.CITY, city.ID(), city);
+            dataStorage.putCity(city);
+            compactIfNeeded(Constants.Path.Files.CITY, dataStorage.cityMap);
+            return;
+        } catch (IOException e) {
+            // il messaggio viene mostrato dopo aver rilasciato il lock
+        } finally {
+            lock.unlock();
+            updateTimer.record(System.nanoTime() - start);
+        }
+        showWriteError("Errore nella scrittura dei dati.");
     }
 
     /**
@@ -263,8 +457,21 @@ public class DataHandler extends DataQuery {
      * @param operator Il record operatore da aggiornare.
      */
     public void updateRecord(RecordOperator operator) {
-        updateRecord(Constants.Path.Files.OPERATOR, operator.ID(), operator);
-        dataStorage.operatorMap.put(operator.ID(), operator);
+        long start = System.nanoTime();
+        Lock lock = dataStorage.operatorLock.writeLock();
+        lock.lock();
+        try {
+            updateRecord(Constants.Path.Files.OPERATOR, operator.ID(), operator);
+            dataStorage.putOperator(operator);
+            compactIfNeeded(Constants.Path.Files.OPERATOR, dataStorage.operatorMap);
+            return;
+        } catch (IOException e) {
+            // il messaggio viene mostrato dopo aver rilasciato il lock
+        } finally {
+            lock.unlock();
+            updateTimer.record(System.nanoTime() - start);
+        }
+        showWriteError("Errore nella scrittura dei dati.");
     }
 
     /**
@@ -273,8 +480,21 @@ public class DataHandler extends DataQuery {
      * @param center Il record centro da aggiornare.
      */
     public void updateRecord(RecordCenter center) {
-        updateRecord(Constants.Path.Files.CENTER, center.ID(), center);
-        dataStorage.centerMap.put(center.ID(), center);
+        long start = System.nanoTime();
+        Lock lock = dataStorage.centerLock.writeLock();
+        lock.lock();
+        try {
+            updateRecord(Constants.Path.Files.CENTER, center.ID(), center);
+            dataStorage.putCenter(center);
+            compactIfNeeded(Constants.Path.Files.CENTER, dataStorage.centerMap);
+            return;
+        } catch (IOException e) {
+            // il messaggio viene mostrato dopo aver rilasciato il lock
+        } finally {
+            lock.unlock();
+            updateTimer.record(System.nanoTime() - start);
+        }
+        showWriteError("Errore nella scrittura dei dati.");
     }
 
     /**
@@ -283,40 +503,148 @@ public class DataHandler extends DataQuery {
      * @param weather Il record meteorologico da aggiornare.
      */
     public void updateRecord(RecordWeather weather) {
-        updateRecord(Constants.Path.Files.WEATHER, weather.ID(), weather);
-        dataStorage.weatherMap.put(weather.ID(), weather);
+        long start = System.nanoTime();
+        Lock lock = dataStorage.weatherLock.writeLock();
+        lock.lock();
+        try {
+            RecordWeather oldWeather = dataStorage.getWeatherByID(weather.ID());
+            dataStorage.putWeather(weather);
+            try {
+                updateRecord(Constants.Path.Files.WEATHER, weather.ID(), weather);
+            } catch (IOException | RuntimeException e) {
+                if (oldWeather != null) {
+                    dataStorage.putWeather(oldWeather);
+                } else {
+                    dataStorage.removeWeather(weather);
+                }
+                throw e;
+            }
+            compactIfNeeded(Constants.Path.Files.WEATHER, dataStorage.getWeatherRecords());
+            return;
+        } catch (IOException e) {
+            // il messaggio viene mostrato dopo aver rilasciato il lock
+        } finally {
+            lock.unlock();
+            updateTimer.record(System.nanoTime() - start);
+        }
+        showWriteError("Errore nella scrittura dei dati.");
     }
 
     /**
      * Aggiorna un record esistente nel sistema.
+     * <p>
+     * Se il journal &egrave; abilitato il record aggiornato viene aggiunto in coda
+     * al journal del file; altrimenti il file viene letto e riscritto per
+     * intero.
+     * </p>
      *
      * @param filePath Il percorso del file in cui sono archiviati i dati del
      *                 record.
      * @param ID       L'ID del record da aggiornare.
      * @param object   L'oggetto Record da utilizzare per l'aggiornamento.
+     * @throws IOException Se si verifica un errore durante la scrittura.
      */
-    private void updateRecord(String filePath, int ID, Object object) {
-        try {
-            List<String> lines = FileHandler.readFile(filePath);
+    private void updateRecord(String filePath, int ID, Object object) throws IOException {
+        if (Constants.Storage.JOURNALING) {
+            FileHandler.getJournal(filePath).append(object.toString());
+            return;
+        }
 
-            for (int i = 1; i < lines.size(); i++) {
-                String[] line = lines.get(i).split(Constants.CSV_SEPARATOR);
+        List<String> lines = FileHandler.readFile(filePath);
 
-                if (Integer.parseInt(line[0]) == ID) {
-                    lines.set(i, object.toString());
-                    break;
-                }
+        for (int i = 1; i < lines.size(); i++) {
+            String[] line = lines.get(i).split(Constants.CSV_SEPARATOR);
+
+            if (Integer.parseInt(line[0]) == ID) {
+                lines.set(i, object.toString());
+                break;
             }
+        }
 
-            FileHandler.writeFile(filePath, lines);
+        FileHandler.writeFile(filePath, lines);
+    }
 
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(
-                    null,
-                    "Errore nella scrittura dei dati.",
-                    "Errore",
-                    JOptionPane.ERROR_MESSAGE);
+    /**
+     * Mostra all'utente un messaggio di errore di scrittura dei dati.
+     * <p>
+     * Il messaggio va mostrato senza mantenere acquisito alcun lock dei dati,
+     * per non bloccare gli altri thread finch&eacute; la finestra resta aperta.
+     * </p>
+     *
+     * @param message Il messaggio da mostrare.
+     */
+    private static void showWriteError(String message) {
+        writeErrors.increment();
+        Functions.showError(message);
+    }
+
+    /**
+     * Rende persistente un nuovo record, aggiungendolo al journal del file se
+     * abilitato oppure direttamente in coda al file di dati.
+     *
+     * @param filePath Il percorso del file in cui archiviare il record.
+     * @param record   Il record da aggiungere.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private void appendRecord(String filePath, Object record) throws IOException {
+        if (Constants.Storage.JOURNALING) {
+            FileHandler.getJournal(filePath).append(record.toString());
+        } else {
+            FileHandler.appendToFile(filePath, record.toString());
         }
     }
 
+    /**
+     * Compatta il journal di un file di dati se ha raggiunto la soglia prevista.
+     * <p>
+     * Il file di dati viene riscritto con lo stato corrente dei record, ordinati
+     * per ID, e il journal viene svuotato. Se l'applicazione si interrompe tra
+     * le due operazioni, al caricamento successivo le voci del journal vengono
+     * semplicemente riapplicate a dati gi&agrave; aggiornati.
+     * </p>
+     * <p>
+     * Va invocato mantenendo acquisito in scrittura il lock dei dati
+     * dell'entit&agrave; del file. In caso di errore il record che ha
+     * provocato la compattazione &egrave; gi&agrave; stato reso persistente nel
+     * journal, e la compattazione viene ritentata alla scrittura successiva; il
+     * messaggio di errore va mostrato dopo aver rilasciato il lock.
+     * </p>
+     * <p>
+     * Senza journal il file di dati &egrave; gi&agrave; aggiornato, e vengono
+     * solo rimossi dalla memoria i record dei dati meteorologici caricati su
+     * richiesta, se necessario.
+     * </p>
+     *
+     * @param filePath Il percorso del file di dati.
+     * @param map      La mappa contenente lo stato corrente dei record del file.
+     * @throws IOException Se si verifica un errore durante la compattazione.
+     */
+    private void compactIfNeeded(String filePath, Map<Integer, ?> map) throws IOException {
+        if (!Constants.Storage.JOURNALING) {
+            dataStorage.writtenToFile(filePath);
+            return;
+        }
+
+        Journal journal = FileHandler.getJournal(filePath);
+        if (journal.size() < Constants.Storage.JOURNAL_COMPACTION_THRESHOLD)
+            return;
+
+        compact(filePath, map);
+    }
+
+    /**
+     * Riscrive un file di dati con lo stato corrente dei record e ne svuota il
+     * journal.
+     *
+     * @param filePath Il percorso del file di dati.
+     * @param map      La mappa contenente lo stato corrente dei record del file.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    public void compact(String filePath, Map<Integer, ?> map) throws IOException {
+        long start = System.nanoTime();
+        dataStorage.compact(filePath, map);
+        dataStorage.saveSequences();
+        compactTimer.record(System.nanoTime() - start);
+    }
+
 }
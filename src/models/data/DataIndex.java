@@ -0,0 +1,180 @@
+package models.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * La classe {@code DataIndex} rappresenta un indice secondario di tipo hash su
+ * un campo dei record.
+ * <p>
+ * Associa ogni valore del campo indicizzato ai record che lo contengono,
+ * permettendo di risolvere le condizioni di uguaglianza di {@code DataQuery}
+ * senza scorrere tutti i record. Un record pu&ograve; essere associato a
+ * pi&ugrave; chiavi (ad esempio un centro con tutte le sue citt&agrave;).
+ * </p>
+ * <p>
+ * L'indice viene mantenuto allineato alle mappe di {@code DataStorage} tramite
+ * i metodi {@link #add(Object)} e {@link #remove(Object)}.
+ * </p>
+ *
+ * @param <T> Il tipo dei record indicizzati.
+ *
+ * @see models.data.DataStorage
+ * @see models.data.DataQuery
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class DataIndex<T> {
+
+    /**
+     * Funzione che estrae da un record le chiavi con cui indicizzarlo.
+     */
+    private final Function<T, Object[]> keysExtractor;
+
+    /**
+     * Indica se le chiavi di tipo stringa vengono confrontate ignorando le
+     * maiuscole.
+     */
+    private final boolean ignoreCase;
+
+    /**
+     * Mappa che associa ogni chiave ai record che la contengono.
+     */
+    private final HashMap<Object, List<T>> entries = new HashMap<>();
+
+    /**
+     * Crea un nuovo indice su un campo a valore singolo.
+     *
+     * @param keyExtractor La funzione che estrae la chiave da un record.
+     * @param ignoreCase   {@code true} se le chiavi di tipo stringa devono essere
+     *                     confrontate ignorando le maiuscole.
+     */
+    public DataIndex(Function<T, Object> keyExtractor, boolean ignoreCase) {
+        this.keysExtractor = record -> new Object[] { keyExtractor.apply(record) };
+        this.ignoreCase = ignoreCase;
+    }
+
+    /**
+     * Crea un nuovo indice su un campo a valori multipli.
+     *
+     * @param <T>           Il tipo dei record indicizzati.
+     * @param keysExtractor La funzione che estrae le chiavi da un record.
+     * @return Il nuovo indice.
+     */
+    public static <T> DataIndex<T> multiValued(Function<T, Object[]> keysExtractor) {
+        return new DataIndex<>(keysExtractor);
+    }
+
+    /**
+     * Costruttore per gli indici su campi a valori multipli.
+     *
+     * @param keysExtractor La funzione che estrae le chiavi da un record.
+     */
+    private DataIndex(Function<T, Object[]> keysExtractor) {
+        this.keysExtractor = keysExtractor;
+        this.ignoreCase = false;
+    }
+
+    /**
+     * Aggiunge un record all'indice.
+     *
+     * @param record Il record da aggiungere.
+     */
+    public void add(T record) {
+        for (Object key : keysExtractor.apply(record)) {
+            if (key != null) {
+                entries.computeIfAbsent(normalize(key), k -> new ArrayList<>(1)).add(record);
+            }
+        }
+    }
+
+    /**
+     * Rimuove un record dall'indice.
+     *
+     * @param record Il record da rimuovere (la stessa istanza aggiunta in
+     *               precedenza).
+     */
+    public void remove(T record) {
+        for (Object key : keysExtractor.apply(record)) {
+            if (key == null)
+                continue;
+
+            Object normalizedKey = normalize(key);
+            List<T> records = entries.get(normalizedKey);
+
+            if (records != null) {
+                records.removeIf(item -> item == record);
+                if (records.isEmpty())
+                    entries.remove(normalizedKey);
+            }
+        }
+    }
+
+    /**
+     * Sostituisce un record dell'indice con la sua nuova versione.
+     *
+     * @param oldRecord Il record da rimuovere (pu&ograve; essere {@code null}).
+     * @param newRecord Il record da aggiungere.
+     */
+    public void replace(T oldRecord, T newRecord) {
+        if (oldRecord != null)
+            remove(oldRecord);
+        add(newRecord);
+    }
+
+    /**
+     * Restituisce i record associati alla chiave specificata.
+     *
+     * @param key La chiave da cercare.
+     * @return Una collezione non modificabile dei record associati alla chiave,
+     *         vuota se la chiave non &egrave; presente.
+     */
+    public Collection<T> get(Object key) {
+        if (key == null)
+            return Collections.emptyList();
+
+        List<T> records = entries.get(normalize(key));
+        return records == null ? Collections.emptyList() : Collections.unmodifiableList(records);
+    }
+
+    /**
+     * Normalizza una chiave prima dell'inserimento o della ricerca.
+     * <p>
+     * Se l'indice ignora le maiuscole le stringhe vengono convertite carattere per
+     * carattere, con la stessa regola usata da
+     * {@link String#equalsIgnoreCase(String)}.
+     * </p>
+     *
+     * @param key La chiave da normalizzare.
+     * @return La chiave normalizzata.
+     */
+    private Object normalize(Object key) {
+        if (!ignoreCase || !(key instanceof String))
+            return key;
+
+        return foldCase((String) key);
+    }
+
+    /**
+     * Converte una stringa in una forma in cui due stringhe sono uguali se e
+     * solo se {@link String#equalsIgnoreCase(String)} le considera uguali.
+     *
+     * @param text La stringa da convertire.
+     * @return La stringa convertita.
+     */
+    static String foldCase(String text) {
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(text.charAt(i)));
+        }
+        return new String(chars);
+    }
+
+}
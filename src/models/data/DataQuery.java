@@ -1,14 +1,30 @@
 package models.data;
 
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.function.BiFunction;
-
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+import models.metrics.Metrics;
+import models.metrics.Timer;
 import models.record.RecordCity;
 import models.record.RecordOperator;
 import models.record.RecordCenter;
+import models.data.QueryPlan.Field;
 import models.record.RecordWeather;
+import utils.Functions;
 
 /**
  * La classe {@code DataQuery} fornisce metodi per interrogare e recuperare dati
@@ -20,11 +36,56 @@ import models.record.RecordWeather;
  * Questa classe offre una serie di metodi per filtrare i dati
  * in base a condizioni specifiche e recuperare i record corrispondenti.
  * </p>
+ * <p>
+ * Le condizioni di uguaglianza sull'ID o sui campi indicizzati vengono
+ * risolte tramite gli indici secondari di {@code DataStorage}, limitando la
+ * verifica ai soli record candidati.
+ * </p>
+ * <p>
+ * Ogni lista di condizioni viene compilata una sola volta in un
+ * {@link QueryPlan}, che verifica i candidati senza confrontare le chiavi delle
+ * condizioni per ogni record.
+ * </p>
+ * <p>
+ * In alternativa alle condizioni &egrave; possibile eseguire interrogazioni
+ * tipizzate costruite con {@link Query}, che ammettono congiunzioni,
+ * disgiunzioni, negazioni, confronti di intervallo, ordinamento e limite.
+ * </p>
+ * <p>
+ * Le interrogazioni sui dati meteorologici per intervallo di date vengono
+ * risolte tramite l'indice temporale di {@code WeatherColumns}, con una
+ * ricerca binaria sulle date invece di una scansione dei record.
+ * </p>
+ * <p>
+ * Ogni interrogazione acquisisce in lettura il lock dei dati dell'entit&agrave;
+ * interrogata, e restituisce quindi record coerenti anche se eseguita in
+ * parallelo a inserimenti o aggiornamenti svolti da altri thread.
+ * </p>
+ * <p>
+ * I risultati delle interrogazioni, escluse quelle tipizzate, vengono
+ * conservati in una {@link QueryCache}, invalidata per entit&agrave; a ogni
+ * scrittura: le interrogazioni ripetute, come la risoluzione delle
+ * citt&agrave; di un centro all'apertura di un pannello, restituiscono una
+ * copia del risultato conservato senza essere eseguite di nuovo.
+ * </p>
+ * <p>
+ * La durata di ogni interrogazione viene registrata nel timer del relativo
+ * tipo, consultabile tramite {@link Metrics}.
+ * </p>
  * 
  * @see models.record.RecordCity
  * @see models.record.RecordOperator
  * @see models.record.RecordCenter
  * @see models.record.RecordWeather
+ * @see models.data.Criterion
+ * @see models.data.DataIndex
+ * @see models.data.Query
+ * @see models.data.QueryCache
+ * @see models.data.QueryPlan
+ * @see models.data.SpatialIndex
+ * @see models.data.WeatherAggregate
+ * @see models.data.WeatherColumns
+ * @see models.data.WeatherRollup
  * 
  * @author Andrea Tettamanti
  * @author Luca Mascetti
@@ -33,6 +94,98 @@ import models.record.RecordWeather;
  */
 public class DataQuery {
 
+    /**
+     * Campi interrogabili delle citt&agrave;, per chiave di interrogazione.
+     */
+    private static final Map<String, Field<RecordCity>> CITY_FIELDS = Map.of(
+            "ID", Field.equal(Integer.class, RecordCity::ID),
+            "name", Field.ignoreCase(RecordCity::name),
+            "ASCIIName", Field.ignoreCase(RecordCity::ASCIIName),
+            "countryCode", Field.equal(String.class, RecordCity::countryCode),
+            "countryName", Field.ignoreCase(RecordCity::countryName),
+            "latitude", Field.approximate(RecordCity::latitude),
+            "longitude", Field.approximate(RecordCity::longitude));
+
+    /**
+     * Campi interrogabili degli operatori, per chiave di interrogazione.
+     */
+    private static final Map<String, Field<RecordOperator>> OPERATOR_FIELDS = Map.of(
+            "ID", Field.equal(Integer.class, RecordOperator::ID),
+            "nameSurname", Field.equal(String.class, RecordOperator::nameSurname),
+            "taxCode", Field.equal(String.class, RecordOperator::taxCode),
+            "email", Field.equal(String.class, RecordOperator::email),
+            "username", Field.equal(String.class, RecordOperator::username),
+            "password", Field.equal(String.class, RecordOperator::password),
+            "centerID", Field.equal(Integer.class, RecordOperator::centerID));
+
+    /**
+     * Campi interrogabili dei centri, per chiave di interrogazione.
+     */
+    private static final Map<String, Field<RecordCenter>> CENTER_FIELDS = Map.of(
+            "ID", Field.equal(Integer.class, RecordCenter::ID),
+            "centerName", Field.equal(String.class, RecordCenter::centerName),
+            "streetName", Field.equal(String.class, RecordCenter::streetName),
+            "streetNumber", Field.equal(String.class, RecordCenter::streetNumber),
+            "CAP", Field.equal(String.class, RecordCenter::CAP),
+            "townName", Field.equal(String.class, RecordCenter::townName),
+            "districtName", Field.equal(String.class, RecordCenter::districtName),
+            "cityID", Field.contains(RecordCenter::cityIDs));
+
+    /**
+     * Il formato delle date dei record meteorologici.
+     */
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(Functions.datePattern);
+
+    /**
+     * Timer delle interrogazioni sulle citt&agrave; per condizioni.
+     */
+    private static final Timer cityByTimer = Metrics.timer("query.cityBy");
+
+    /**
+     * Timer delle interrogazioni spaziali sulle citt&agrave;.
+     */
+    private static final Timer citySpatialTimer = Metrics.timer("query.citySpatial");
+
+    /**
+     * Timer delle ricerche delle citt&agrave; per nome digitato.
+     */
+    private static final Timer citySuggestionsTimer = Metrics.timer("query.citySuggestions");
+
+    /**
+     * Timer delle interrogazioni sugli operatori.
+     */
+    private static final Timer operatorByTimer = Metrics.timer("query.operatorBy");
+
+    /**
+     * Timer delle interrogazioni sui centri.
+     */
+    private static final Timer centerByTimer = Metrics.timer("query.centerBy");
+
+    /**
+     * Timer delle interrogazioni sui dati meteorologici per condizioni.
+     */
+    private static final Timer weatherByTimer = Metrics.timer("query.weatherBy");
+
+    /**
+     * Timer delle interrogazioni sui dati meteorologici per intervallo di date.
+     */
+    private static final Timer weatherBetweenTimer = Metrics.timer("query.weatherBetween");
+
+    /**
+     * Timer delle letture dei dati meteorologici aggregati.
+     */
+    private static final Timer weatherAggregateTimer = Metrics.timer("query.weatherAggregate");
+
+    /**
+     * Timer delle letture degli aggregati per periodo di tempo.
+     */
+    private static final Timer weatherRollupTimer = Metrics.timer("query.weatherRollup");
+
+    /**
+     * Timer delle interrogazioni tipizzate.
+     */
+    private static final Timer selectTimer = Metrics.timer("query.select");
+
     private DataStorage dataStorage;
 
     /**
@@ -49,7 +202,8 @@ public class DataQuery {
      * Ottiene una citt&agrave; basata sull'ID specificato.
      *
      * @param ID L'ID della citt&agrave; da cercare.
-     * @return Il record della citt&agrave; corrispondente all'ID specificato.
+     * @return Il record della citt&agrave; corrispondente all'ID specificato,
+     *         o {@code null} se non presente.
      * @throws IllegalArgumentException Se sono presenti pi&ugrave; citt&agrave; con lo
      *                                  stesso ID.
      */
@@ -58,7 +212,7 @@ public class DataQuery {
         if (matchingCity.length > 1)
             throw new IllegalArgumentException("Sono presenti molteplici città con lo stesso ID");
 
-        return matchingCity[0];
+        return matchingCity.length == 1 ? matchingCity[0] : null;
     }
 
     /**
@@ -82,17 +236,92 @@ public class DataQuery {
      *         specificate.
      */
     public RecordCity[] getCityBy(List<QueryCondition> conditions) {
-        List<RecordCity> matchingCity = filterData(dataStorage.cityMap.values(),
-                conditions,
-                this::checkCityCondition);
-        return matchingCity.toArray(new RecordCity[0]);
+        QueryPlan<RecordCity> plan = QueryPlan.compile(conditions, CITY_FIELDS);
+        return readCached(dataStorage.cityLock, cityByTimer, QueryCache.Key.of(Query.Entity.CITY, conditions),
+                () -> plan.filter(selectCityCandidates(conditions)).toArray(new RecordCity[0]));
+    }
+
+    /**
+     * Ottiene le citt&agrave; che si trovano alle coordinate specificate.
+     * <p>
+     * La tolleranza dipende dal numero di cifre decimali delle coordinate, come
+     * per le condizioni {@code "latitude"} e {@code "longitude"}.
+     * </p>
+     *
+     * @param latitude  La latitudine cercata.
+     * @param longitude La longitudine cercata.
+     * @return Un array di RecordCity alle coordinate specificate.
+     */
+    public RecordCity[] getCityByCoordinates(double latitude, double longitude) {
+        return readCached(dataStorage.cityLock, citySpatialTimer,
+                QueryCache.Key.of(Query.Entity.CITY, "coordinates", latitude, longitude),
+                () -> dataStorage.citySpatialIndex.findExact(latitude, longitude).toArray(new RecordCity[0]));
+    }
+
+    /**
+     * Ottiene le citt&agrave; che si trovano entro un raggio dalle coordinate
+     * specificate.
+     *
+     * @param latitude  La latitudine del centro della ricerca.
+     * @param longitude La longitudine del centro della ricerca.
+     * @param radiusKm  Il raggio della ricerca in chilometri.
+     * @return Un array di RecordCity ordinato per distanza crescente.
+     */
+    public RecordCity[] getCityWithinRadius(double latitude, double longitude, double radiusKm) {
+        return readCached(dataStorage.cityLock, citySpatialTimer,
+                QueryCache.Key.of(Query.Entity.CITY, "radius", latitude, longitude, radiusKm),
+                () -> dataStorage.citySpatialIndex.findWithinRadius(latitude, longitude, radiusKm)
+                        .toArray(new RecordCity[0]));
+    }
+
+    /**
+     * Ottiene le citt&agrave; pi&ugrave; vicine alle coordinate specificate.
+     *
+     * @param latitude  La latitudine del punto di riferimento.
+     * @param longitude La longitudine del punto di riferimento.
+     * @param k         Il numero massimo di citt&agrave; da restituire.
+     * @return Un array di al pi&ugrave; {@code k} RecordCity ordinato per distanza
+     *         crescente.
+     */
+    public RecordCity[] getNearestCities(double latitude, double longitude, int k) {
+        return readCached(dataStorage.cityLock, citySpatialTimer,
+                QueryCache.Key.of(Query.Entity.CITY, "nearest", latitude, longitude, k),
+                () -> dataStorage.citySpatialIndex.findNearest(latitude, longitude, k).toArray(new RecordCity[0]));
+    }
+
+    /**
+     * Ottiene le citt&agrave; il cui nome corrisponde al testo digitato, per il
+     * completamento automatico.
+     * <p>
+     * Il confronto ignora maiuscole, accenti e punteggiatura e considera sia il
+     * nome sia il nome ASCII. Vengono restituite prima le citt&agrave; il cui
+     * nome inizia con il testo, poi quelle in cui una parola del nome inizia
+     * con il testo e infine quelle che lo contengono con qualche errore di
+     * battitura.
+     * </p>
+     * <p>
+     * Il risultato non viene conservato nella cache delle interrogazioni: ogni
+     * prefisso digitato occuperebbe una voce, allontanando dalla cache le
+     * interrogazioni ripetute, mentre l'indice dei nomi risponde gi&agrave; in
+     * tempi trascurabili.
+     * </p>
+     *
+     * @param text Il testo digitato.
+     * @param k    Il numero massimo di citt&agrave; da restituire.
+     * @return Un array di al pi&ugrave; {@code k} RecordCity, dalla
+     *         corrispondenza migliore alla peggiore.
+     */
+    public RecordCity[] getCitySuggestions(String text, int k) {
+        return read(dataStorage.cityLock, citySuggestionsTimer,
+                () -> dataStorage.cityNameIndex.search(text, k).toArray(new RecordCity[0]));
     }
 
     /**
      * Ottiene un operatore basato sull'ID specificato.
      *
      * @param ID L'ID dell'operatore da cercare.
-     * @return Il record dell'operatore corrispondente all'ID specificato.
+     * @return Il record dell'operatore corrispondente all'ID specificato,
+     *         o {@code null} se non presente.
      * @throws IllegalArgumentException Se sono presenti pi&ugrave; operatori con lo
      *                                  stesso
      *                                  ID.
@@ -102,7 +331,7 @@ public class DataQuery {
         if (matchingOperator.length > 1)
             throw new IllegalArgumentException("Sono presenti molteplici operatori con lo stesso ID");
 
-        return matchingOperator[0];
+        return matchingOperator.length == 1 ? matchingOperator[0] : null;
     }
 
     /**
@@ -129,24 +358,52 @@ public class DataQuery {
      *         specificate.
      */
     public RecordOperator[] getOperatorBy(List<QueryCondition> conditions) {
-        List<RecordOperator> matchingOperator = filterData(dataStorage.operatorMap.values(),
-                conditions,
-                this::checkOperatorCondition);
-        return matchingOperator.toArray(new RecordOperator[0]);
+        QueryPlan<RecordOperator> plan = QueryPlan.compile(conditions, OPERATOR_FIELDS);
+        return readCached(dataStorage.operatorLock, operatorByTimer,
+                QueryCache.Key.of(Query.Entity.OPERATOR, conditions), () -> plan
+                .filter(selectCandidates(dataStorage.operatorMap, dataStorage.operatorIndexes, conditions))
+                .toArray(new RecordOperator[0]));
+    }
+    /**
+     * Ottiene gli operatori con il nome utente specificato, tramite l'indice
+     * sul nome utente e senza compilare un'interrogazione.
+     *
+     * @param username Il nome utente, confrontato considerando le maiuscole.
+     * @return Un array di RecordOperator con il nome utente specificato, di
+     *         norma con al pi&ugrave; un elemento.
+     */
+    public RecordOperator[] getOperatorsByUsername(String username) {
+        return read(dataStorage.operatorLock, operatorByTimer, () -> dataStorage.operatorIndexes.get("username")
+                .get(username).toArray(new RecordOperator[0]));
+    }
+
+    /**
+     * Restituisce il numero di inserimenti e aggiornamenti di operatori
+     * eseguiti dal caricamento dei dati. Il valore cambia a ogni scrittura di
+     * un operatore, e permette quindi di verificare in tempo costante se un
+     * operatore letto in precedenza &egrave; ancora aggiornato.
+     *
+     * @return Il numero di scritture degli operatori.
+     */
+    public long getOperatorVersion() {
+        return dataStorage.operatorVersion;
     }
+
     /**
      * Ottiene un array di centri.
      * @return Un array di RecordCenter che contiene tutti i centri.
      */
     public RecordCenter[] getCenters() {
-        return dataStorage.centerMap.values().toArray(new RecordCenter[0]);
+        return readCached(dataStorage.centerLock, centerByTimer, QueryCache.Key.of(Query.Entity.CENTER, "all"),
+                () -> dataStorage.centerMap.values().toArray(new RecordCenter[0]));
     }
 
     /**
      * Ottiene un centro basato sull'ID specificato.
      *
      * @param ID L'ID del centro da cercare.
-     * @return Il record del centro corrispondente all'ID specificato.
+     * @return Il record del centro corrispondente all'ID specificato,
+     *         o {@code null} se non presente.
      * @throws IllegalArgumentException Se sono presenti pi&ugrave; centri con lo
      *                                  stesso
      *                                  ID.
@@ -156,7 +413,7 @@ public class DataQuery {
         if (matchingCenter.length > 1)
             throw new IllegalArgumentException("Sono presenti molteplici centri con lo stesso ID");
 
-        return matchingCenter[0];
+        return matchingCenter.length == 1 ? matchingCenter[0] : null;
     }
 
     /**
@@ -182,17 +439,19 @@ public class DataQuery {
      *         specificate.
      */
     public RecordCenter[] getCenterBy(List<QueryCondition> conditions) {
-        List<RecordCenter> matchingCenter = filterData(dataStorage.centerMap.values(),
-                conditions,
-                this::checkCenterCondition);
-        return matchingCenter.toArray(new RecordCenter[0]);
+        QueryPlan<RecordCenter> plan = QueryPlan.compile(conditions, CENTER_FIELDS);
+        return readCached(dataStorage.centerLock, centerByTimer,
+                QueryCache.Key.of(Query.Entity.CENTER, conditions), () -> plan
+                .filter(selectCandidates(dataStorage.centerMap, dataStorage.centerIndexes, conditions))
+                .toArray(new RecordCenter[0]));
     }
 
     /**
      * Ottiene un record meteorologico basato sull'ID specificato.
      *
      * @param ID L'ID del record meteorologico da cercare.
-     * @return Il record meteorologico corrispondente all'ID specificato.
+     * @return Il record meteorologico corrispondente all'ID specificato,
+     *         o {@code null} se non presente.
      * @throws IllegalArgumentException Se sono presenti pi&ugrave; record
      *                                  meteorologici
      *                                  con lo stesso ID.
@@ -202,7 +461,7 @@ public class DataQuery {
         if (matchingWeather.length > 1)
             throw new IllegalArgumentException("Sono presenti molteplici record meteorologici con lo stesso ID");
 
-        return matchingWeather[0];
+        return matchingWeather.length == 1 ? matchingWeather[0] : null;
     }
 
     /**
@@ -229,261 +488,607 @@ public class DataQuery {
      *         specificate.
      */
     public RecordWeather[] getWeatherBy(List<QueryCondition> conditions) {
-        List<RecordWeather> matchingWeather = filterData(dataStorage.weatherMap.values(),
-                conditions,
-                this::checkWeatherCondition);
-        return matchingWeather.toArray(new RecordWeather[0]);
-    }
-
-    /**
-     * Filtra una collezione di dati in base a una lista di condizioni specificate e
-     * restituisce
-     * una lista di elementi che soddisfano tutte le condizioni.
-     *
-     * @param data             La collezione di dati da filtrare.
-     * @param conditions       La lista di condizioni per il filtro.
-     * @param conditionChecker Una funzione che verifica se un elemento soddisfa una
-     *                         condizione specifica.
-     * @param <T>              Il tipo degli elementi nella collezione di dati.
-     * @return Una lista di elementi che soddisfano tutte le condizioni specificate.
-     */
-    private <T> List<T> filterData(Collection<T> data,
-            List<QueryCondition> conditions,
-            BiFunction<T, QueryCondition, Boolean> conditionChecker) {
-        List<T> matchingData = new ArrayList<>();
-
-        for (T item : data) {
-
-            boolean matches = false;
-
-            for (QueryCondition condition : conditions) {
-                if (condition.hasMultipleValues()) {
-                    Object value = condition.getValue();
-                    if (!(value instanceof List<?>)) {
-                        throw new IllegalArgumentException("Valore non valido");
-                    }
-                    List<?> values = (List<?>) value;
-
-                    for (Object val : values) {
-                        if (conditionChecker.apply(item, new QueryCondition(condition.getKey(), val))) {
-                            matches = true;
-                            break;
-                        }
-                    }
-                } else if (conditionChecker.apply(item, condition)) {
-                    matches = true;
-                } else {
-                    matches = false;
-                    break;
-                }
+        return readCached(dataStorage.weatherLock, weatherByTimer,
+                QueryCache.Key.of(Query.Entity.WEATHER, conditions), () -> {
+            WeatherColumns weatherColumns = selectWeatherColumns(conditions);
+            IntPredicate plan = weatherColumns.compile(conditions);
+
+            List<RecordWeather> matchingWeather = new ArrayList<>();
+            for (int row : selectWeatherRows(weatherColumns, conditions)) {
+                if (plan.test(row))
+                    matchingWeather.add(weatherColumns.recordAt(row));
             }
+            return matchingWeather.toArray(new RecordWeather[0]);
+        });
+    }
 
-            if (matches) {
-                matchingData.add(item);
+    /**
+     * Ottiene i record meteorologici con una data compresa in un intervallo,
+     * estremi inclusi.
+     * <p>
+     * L'intervallo viene selezionato tramite l'indice temporale dei dati
+     * meteorologici, senza scorrere n&eacute; convertire i record esterni
+     * all'intervallo. I record con una data non valida non vengono restituiti.
+     * </p>
+     *
+     * @param cityID L'ID della citt&agrave;, o {@code null} per tutte le
+     *               citt&agrave;.
+     * @param from   La prima data dell'intervallo.
+     * @param to     L'ultima data dell'intervallo.
+     * @return Un array di RecordWeather ordinato per data crescente.
+     */
+    public RecordWeather[] getWeatherBetween(Integer cityID, LocalDate from, LocalDate to) {
+        return readCached(dataStorage.weatherLock, weatherBetweenTimer,
+                QueryCache.Key.of(Query.Entity.WEATHER, "between", cityID, from, to), () -> {
+            WeatherColumns weatherColumns = dataStorage.getWeatherColumns(cityID, null);
+            List<Integer> rows = weatherColumns.rowsBetween(cityID, WeatherColumns.epochDay(from),
+                    WeatherColumns.epochDay(to));
+
+            RecordWeather[] matchingWeather = new RecordWeather[rows.size()];
+            for (int i = 0; i < matchingWeather.length; i++) {
+                matchingWeather[i] = weatherColumns.recordAt(rows.get(i));
             }
+            return matchingWeather;
+        });
+    }
 
-        }
-
-        return matchingData;
+    /**
+     * Ottiene i record meteorologici degli ultimi giorni, oggi compreso.
+     *
+     * @param cityID L'ID della citt&agrave;, o {@code null} per tutte le
+     *               citt&agrave;.
+     * @param days   Il numero di giorni.
+     * @return Un array di RecordWeather ordinato per data crescente.
+     */
+    public RecordWeather[] getWeatherOfLastDays(Integer cityID, int days) {
+        LocalDate today = LocalDate.now();
+        return getWeatherBetween(cityID, today.minusDays(days - 1L), today);
     }
 
     /**
-     * Verifica se la condizione specificata &egrave; soddisfatta per il record
-     * della citt&agrave;
-     * dato.
+     * Ottiene i record meteorologici di un mese.
      *
-     * @param city      La citt&agrave; da verificare.
-     * @param condition La condizione di interrogazione da verificare.
-     * @return {@code True} se la condizione &egrave; soddisfatta, altrimenti
-     *         {@code False}.
-     * @throws IllegalArgumentException Se la chiave specificata nella condizione
-     *                                  &egrave;
-     *                                  invalida.
+     * @param cityID L'ID della citt&agrave;, o {@code null} per tutte le
+     *               citt&agrave;.
+     * @param month  Il mese.
+     * @return Un array di RecordWeather ordinato per data crescente.
      */
-    private boolean checkCityCondition(RecordCity city, QueryCondition condition) {
+    public RecordWeather[] getWeatherOfMonth(Integer cityID, YearMonth month) {
+        return getWeatherBetween(cityID, month.atDay(1), month.atEndOfMonth());
+    }
 
-        String key = condition.getKey();
-        Object value = condition.getValue();
+    /**
+     * Ottiene i record meteorologici di un anno.
+     *
+     * @param cityID L'ID della citt&agrave;, o {@code null} per tutte le
+     *               citt&agrave;.
+     * @param year   L'anno.
+     * @return Un array di RecordWeather ordinato per data crescente.
+     */
+    public RecordWeather[] getWeatherOfYear(Integer cityID, Year year) {
+        return getWeatherBetween(cityID, year.atDay(1), year.atMonth(12).atEndOfMonth());
+    }
 
-        if (key.equals("ID")) {
-            Integer targetID = (Integer) value;
-            return city.ID().equals(targetID);
+    /**
+     * Ottiene i dati meteorologici aggregati di una citt&agrave;.
+     * <p>
+     * L'aggregato viene mantenuto a ogni inserimento o aggiornamento, quindi
+     * non &egrave; necessario scorrere i record meteorologici della citt&agrave;.
+     * </p>
+     *
+     * @param cityID L'ID della citt&agrave;.
+     * @return Una copia dei dati aggregati della citt&agrave;, o {@code null}
+     *         se non sono presenti record meteorologici.
+     */
+    public WeatherAggregate getWeatherAggregate(Integer cityID) {
+        return read(dataStorage.weatherLock, weatherAggregateTimer, () -> {
+            WeatherAggregate aggregate = dataStorage.getWeatherAggregate(cityID);
+            return aggregate != null && aggregate.getRecordCount() > 0 ? aggregate.copy() : null;
+        });
+    }
 
-        } else if (key.equals("name")) {
-            String targetName = (String) value;
-            return city.name().equalsIgnoreCase(targetName);
+    /**
+     * Esegue un'interrogazione tipizzata.
+     * <p>
+     * I record candidati vengono scelti tramite gli indici: tra i confronti di
+     * uguaglianza o di appartenenza in congiunzione con il resto del criterio
+     * viene usato quello che restituisce meno record. I dati meteorologici
+     * vengono verificati direttamente sulle colonne e solo quelli selezionati
+     * vengono convertiti in record. Se l'ordine dei risultati non &egrave;
+     * specificato la ricerca termina al raggiungimento del limite.
+     * </p>
+     *
+     * @param <T>   Il tipo dei record interrogati.
+     * @param query L'interrogazione.
+     * @return Una lista dei record che soddisfano il criterio, ordinati e
+     *         limitati come specificato dall'interrogazione.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> select(Query<T> query) {
+        switch (query.getEntity()) {
+            case CITY:
+                return read(dataStorage.cityLock, selectTimer, () -> (List<T>) select((Query<RecordCity>) query,
+                        dataStorage.cityMap, dataStorage.cityIndexes));
+            case OPERATOR:
+                return read(dataStorage.operatorLock, selectTimer, () -> (List<T>) select((Query<RecordOperator>) query,
+                        dataStorage.operatorMap, dataStorage.operatorIndexes));
+            case CENTER:
+                return read(dataStorage.centerLock, selectTimer, () -> (List<T>) select((Query<RecordCenter>) query,
+                        dataStorage.centerMap, dataStorage.centerIndexes));
+            default:
+                return read(dataStorage.weatherLock, selectTimer, () -> (List<T>) selectWeather((Query<RecordWeather>) query));
+        }
+    }
 
-        } else if (key.equals("ASCIIName")) {
-            String targetASCIIName = (String) value;
-            return city.ASCIIName().equalsIgnoreCase(targetASCIIName);
+    /**
+     * Esegue un'interrogazione tipizzata sui record di una mappa.
+     *
+     * @param <T>     Il tipo dei record.
+     * @param query   L'interrogazione.
+     * @param map     La mappa dei record per ID.
+     * @param indexes Gli indici secondari disponibili per l'entit&agrave;.
+     * @return La lista dei record selezionati.
+     */
+    private <T> List<T> select(Query<T> query, Map<Integer, T> map, HashMap<String, DataIndex<T>> indexes) {
+        Criterion<T> criterion = query.getCriterion();
+        int limit = query.getOrder() == null ? query.getLimit() : -1;
+
+        List<T> matchingRecords = new ArrayList<>();
+        if (limit == 0)
+            return matchingRecords;
+
+        for (T record : selectCandidates(map, indexes, criterion)) {
+            if (criterion.test(record)) {
+                matchingRecords.add(record);
+                if (matchingRecords.size() == limit)
+                    break;
+            }
+        }
+        return sortAndLimit(matchingRecords, query);
+    }
 
-        } else if (key.equals("countryCode")) {
-            String targetCountryCode = (String) value;
-            return city.countryCode().equals(targetCountryCode);
+    /**
+     * Esegue un'interrogazione tipizzata sui dati meteorologici.
+     *
+     * @param query L'interrogazione.
+     * @return La lista dei record selezionati.
+     */
+    private List<RecordWeather> selectWeather(Query<RecordWeather> query) {
+        int limit = query.getOrder() == null ? query.getLimit() : -1;
 
-        } else if (key.equals("countryName")) {
-            String targetCountryName = (String) value;
-            return city.countryName().equalsIgnoreCase(targetCountryName);
+        List<RecordWeather> matchingWeather = new ArrayList<>();
+        if (limit == 0)
+            return matchingWeather;
 
-        } else if (key.equals("latitude")) {
-            double targetLatitude = (double) value;
-            return Math.abs(city.latitude() - targetLatitude) < generateEpsilon(targetLatitude);
+        WeatherColumns weatherColumns = selectWeatherColumns(query.getCriterion());
+        IntPredicate plan = weatherColumns.compile(query.getCriterion());
 
-        } else if (key.equals("longitude")) {
-            double targetLongitude = (double) value;
-            return Math.abs(city.longitude() - targetLongitude) < generateEpsilon(targetLongitude);
+        for (int row : selectWeatherRows(weatherColumns, query.getCriterion())) {
+            if (plan.test(row)) {
+                matchingWeather.add(weatherColumns.recordAt(row));
+                if (matchingWeather.size() == limit)
+                    break;
+            }
         }
+        return sortAndLimit(matchingWeather, query);
+    }
+
+    /**
+     * Ordina i record selezionati e applica il limite dell'interrogazione.
+     *
+     * @param <T>     Il tipo dei record.
+     * @param records I record selezionati.
+     * @param query   L'interrogazione.
+     * @return La lista dei record ordinati e limitati.
+     */
+    private static <T> List<T> sortAndLimit(List<T> records, Query<T> query) {
+        if (query.getOrder() != null)
+            records.sort(query.getOrder());
+        if (query.getLimit() >= 0 && records.size() > query.getLimit())
+            return new ArrayList<>(records.subList(0, query.getLimit()));
+        return records;
+    }
 
-        throw new IllegalArgumentException("Chiave non valida");
+    /**
+     * Ottiene i dati meteorologici di una citt&agrave; aggregati per periodo di
+     * tempo.
+     * <p>
+     * Gli aggregati mensili e annuali vengono mantenuti a ogni inserimento o
+     * aggiornamento, quelli giornalieri vengono calcolati dai soli record
+     * dell'intervallo; in nessun caso &egrave; necessario scorrere tutti i
+     * record della citt&agrave;.
+     * </p>
+     *
+     * @param cityID      L'ID della citt&agrave;.
+     * @param granularity La durata dei periodi.
+     * @param from        La prima data dell'intervallo.
+     * @param to          L'ultima data dell'intervallo.
+     * @return La lista degli aggregati dei periodi con almeno un record, in
+     *         ordine cronologico.
+     *
+     * @see models.data.WeatherRollup#getBuckets(int, WeatherRollup.Granularity,
+     *      LocalDate, LocalDate)
+     */
+    public List<WeatherRollup.Bucket> getWeatherRollup(Integer cityID, WeatherRollup.Granularity granularity,
+            LocalDate from, LocalDate to) {
+        return new ArrayList<>(read(dataStorage.weatherLock, weatherRollupTimer,
+                () -> dataStorage.queryCache.get(
+                        QueryCache.Key.of(Query.Entity.WEATHER, "rollup", cityID, granularity, from, to),
+                        () -> dataStorage.getWeatherRollup(cityID).getBuckets(cityID, granularity, from, to),
+                        List::size)));
+    }
 
+    /**
+     * Esegue un'interrogazione mantenendo acquisito in lettura il lock dei
+     * dati di un'entit&agrave;, e ne registra la durata compresa l'attesa del
+     * lock.
+     *
+     * @param <T>    Il tipo del risultato.
+     * @param lock   Il lock dei dati dell'entit&agrave; interrogata.
+     * @param timer  Il timer dell'interrogazione.
+     * @param reader L'interrogazione da eseguire.
+     * @return Il risultato dell'interrogazione.
+     */
+    private static <T> T read(ReentrantReadWriteLock lock, Timer timer, Supplier<T> reader) {
+        return timer.time(() -> DataStorage.withLock(lock.readLock(), reader));
     }
 
     /**
-     * Verifica se la condizione specificata &egrave; soddisfatta per il record
-     * dell'operatore dato.
+     * Esegue un'interrogazione come {@link #read}, restituendo il risultato
+     * conservato nella cache delle interrogazioni se presente.
      *
-     * @param operator  L'operatore da verificare.
-     * @param condition La condizione di interrogazione da verificare.
-     * @return {@code True} se la condizione &egrave; soddisfatta, altrimenti
-     *         {@code False}.
-     * @throws IllegalArgumentException Se la chiave specificata nella condizione
-     *                                  &egrave;
-     *                                  invalida.
+     * @param <T>    Il tipo dei record.
+     * @param lock   Il lock dei dati dell'entit&agrave; interrogata.
+     * @param timer  Il timer dell'interrogazione.
+     * @param key    La chiave dell'interrogazione nella cache.
+     * @param reader L'interrogazione da eseguire se il risultato non &egrave;
+     *               conservato.
+     * @return Una copia del risultato dell'interrogazione.
      */
-    private boolean checkOperatorCondition(RecordOperator operator, QueryCondition condition) {
+    private <T> T[] readCached(ReentrantReadWriteLock lock, Timer timer, QueryCache.Key key, Supplier<T[]> reader) {
+        return read(lock, timer, () -> dataStorage.queryCache.get(key, reader, records -> records.length)).clone();
+    }
 
-        String key = condition.getKey();
-        Object value = condition.getValue();
+    /**
+     * Seleziona i record candidati da verificare per una lista di condizioni.
+     * <p>
+     * Tra le condizioni a valore singolo che riguardano l'ID o un campo
+     * indicizzato viene scelta quella che restituisce meno record; se nessuna
+     * condizione pu&ograve; essere risolta tramite un indice vengono restituiti
+     * tutti i record della mappa. I candidati vengono poi comunque verificati
+     * con tutte le condizioni dal piano compilato.
+     * </p>
+     *
+     * @param map        La mappa dei record per ID.
+     * @param indexes    Gli indici secondari disponibili per l'entit&agrave;.
+     * @param conditions La lista di condizioni dell'interrogazione.
+     * @param <T>        Il tipo dei record.
+     * @return La collezione dei record candidati.
+     */
+    private <T> Collection<T> selectCandidates(Map<Integer, T> map,
+            HashMap<String, DataIndex<T>> indexes,
+            List<QueryCondition> conditions) {
+        Collection<T> candidates = map.values();
+
+        for (QueryCondition condition : conditions) {
+            if (condition.hasMultipleValues())
+                continue;
+
+            Collection<T> selected;
+
+            if (condition.getKey().equals("ID") && condition.getValue() instanceof Integer) {
+                T item = map.get(condition.getValue());
+                selected = item == null ? Collections.emptyList() : Collections.singletonList(item);
+            } else if (indexes.containsKey(condition.getKey())) {
+                selected = indexes.get(condition.getKey()).get(condition.getValue());
+            } else {
+                continue;
+            }
 
-        if (key.equals("ID")) {
-            Integer targetID = (Integer) value;
-            return operator.ID().equals(targetID);
+            if (selected.size() < candidates.size())
+                candidates = selected;
+        }
 
-        } else if (key.equals("nameSurname")) {
-            String targetNameSurname = (String) value;
-            return operator.nameSurname().equals(targetNameSurname);
+        return candidates;
+    }
 
-        } else if (key.equals("taxCode")) {
-            String targetTaxCode = (String) value;
-            return operator.taxCode().equals(targetTaxCode);
+    /**
+     * Seleziona i record candidati da verificare per un criterio.
+     * <p>
+     * Tra i confronti di uguaglianza o di appartenenza sull'ID o su un campo
+     * indicizzato che devono essere soddisfatti in ogni caso viene scelto
+     * quello che restituisce meno record; se nessun confronto pu&ograve; essere
+     * risolto tramite un indice vengono restituiti tutti i record della mappa.
+     * </p>
+     *
+     * @param <T>       Il tipo dei record.
+     * @param map       La mappa dei record per ID.
+     * @param indexes   Gli indici secondari disponibili per l'entit&agrave;.
+     * @param criterion Il criterio dell'interrogazione.
+     * @return La collezione dei record candidati.
+     */
+    private <T> Collection<T> selectCandidates(Map<Integer, T> map,
+            HashMap<String, DataIndex<T>> indexes,
+            Criterion<T> criterion) {
+        Collection<T> candidates = map.values();
+
+        for (Criterion<T> conjunct : criterion.conjuncts()) {
+            List<?> values = lookupValues(conjunct);
+            if (values == null)
+                continue;
+
+            String key = ((Criterion.Comparison<?, ?>) conjunct).field.getName();
+            Collection<T> selected = values.size() == 1 ? new ArrayList<>() : new LinkedHashSet<>();
+
+            if (key.equals("ID")) {
+                for (Object value : values) {
+                    T item = map.get(value);
+                    if (item != null)
+                        selected.add(item);
+                }
+            } else if (indexes.containsKey(key)) {
+                for (Object value : values) {
+                    selected.addAll(indexes.get(key).get(value));
+                }
+            } else {
+                continue;
+            }
 
-        } else if (key.equals("email")) {
-            String targetEmail = (String) value;
-            return operator.email().equals(targetEmail);
+            if (selected.size() < candidates.size())
+                candidates = selected;
+        }
 
-        } else if (key.equals("username")) {
-            String targetUsername = (String) value;
-            return operator.username().equals(targetUsername);
+        return candidates;
+    }
 
-        } else if (key.equals("password")) {
-            String targetPassword = (String) value;
-            return operator.password().equals(targetPassword);
+    /**
+     * Seleziona le righe candidate dell'archivio a colonne dei dati
+     * meteorologici per un criterio.
+     * <p>
+     * Tra i confronti di uguaglianza o di appartenenza su ID, citt&agrave;,
+     * centro o data che devono essere soddisfatti in ogni caso viene scelto
+     * quello che restituisce meno righe.
+     * </p>
+     *
+     * @param weatherColumns L'archivio in cui selezionare le righe.
+     * @param criterion      Il criterio dell'interrogazione.
+     * @return La lista delle righe candidate, in ordine crescente.
+     */
+    private List<Integer> selectWeatherRows(WeatherColumns weatherColumns, Criterion<RecordWeather> criterion) {
+        List<Integer> candidates = weatherColumns.allRows();
+
+        for (Criterion<RecordWeather> conjunct : criterion.conjuncts()) {
+            List<?> values = lookupValues(conjunct);
+            if (values == null)
+                continue;
+
+            String key = ((Criterion.Comparison<?, ?>) conjunct).field.getName();
+            Collection<Integer> selected = values.size() == 1 ? null : new TreeSet<>();
+            for (Object value : values) {
+                Object lookup = value instanceof LocalDate ? ((LocalDate) value).format(DATE_FORMATTER) : value;
+                List<Integer> rows = weatherColumns.rowsWith(key, lookup);
+                if (rows == null || selected == null) {
+                    selected = rows;
+                    break;
+                }
+                selected.addAll(rows);
+            }
 
-        } else if (key.equals("centerID")) {
-            Integer targetCenterID = (Integer) value;
-            return operator.centerID().equals(targetCenterID);
+            if (selected != null && selected.size() < candidates.size())
+                candidates = selected instanceof List ? (List<Integer>) selected : new ArrayList<>(selected);
         }
 
-        throw new IllegalArgumentException("Chiave non valida");
+        List<Integer> range = selectWeatherRange(weatherColumns, criterion);
+        if (range != null && range.size() < candidates.size())
+            candidates = range;
 
+        return candidates;
     }
 
     /**
-     * Verifica se la condizione specificata &egrave; soddisfatta per il record del
-     * centro
-     * dato.
+     * Seleziona tramite l'indice temporale le righe candidate di un criterio
+     * che limita la data dei record.
+     * <p>
+     * Gli estremi dell'intervallo vengono ricavati dai confronti sulla data che
+     * devono essere soddisfatti in ogni caso; se &egrave; presente anche
+     * un'uguaglianza sulla citt&agrave; viene usato l'indice temporale della
+     * citt&agrave;.
+     * </p>
      *
-     * @param center    Il centro da verificare.
-     * @param condition La condizione di interrogazione da verificare.
-     * @return {@code True} se la condizione &egrave; soddisfatta, altrimenti
-     *         {@code False}.
-     * @throws IllegalArgumentException Se la chiave specificata nella condizione
-     *                                  &egrave;
-     *                                  invalida.
+     * @param weatherColumns L'archivio in cui selezionare le righe.
+     * @param criterion      Il criterio dell'interrogazione.
+     * @return La lista delle righe nell'intervallo, in ordine di data, o
+     *         {@code null} se il criterio non limita la data.
      */
-    private boolean checkCenterCondition(RecordCenter center, QueryCondition condition) {
-
-        String key = condition.getKey();
-        Object value = condition.getValue();
+    private List<Integer> selectWeatherRange(WeatherColumns weatherColumns, Criterion<RecordWeather> criterion) {
+        int fromDay = Integer.MIN_VALUE;
+        int toDay = Integer.MAX_VALUE;
+        boolean bounded = false;
+        Integer cityID = null;
+
+        for (Criterion<RecordWeather> conjunct : criterion.conjuncts()) {
+            if (!(conjunct instanceof Criterion.Comparison))
+                continue;
+
+            Criterion.Comparison<RecordWeather, ?> comparison = (Criterion.Comparison<RecordWeather, ?>) conjunct;
+            if (comparison.operator == Criterion.Operator.IN || comparison.operator == Criterion.Operator.NULL
+                    || comparison.values.get(0) == null)
+                continue;
+
+            if (comparison.field == QueryField.Weather.CITY_ID && comparison.operator == Criterion.Operator.EQUAL) {
+                cityID = (Integer) comparison.values.get(0);
+            } else if (comparison.field == QueryField.Weather.DATE) {
+                int day = WeatherColumns.epochDay((LocalDate) comparison.values.get(0));
+                switch (comparison.operator) {
+                    case EQUAL:
+                        fromDay = Math.max(fromDay, day);
+                        toDay = Math.min(toDay, day);
+                        break;
+                    case LESS:
+                        toDay = Math.min(toDay, day - 1);
+                        break;
+                    case LESS_EQUAL:
+                        toDay = Math.min(toDay, day);
+                        break;
+                    case GREATER:
+                        fromDay = Math.max(fromDay, day + 1);
+                        break;
+                    default:
+                        fromDay = Math.max(fromDay, day);
+                        break;
+                }
+                bounded = true;
+            }
+        }
 
-        if (key.equals("ID")) {
-            Integer targetID = (Integer) value;
-            return center.ID().equals(targetID);
+        return bounded ? weatherColumns.rowsBetween(cityID, fromDay, toDay) : null;
+    }
 
-        } else if (key.equals("centerName")) {
-            String targetCenterName = (String) value;
-            return center.centerName().equals(targetCenterName);
+    /**
+     * Sceglie l'archivio a colonne dei dati meteorologici in cui risolvere un
+     * criterio.
+     * <p>
+     * Se i dati vengono caricati su richiesta e il criterio richiede in ogni
+     * caso l'uguaglianza della citt&agrave; o dell'ID, viene usato l'archivio
+     * della sola citt&agrave; interessata.
+     * </p>
+     *
+     * @param criterion Il criterio dell'interrogazione.
+     * @return L'archivio in cui selezionare le righe.
+     */
+    private WeatherColumns selectWeatherColumns(Criterion<RecordWeather> criterion) {
+        Integer cityID = null;
+        Integer weatherID = null;
+
+        for (Criterion<RecordWeather> conjunct : criterion.conjuncts()) {
+            List<?> values = lookupValues(conjunct);
+            if (values == null || values.size() != 1 || !(values.get(0) instanceof Integer)
+                    || ((Criterion.Comparison<?, ?>) conjunct).operator != Criterion.Operator.EQUAL)
+                continue;
+
+            QueryField<?, ?> field = ((Criterion.Comparison<?, ?>) conjunct).field;
+            if (field == QueryField.Weather.CITY_ID)
+                cityID = (Integer) values.get(0);
+            else if (field == QueryField.Weather.ID)
+                weatherID = (Integer) values.get(0);
+        }
 
-        } else if (key.equals("streetName")) {
-            String targetStreetName = (String) value;
-            return center.streetName().equals(targetStreetName);
+        return dataStorage.getWeatherColumns(cityID, weatherID);
+    }
 
-        } else if (key.equals("streetNumber")) {
-            String targetStreetNumber = (String) value;
-            return center.streetNumber().equals(targetStreetNumber);
+    /**
+     * Sceglie l'archivio a colonne dei dati meteorologici in cui risolvere una
+     * lista di condizioni, in base alle condizioni a valore singolo sulla
+     * citt&agrave; o sull'ID.
+     *
+     * @param conditions La lista di condizioni dell'interrogazione.
+     * @return L'archivio in cui selezionare le righe.
+     */
+    private WeatherColumns selectWeatherColumns(List<QueryCondition> conditions) {
+        Integer cityID = null;
+        Integer weatherID = null;
+
+        for (QueryCondition condition : conditions) {
+            if (!(condition.getValue() instanceof Integer))
+                continue;
+
+            if (condition.getKey().equals("cityID"))
+                cityID = (Integer) condition.getValue();
+            else if (condition.getKey().equals("ID"))
+                weatherID = (Integer) condition.getValue();
+        }
 
-        } else if (key.equals("CAP")) {
-            String targetCAP = (String) value;
-            return center.CAP().equals(targetCAP);
+        return dataStorage.getWeatherColumns(cityID, weatherID);
+    }
 
-        } else if (key.equals("townName")) {
-            String targetTownName = (String) value;
-            return center.townName().equals(targetTownName);
+    /**
+     * Restituisce i valori con cui un criterio pu&ograve; essere risolto tramite
+     * un indice, cio&egrave; i valori di un confronto di uguaglianza o di
+     * appartenenza.
+     *
+     * @param criterion Il criterio.
+     * @return I valori non nulli del confronto, o {@code null} se il criterio
+     *         non &egrave; un confronto di questo tipo.
+     */
+    private static List<?> lookupValues(Criterion<?> criterion) {
+        if (!(criterion instanceof Criterion.Comparison))
+            return null;
+
+        Criterion.Comparison<?, ?> comparison = (Criterion.Comparison<?, ?>) criterion;
+        if (comparison.operator != Criterion.Operator.EQUAL && comparison.operator != Criterion.Operator.IN)
+            return null;
+
+        List<Object> values = new ArrayList<>(comparison.values.size());
+        for (Object value : comparison.values) {
+            if (value != null)
+                values.add(value);
+        }
+        return values;
+    }
 
-        } else if (key.equals("districtName")) {
-            String targetDistrictName = (String) value;
-            return center.districtName().equals(targetDistrictName);
+    /**
+     * Seleziona le righe candidate dell'archivio a colonne dei dati
+     * meteorologici per una lista di condizioni.
+     * <p>
+     * Tra le condizioni a valore singolo su ID, citt&agrave;, centro o data
+     * viene scelta quella che restituisce meno righe; in assenza di tali
+     * condizioni vengono restituite tutte le righe. Le righe vengono poi
+     * verificate dal piano compilato leggendo direttamente le colonne, e solo
+     * quelle selezionate vengono convertite in record.
+     * </p>
+     *
+     * @param weatherColumns L'archivio in cui selezionare le righe.
+     * @param conditions     La lista di condizioni dell'interrogazione.
+     * @return La lista delle righe candidate.
+     */
+    private List<Integer> selectWeatherRows(WeatherColumns weatherColumns, List<QueryCondition> conditions) {
+        List<Integer> candidates = weatherColumns.allRows();
 
-        } else if (key.equals("cityID")) {
-            Integer targetCityID = (Integer) value;
-            Integer[] centerCityIDs = center.cityIDs();
+        for (QueryCondition condition : conditions) {
+            if (condition.hasMultipleValues())
+                continue;
 
-            for (int i = 0; i < centerCityIDs.length; i++) {
-                if (targetCityID.equals(centerCityIDs[i])) {
-                    return true;
-                }
-            }
+            List<Integer> selected = weatherColumns.rowsWith(condition.getKey(), condition.getValue());
+            if (selected != null && selected.size() < candidates.size())
+                candidates = selected;
         }
 
-        throw new IllegalArgumentException("Chiave non valida");
-
+        return candidates;
     }
 
     /**
-     * Verifica se la condizione specificata &egrave; soddisfatta per il record
-     * meteorologico dato.
+     * Seleziona le citt&agrave; candidate per una lista di condizioni.
+     * <p>
+     * Oltre agli indici secondari, se sono presenti condizioni a valore singolo
+     * sia sulla latitudine sia sulla longitudine viene usato l'indice spaziale.
+     * </p>
      *
-     * @param weather   Il record meteorologico da verificare.
-     * @param condition La condizione di interrogazione da verificare.
-     * @return {@code True} se la condizione &egrave; soddisfatta, altrimenti
-     *         {@code False}.
-     * @throws IllegalArgumentException Se la chiave specificata nella condizione
-     *                                  &egrave;
-     *                                  invalida.
+     * @param conditions La lista di condizioni dell'interrogazione.
+     * @return La collezione delle citt&agrave; candidate.
      */
-    private boolean checkWeatherCondition(RecordWeather weather, QueryCondition condition) {
-
-        String key = condition.getKey();
-        Object value = condition.getValue();
+    private Collection<RecordCity> selectCityCandidates(List<QueryCondition> conditions) {
+        Collection<RecordCity> candidates = selectCandidates(dataStorage.cityMap, dataStorage.cityIndexes, conditions);
 
-        if (key.equals("ID")) {
-            Integer targetID = (Integer) value;
-            return weather.ID().equals(targetID);
+        Object latitude = null;
+        Object longitude = null;
 
-        } else if (key.equals("centerID")) {
-            Integer targetCenterID = (Integer) value;
-            return weather.centerID().equals(targetCenterID);
+        for (QueryCondition condition : conditions) {
+            if (condition.hasMultipleValues())
+                continue;
 
-        } else if (key.equals("cityID")) {
-            Integer targetCityID = (Integer) value;
-            return weather.cityID().equals(targetCityID);
+            if (condition.getKey().equals("latitude"))
+                latitude = condition.getValue();
+            else if (condition.getKey().equals("longitude"))
+                longitude = condition.getValue();
+        }
 
-        } else if (key.equals("date")) {
-            String targetDate = (String) value;
-            return weather.date().equals(targetDate);
+        if (latitude instanceof Double && longitude instanceof Double) {
+            List<RecordCity> selected = dataStorage.citySpatialIndex.findExact((Double) latitude, (Double) longitude);
+            if (selected.size() < candidates.size())
+                candidates = selected;
         }
 
-        throw new IllegalArgumentException("Chiave non valida");
+        return candidates;
     }
 
     /**
@@ -559,13 +1164,29 @@ public class DataQuery {
         }
 
         /**
-         * Verifica se la condizione ha valori multipli.
+         * Verifica se la condizione ha valori multipli, cio&egrave; se il suo
+         * valore &egrave; una lista o un array.
          *
          * @return {@code True} se la condizione ha valori multipli, altrimenti
          *         {@code False}.
          */
         public boolean hasMultipleValues() {
-            return value instanceof List;
+            return value instanceof List || value instanceof Object[];
+        }
+
+        /**
+         * Ottiene i valori alternativi di una condizione con valori multipli.
+         *
+         * @return I valori della condizione.
+         * @throws IllegalArgumentException Se la condizione non ha valori
+         *                                  multipli.
+         */
+        public List<?> getValues() {
+            if (value instanceof List<?>)
+                return (List<?>) value;
+            if (value instanceof Object[])
+                return Arrays.asList((Object[]) value);
+            throw new IllegalArgumentException("Valore non valido");
         }
     }
 
@@ -2,12 +2,20 @@ package models.data;
 
 import java.io.*;
 import java.util.*;
-import java.util.regex.Pattern;
-
-import javax.swing.JOptionPane;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import utils.Constants;
+import utils.Functions;
 import models.file.FileHandler;
+import models.metrics.Metrics;
+import models.metrics.Timer;
 import models.record.RecordCenter;
 import models.record.RecordCity;
 import models.record.RecordOperator;
@@ -26,8 +34,22 @@ import models.record.RecordWeather.WeatherData;
  * Inoltre, questa classe carica i dati iniziali dai file di dati quando viene
  * istanziata.
  * </p>
+ * <p>
+ * I dati di ciascuna entit&agrave; sono protetti da un proprio lock di lettura
+ * e scrittura: le interrogazioni di {@code DataQuery} acquisiscono il lock in
+ * lettura, e vedono quindi uno stato coerente dei dati, mentre inserimenti e
+ * aggiornamenti lo acquisiscono in scrittura. In questo modo le interrogazioni
+ * su entit&agrave; diverse, o quelle che non si sovrappongono a una scrittura,
+ * possono essere eseguite in parallelo da pi&ugrave; thread.
+ * </p>
+ * <p>
+ * Ogni inserimento o aggiornamento di un record rimuove dalla cache delle
+ * interrogazioni i risultati dell'entit&agrave; modificata, mantenendo
+ * acquisito il lock in scrittura.
+ * </p>
  * 
  * @see utils.Constants
+ * @see models.data.QueryCache
  * @see models.file.FileHandler
  * @see models.record.RecordCenter
  * @see models.record.RecordCity
@@ -43,36 +65,318 @@ import models.record.RecordWeather.WeatherData;
 public class DataStorage {
 
     /**
-     * Mappa che archivia i dati delle citt&agrave; in base all'ID.
+     * Catalogo mappato in memoria dei dati delle citt&agrave;, consultabile come
+     * mappa in base all'ID.
      */
-    public HashMap<Integer, RecordCity> cityMap;
+    CityCatalog cityMap;
 
     /**
      * Mappa che archivia i dati degli operatori in base all'ID.
      */
-    public HashMap<Integer, RecordOperator> operatorMap;
+    HashMap<Integer, RecordOperator> operatorMap;
 
     /**
      * Mappa che archivia i dati dei centri in base all'ID.
      */
-    public HashMap<Integer, RecordCenter> centerMap;
+    HashMap<Integer, RecordCenter> centerMap;
+
+    /**
+     * Archivio a colonne dei dati delle condizioni meteo, consultabile come
+     * mappa in base all'ID.
+     */
+    WeatherColumns weatherMap;
+
+    /**
+     * Archivio dei dati delle condizioni meteo caricati su richiesta per
+     * citt&agrave;, o {@code null} se i dati vengono caricati tutti all'avvio
+     * in {@link #weatherMap}.
+     */
+    WeatherHistory weatherHistory;
+
+    /**
+     * Indici secondari sulle citt&agrave;, per nome della chiave di interrogazione.
+     */
+    final HashMap<String, DataIndex<RecordCity>> cityIndexes = new HashMap<>();
+
+    /**
+     * Indice spaziale sulle coordinate delle citt&agrave;.
+     */
+    final SpatialIndex citySpatialIndex = new SpatialIndex(ID -> cityMap.get(ID));
+
+    /**
+     * Indice per il completamento automatico dei nomi delle citt&agrave;.
+     */
+    final CityNameIndex cityNameIndex = new CityNameIndex(ID -> cityMap.get(ID));
+
+    /**
+     * Indici secondari sugli operatori, per nome della chiave di interrogazione.
+     */
+    final HashMap<String, DataIndex<RecordOperator>> operatorIndexes = new HashMap<>();
+
+    /**
+     * Indici secondari sui centri, per nome della chiave di interrogazione.
+     */
+    final HashMap<String, DataIndex<RecordCenter>> centerIndexes = new HashMap<>();
+
+    /**
+     * Dati meteorologici aggregati per ID della citt&agrave;.
+     */
+    final HashMap<Integer, WeatherAggregate> weatherAggregates = new HashMap<>();
+
+    /**
+     * Dati meteorologici aggregati per citt&agrave; e per periodo di tempo.
+     */
+    WeatherRollup weatherRollup;
+
+    /**
+     * Sequenza delle chiavi primarie delle citt&agrave;.
+     */
+    final IdSequence citySequence = new IdSequence("City");
+
+    /**
+     * Sequenza delle chiavi primarie degli operatori.
+     */
+    final IdSequence operatorSequence = new IdSequence("Operator");
+
+    /**
+     * Sequenza delle chiavi primarie dei centri.
+     */
+    final IdSequence centerSequence = new IdSequence("Center");
+
+    /**
+     * Sequenza delle chiavi primarie dei dati meteorologici.
+     */
+    final IdSequence weatherSequence = new IdSequence("Weather");
+
+    /**
+     * Lock di lettura e scrittura dei dati delle citt&agrave; e dei relativi
+     * indici.
+     */
+    final ReentrantReadWriteLock cityLock = new ReentrantReadWriteLock();
+
+    /**
+     * Lock di lettura e scrittura dei dati degli operatori e dei relativi
+     * indici.
+     */
+    final ReentrantReadWriteLock operatorLock = new ReentrantReadWriteLock();
 
     /**
-     * Mappa che archivia i dati delle condizioni meteo in base all'ID.
+     * Lock di lettura e scrittura dei dati dei centri e dei relativi indici.
      */
-    public HashMap<Integer, RecordWeather> weatherMap;
+    final ReentrantReadWriteLock centerLock = new ReentrantReadWriteLock();
+
+    /**
+     * Lock di lettura e scrittura dei dati meteorologici, dei relativi indici
+     * e dei dati aggregati.
+     */
+    final ReentrantReadWriteLock weatherLock = new ReentrantReadWriteLock();
+
+    /**
+     * Cache dei risultati delle interrogazioni, invalidata per entit&agrave; a
+     * ogni inserimento o aggiornamento di un record.
+     */
+    final QueryCache queryCache = new QueryCache(Constants.Storage.QUERY_CACHE_SIZE,
+            Constants.Storage.QUERY_CACHE_WEIGHT);
+
+    /**
+     * Il numero di inserimenti e aggiornamenti di operatori, incrementato
+     * mantenendo acquisito in scrittura il lock degli operatori.
+     */
+    volatile long operatorVersion;
+
+    /**
+     * Il numero di citt&agrave;, aggiornato a ogni scrittura in modo da poter
+     * essere letto senza acquisire il lock delle citt&agrave;.
+     */
+    private volatile int cityCount;
+
+    /**
+     * Il numero di operatori, aggiornato a ogni scrittura in modo da poter
+     * essere letto senza acquisire il lock degli operatori.
+     */
+    private volatile int operatorCount;
+
+    /**
+     * Il numero di centri, aggiornato a ogni scrittura in modo da poter essere
+     * letto senza acquisire il lock dei centri.
+     */
+    private volatile int centerCount;
+
+    /**
+     * Il numero di record meteorologici, aggiornato a ogni scrittura in modo
+     * da poter essere letto senza acquisire il lock dei dati meteorologici.
+     */
+    private volatile int weatherCount;
+
+    /**
+     * Indica se i file di dati vengono caricati in parallelo.
+     */
+    private final boolean parallelLoading;
+
+    /**
+     * Istantanea binaria dei dati, o {@code null} se disabilitata.
+     */
+    private final StorageSnapshot snapshot;
+
+    /**
+     * Timer del caricamento completo dei dati.
+     */
+    private static final Timer loadTimer = Metrics.timer("storage.load");
+
+    /**
+     * Timer del caricamento delle citt&agrave;.
+     */
+    private static final Timer loadCitiesTimer = Metrics.timer("storage.load.cities");
+
+    /**
+     * Timer del caricamento degli operatori.
+     */
+    private static final Timer loadOperatorsTimer = Metrics.timer("storage.load.operators");
+
+    /**
+     * Timer del caricamento dei centri.
+     */
+    private static final Timer loadCentersTimer = Metrics.timer("storage.load.centers");
+
+    /**
+     * Timer del caricamento dei dati meteorologici.
+     */
+    private static final Timer loadWeathersTimer = Metrics.timer("storage.load.weathers");
 
     /**
      * Costruttore della classe {@code DataStorage}.
-     * Inizializza le mappe dei dati e carica i dati iniziali dai file di dati.
+     * Inizializza le mappe dei dati e carica i dati iniziali dai file di dati,
+     * in parallelo se abilitato da {@link Constants.Storage#PARALLEL_LOADING}.
      */
     public DataStorage() {
+        this(Constants.Storage.PARALLEL_LOADING);
+    }
 
-        cityMap = createCityMap();
-        operatorMap = createOperatorMap();
-        centerMap = createCenterMap();
-        weatherMap = createWeatherMap();
+    /**
+     * Costruttore della classe {@code DataStorage}.
+     * Inizializza le mappe dei dati e carica i dati iniziali dai file di dati.
+     * <p>
+     * Se il caricamento parallelo &egrave; abilitato i quattro file vengono letti
+     * contemporaneamente e i file di grandi dimensioni vengono a loro volta
+     * suddivisi in porzioni analizzate in parallelo; il costruttore termina
+     * solo quando tutti i dati sono stati caricati.
+     * </p>
+     * <p>
+     * Se l'istantanea binaria &egrave; abilitata e aggiornata rispetto ai file
+     * di dati, i dati vengono letti da questa e vengono ricostruiti solo gli
+     * indici; altrimenti vengono letti dai file di dati e l'istantanea viene
+     * riscritta. Alla chiusura dell'applicazione l'istantanea viene
+     * aggiornata se i file di dati sono stati modificati.
+     * </p>
+     * <p>
+     * Se abilitato da {@link Constants.Storage#LAZY_WEATHER}, del file dei dati
+     * meteorologici vengono lette all'avvio solo le posizioni delle righe, e i
+     * record di una citt&agrave; vengono caricati alla prima consultazione; in
+     * questo caso l'istantanea binaria non viene usata.
+     * </p>
+     * 
+     * @param parallelLoading {@code true} per caricare i file in parallelo,
+     *                        {@code false} per caricarli uno dopo l'altro.
+     */
+    public DataStorage(boolean parallelLoading) {
+        long start = System.nanoTime();
+        this.parallelLoading = parallelLoading;
+
+        operatorIndexes.put("username", new DataIndex<>(RecordOperator::username, false));
+
+        centerIndexes.put("cityID", DataIndex.multiValued(RecordCenter::cityIDs));
+
+        snapshot = Constants.Storage.SNAPSHOT && !Constants.Storage.LAZY_WEATHER
+                ? new StorageSnapshot(Constants.Path.Files.SNAPSHOT,
+                        Constants.Path.Files.OPERATOR,
+                        Constants.Path.Files.CENTER,
+                        Constants.Path.Files.WEATHER)
+                : null;
+
+        boolean fromSnapshot = snapshot != null && snapshot.read(this);
+
+        if (fromSnapshot) {
+            loadCities();
+            indexOperators();
+            indexCenters();
+            indexWeathers();
+
+        } else if (parallelLoading) {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+
+            try {
+                CompletableFuture.allOf(
+                        CompletableFuture.runAsync(this::loadCities, executor),
+                        CompletableFuture.runAsync(this::loadOperators, executor),
+                        CompletableFuture.runAsync(this::loadCenters, executor),
+                        CompletableFuture.runAsync(this::loadWeathers, executor))
+                        .join();
+
+            } finally {
+                executor.shutdown();
+            }
+
+        } else {
+            loadCities();
+            loadOperators();
+            loadCenters();
+            loadWeathers();
+        }
 
+        if (!Constants.Storage.JOURNALING)
+            compactJournals();
+
+        if (snapshot != null && !fromSnapshot)
+            saveSnapshot();
+
+        loadSequences();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::saveSequences));
+        if (snapshot != null)
+            Runtime.getRuntime().addShutdownHook(new Thread(this::updateSnapshot));
+
+        cityCount = cityMap == null ? 0 : cityMap.size();
+        operatorCount = operatorMap == null ? 0 : operatorMap.size();
+        centerCount = centerMap == null ? 0 : centerMap.size();
+        weatherCount = weatherSize();
+
+        registerGauges();
+        loadTimer.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Registra gli indicatori del numero di record, della memoria occupata
+     * dai dati e dell'efficacia della cache delle interrogazioni.
+     * <p>
+     * Il numero di record e la dimensione del catalogo delle citt&agrave;
+     * vengono letti senza acquisire alcun lock. La stima della memoria
+     * occupata dai dati meteorologici richiede invece il lock di lettura dei
+     * dati meteorologici, e pu&ograve; quindi attendere la fine di una
+     * scrittura: gli indicatori non vanno letti dal thread dell'interfaccia
+     * grafica.
+     * </p>
+     */
+    private void registerGauges() {
+        long cityMappedBytes = cityMap == null ? 0 : cityMap.mappedBytes();
+
+        Metrics.gauge("storage.cities.count", () -> cityCount);
+        Metrics.gauge("storage.cities.mappedBytes", () -> cityMappedBytes);
+        Metrics.gauge("storage.operators.count", () -> operatorCount);
+        Metrics.gauge("storage.centers.count", () -> centerCount);
+        Metrics.gauge("storage.weathers.count", () -> weatherCount);
+        Metrics.gauge("storage.weathers.estimatedBytes", () -> withLock(weatherLock.readLock(),
+                () -> weatherHistory != null ? weatherHistory.estimateBytes()
+                        : weatherMap == null ? 0 : weatherMap.estimateBytes()));
+
+        if (weatherHistory != null)
+            Metrics.gauge("storage.weathers.residentCities", weatherHistory::residentCount);
+
+        Metrics.gauge("cache.query.entries", queryCache::size);
+        Metrics.gauge("cache.query.records", queryCache::getWeight);
+        Metrics.gauge("cache.query.hits", queryCache::getHits);
+        Metrics.gauge("cache.query.misses", queryCache::getMisses);
+        Metrics.gauge("cache.query.hitRate", queryCache::getHitRate);
+        Metrics.gauge("cache.query.evictions", queryCache::getEvictions);
+        Metrics.gauge("cache.query.invalidations", queryCache::getInvalidations);
     }
 
     /**
@@ -83,7 +387,7 @@ public class DataStorage {
      *         null se non trovato.
      */
     public RecordCity getCityByID(Integer geonameID) {
-        return cityMap.get(geonameID);
+        return withLock(cityLock.readLock(), () -> cityMap.get(geonameID));
     }
 
     /**
@@ -94,7 +398,7 @@ public class DataStorage {
      *         o null se non trovato.
      */
     public RecordOperator getOperatorByID(Integer operatorID) {
-        return operatorMap.get(operatorID);
+        return withLock(operatorLock.readLock(), () -> operatorMap.get(operatorID));
     }
 
     /**
@@ -105,7 +409,7 @@ public class DataStorage {
      *         null se non trovato.
      */
     public RecordCenter getCenterByID(Integer centerID) {
-        return centerMap.get(centerID);
+        return withLock(centerLock.readLock(), () -> centerMap.get(centerID));
     }
 
     /**
@@ -116,64 +420,600 @@ public class DataStorage {
      *         null se non trovato.
      */
     public RecordWeather getWeatherByID(Integer weatherID) {
-        return weatherMap.get(weatherID);
+        return withLock(weatherLock.readLock(),
+                () -> weatherHistory != null ? weatherHistory.get(weatherID) : weatherMap.get(weatherID));
     }
 
     /**
-     * Crea una mappa dei dati delle citt&agrave; a partire dai dati presenti nel file di
-     * dati delle citt&agrave;.
+     * Esegue un'operazione mantenendo acquisito un lock.
      * 
-     * @return Una mappa dei dati delle citt&agrave;, dove la chiave &egrave; l'ID della
-     *         citt&agrave; e
-     *         il valore &egrave; l'oggetto {@code RecordCity}.
-     * @throws IOException Se si verifica un errore durante la lettura del file di
-     *                     dati delle citt&agrave;.
+     * @param <T>    Il tipo del risultato dell'operazione.
+     * @param lock   Il lock da acquisire.
+     * @param action L'operazione da eseguire.
+     * @return Il risultato dell'operazione.
      */
-    private HashMap<Integer, RecordCity> createCityMap() {
-        HashMap<Integer, RecordCity> map = new HashMap<>();
+    static <T> T withLock(Lock lock, Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Restituisce l'archivio a colonne che contiene i record meteorologici di
+     * una citt&agrave; o un record meteorologico.
+     * <p>
+     * Se i dati vengono caricati tutti all'avvio restituisce sempre l'archivio
+     * completo; altrimenti restituisce quello della citt&agrave;, caricandola
+     * se necessario, oppure, se non &egrave; indicata n&eacute; la
+     * citt&agrave; n&eacute; il record, un archivio di tutti i record letto
+     * appositamente.
+     * </p>
+     * 
+     * @param cityID    L'ID della citt&agrave;, o {@code null}.
+     * @param weatherID L'ID del record, o {@code null}; usato solo se non
+     *                  &egrave; indicata la citt&agrave;.
+     * @return L'archivio dei record richiesti.
+     */
+    WeatherColumns getWeatherColumns(Integer cityID, Integer weatherID) {
+        if (weatherHistory == null)
+            return weatherMap;
+
+        if (cityID == null && weatherID != null) {
+            cityID = weatherHistory.getCityID(weatherID);
+            if (cityID == null)
+                return new WeatherColumns(16, true);
+        }
+        return cityID == null ? weatherHistory.loadAll() : weatherHistory.getColumns(cityID);
+    }
+
+    /**
+     * Restituisce i dati meteorologici aggregati di una citt&agrave;.
+     * 
+     * @param cityID L'ID della citt&agrave;.
+     * @return I dati aggregati, o {@code null} se la citt&agrave; non ha record
+     *         meteorologici.
+     */
+    WeatherAggregate getWeatherAggregate(Integer cityID) {
+        if (weatherHistory == null || cityID == null)
+            return weatherAggregates.get(cityID);
+        return weatherHistory.getAggregate(cityID);
+    }
+
+    /**
+     * Restituisce gli aggregati per periodo di tempo che comprendono una
+     * citt&agrave;.
+     * 
+     * @param cityID L'ID della citt&agrave;.
+     * @return Gli aggregati per periodo.
+     */
+    WeatherRollup getWeatherRollup(int cityID) {
+        return weatherHistory != null ? weatherHistory.getRollup(cityID) : weatherRollup;
+    }
+
+    /**
+     * Restituisce tutti i record meteorologici come mappa per ID, ad esempio
+     * per la compattazione del file di dati.
+     * 
+     * @return La mappa dei record meteorologici.
+     */
+    Map<Integer, RecordWeather> getWeatherRecords() {
+        return weatherHistory != null ? weatherHistory : weatherMap;
+    }
 
+    /**
+     * Inserisce o sostituisce un record citt&agrave;, aggiornando gli indici.
+     * 
+     * @param city Il record da inserire.
+     */
+    public void putCity(RecordCity city) {
+        cityLock.writeLock().lock();
+        try {
+            RecordCity oldCity = cityMap.put(city.ID(), city);
+            updateIndexes(cityIndexes, oldCity, city);
+            citySequence.advanceTo(city.ID() + 1);
+            citySpatialIndex.replace(oldCity, city);
+            cityNameIndex.replace(oldCity, city);
+            cityCount = cityMap.size();
+            queryCache.invalidate(Query.Entity.CITY);
+        } finally {
+            cityLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserisce o sostituisce un record operatore, aggiornando gli indici.
+     * 
+     * @param operator Il record da inserire.
+     */
+    public void putOperator(RecordOperator operator) {
+        operatorLock.writeLock().lock();
+        try {
+            RecordOperator oldOperator = operatorMap.put(operator.ID(), operator);
+            updateIndexes(operatorIndexes, oldOperator, operator);
+            operatorSequence.advanceTo(operator.ID() + 1);
+            operatorCount = operatorMap.size();
+            queryCache.invalidate(Query.Entity.OPERATOR);
+            operatorVersion++;
+        } finally {
+            operatorLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserisce o sostituisce un record centro, aggiornando gli indici.
+     * 
+     * @param center Il record da inserire.
+     */
+    public void putCenter(RecordCenter center) {
+        centerLock.writeLock().lock();
+        try {
+            RecordCenter oldCenter = centerMap.put(center.ID(), center);
+            updateIndexes(centerIndexes, oldCenter, center);
+            centerSequence.advanceTo(center.ID() + 1);
+            centerCount = centerMap.size();
+            queryCache.invalidate(Query.Entity.CENTER);
+        } finally {
+            centerLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserisce o sostituisce un record meteorologico, aggiornando gli indici e
+     * i dati aggregati delle citt&agrave;.
+     * 
+     * @param weather Il record da inserire.
+     * @throws IllegalArgumentException Se un punteggio del record non &egrave;
+     *                                  rappresentabile; in tal caso i dati non
+     *                                  vengono modificati.
+     */
+    public void putWeather(RecordWeather weather) {
+        weatherLock.writeLock().lock();
         try {
-            List<String> lines = FileHandler.readFile(Constants.Path.Files.CITY);
-
-            RecordCity[] cityCoords = new RecordCity[lines.size() - 1];
-
-            for (int i = 1; i < lines.size(); i++) {
-                String[] line = lines.get(i).split(Constants.CSV_SEPARATOR);
-
-                if (line.length == 7) {
-                    cityCoords[i - 1] = new RecordCity(
-                            Integer.parseInt(line[0]),
-                            line[1],
-                            line[2],
-                            line[3],
-                            line[4],
-                            Double.parseDouble(line[5].replace(",", ".")),
-                            Double.parseDouble(line[6].replace(",", ".")));
-                } else if (line.length == 6) {
-                    cityCoords[i - 1] = new RecordCity(
-                            Integer.parseInt(line[0]),
-                            line[1],
-                            line[2],
-                            line[3],
-                            "unset",
-                            Double.parseDouble(line[4].replace(",", ".")),
-                            Double.parseDouble(line[5].replace(",", ".")));
-                } else
-                    System.out.println("Errore: " + line[0]);
+            if (weatherHistory != null) {
+                weatherHistory.put(weather);
+            } else {
+                RecordWeather oldWeather = weatherMap.put(weather.ID(), weather);
+                updateAggregates(oldWeather, weather);
             }
+            weatherSequence.advanceTo(weather.ID() + 1);
+            weatherCount = weatherSize();
+            queryCache.invalidate(Query.Entity.WEATHER);
+        } finally {
+            weatherLock.writeLock().unlock();
+        }
+    }
 
-            for (RecordCity cityCoord : cityCoords) {
-                map.put(cityCoord.ID(), cityCoord);
+    /**
+     * Rimuove un record meteorologico appena inserito, aggiornando gli indici
+     * e i dati aggregati delle citt&agrave;. Usato per annullare un
+     * inserimento che non &egrave; stato possibile rendere persistente.
+     * 
+     * @param weather Il record da rimuovere.
+     */
+    void removeWeather(RecordWeather weather) {
+        weatherLock.writeLock().lock();
+        try {
+            if (weatherHistory != null) {
+                weatherHistory.removeChange(weather.ID());
+            } else {
+                RecordWeather oldWeather = weatherMap.remove(weather.ID());
+                if (oldWeather != null) {
+                    weatherAggregates.get(oldWeather.cityID()).remove(oldWeather);
+                    weatherRollup.remove(oldWeather);
+                }
             }
+            weatherCount = weatherSize();
+            queryCache.invalidate(Query.Entity.WEATHER);
+        } finally {
+            weatherLock.writeLock().unlock();
+        }
+    }
 
-            return map;
+    /**
+     * Restituisce il numero di record meteorologici.
+     * 
+     * @return Il numero di record.
+     */
+    private int weatherSize() {
+        return weatherHistory != null ? weatherHistory.size() : weatherMap == null ? 0 : weatherMap.size();
+    }
+
+    /**
+     * Riscrive un file di dati con lo stato corrente dei record, ordinati per
+     * ID, e ne svuota il journal.
+     * <p>
+     * Se i dati meteorologici vengono caricati su richiesta, il loro file viene
+     * copiato riga per riga applicando i record inseriti o modificati, senza
+     * leggere in memoria l'intero archivio; la mappa non viene usata.
+     * </p>
+     * <p>
+     * Va invocato mantenendo acquisito in scrittura il lock dei dati
+     * dell'entit&agrave; del file, oppure durante il caricamento.
+     * </p>
+     * 
+     * @param filePath Il percorso del file di dati.
+     * @param map      La mappa contenente lo stato corrente dei record del file.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    void compact(String filePath, Map<Integer, ?> map) throws IOException {
+        if (weatherHistory != null && filePath.equals(Constants.Path.Files.WEATHER)) {
+            weatherHistory.compact();
+        } else {
+            TreeMap<Integer, Object> records = new TreeMap<>(map);
+            FileHandler.rewriteFile(filePath, records.values());
+        }
+        FileHandler.getJournal(filePath).truncate();
+    }
+
+    /**
+     * Notifica che i record inseriti o modificati sono stati scritti
+     * direttamente in un file di dati, senza journal. Se i dati meteorologici
+     * vengono caricati su richiesta e i record conservati in memoria superano
+     * {@link Constants.Storage#LAZY_WEATHER_CHANGES}, il file viene scritto su
+     * disco e le posizioni delle sue righe ricalcolate.
+     * <p>
+     * Va invocato mantenendo acquisito in scrittura il lock dei dati
+     * dell'entit&agrave; del file.
+     * </p>
+     * 
+     * @param filePath Il percorso del file di dati.
+     * @throws IOException Se si verifica un errore durante la scrittura o la
+     *                     lettura del file.
+     */
+    void writtenToFile(String filePath) throws IOException {
+        if (weatherHistory == null || !filePath.equals(Constants.Path.Files.WEATHER)
+                || weatherHistory.changeCount() < Constants.Storage.LAZY_WEATHER_CHANGES)
+            return;
+
+        FileHandler.flush(filePath);
+        weatherHistory.reindex();
+    }
+
+    /**
+     * Compatta nei file di dati i journal rimasti da un avvio precedente con il
+     * journal abilitato.
+     * <p>
+     * Viene invocato al termine del caricamento quando il journal &egrave;
+     * disabilitato: le voci sono gi&agrave; state riapplicate ai dati in
+     * memoria, e vanno scritte nel file prima che questo venga modificato
+     * direttamente, altrimenti a un successivo avvio con il journal abilitato
+     * verrebbero riapplicate sopra dati pi&ugrave; recenti.
+     * </p>
+     */
+    private void compactJournals() {
+        compactJournal(Constants.Path.Files.CITY, cityMap);
+        compactJournal(Constants.Path.Files.OPERATOR, operatorMap);
+        compactJournal(Constants.Path.Files.CENTER, centerMap);
+        compactJournal(Constants.Path.Files.WEATHER, getWeatherRecords());
+    }
+
+    /**
+     * Compatta il journal di un file di dati, se non &egrave; vuoto e il file
+     * &egrave; stato caricato correttamente.
+     * 
+     * @param filePath Il percorso del file di dati.
+     * @param map      La mappa contenente lo stato corrente dei record del file.
+     */
+    private void compactJournal(String filePath, Map<Integer, ?> map) {
+        if (map == null)
+            return;
+
+        try {
+            if (!FileHandler.getJournal(filePath).isEmpty())
+                compact(filePath, map);
+        } catch (IOException e) {
+            Functions.showError("Errore nella scrittura dei dati.");
+        }
+    }
+
+    /**
+     * Sostituisce nei dati aggregati delle citt&agrave; la vecchia versione di un
+     * record meteorologico con quella nuova.
+     * 
+     * @param oldWeather La versione precedente del record ({@code null} se
+     *                   nuovo).
+     * @param weather    La nuova versione del record.
+     */
+    private void updateAggregates(RecordWeather oldWeather, RecordWeather weather) {
+        if (oldWeather != null) {
+            weatherAggregates.get(oldWeather.cityID()).remove(oldWeather);
+            weatherRollup.remove(oldWeather);
+        }
+        weatherAggregates.computeIfAbsent(weather.cityID(), this::newAggregate).add(weather);
+        weatherRollup.add(weather);
+    }
+
+    /**
+     * Crea i dati aggregati di una citt&agrave;, che leggono i commenti
+     * direttamente dall'archivio a colonne, acquisendo il lock dei dati
+     * meteorologici in lettura.
+     * 
+     * @param cityID L'ID della citt&agrave;.
+     * @return I nuovi dati aggregati, vuoti.
+     */
+    private WeatherAggregate newAggregate(Integer cityID) {
+        return new WeatherAggregate(
+                category -> withLock(weatherLock.readLock(), () -> weatherMap.getComments(cityID, category)));
+    }
+
+    /**
+     * Sostituisce in tutti gli indici di un'entit&agrave; la vecchia versione di
+     * un record con quella nuova.
+     * 
+     * @param <T>       Il tipo dei record indicizzati.
+     * @param indexes   Gli indici da aggiornare.
+     * @param oldRecord La versione precedente del record ({@code null} se nuovo).
+     * @param newRecord La nuova versione del record.
+     */
+    private static <T> void updateIndexes(HashMap<String, DataIndex<T>> indexes, T oldRecord, T newRecord) {
+        for (DataIndex<T> index : indexes.values()) {
+            index.replace(oldRecord, newRecord);
+        }
+    }
+
+    /**
+     * Aggiunge tutti i record di una mappa agli indici di un'entit&agrave;.
+     * 
+     * @param <T>     Il tipo dei record indicizzati.
+     * @param indexes Gli indici da popolare.
+     * @param map     La mappa dei record (pu&ograve; essere {@code null} se il
+     *                caricamento &egrave; fallito).
+     */
+    private static <T> void buildIndexes(HashMap<String, DataIndex<T>> indexes, HashMap<Integer, T> map) {
+        if (map == null)
+            return;
+
+        for (DataIndex<T> index : indexes.values()) {
+            for (T record : map.values()) {
+                index.add(record);
+            }
+        }
+    }
+
+    /**
+     * Fa avanzare una sequenza oltre l'ID pi&ugrave; alto presente in una mappa.
+     * 
+     * @param sequence La sequenza da inizializzare.
+     * @param map      La mappa dei record (pu&ograve; essere {@code null} se il
+     *                 caricamento &egrave; fallito).
+     */
+    private static void seedSequence(IdSequence sequence, Map<Integer, ?> map) {
+        if (map == null)
+            return;
+
+        int highestKey = 0;
+        for (int key : map.keySet()) {
+            if (key > highestKey)
+                highestKey = key;
+        }
+        sequence.advanceTo(highestKey + 1);
+    }
+
+    /**
+     * Restituisce le sequenze delle chiavi primarie di tutte le entit&agrave;.
+     * 
+     * @return Un array contenente le sequenze.
+     */
+    private IdSequence[] getSequences() {
+        return new IdSequence[] { citySequence, operatorSequence, centerSequence, weatherSequence };
+    }
+
+    /**
+     * Fa avanzare le sequenze delle chiavi primarie ai valori salvati nel file
+     * delle sequenze, se presente.
+     * <p>
+     * In questo modo gli ID gi&agrave; assegnati non vengono riutilizzati anche se
+     * i record corrispondenti non sono pi&ugrave; presenti nei file di dati.
+     * </p>
+     */
+    private void loadSequences() {
+        try {
+            FileHandler.readRecords(Constants.Path.Files.SEQUENCE, line -> line, line -> {
+                for (IdSequence sequence : getSequences()) {
+                    if (line.length == 2 && sequence.getName().equals(line[0]))
+                        sequence.advanceTo(Integer.parseInt(line[1]));
+                }
+            });
+        } catch (IOException | NumberFormatException e) {
+            // File assente o non valido: le sequenze restano quelle calcolate dai dati
+        }
+    }
+
+    /**
+     * Salva il prossimo valore di ogni sequenza delle chiavi primarie nel file
+     * delle sequenze.
+     * <p>
+     * Viene invocato alla chiusura dell'applicazione e dopo ogni compattazione
+     * dei file di dati.
+     * </p>
+     */
+    void saveSequences() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.join(Constants.CSV_SEPARATOR, "Entity", "Next ID"));
+
+        for (IdSequence sequence : getSequences()) {
+            lines.add(sequence.getName() + Constants.CSV_SEPARATOR + sequence.peek());
+        }
+
+        try {
+            FileHandler.writeFile(Constants.Path.Files.SEQUENCE, lines);
+        } catch (IOException e) {
+            System.out.println("Errore nel salvataggio delle sequenze: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Scrive l'istantanea binaria dei dati, se tutti i file di dati sono stati
+     * caricati correttamente.
+     */
+    private void saveSnapshot() {
+        if (operatorMap == null || centerMap == null || weatherMap == null)
+            return;
+
+        try {
+            snapshot.write(this);
+        } catch (IOException e) {
+            System.out.println("Errore nel salvataggio dell'istantanea dei dati: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Riscrive l'istantanea binaria dei dati se i file di dati sono stati
+     * modificati dopo la sua scrittura. Viene invocato alla chiusura
+     * dell'applicazione, dopo aver reso persistenti i dati in coda; durante
+     * la scrittura i dati non possono essere modificati.
+     */
+    private void updateSnapshot() {
+        operatorLock.readLock().lock();
+        centerLock.readLock().lock();
+        weatherLock.readLock().lock();
+        try {
+            FileHandler.flushAll();
+            if (!snapshot.isCurrent())
+                saveSnapshot();
+        } finally {
+            weatherLock.readLock().unlock();
+            centerLock.readLock().unlock();
+            operatorLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Carica le citt&agrave; e ne costruisce gli indici.
+     */
+    private void loadCities() {
+        long start = System.nanoTime();
+        cityMap = createCityMap();
+        indexCities();
+        loadCitiesTimer.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Costruisce gli indici delle citt&agrave; e inizializza la sequenza delle
+     * chiavi primarie.
+     * <p>
+     * Gli indici sul nome, sul nome ASCII e sul codice del paese consultano
+     * direttamente il catalogo; l'indice spaziale e quello dei nomi memorizzano
+     * solo gli ID delle citt&agrave;.
+     * </p>
+     */
+    private void indexCities() {
+        if (cityMap == null)
+            return;
+
+        cityIndexes.put("name", cityMap.index("name"));
+        cityIndexes.put("ASCIIName", cityMap.index("ASCIIName"));
+        cityIndexes.put("countryCode", cityMap.index("countryCode"));
+        seedSequence(citySequence, cityMap);
+
+        for (RecordCity city : cityMap.values()) {
+            citySpatialIndex.add(city);
+            cityNameIndex.add(city);
+        }
+    }
+
+    /**
+     * Carica gli operatori e ne costruisce gli indici.
+     */
+    private void loadOperators() {
+        long start = System.nanoTime();
+        operatorMap = createOperatorMap();
+        indexOperators();
+        loadOperatorsTimer.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Costruisce gli indici degli operatori e inizializza la sequenza delle
+     * chiavi primarie.
+     */
+    private void indexOperators() {
+        buildIndexes(operatorIndexes, operatorMap);
+        seedSequence(operatorSequence, operatorMap);
+    }
+
+    /**
+     * Carica i centri e ne costruisce gli indici.
+     */
+    private void loadCenters() {
+        long start = System.nanoTime();
+        centerMap = createCenterMap();
+        indexCenters();
+        loadCentersTimer.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Costruisce gli indici dei centri e inizializza la sequenza delle chiavi
+     * primarie.
+     */
+    private void indexCenters() {
+        buildIndexes(centerIndexes, centerMap);
+        seedSequence(centerSequence, centerMap);
+    }
+
+    /**
+     * Carica i dati meteorologici nell'archivio a colonne, ne costruisce i dati
+     * aggregati per citt&agrave; e inizializza la sequenza delle chiavi
+     * primarie. Se i dati vengono caricati su richiesta, calcola invece solo
+     * le posizioni delle righe.
+     */
+    private void loadWeathers() {
+        long start = System.nanoTime();
+        if (Constants.Storage.LAZY_WEATHER) {
+            weatherHistory = createWeatherHistory();
+            if (weatherHistory != null)
+                weatherSequence.advanceTo(weatherHistory.getHighestID() + 1);
+        } else {
+            weatherMap = createWeatherMap();
+            seedSequence(weatherSequence, weatherMap);
+        }
+        loadWeathersTimer.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Costruisce i dati aggregati dell'archivio a colonne letto
+     * dall'istantanea, direttamente dalle colonne, e inizializza la sequenza
+     * delle chiavi primarie.
+     */
+    private void indexWeathers() {
+        weatherRollup = new WeatherRollup(weatherMap);
+        weatherMap.aggregateByCity(cityID -> weatherAggregates.computeIfAbsent(cityID, this::newAggregate));
+        seedSequence(weatherSequence, weatherMap);
+    }
+
+    /**
+     * Apre il catalogo dei dati delle citt&agrave;, ricreandolo a partire dai
+     * dati presenti nel file di dati delle citt&agrave; se assente o non
+     * aggiornato.
+     * <p>
+     * Durante la creazione le righe vengono lette in streaming e convertite
+     * direttamente in record, che vengono rilasciati una volta scritto il
+     * catalogo.
+     * </p>
+     * 
+     * @return Il catalogo dei dati delle citt&agrave;, consultabile come mappa
+     *         dall'ID della citt&agrave; all'oggetto {@code RecordCity}.
+     * @throws IOException Se si verifica un errore durante la lettura del file di
+     *                     dati delle citt&agrave;.
+     */
+    private CityCatalog createCityMap() {
+        CityCatalog catalog = CityCatalog.open(Constants.Path.Files.CITY_CATALOG, Constants.Path.Files.CITY);
+        if (catalog != null)
+            return catalog;
+
+        HashMap<Integer, RecordCity> map = new HashMap<>();
+
+        try {
+            readRecords(Constants.Path.Files.CITY,
+                    DataStorage::parseCity,
+                    city -> map.put(city.ID(), city));
+
+            return CityCatalog.build(Constants.Path.Files.CITY_CATALOG, Constants.Path.Files.CITY, map.values());
 
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(
-                    null,
-                    "Errore nella lettura dei dati.",
-                    "Errore",
-                    JOptionPane.ERROR_MESSAGE);
+            Functions.showError("Errore nella lettura dei dati.");
             return null;
         }
 
@@ -192,35 +1032,14 @@ public class DataStorage {
         HashMap<Integer, RecordOperator> map = new HashMap<>();
 
         try {
-            List<String> lines = FileHandler.readFile(Constants.Path.Files.OPERATOR);
-
-            RecordOperator[] operatorDatas = new RecordOperator[lines.size() - 1];
-
-            for (int i = 1; i < lines.size(); i++) {
-                String[] line = lines.get(i).split(Constants.CSV_SEPARATOR);
-
-                operatorDatas[i - 1] = new RecordOperator(
-                        Integer.parseInt(line[0]),
-                        line[1],
-                        line[2],
-                        line[3],
-                        line[4],
-                        line[5],
-                        line[6].equals(Constants.EMPTY_STRING) ? null : Integer.parseInt(line[6]));
-            }
-
-            for (RecordOperator operatorData : operatorDatas) {
-                map.put(operatorData.ID(), operatorData);
-            }
+            readRecords(Constants.Path.Files.OPERATOR,
+                    DataStorage::parseOperator,
+                    operator -> map.put(operator.ID(), operator));
 
             return map;
 
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(
-                    null,
-                    "Errore nella lettura dei dati.",
-                    "Errore",
-                    JOptionPane.ERROR_MESSAGE);
+            Functions.showError("Errore nella lettura dei dati.");
             return null;
         }
     }
@@ -239,101 +1058,226 @@ public class DataStorage {
         HashMap<Integer, RecordCenter> map = new HashMap<>();
 
         try {
-            List<String> lines = FileHandler.readFile(Constants.Path.Files.CENTER);
-
-            RecordCenter[] centerDatas = new RecordCenter[lines.size() - 1];
-
-            for (int i = 1; i < lines.size(); i++) {
-                String[] line = lines.get(i).split(Constants.CSV_SEPARATOR);
-
-                centerDatas[i - 1] = new RecordCenter(
-                        Integer.parseInt(line[0]),
-                        line[1],
-                        line[2],
-                        line[3],
-                        line[4],
-                        line[5],
-                        line[6],
-                        Arrays.stream(line[7].split(Pattern.quote(Constants.CSV_SUB_SEPARATOR))).map(Integer::parseInt)
-                                .toArray(Integer[]::new));
-            }
-
-            for (RecordCenter centerData : centerDatas) {
-                map.put(centerData.ID(), centerData);
-            }
+            readRecords(Constants.Path.Files.CENTER,
+                    DataStorage::parseCenter,
+                    center -> map.put(center.ID(), center));
 
             return map;
 
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(
-                    null,
-                    "Errore nella lettura dei dati.",
-                    "Errore",
-                    JOptionPane.ERROR_MESSAGE);
+            Functions.showError("Errore nella lettura dei dati.");
             return null;
         }
     }
 
     /**
-     * Crea una mappa dei dati delle condizioni meteo a partire dai dati presenti
-     * nel file di dati delle condizioni meteo.
+     * Crea l'archivio a colonne dei dati delle condizioni meteo a partire dai
+     * dati presenti nel file di dati delle condizioni meteo.
+     * <p>
+     * I dati aggregati per citt&agrave; vengono aggiornati man mano che i record
+     * vengono letti, senza doverli ricreare dall'archivio.
+     * </p>
      * 
-     * @return Una mappa dei dati delle condizioni meteo, dove la chiave &egrave;
-     *         l'ID
-     *         delle condizioni meteo e il valore &egrave; l'oggetto
-     *         {@code RecordWeather}.
+     * @return L'archivio dei dati delle condizioni meteo, consultabile come mappa
+     *         dall'ID delle condizioni meteo all'oggetto {@code RecordWeather}.
      * @throws IOException Se si verifica un errore durante la lettura del file di
      *                     dati delle condizioni meteo.
      */
-    private HashMap<Integer, RecordWeather> createWeatherMap() {
-        HashMap<Integer, RecordWeather> map = new HashMap<>();
+    private WeatherColumns createWeatherMap() {
+        WeatherColumns map = new WeatherColumns();
+        weatherRollup = new WeatherRollup(map);
 
         try {
-            List<String> lines = FileHandler.readFile(Constants.Path.Files.WEATHER);
+            readRecords(Constants.Path.Files.WEATHER,
+                    DataStorage::parseWeather,
+                    weather -> updateAggregates(map.put(weather.ID(), weather), weather));
 
-            RecordWeather[] weatherDatas = new RecordWeather[lines.size() - 1];
+            return map;
 
-            for (int i = 1; i < lines.size(); i++) {
-                String[] line = lines.get(i).split(Constants.CSV_SEPARATOR);
+        } catch (IOException e) {
+            Functions.showError("Errore nella lettura dei dati.");
+            return null;
+        }
 
-                List<WeatherData> weatherDataList = new ArrayList<>();
+    }
 
-                for (int j = 4; j < line.length; j++) {
-                    String[] data = line[j].split(Pattern.quote(Constants.CSV_SUB_SEPARATOR));
-                    weatherDataList.add(new RecordWeather.WeatherData(
-                            data[0].equals(Constants.EMPTY_STRING) ? null : Integer.parseInt(data[0]),
-                            data[1].equals(Constants.EMPTY_STRING) ? null : data[1]));
-                }
+    /**
+     * Crea l'archivio dei dati delle condizioni meteo caricati su richiesta,
+     * calcolando le posizioni delle righe del file di dati e riapplicando le
+     * voci del suo journal.
+     * 
+     * @return L'archivio dei dati delle condizioni meteo, o {@code null} se si
+     *         verifica un errore durante la lettura.
+     */
+    private WeatherHistory createWeatherHistory() {
+        try {
+            WeatherHistory history = new WeatherHistory(Constants.Path.Files.WEATHER,
+                    Constants.Storage.RESIDENT_CITIES);
 
-                weatherDatas[i - 1] = new RecordWeather(
-                        Integer.parseInt(line[0]),
-                        Integer.parseInt(line[1]),
-                        Integer.parseInt(line[2]),
-                        line[3],
-                        weatherDataList.get(0),
-                        weatherDataList.get(1),
-                        weatherDataList.get(2),
-                        weatherDataList.get(3),
-                        weatherDataList.get(4),
-                        weatherDataList.get(5),
-                        weatherDataList.get(6));
-            }
+            FileHandler.getJournal(Constants.Path.Files.WEATHER).replay(DataStorage::parseWeather, history::put);
+            return history;
+
+        } catch (IOException e) {
+            Functions.showError("Errore nella lettura dei dati.");
+            return null;
+        }
+    }
+
+    /**
+     * Legge i record di un file di dati, in streaming oppure suddividendo il
+     * file in porzioni analizzate in parallelo a seconda della modalit&agrave; di
+     * caricamento.
+     * <p>
+     * Dopo il file di dati vengono riapplicate nell'ordine le voci del suo
+     * journal, anche se il journal &egrave; disabilitato: in questo caso le voci
+     * rimaste da un avvio precedente vengono poi compattate nel file al termine
+     * del caricamento.
+     * </p>
+     * 
+     * @param <T>      Il tipo dei record letti.
+     * @param filePath Il percorso del file da leggere.
+     * @param parser   La funzione che converte i campi di una riga in un record.
+     * @param consumer La funzione che riceve ogni record letto.
+     * @throws IOException Se si verifica un errore durante la lettura del file.
+     */
+    private <T> void readRecords(String filePath,
+            Function<String[], T> parser,
+            Consumer<T> consumer) throws IOException {
+
+        if (parallelLoading) {
+            FileHandler.readRecordsParallel(filePath, parser, consumer, Constants.Storage.LOADING_CHUNK_SIZE);
+        } else {
+            FileHandler.readRecords(filePath, parser, consumer);
+        }
+
+        FileHandler.getJournal(filePath).replay(parser, consumer);
+    }
+
+    /**
+     * Converte i campi di una riga del file delle citt&agrave; in un record.
+     * 
+     * @param line I campi della riga.
+     * @return Il record {@code RecordCity} corrispondente, o {@code null} se la
+     *         riga non &egrave; valida.
+     */
+    public static RecordCity parseCity(String[] line) {
+        if (line.length == 7) {
+            return new RecordCity(
+                    Integer.parseInt(line[0]),
+                    line[1],
+                    line[2],
+                    line[3],
+                    line[4],
+                    parseCoordinate(line[5]),
+                    parseCoordinate(line[6]));
+        } else if (line.length == 6) {
+            return new RecordCity(
+                    Integer.parseInt(line[0]),
+                    line[1],
+                    line[2],
+                    line[3],
+                    "unset",
+                    parseCoordinate(line[4]),
+                    parseCoordinate(line[5]));
+        }
+
+        System.out.println("Errore: " + line[0]);
+        return null;
+    }
+
+    /**
+     * Converte i campi di una riga del file degli operatori in un record.
+     * 
+     * @param line I campi della riga.
+     * @return Il record {@code RecordOperator} corrispondente.
+     */
+    public static RecordOperator parseOperator(String[] line) {
+        return new RecordOperator(
+                Integer.parseInt(line[0]),
+                line[1],
+                line[2],
+                line[3],
+                line[4],
+                line[5],
+                line[6].equals(Constants.EMPTY_STRING) ? null : Integer.parseInt(line[6]));
+    }
+
+    /**
+     * Converte i campi di una riga del file dei centri in un record.
+     * 
+     * @param line I campi della riga.
+     * @return Il record {@code RecordCenter} corrispondente.
+     */
+    public static RecordCenter parseCenter(String[] line) {
+        String[] cityIDs = FileHandler.splitFields(line[7], Constants.CSV_SUB_SEPARATOR.charAt(0));
+        Integer[] centerCityIDs = new Integer[cityIDs.length];
 
-            for (RecordWeather weatherData : weatherDatas) {
-                map.put(weatherData.ID(), weatherData);
+        for (int i = 0; i < cityIDs.length; i++) {
+            centerCityIDs[i] = Integer.parseInt(cityIDs[i]);
+        }
+
+        return new RecordCenter(
+                Integer.parseInt(line[0]),
+                line[1],
+                line[2],
+                line[3],
+                line[4],
+                line[5],
+                line[6],
+                centerCityIDs);
+    }
+
+    /**
+     * Converte i campi di una riga del file delle condizioni meteo in un record.
+     * 
+     * @param line I campi della riga.
+     * @return Il record {@code RecordWeather} corrispondente, o {@code null} se
+     *         la riga non &egrave; valida.
+     */
+    public static RecordWeather parseWeather(String[] line) {
+        try {
+            WeatherData[] weatherDatas = new WeatherData[line.length - 4];
+
+            for (int j = 4; j < line.length; j++) {
+                String[] data = FileHandler.splitFields(line[j], Constants.CSV_SUB_SEPARATOR.charAt(0));
+                weatherDatas[j - 4] = new WeatherData(
+                        data[0].equals(Constants.EMPTY_STRING) ? null : Integer.parseInt(data[0]),
+                        data[1].equals(Constants.EMPTY_STRING) ? null : data[1]);
             }
 
-            return map;
+            RecordWeather weather = new RecordWeather(
+                    Integer.parseInt(line[0]),
+                    Integer.parseInt(line[1]),
+                    Integer.parseInt(line[2]),
+                    line[3],
+                    weatherDatas[0],
+                    weatherDatas[1],
+                    weatherDatas[2],
+                    weatherDatas[3],
+                    weatherDatas[4],
+                    weatherDatas[5],
+                    weatherDatas[6]);
 
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(
-                    null,
-                    "Errore nella lettura dei dati.",
-                    "Errore",
-                    JOptionPane.ERROR_MESSAGE);
-            return null;
+            if (WeatherColumns.hasValidScores(weather))
+                return weather;
+
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            // la riga viene scartata
         }
 
+        System.out.println("Errore: " + line[0]);
+        return null;
+    }
+
+    /**
+     * Converte una coordinata testuale in un valore {@code double}, accettando
+     * sia la virgola sia il punto come separatore decimale.
+     * 
+     * @param value La coordinata testuale.
+     * @return Il valore numerico della coordinata.
+     */
+    private static double parseCoordinate(String value) {
+        return Double.parseDouble(value.indexOf(',') < 0 ? value : value.replace(',', '.'));
     }
 
 }
@@ -0,0 +1,92 @@
+package models.data;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * La classe {@code IdSequence} rappresenta una sequenza monotona di chiavi
+ * primarie per un'entit&agrave; dei dati.
+ * <p>
+ * La sequenza viene inizializzata una sola volta al caricamento dei dati,
+ * a partire dall'ID pi&ugrave; alto presente e dal valore salvato in
+ * precedenza, e restituisce poi nuovi ID in tempo costante. &#200; sicura
+ * rispetto all'uso da parte di pi&ugrave; thread.
+ * </p>
+ *
+ * @see models.data.DataStorage
+ * @see models.data.DataHandler
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class IdSequence {
+
+    /**
+     * Il nome dell'entit&agrave; a cui appartiene la sequenza.
+     */
+    private final String name;
+
+    /**
+     * Il prossimo ID che verr&agrave; restituito.
+     */
+    private final AtomicInteger next = new AtomicInteger(1);
+
+    /**
+     * Crea una nuova sequenza che parte da 1.
+     *
+     * @param name Il nome dell'entit&agrave; a cui appartiene la sequenza.
+     */
+    public IdSequence(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Restituisce il nome dell'entit&agrave; a cui appartiene la sequenza.
+     *
+     * @return Il nome dell'entit&agrave;.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Restituisce un nuovo ID e fa avanzare la sequenza.
+     *
+     * @return Il nuovo ID.
+     */
+    public int next() {
+        return next.getAndIncrement();
+    }
+
+    /**
+     * Riserva un blocco di ID consecutivi.
+     *
+     * @param count Il numero di ID da riservare.
+     * @return Il primo ID del blocco; gli ID riservati vanno da questo valore a
+     *         questo valore pi&ugrave; {@code count - 1}.
+     */
+    public int reserve(int count) {
+        return next.getAndAdd(count);
+    }
+
+    /**
+     * Fa avanzare la sequenza in modo che il prossimo ID sia almeno quello
+     * specificato.
+     *
+     * @param value Il valore minimo del prossimo ID.
+     */
+    public void advanceTo(int value) {
+        next.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Restituisce il prossimo ID senza far avanzare la sequenza.
+     *
+     * @return Il prossimo ID.
+     */
+    public int peek() {
+        return next.get();
+    }
+
+}
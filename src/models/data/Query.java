@@ -0,0 +1,222 @@
+package models.data;
+
+import java.util.Comparator;
+
+import models.record.RecordCenter;
+import models.record.RecordCity;
+import models.record.RecordOperator;
+import models.record.RecordWeather;
+
+/**
+ * La classe {@code Query} permette di costruire un'interrogazione tipizzata sui
+ * record di un'entit&agrave;, da eseguire con
+ * {@link DataQuery#select(Query)}.
+ * <p>
+ * Un'interrogazione &egrave; composta da un {@link Criterion} di selezione, da
+ * un ordinamento facoltativo su uno o pi&ugrave; {@link QueryField} e da un
+ * numero massimo di risultati. I criteri aggiunti con {@link #where(Criterion)}
+ * vengono congiunti; per le disgiunzioni e le negazioni si usano i metodi di
+ * {@code Criterion}.
+ * </p>
+ *
+ * <pre>{@code
+ * List<RecordWeather> result = dataHandler.select(Query.weathers()
+ *         .where(QueryField.Weather.CITY_ID.equalTo(cityID))
+ *         .where(QueryField.Weather.DATE.between(from, to))
+ *         .orderByDescending(QueryField.Weather.DATE)
+ *         .limit(10));
+ * }</pre>
+ *
+ * @param <T> Il tipo dei record interrogati.
+ *
+ * @see models.data.Criterion
+ * @see models.data.QueryField
+ * @see models.data.DataQuery
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class Query<T> {
+
+    /**
+     * Le entit&agrave; interrogabili.
+     */
+    enum Entity {
+        CITY,
+        OPERATOR,
+        CENTER,
+        WEATHER
+    }
+
+    /**
+     * L'entit&agrave; interrogata.
+     */
+    private final Entity entity;
+
+    /**
+     * Il criterio di selezione.
+     */
+    private Criterion<T> criterion = Criterion.all();
+
+    /**
+     * Il comparatore dell'ordinamento, o {@code null} se l'ordine dei risultati
+     * non &egrave; specificato.
+     */
+    private Comparator<T> order;
+
+    /**
+     * Il numero massimo di risultati, o {@code -1} se non &egrave; previsto un
+     * limite.
+     */
+    private int limit = -1;
+
+    /**
+     * Crea un'interrogazione su un'entit&agrave;.
+     *
+     * @param entity L'entit&agrave; interrogata.
+     */
+    private Query(Entity entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * Crea un'interrogazione sulle citt&agrave;.
+     *
+     * @return L'interrogazione.
+     */
+    public static Query<RecordCity> cities() {
+        return new Query<>(Entity.CITY);
+    }
+
+    /**
+     * Crea un'interrogazione sugli operatori.
+     *
+     * @return L'interrogazione.
+     */
+    public static Query<RecordOperator> operators() {
+        return new Query<>(Entity.OPERATOR);
+    }
+
+    /**
+     * Crea un'interrogazione sui centri.
+     *
+     * @return L'interrogazione.
+     */
+    public static Query<RecordCenter> centers() {
+        return new Query<>(Entity.CENTER);
+    }
+
+    /**
+     * Crea un'interrogazione sui dati meteorologici.
+     *
+     * @return L'interrogazione.
+     */
+    public static Query<RecordWeather> weathers() {
+        return new Query<>(Entity.WEATHER);
+    }
+
+    /**
+     * Aggiunge un criterio di selezione, in congiunzione con quelli gi&agrave;
+     * presenti.
+     *
+     * @param criterion Il criterio da aggiungere.
+     * @return Questa interrogazione.
+     */
+    public Query<T> where(Criterion<T> criterion) {
+        this.criterion = this.criterion.and(criterion);
+        return this;
+    }
+
+    /**
+     * Ordina i risultati per valore crescente di un campo; i record in cui il
+     * campo &egrave; assente vengono restituiti per ultimi. Pi&ugrave;
+     * ordinamenti vengono applicati nell'ordine in cui sono specificati.
+     *
+     * @param field Il campo, a valore singolo.
+     * @return Questa interrogazione.
+     *
+     * @throws UnsupportedOperationException Se il campo ha pi&ugrave; valori.
+     */
+    public Query<T> orderBy(QueryField<T, ?> field) {
+        return addOrder(field.comparator(false));
+    }
+
+    /**
+     * Ordina i risultati per valore decrescente di un campo; i record in cui il
+     * campo &egrave; assente vengono restituiti per ultimi.
+     *
+     * @param field Il campo, a valore singolo.
+     * @return Questa interrogazione.
+     *
+     * @throws UnsupportedOperationException Se il campo ha pi&ugrave; valori.
+     */
+    public Query<T> orderByDescending(QueryField<T, ?> field) {
+        return addOrder(field.comparator(true));
+    }
+
+    /**
+     * Limita il numero di risultati.
+     *
+     * @param limit Il numero massimo di risultati.
+     * @return Questa interrogazione.
+     *
+     * @throws IllegalArgumentException Se il limite &egrave; negativo.
+     */
+    public Query<T> limit(int limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException("Limite non valido: " + limit);
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Restituisce l'entit&agrave; interrogata.
+     *
+     * @return L'entit&agrave;.
+     */
+    Entity getEntity() {
+        return entity;
+    }
+
+    /**
+     * Restituisce il criterio di selezione.
+     *
+     * @return Il criterio.
+     */
+    Criterion<T> getCriterion() {
+        return criterion;
+    }
+
+    /**
+     * Restituisce il comparatore dell'ordinamento.
+     *
+     * @return Il comparatore, o {@code null} se l'ordine non &egrave;
+     *         specificato.
+     */
+    Comparator<T> getOrder() {
+        return order;
+    }
+
+    /**
+     * Restituisce il numero massimo di risultati.
+     *
+     * @return Il limite, o {@code -1} se non &egrave; previsto.
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Aggiunge un criterio di ordinamento dopo quelli gi&agrave; presenti.
+     *
+     * @param comparator Il comparatore da aggiungere.
+     * @return Questa interrogazione.
+     */
+    private Query<T> addOrder(Comparator<T> comparator) {
+        order = order == null ? comparator : order.thenComparing(comparator);
+        return this;
+    }
+
+}
@@ -0,0 +1,332 @@
+package models.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import models.data.DataQuery.QueryCondition;
+
+/**
+ * La classe {@code QueryCache} conserva i risultati delle interrogazioni
+ * pi&ugrave; recenti, in modo che le interrogazioni ripetute non vengano
+ * eseguite di nuovo.
+ * <p>
+ * I risultati sono identificati dall'entit&agrave; interrogata, dal tipo di
+ * interrogazione e dai suoi argomenti; le condizioni di un'interrogazione
+ * vengono ordinate per chiave, quindi la stessa interrogazione espressa con
+ * le condizioni in un ordine diverso utilizza lo stesso risultato. La cache
+ * ha un numero massimo di risultati e un numero massimo di record
+ * complessivamente conservati: superato uno dei due limiti vengono rimossi i
+ * risultati usati meno di recente.
+ * </p>
+ * <p>
+ * Ogni scrittura di un record rimuove tutti e soli i risultati
+ * dell'entit&agrave; modificata. La consultazione va eseguita mantenendo
+ * acquisito in lettura il lock dei dati dell'entit&agrave; e l'invalidazione
+ * mantenendolo acquisito in scrittura: un risultato conservato &egrave; quindi
+ * sempre coerente con i dati. I risultati conservati sono condivisi e non
+ * devono essere modificati.
+ * </p>
+ *
+ * @see models.data.DataQuery
+ * @see models.data.DataStorage
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class QueryCache {
+
+    /**
+     * La chiave di un risultato.
+     *
+     * @param entity    L'entit&agrave; interrogata.
+     * @param operation Il tipo di interrogazione.
+     * @param arguments Gli argomenti dell'interrogazione.
+     */
+    record Key(Query.Entity entity, String operation, List<Object> arguments) {
+
+        /**
+         * Crea la chiave di un'interrogazione; gli argomenti di tipo array
+         * vengono confrontati per contenuto.
+         *
+         * @param entity    L'entit&agrave; interrogata.
+         * @param operation Il tipo di interrogazione.
+         * @param arguments Gli argomenti dell'interrogazione.
+         * @return La chiave dell'interrogazione.
+         */
+        static Key of(Query.Entity entity, String operation, Object... arguments) {
+            List<Object> values = new ArrayList<>(arguments.length);
+            for (Object argument : arguments)
+                values.add(normalize(argument));
+            return new Key(entity, operation, values);
+        }
+
+        /**
+         * Crea la chiave di un'interrogazione per condizioni, indipendente
+         * dall'ordine delle condizioni.
+         *
+         * @param entity     L'entit&agrave; interrogata.
+         * @param conditions Le condizioni dell'interrogazione.
+         * @return La chiave dell'interrogazione.
+         */
+        static Key of(Query.Entity entity, List<QueryCondition> conditions) {
+            List<List<Object>> values = new ArrayList<>(conditions.size());
+            for (QueryCondition condition : conditions)
+                values.add(Arrays.asList(condition.getKey(), normalize(condition.getValue())));
+
+            values.sort(Comparator.comparing((List<Object> value) -> String.valueOf(value.get(0)))
+                    .thenComparing(value -> String.valueOf(value.get(1))));
+            return new Key(entity, "conditions", new ArrayList<>(values));
+        }
+
+        /**
+         * Converte un argomento in un valore confrontabile per contenuto.
+         *
+         * @param argument L'argomento.
+         * @return L'argomento, o una lista con i suoi elementi se &egrave; un
+         *         array.
+         */
+        private static Object normalize(Object argument) {
+            return argument instanceof Object[] ? Arrays.asList((Object[]) argument) : argument;
+        }
+    }
+
+    /**
+     * Un risultato conservato.
+     *
+     * @param value  Il risultato.
+     * @param weight Il numero di record del risultato.
+     */
+    private record Entry(Object value, int weight) {
+    }
+
+    /**
+     * Il numero massimo di risultati conservati.
+     */
+    private final int maxEntries;
+
+    /**
+     * Il numero massimo di record complessivamente conservati.
+     */
+    private final long maxWeight;
+
+    /**
+     * I risultati conservati, dal meno al pi&ugrave; recentemente usato.
+     */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Il numero di risultati conservati per entit&agrave;.
+     */
+    private final EnumMap<Query.Entity, Integer> entityCounts = new EnumMap<>(Query.Entity.class);
+
+    /**
+     * Il numero di record complessivamente conservati.
+     */
+    private long weight;
+
+    /**
+     * Il numero di interrogazioni risolte dalla cache.
+     */
+    private long hits;
+
+    /**
+     * Il numero di interrogazioni eseguite perch&eacute; il risultato non era
+     * conservato.
+     */
+    private long misses;
+
+    /**
+     * Il numero di risultati rimossi per rispettare i limiti della cache.
+     */
+    private long evictions;
+
+    /**
+     * Il numero di risultati rimossi in seguito alla scrittura di un record.
+     */
+    private long invalidations;
+
+    /**
+     * Crea una cache vuota.
+     *
+     * @param maxEntries Il numero massimo di risultati conservati, o 0 per
+     *                   disabilitare la cache.
+     * @param maxWeight  Il numero massimo di record complessivamente
+     *                   conservati.
+     */
+    public QueryCache(int maxEntries, long maxWeight) {
+        this.maxEntries = Math.max(maxEntries, 0);
+        this.maxWeight = Math.max(maxWeight, 0);
+    }
+
+    /**
+     * Restituisce il risultato conservato di un'interrogazione, eseguendola e
+     * conservandone il risultato se assente.
+     * <p>
+     * Va invocato mantenendo acquisito in lettura il lock dei dati
+     * dell'entit&agrave; interrogata. I risultati {@code null} e quelli con
+     * pi&ugrave; record del limite della cache non vengono conservati.
+     * </p>
+     *
+     * @param <T>     Il tipo del risultato.
+     * @param key     La chiave dell'interrogazione.
+     * @param reader  L'interrogazione da eseguire se il risultato non &egrave;
+     *                conservato.
+     * @param weigher La funzione che restituisce il numero di record di un
+     *                risultato.
+     * @return Il risultato dell'interrogazione, condiviso con le successive
+     *         interrogazioni uguali.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(Key key, Supplier<T> reader, ToIntFunction<T> weigher) {
+        if (maxEntries == 0)
+            return reader.get();
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                return (T) entry.value();
+            }
+            misses++;
+        }
+
+        T value = reader.get();
+        if (value == null)
+            return null;
+
+        int valueWeight = weigher.applyAsInt(value) + 1;
+        if (valueWeight > maxWeight)
+            return value;
+
+        synchronized (this) {
+            Entry oldEntry = entries.put(key, new Entry(value, valueWeight));
+            if (oldEntry != null) {
+                weight -= oldEntry.weight();
+            } else {
+                entityCounts.merge(key.entity(), 1, Integer::sum);
+            }
+            weight += valueWeight;
+            evict();
+        }
+        return value;
+    }
+
+    /**
+     * Rimuove tutti i risultati di un'entit&agrave;.
+     * <p>
+     * Va invocato mantenendo acquisito in scrittura il lock dei dati
+     * dell'entit&agrave;, dopo averne modificato i dati. Se la cache non
+     * contiene risultati dell'entit&agrave; viene eseguito in tempo costante.
+     * </p>
+     *
+     * @param entity L'entit&agrave; i cui dati sono stati modificati.
+     */
+    synchronized void invalidate(Query.Entity entity) {
+        if (entityCounts.getOrDefault(entity, 0) == 0)
+            return;
+
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            if (entry.getKey().entity() == entity) {
+                weight -= entry.getValue().weight();
+                invalidations++;
+                iterator.remove();
+            }
+        }
+        entityCounts.remove(entity);
+    }
+
+    /**
+     * Rimuove i risultati usati meno di recente finch&eacute; la cache non
+     * rispetta i suoi limiti.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            weight -= entry.getValue().weight();
+            entityCounts.merge(entry.getKey().entity(), -1, Integer::sum);
+            evictions++;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Restituisce il numero di risultati conservati.
+     *
+     * @return Il numero di risultati.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Restituisce il numero di record complessivamente conservati.
+     *
+     * @return Il numero di record.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Restituisce il numero di interrogazioni risolte dalla cache.
+     *
+     * @return Il numero di interrogazioni.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Restituisce il numero di interrogazioni eseguite perch&eacute; il
+     * risultato non era conservato.
+     *
+     * @return Il numero di interrogazioni.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Restituisce il numero di risultati rimossi per rispettare i limiti della
+     * cache.
+     *
+     * @return Il numero di risultati.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Restituisce il numero di risultati rimossi in seguito alla scrittura di
+     * un record.
+     *
+     * @return Il numero di risultati.
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Restituisce la frazione di interrogazioni risolte dalla cache.
+     *
+     * @return La frazione, tra 0 e 1, o 0 se non sono state eseguite
+     *         interrogazioni.
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,507 @@
+package models.data;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import models.record.RecordCenter;
+import models.record.RecordCity;
+import models.record.RecordOperator;
+import models.record.RecordWeather;
+import models.record.RecordWeather.WeatherData;
+
+/**
+ * La classe {@code QueryField} rappresenta un campo tipizzato di un record,
+ * utilizzabile per costruire i criteri di una {@link Query}.
+ * <p>
+ * Il tipo del campo &egrave; verificato in fase di compilazione: i valori
+ * passati ai metodi di confronto hanno lo stesso tipo del campo, quindi la
+ * verifica di un record non richiede conversioni di tipo.
+ * </p>
+ * <p>
+ * I campi disponibili sono definiti come costanti nelle classi interne
+ * {@link City}, {@link Operator}, {@link Center} e {@link Weather}.
+ * </p>
+ *
+ * @param <T> Il tipo dei record.
+ * @param <V> Il tipo del campo.
+ *
+ * @see models.data.Criterion
+ * @see models.data.Query
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public final class QueryField<T, V extends Comparable<? super V>> {
+
+    /**
+     * Il modo in cui i valori del campo vengono confrontati.
+     */
+    enum Matching {
+        /**
+         * Uguaglianza esatta.
+         */
+        EXACT,
+        /**
+         * Uguaglianza di stringhe che ignora le maiuscole.
+         */
+        IGNORE_CASE,
+        /**
+         * Uguaglianza numerica con una tolleranza che dipende dal numero di cifre
+         * decimali del valore cercato.
+         */
+        APPROXIMATE
+    }
+
+    /**
+     * Il nome del campo, uguale alla chiave delle condizioni di
+     * {@code DataQuery.QueryCondition}.
+     */
+    private final String name;
+
+    /**
+     * La funzione che legge il valore del campo, o {@code null} se il campo ha
+     * pi&ugrave; valori.
+     */
+    private final Function<T, V> accessor;
+
+    /**
+     * La funzione che legge i valori del campo, o {@code null} se il campo ha
+     * un solo valore.
+     */
+    private final Function<T, V[]> elementsAccessor;
+
+    /**
+     * Il modo in cui i valori del campo vengono confrontati.
+     */
+    private final Matching matching;
+
+    /**
+     * Crea un campo.
+     *
+     * @param name             Il nome del campo.
+     * @param accessor         La funzione che legge il valore del campo.
+     * @param elementsAccessor La funzione che legge i valori del campo.
+     * @param matching         Il modo in cui i valori vengono confrontati.
+     */
+    private QueryField(String name, Function<T, V> accessor, Function<T, V[]> elementsAccessor,
+            Matching matching) {
+        this.name = name;
+        this.accessor = accessor;
+        this.elementsAccessor = elementsAccessor;
+        this.matching = matching;
+    }
+
+    /**
+     * Crea un campo a valore singolo confrontato per uguaglianza esatta.
+     *
+     * @param <T>      Il tipo dei record.
+     * @param <V>      Il tipo del campo.
+     * @param name     Il nome del campo.
+     * @param accessor La funzione che legge il valore del campo.
+     * @return Il campo.
+     */
+    static <T, V extends Comparable<? super V>> QueryField<T, V> of(String name, Function<T, V> accessor) {
+        return new QueryField<>(name, accessor, null, Matching.EXACT);
+    }
+
+    /**
+     * Crea un campo di tipo stringa confrontato ignorando le maiuscole.
+     *
+     * @param <T>      Il tipo dei record.
+     * @param name     Il nome del campo.
+     * @param accessor La funzione che legge il valore del campo.
+     * @return Il campo.
+     */
+    static <T> QueryField<T, String> ignoreCase(String name, Function<T, String> accessor) {
+        return new QueryField<>(name, accessor, null, Matching.IGNORE_CASE);
+    }
+
+    /**
+     * Crea un campo numerico la cui uguaglianza ammette una tolleranza.
+     *
+     * @param <T>      Il tipo dei record.
+     * @param name     Il nome del campo.
+     * @param accessor La funzione che legge il valore del campo.
+     * @return Il campo.
+     *
+     * @see models.data.DataQuery#generateEpsilon(double)
+     */
+    static <T> QueryField<T, Double> approximate(String name, Function<T, Double> accessor) {
+        return new QueryField<>(name, accessor, null, Matching.APPROXIMATE);
+    }
+
+    /**
+     * Crea un campo a pi&ugrave; valori, che soddisfa un confronto se almeno uno
+     * dei suoi valori lo soddisfa.
+     *
+     * @param <T>      Il tipo dei record.
+     * @param <V>      Il tipo dei valori del campo.
+     * @param name     Il nome del campo.
+     * @param accessor La funzione che legge i valori del campo.
+     * @return Il campo.
+     */
+    static <T, V extends Comparable<? super V>> QueryField<T, V> elements(String name, Function<T, V[]> accessor) {
+        return new QueryField<>(name, null, accessor, Matching.EXACT);
+    }
+
+    /**
+     * Restituisce il nome del campo.
+     *
+     * @return Il nome del campo.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Verifica se il campo ha pi&ugrave; valori.
+     *
+     * @return {@code true} se il campo ha pi&ugrave; valori.
+     */
+    public boolean isMultiValued() {
+        return elementsAccessor != null;
+    }
+
+    /**
+     * Legge il valore del campo da un record.
+     *
+     * @param record Il record.
+     * @return Il valore del campo, eventualmente {@code null}.
+     *
+     * @throws UnsupportedOperationException Se il campo ha pi&ugrave; valori.
+     */
+    public V get(T record) {
+        if (accessor == null)
+            throw new UnsupportedOperationException("Il campo " + name + " ha più valori");
+        return accessor.apply(record);
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record il cui campo &egrave; uguale al
+     * valore specificato.
+     *
+     * @param value Il valore cercato.
+     * @return Il criterio.
+     */
+    public Criterion<T> equalTo(V value) {
+        return new Criterion.Comparison<>(this, Criterion.Operator.EQUAL, Collections.singletonList(value));
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record il cui campo &egrave; diverso dal
+     * valore specificato, o assente.
+     *
+     * @param value Il valore escluso.
+     * @return Il criterio.
+     */
+    public Criterion<T> notEqualTo(V value) {
+        return Criterion.not(equalTo(value));
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record il cui campo &egrave; uguale a uno
+     * dei valori specificati.
+     *
+     * @param values I valori cercati.
+     * @return Il criterio.
+     */
+    public Criterion<T> in(Collection<? extends V> values) {
+        return new Criterion.Comparison<>(this, Criterion.Operator.IN,
+                Collections.unmodifiableList(new ArrayList<>(values)));
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record il cui campo &egrave; uguale a uno
+     * dei valori specificati.
+     *
+     * @param values I valori cercati.
+     * @return Il criterio.
+     */
+    @SafeVarargs
+    public final Criterion<T> in(V... values) {
+        List<V> list = new ArrayList<>(values.length);
+        for (V value : values) {
+            list.add(value);
+        }
+        return in(list);
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record il cui campo &egrave; minore del
+     * valore specificato.
+     *
+     * @param value Il limite superiore, escluso.
+     * @return Il criterio.
+     */
+    public Criterion<T> lessThan(V value) {
+        return new Criterion.Comparison<>(this, Criterion.Operator.LESS, Collections.singletonList(value));
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record il cui campo &egrave; minore o
+     * uguale al valore specificato.
+     *
+     * @param value Il limite superiore, incluso.
+     * @return Il criterio.
+     */
+    public Criterion<T> atMost(V value) {
+        return new Criterion.Comparison<>(this, Criterion.Operator.LESS_EQUAL, Collections.singletonList(value));
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record il cui campo &egrave; maggiore del
+     * valore specificato.
+     *
+     * @param value Il limite inferiore, escluso.
+     * @return Il criterio.
+     */
+    public Criterion<T> greaterThan(V value) {
+        return new Criterion.Comparison<>(this, Criterion.Operator.GREATER, Collections.singletonList(value));
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record il cui campo &egrave; maggiore o
+     * uguale al valore specificato.
+     *
+     * @param value Il limite inferiore, incluso.
+     * @return Il criterio.
+     */
+    public Criterion<T> atLeast(V value) {
+        return new Criterion.Comparison<>(this, Criterion.Operator.GREATER_EQUAL, Collections.singletonList(value));
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record il cui campo &egrave; compreso tra
+     * i due valori specificati, estremi inclusi.
+     *
+     * @param from Il limite inferiore.
+     * @param to   Il limite superiore.
+     * @return Il criterio.
+     */
+    public Criterion<T> between(V from, V to) {
+        return atLeast(from).and(atMost(to));
+    }
+
+    /**
+     * Crea il criterio soddisfatto dai record in cui il campo &egrave; assente.
+     *
+     * @return Il criterio.
+     */
+    public Criterion<T> isNull() {
+        return new Criterion.Comparison<>(this, Criterion.Operator.NULL, Collections.emptyList());
+    }
+
+    /**
+     * Restituisce il modo in cui i valori del campo vengono confrontati.
+     *
+     * @return Il modo di confronto.
+     */
+    Matching getMatching() {
+        return matching;
+    }
+
+    /**
+     * Normalizza un valore prima del confronto: le stringhe dei campi che
+     * ignorano le maiuscole vengono convertite con la regola di
+     * {@link DataIndex}.
+     *
+     * @param value Il valore.
+     * @return Il valore normalizzato.
+     */
+    @SuppressWarnings("unchecked")
+    V normalize(V value) {
+        if (matching == Matching.IGNORE_CASE && value != null)
+            return (V) DataIndex.foldCase((String) value);
+        return value;
+    }
+
+    /**
+     * Verifica se un record soddisfa un predicato sul valore normalizzato del
+     * campo; per i campi con pi&ugrave; valori &egrave; sufficiente che lo
+     * soddisfi uno di essi.
+     *
+     * @param record    Il record.
+     * @param predicate Il predicato, che riceve anche i valori {@code null}.
+     * @return {@code true} se il predicato &egrave; soddisfatto.
+     */
+    boolean anyMatch(T record, Predicate<V> predicate) {
+        if (accessor != null)
+            return predicate.test(normalize(accessor.apply(record)));
+
+        V[] elements = elementsAccessor.apply(record);
+        if (elements == null || elements.length == 0)
+            return predicate.test(null);
+
+        for (V element : elements) {
+            if (predicate.test(element))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Crea un comparatore che ordina i record per valore del campo, con i
+     * valori assenti in fondo.
+     *
+     * @param descending {@code true} per l'ordine decrescente.
+     * @return Il comparatore.
+     *
+     * @throws UnsupportedOperationException Se il campo ha pi&ugrave; valori.
+     */
+    Comparator<T> comparator(boolean descending) {
+        if (accessor == null)
+            throw new UnsupportedOperationException("Il campo " + name + " ha più valori");
+
+        Comparator<V> order = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        return Comparator.comparing(record -> normalize(accessor.apply(record)), Comparator.nullsLast(order));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * I campi interrogabili delle citt&agrave;.
+     */
+    public static final class City {
+
+        public static final QueryField<RecordCity, Integer> ID = of("ID", RecordCity::ID);
+        public static final QueryField<RecordCity, String> NAME = ignoreCase("name", RecordCity::name);
+        public static final QueryField<RecordCity, String> ASCII_NAME = ignoreCase("ASCIIName",
+                RecordCity::ASCIIName);
+        public static final QueryField<RecordCity, String> COUNTRY_CODE = of("countryCode",
+                RecordCity::countryCode);
+        public static final QueryField<RecordCity, String> COUNTRY_NAME = ignoreCase("countryName",
+                RecordCity::countryName);
+        public static final QueryField<RecordCity, Double> LATITUDE = approximate("latitude", RecordCity::latitude);
+        public static final QueryField<RecordCity, Double> LONGITUDE = approximate("longitude",
+                RecordCity::longitude);
+
+        private City() {
+        }
+    }
+
+    /**
+     * I campi interrogabili degli operatori.
+     */
+    public static final class Operator {
+
+        public static final QueryField<RecordOperator, Integer> ID = of("ID", RecordOperator::ID);
+        public static final QueryField<RecordOperator, String> NAME_SURNAME = of("nameSurname",
+                RecordOperator::nameSurname);
+        public static final QueryField<RecordOperator, String> TAX_CODE = of("taxCode", RecordOperator::taxCode);
+        public static final QueryField<RecordOperator, String> EMAIL = of("email", RecordOperator::email);
+        public static final QueryField<RecordOperator, String> USERNAME = of("username", RecordOperator::username);
+        public static final QueryField<RecordOperator, String> PASSWORD = of("password", RecordOperator::password);
+        public static final QueryField<RecordOperator, Integer> CENTER_ID = of("centerID",
+                RecordOperator::centerID);
+
+        private Operator() {
+        }
+    }
+
+    /**
+     * I campi interrogabili dei centri.
+     */
+    public static final class Center {
+
+        public static final QueryField<RecordCenter, Integer> ID = of("ID", RecordCenter::ID);
+        public static final QueryField<RecordCenter, String> CENTER_NAME = of("centerName",
+                RecordCenter::centerName);
+        public static final QueryField<RecordCenter, String> STREET_NAME = of("streetName",
+                RecordCenter::streetName);
+        public static final QueryField<RecordCenter, String> STREET_NUMBER = of("streetNumber",
+                RecordCenter::streetNumber);
+        public static final QueryField<RecordCenter, String> CAP = of("CAP", RecordCenter::CAP);
+        public static final QueryField<RecordCenter, String> TOWN_NAME = of("townName", RecordCenter::townName);
+        public static final QueryField<RecordCenter, String> DISTRICT_NAME = of("districtName",
+                RecordCenter::districtName);
+        public static final QueryField<RecordCenter, Integer> CITY_ID = elements("cityID", RecordCenter::cityIDs);
+
+        private Center() {
+        }
+    }
+
+    /**
+     * I campi interrogabili dei dati meteorologici. I punteggi delle categorie
+     * sono elencati in {@link #SCORES} nell'ordine dei campi di
+     * {@code RecordWeather}.
+     */
+    public static final class Weather {
+
+        /**
+         * Il formato delle date dei record, che non ammette date inesistenti.
+         */
+        private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/uuuu")
+                .withResolverStyle(ResolverStyle.STRICT);
+
+        public static final QueryField<RecordWeather, Integer> ID = of("ID", RecordWeather::ID);
+        public static final QueryField<RecordWeather, Integer> CITY_ID = of("cityID", RecordWeather::cityID);
+        public static final QueryField<RecordWeather, Integer> CENTER_ID = of("centerID", RecordWeather::centerID);
+        public static final QueryField<RecordWeather, LocalDate> DATE = of("date", Weather::parseDate);
+        public static final QueryField<RecordWeather, Integer> WIND = score("wind", RecordWeather::wind);
+        public static final QueryField<RecordWeather, Integer> HUMIDITY = score("humidity",
+                RecordWeather::humidity);
+        public static final QueryField<RecordWeather, Integer> PRESSURE = score("pressure",
+                RecordWeather::pressure);
+        public static final QueryField<RecordWeather, Integer> TEMPERATURE = score("temperature",
+                RecordWeather::temperature);
+        public static final QueryField<RecordWeather, Integer> PRECIPITATION = score("precipitation",
+                RecordWeather::precipitation);
+        public static final QueryField<RecordWeather, Integer> GLACIER_ELEVATION = score("glacierElevation",
+                RecordWeather::glacierElevation);
+        public static final QueryField<RecordWeather, Integer> GLACIER_MASS = score("glacierMass",
+                RecordWeather::glacierMass);
+
+        /**
+         * I campi dei punteggi, nell'ordine delle categorie.
+         */
+        public static final List<QueryField<RecordWeather, Integer>> SCORES = List.of(
+                WIND, HUMIDITY, PRESSURE, TEMPERATURE, PRECIPITATION, GLACIER_ELEVATION, GLACIER_MASS);
+
+        private Weather() {
+        }
+
+        /**
+         * Crea il campo del punteggio di una categoria.
+         *
+         * @param name     Il nome del campo.
+         * @param category La funzione che legge il dato della categoria.
+         * @return Il campo.
+         */
+        private static QueryField<RecordWeather, Integer> score(String name,
+                Function<RecordWeather, WeatherData> category) {
+            return of(name, weather -> {
+                WeatherData data = category.apply(weather);
+                return data == null ? null : data.score();
+            });
+        }
+
+        /**
+         * Converte la data di un record.
+         *
+         * @param weather Il record.
+         * @return La data, o {@code null} se non &egrave; nel formato previsto.
+         */
+        private static LocalDate parseDate(RecordWeather weather) {
+            try {
+                return weather.date() == null ? null : LocalDate.parse(weather.date(), DATE_FORMATTER);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+    }
+
+}
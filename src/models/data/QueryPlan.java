@@ -0,0 +1,303 @@
+package models.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+import models.data.DataQuery.QueryCondition;
+
+/**
+ * La classe {@code QueryPlan} rappresenta una lista di condizioni di
+ * interrogazione compilata in un unico predicato sui record.
+ * <p>
+ * La compilazione risolve una sola volta, per ogni condizione, il campo del
+ * record da confrontare e il tipo di confronto, converte le condizioni con
+ * pi&ugrave; valori in insiemi hash e ordina le condizioni in modo che quelle
+ * pi&ugrave; economiche e selettive (ad esempio l'uguaglianza sull'ID) vengano
+ * verificate per prime. La verifica di un record non richiede quindi
+ * confronti sui nomi delle chiavi n&eacute; la creazione di oggetti.
+ * </p>
+ * <p>
+ * Un record soddisfa il piano se soddisfa tutte le condizioni; una condizione
+ * con pi&ugrave; valori &egrave; soddisfatta se il campo corrisponde ad almeno
+ * uno di essi.
+ * </p>
+ *
+ * @param <T> Il tipo dei record interrogati.
+ *
+ * @see models.data.DataQuery
+ * @see models.data.DataQuery.QueryCondition
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class QueryPlan<T> {
+
+    /**
+     * I predicati delle condizioni, nell'ordine di verifica.
+     */
+    private final List<Predicate<T>> predicates;
+
+    /**
+     * Crea un piano a partire dai predicati gi&agrave; ordinati.
+     *
+     * @param predicates I predicati delle condizioni.
+     */
+    private QueryPlan(List<Predicate<T>> predicates) {
+        this.predicates = predicates;
+    }
+
+    /**
+     * Compila una lista di condizioni di interrogazione.
+     *
+     * @param <T>        Il tipo dei record interrogati.
+     * @param conditions La lista di condizioni.
+     * @param fields     I campi interrogabili dell'entit&agrave;, per chiave.
+     * @return Il piano compilato.
+     *
+     * @throws IllegalArgumentException Se una condizione si riferisce a una
+     *                                  chiave non valida.
+     */
+    public static <T> QueryPlan<T> compile(List<QueryCondition> conditions, Map<String, Field<T>> fields) {
+        List<Field<T>> conditionFields = new ArrayList<>(conditions.size());
+        List<Predicate<T>> predicates = new ArrayList<>(conditions.size());
+
+        for (QueryCondition condition : conditions) {
+            Field<T> field = fields.get(condition.getKey());
+            if (field == null)
+                throw new IllegalArgumentException("Chiave non valida");
+
+            conditionFields.add(field);
+            predicates.add(condition.hasMultipleValues()
+                    ? field.compileIn(condition.getValues())
+                    : field.compile(condition.getValue()));
+        }
+
+        Integer[] order = new Integer[predicates.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> conditionFields.get(i).cost));
+
+        List<Predicate<T>> orderedPredicates = new ArrayList<>(order.length);
+        for (int i = 0; i < order.length; i++) {
+            orderedPredicates.add(predicates.get(order[i]));
+        }
+
+        return new QueryPlan<>(orderedPredicates);
+    }
+
+    /**
+     * Verifica se un record soddisfa tutte le condizioni del piano.
+     *
+     * @param record Il record da verificare.
+     * @return {@code true} se il record soddisfa tutte le condizioni.
+     */
+    public boolean test(T record) {
+        for (Predicate<T> predicate : predicates) {
+            if (!predicate.test(record))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Restituisce i record di una collezione che soddisfano il piano.
+     *
+     * @param records I record candidati.
+     * @return Una lista dei record che soddisfano tutte le condizioni,
+     *         nell'ordine della collezione.
+     */
+    public List<T> filter(Collection<T> records) {
+        List<T> matchingRecords = new ArrayList<>();
+        for (T record : records) {
+            if (test(record))
+                matchingRecords.add(record);
+        }
+        return matchingRecords;
+    }
+
+    /**
+     * La classe {@code Field} descrive un campo interrogabile di un record: come
+     * leggerne il valore e come confrontarlo con i valori delle condizioni.
+     *
+     * @param <T> Il tipo dei record.
+     */
+    public abstract static class Field<T> {
+
+        /**
+         * Costo relativo della verifica, usato per ordinare le condizioni.
+         */
+        private final int cost;
+
+        /**
+         * Crea un campo con il costo di verifica specificato.
+         *
+         * @param cost Il costo relativo della verifica.
+         */
+        private Field(int cost) {
+            this.cost = cost;
+        }
+
+        /**
+         * Compila una condizione di uguaglianza con un singolo valore.
+         *
+         * @param value Il valore della condizione.
+         * @return Il predicato corrispondente.
+         */
+        abstract Predicate<T> compile(Object value);
+
+        /**
+         * Compila una condizione con pi&ugrave; valori alternativi.
+         *
+         * @param values I valori della condizione.
+         * @return Il predicato corrispondente.
+         */
+        abstract Predicate<T> compileIn(Collection<?> values);
+
+        /**
+         * Crea un campo confrontato per uguaglianza esatta.
+         *
+         * @param <T>      Il tipo dei record.
+         * @param <V>      Il tipo del campo.
+         * @param type     La classe dei valori del campo.
+         * @param accessor La funzione che legge il campo dal record.
+         * @return Il campo.
+         */
+        public static <T, V> Field<T> equal(Class<V> type, Function<T, V> accessor) {
+            return new Field<>(type == Integer.class ? 0 : 1) {
+                @Override
+                Predicate<T> compile(Object value) {
+                    V target = type.cast(value);
+                    if (target == null)
+                        return record -> false;
+                    return record -> target.equals(accessor.apply(record));
+                }
+
+                @Override
+                Predicate<T> compileIn(Collection<?> values) {
+                    Set<V> targets = new HashSet<>();
+                    for (Object value : values) {
+                        targets.add(type.cast(value));
+                    }
+                    return record -> targets.contains(accessor.apply(record));
+                }
+            };
+        }
+
+        /**
+         * Crea un campo di tipo stringa confrontato ignorando le maiuscole.
+         *
+         * @param <T>      Il tipo dei record.
+         * @param accessor La funzione che legge il campo dal record.
+         * @return Il campo.
+         */
+        public static <T> Field<T> ignoreCase(Function<T, String> accessor) {
+            return new Field<>(2) {
+                @Override
+                Predicate<T> compile(Object value) {
+                    String target = (String) value;
+                    return record -> accessor.apply(record).equalsIgnoreCase(target);
+                }
+
+                @Override
+                Predicate<T> compileIn(Collection<?> values) {
+                    Set<Object> targets = new HashSet<>();
+                    for (Object value : values) {
+                        targets.add(DataIndex.foldCase((String) value));
+                    }
+                    return record -> targets.contains(DataIndex.foldCase(accessor.apply(record)));
+                }
+            };
+        }
+
+        /**
+         * Crea un campo numerico confrontato con una tolleranza che dipende dal
+         * numero di cifre decimali del valore cercato.
+         *
+         * @param <T>      Il tipo dei record.
+         * @param accessor La funzione che legge il campo dal record.
+         * @return Il campo.
+         *
+         * @see models.data.DataQuery#generateEpsilon(double)
+         */
+        public static <T> Field<T> approximate(ToDoubleFunction<T> accessor) {
+            return new Field<>(3) {
+                @Override
+                Predicate<T> compile(Object value) {
+                    double target = (double) value;
+                    double epsilon = DataQuery.generateEpsilon(target);
+                    return record -> Math.abs(accessor.applyAsDouble(record) - target) < epsilon;
+                }
+
+                @Override
+                Predicate<T> compileIn(Collection<?> values) {
+                    double[] targets = new double[values.size()];
+                    double[] epsilons = new double[values.size()];
+                    int i = 0;
+                    for (Object value : values) {
+                        targets[i] = (double) value;
+                        epsilons[i] = DataQuery.generateEpsilon(targets[i]);
+                        i++;
+                    }
+                    return record -> {
+                        double field = accessor.applyAsDouble(record);
+                        for (int j = 0; j < targets.length; j++) {
+                            if (Math.abs(field - targets[j]) < epsilons[j])
+                                return true;
+                        }
+                        return false;
+                    };
+                }
+            };
+        }
+
+        /**
+         * Crea un campo a pi&ugrave; valori, soddisfatto se almeno uno dei suoi
+         * valori &egrave; uguale a quello cercato.
+         *
+         * @param <T>      Il tipo dei record.
+         * @param accessor La funzione che legge i valori del campo dal record.
+         * @return Il campo.
+         */
+        public static <T> Field<T> contains(Function<T, Object[]> accessor) {
+            return new Field<>(4) {
+                @Override
+                Predicate<T> compile(Object value) {
+                    if (value == null)
+                        return record -> false;
+                    return record -> {
+                        for (Object element : accessor.apply(record)) {
+                            if (value.equals(element))
+                                return true;
+                        }
+                        return false;
+                    };
+                }
+
+                @Override
+                Predicate<T> compileIn(Collection<?> values) {
+                    Set<Object> targets = new HashSet<>(values);
+                    return record -> {
+                        for (Object element : accessor.apply(record)) {
+                            if (targets.contains(element))
+                                return true;
+                        }
+                        return false;
+                    };
+                }
+            };
+        }
+    }
+
+}
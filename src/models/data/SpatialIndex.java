@@ -0,0 +1,403 @@
+package models.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+import models.record.RecordCity;
+
+/**
+ * La classe {@code SpatialIndex} rappresenta un indice spaziale a griglia
+ * sulle coordinate geografiche delle citt&agrave;.
+ * <p>
+ * La superficie terrestre viene divisa in celle di {@value #CELL_SIZE} gradi
+ * di latitudine e longitudine; ogni citt&agrave; viene associata alla cella che
+ * contiene le sue coordinate. Le ricerche visitano soltanto le celle che
+ * possono contenere risultati, invece di confrontare tutte le citt&agrave;.
+ * </p>
+ * <p>
+ * Sono supportate la ricerca per coordinate esatte (con la stessa tolleranza
+ * usata da {@code DataQuery}), la ricerca entro un raggio e la ricerca delle
+ * citt&agrave; pi&ugrave; vicine.
+ * </p>
+ * <p>
+ * Le celle memorizzano solo l'ID e le coordinate delle citt&agrave;, in array
+ * di tipi primitivi; i record delle citt&agrave; trovate vengono richiesti
+ * alla funzione indicata al costruttore.
+ * </p>
+ *
+ * @see models.data.DataQuery
+ * @see models.record.RecordCity
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class SpatialIndex {
+
+    /**
+     * Dimensione in gradi del lato di una cella della griglia.
+     */
+    public static final double CELL_SIZE = 1.0;
+
+    /**
+     * Raggio medio terrestre in chilometri.
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    /**
+     * Distanza massima in chilometri tra due punti della superficie terrestre.
+     */
+    private static final double MAX_DISTANCE_KM = Math.PI * EARTH_RADIUS_KM;
+
+    /**
+     * Lunghezza in chilometri di un grado di latitudine.
+     */
+    private static final double KM_PER_DEGREE = MAX_DISTANCE_KM / 180.0;
+
+    /**
+     * Numero di colonne (celle di longitudine) della griglia.
+     */
+    private static final int COLUMNS = (int) Math.ceil(360.0 / CELL_SIZE);
+
+    /**
+     * Numero di righe (celle di latitudine) della griglia.
+     */
+    private static final int ROWS = (int) Math.ceil(180.0 / CELL_SIZE);
+
+    /**
+     * Mappa che associa ogni cella della griglia alle citt&agrave; che contiene.
+     */
+    private final HashMap<Integer, Cell> cells = new HashMap<>();
+
+    /**
+     * Funzione che restituisce il record di una citt&agrave; dato il suo ID.
+     */
+    private final IntFunction<RecordCity> cityOf;
+
+    /**
+     * Crea un nuovo indice spaziale vuoto.
+     *
+     * @param cityOf La funzione che restituisce il record di una citt&agrave;
+     *               indicizzata dato il suo ID.
+     */
+    public SpatialIndex(IntFunction<RecordCity> cityOf) {
+        this.cityOf = cityOf;
+    }
+
+    /**
+     * Aggiunge una citt&agrave; all'indice.
+     *
+     * @param city La citt&agrave; da aggiungere.
+     */
+    public void add(RecordCity city) {
+        cells.computeIfAbsent(cellOf(city.latitude(), city.longitude()), k -> new Cell())
+                .add(city.ID(), city.latitude(), city.longitude());
+    }
+
+    /**
+     * Rimuove una citt&agrave; dall'indice.
+     *
+     * @param city La citt&agrave; da rimuovere, con le coordinate con cui
+     *             &egrave; stata aggiunta.
+     */
+    public void remove(RecordCity city) {
+        int cell = cellOf(city.latitude(), city.longitude());
+        Cell cities = cells.get(cell);
+
+        if (cities != null) {
+            cities.remove(city.ID());
+            if (cities.count == 0)
+                cells.remove(cell);
+        }
+    }
+
+    /**
+     * Sostituisce una citt&agrave; dell'indice con la sua nuova versione.
+     *
+     * @param oldCity La citt&agrave; da rimuovere (pu&ograve; essere
+     *                {@code null}).
+     * @param newCity La citt&agrave; da aggiungere.
+     */
+    public void replace(RecordCity oldCity, RecordCity newCity) {
+        if (oldCity != null)
+            remove(oldCity);
+        add(newCity);
+    }
+
+    /**
+     * Cerca le citt&agrave; che si trovano alle coordinate specificate.
+     * <p>
+     * Come per le condizioni {@code "latitude"} e {@code "longitude"} di
+     * {@code DataQuery}, la tolleranza dipende dal numero di cifre decimali delle
+     * coordinate cercate.
+     * </p>
+     *
+     * @param latitude  La latitudine cercata.
+     * @param longitude La longitudine cercata.
+     * @return La lista delle citt&agrave; alle coordinate specificate.
+     */
+    public List<RecordCity> findExact(double latitude, double longitude) {
+        double latitudeEpsilon = DataQuery.generateEpsilon(latitude);
+        double longitudeEpsilon = DataQuery.generateEpsilon(longitude);
+
+        List<Integer> IDs = new ArrayList<>();
+
+        for (Cell cell : collect(latitude - latitudeEpsilon, latitude + latitudeEpsilon,
+                longitude - longitudeEpsilon, longitude + longitudeEpsilon)) {
+            for (int i = 0; i < cell.count; i++) {
+                if (Math.abs(cell.latitudes[i] - latitude) < latitudeEpsilon
+                        && Math.abs(cell.longitudes[i] - longitude) < longitudeEpsilon) {
+                    IDs.add(cell.IDs[i]);
+                }
+            }
+        }
+
+        return resolve(IDs);
+    }
+
+    /**
+     * Cerca le citt&agrave; che si trovano entro un raggio dalle coordinate
+     * specificate.
+     *
+     * @param latitude  La latitudine del centro della ricerca.
+     * @param longitude La longitudine del centro della ricerca.
+     * @param radiusKm  Il raggio della ricerca in chilometri.
+     * @return La lista delle citt&agrave; trovate, ordinate per distanza
+     *         crescente.
+     */
+    public List<RecordCity> findWithinRadius(double latitude, double longitude, double radiusKm) {
+        double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        double minLatitude = Math.max(-90.0, latitude - latitudeDelta);
+        double maxLatitude = Math.min(90.0, latitude + latitudeDelta);
+
+        // La longitudine si restringe verso i poli: si usa la latitudine più
+        // estrema dell'intervallo per non escludere città valide.
+        double cosine = Math.cos(Math.toRadians(Math.max(Math.abs(minLatitude), Math.abs(maxLatitude))));
+        double longitudeDelta = cosine > 1e-9 ? latitudeDelta / cosine : 360.0;
+
+        List<Cell> candidates = longitudeDelta >= 180.0
+                ? collect(minLatitude, maxLatitude, -180.0, 180.0)
+                : collect(minLatitude, maxLatitude, longitude - longitudeDelta, longitude + longitudeDelta);
+
+        List<Match> matches = new ArrayList<>();
+        for (Cell cell : candidates) {
+            for (int i = 0; i < cell.count; i++) {
+                double distance = distanceKm(latitude, longitude, cell.latitudes[i], cell.longitudes[i]);
+                if (distance <= radiusKm)
+                    matches.add(new Match(cell.IDs[i], distance));
+            }
+        }
+
+        matches.sort(Comparator.comparingDouble(Match::distance));
+
+        List<Integer> IDs = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            IDs.add(match.ID());
+        }
+        return resolve(IDs);
+    }
+
+    /**
+     * Cerca le {@code k} citt&agrave; pi&ugrave; vicine alle coordinate
+     * specificate.
+     * <p>
+     * Il raggio di ricerca viene raddoppiato finch&eacute; non contiene almeno
+     * {@code k} citt&agrave;: tutte le citt&agrave; entro il raggio sono note,
+     * quindi le prime {@code k} sono effettivamente le pi&ugrave; vicine.
+     * </p>
+     *
+     * @param latitude  La latitudine del punto di riferimento.
+     * @param longitude La longitudine del punto di riferimento.
+     * @param k         Il numero massimo di citt&agrave; da restituire.
+     * @return La lista delle citt&agrave; pi&ugrave; vicine, ordinate per
+     *         distanza crescente.
+     */
+    public List<RecordCity> findNearest(double latitude, double longitude, int k) {
+        if (k <= 0 || cells.isEmpty())
+            return new ArrayList<>();
+
+        double radiusKm = CELL_SIZE * KM_PER_DEGREE;
+        List<RecordCity> result = findWithinRadius(latitude, longitude, radiusKm);
+
+        while (result.size() < k && radiusKm < MAX_DISTANCE_KM) {
+            radiusKm = Math.min(radiusKm * 2, MAX_DISTANCE_KM);
+            result = findWithinRadius(latitude, longitude, radiusKm);
+        }
+
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+
+    /**
+     * Calcola la distanza sulla superficie terrestre tra due punti con la formula
+     * dell'emisenoverso.
+     *
+     * @param latitude1  La latitudine del primo punto.
+     * @param longitude1 La longitudine del primo punto.
+     * @param latitude2  La latitudine del secondo punto.
+     * @param longitude2 La longitudine del secondo punto.
+     * @return La distanza tra i due punti in chilometri.
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double deltaLatitude = Math.toRadians(latitude2 - latitude1);
+        double deltaLongitude = Math.toRadians(longitude2 - longitude1);
+
+        double a = Math.sin(deltaLatitude / 2) * Math.sin(deltaLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                        * Math.sin(deltaLongitude / 2) * Math.sin(deltaLongitude / 2);
+
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Restituisce i record delle citt&agrave; con gli ID specificati, nello
+     * stesso ordine.
+     *
+     * @param IDs Gli ID delle citt&agrave;.
+     * @return La lista delle citt&agrave;.
+     */
+    private List<RecordCity> resolve(List<Integer> IDs) {
+        List<RecordCity> result = new ArrayList<>(IDs.size());
+        for (int ID : IDs) {
+            result.add(cityOf.apply(ID));
+        }
+        result.removeIf(Objects::isNull);
+        return result;
+    }
+
+    /**
+     * Raccoglie le celle che intersecano il rettangolo specificato. La
+     * longitudine viene considerata in modo circolare.
+     *
+     * @param minLatitude  La latitudine minima.
+     * @param maxLatitude  La latitudine massima.
+     * @param minLongitude La longitudine minima.
+     * @param maxLongitude La longitudine massima.
+     * @return La lista delle celle non vuote visitate.
+     */
+    private List<Cell> collect(double minLatitude, double maxLatitude,
+            double minLongitude, double maxLongitude) {
+        List<Cell> result = new ArrayList<>();
+
+        int firstRow = row(minLatitude);
+        int lastRow = row(maxLatitude);
+        int firstColumn = (int) Math.floor((minLongitude + 180.0) / CELL_SIZE);
+        int lastColumn = (int) Math.floor((maxLongitude + 180.0) / CELL_SIZE);
+
+        if (lastColumn - firstColumn >= COLUMNS - 1) {
+            firstColumn = 0;
+            lastColumn = COLUMNS - 1;
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Cell cell = cells.get(row * COLUMNS + Math.floorMod(column, COLUMNS));
+                if (cell != null)
+                    result.add(cell);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Restituisce la cella della griglia che contiene le coordinate specificate.
+     *
+     * @param latitude  La latitudine.
+     * @param longitude La longitudine.
+     * @return L'identificativo della cella.
+     */
+    private static int cellOf(double latitude, double longitude) {
+        int column = Math.floorMod((int) Math.floor((longitude + 180.0) / CELL_SIZE), COLUMNS);
+        return row(latitude) * COLUMNS + column;
+    }
+
+    /**
+     * Restituisce la riga della griglia che contiene la latitudine specificata.
+     *
+     * @param latitude La latitudine.
+     * @return L'indice della riga, limitato all'intervallo valido.
+     */
+    private static int row(double latitude) {
+        int row = (int) Math.floor((latitude + 90.0) / CELL_SIZE);
+        return Math.max(0, Math.min(ROWS - 1, row));
+    }
+
+    /**
+     * Una citt&agrave; trovata da una ricerca per distanza.
+     *
+     * @param ID       L'ID della citt&agrave;.
+     * @param distance La distanza in chilometri dal punto di riferimento.
+     */
+    private record Match(int ID, double distance) {
+    }
+
+    /**
+     * Le citt&agrave; di una cella della griglia, memorizzate come ID e
+     * coordinate.
+     */
+    private static class Cell {
+
+        /**
+         * Gli ID delle citt&agrave;.
+         */
+        private int[] IDs = new int[4];
+
+        /**
+         * Le latitudini delle citt&agrave;.
+         */
+        private double[] latitudes = new double[4];
+
+        /**
+         * Le longitudini delle citt&agrave;.
+         */
+        private double[] longitudes = new double[4];
+
+        /**
+         * Il numero di citt&agrave;.
+         */
+        private int count;
+
+        /**
+         * Aggiunge una citt&agrave; alla cella.
+         *
+         * @param ID        L'ID della citt&agrave;.
+         * @param latitude  La latitudine.
+         * @param longitude La longitudine.
+         */
+        void add(int ID, double latitude, double longitude) {
+            if (count == IDs.length) {
+                IDs = Arrays.copyOf(IDs, count * 2);
+                latitudes = Arrays.copyOf(latitudes, count * 2);
+                longitudes = Arrays.copyOf(longitudes, count * 2);
+            }
+            IDs[count] = ID;
+            latitudes[count] = latitude;
+            longitudes[count] = longitude;
+            count++;
+        }
+
+        /**
+         * Rimuove una citt&agrave; dalla cella, mantenendo l'ordine delle altre.
+         *
+         * @param ID L'ID della citt&agrave;.
+         */
+        void remove(int ID) {
+            for (int i = 0; i < count; i++) {
+                if (IDs[i] == ID) {
+                    System.arraycopy(IDs, i + 1, IDs, i, count - i - 1);
+                    System.arraycopy(latitudes, i + 1, latitudes, i, count - i - 1);
+                    System.arraycopy(longitudes, i + 1, longitudes, i, count - i - 1);
+                    count--;
+                    return;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,633 @@
+package models.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import models.file.Journal;
+import models.record.RecordCenter;
+import models.record.RecordOperator;
+import utils.Constants;
+
+/**
+ * La classe {@code StorageSnapshot} gestisce un'istantanea binaria dei dati di
+ * {@code DataStorage}, che permette di evitare la lettura dei file CSV
+ * all'avvio dell'applicazione.
+ * <p>
+ * L'istantanea &egrave; composta da un'intestazione e dal contenuto. L'intestazione
+ * contiene un identificativo del formato, la versione, la modalit&agrave; di
+ * journaling, la dimensione e la data di ultima modifica di ciascun file di
+ * dati e del suo journal, la lunghezza del contenuto e il suo codice di
+ * controllo CRC32. Il contenuto contiene gli operatori, i centri e le colonne
+ * dell'archivio dei dati meteorologici con i relativi elenchi delle righe;
+ * gli altri indici vengono ricostruiti in lettura. Le citt&agrave; sono
+ * archiviate separatamente nel catalogo {@code CityCatalog}.
+ * </p>
+ * <p>
+ * In lettura il file viene mappato in memoria: se il formato o la versione non
+ * corrispondono, se un file di dati &egrave; stato modificato dopo la scrittura
+ * o se il codice di controllo non &egrave; valido l'istantanea viene ignorata
+ * e i dati vengono letti dai file CSV. La scrittura avviene su un file
+ * temporaneo che sostituisce quello precedente solo al termine.
+ * </p>
+ *
+ * @see models.data.DataStorage
+ * @see models.data.WeatherColumns
+ * @see utils.Constants.Storage#SNAPSHOT
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class StorageSnapshot {
+
+    /**
+     * Identificativo del formato, all'inizio del file.
+     */
+    private static final int MAGIC = 0x4D434C53;
+
+    /**
+     * Versione del formato, da incrementare a ogni modifica del contenuto.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Dimensione del buffer di scrittura.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Lunghezza che rappresenta una stringa {@code null}.
+     */
+    private static final int NULL_LENGTH = -1;
+
+    /**
+     * Valore che rappresenta un ID assente.
+     */
+    private static final int NULL_ID = Integer.MIN_VALUE;
+
+    /**
+     * Il percorso dell'istantanea.
+     */
+    private final Path path;
+
+    /**
+     * I percorsi dei file di dati da cui dipende l'istantanea.
+     */
+    private final String[] dataFilePaths;
+
+    /**
+     * Costruttore della classe {@code StorageSnapshot}.
+     *
+     * @param path          Il percorso dell'istantanea.
+     * @param dataFilePaths I percorsi dei file di dati da cui dipende
+     *                      l'istantanea.
+     */
+    public StorageSnapshot(String path, String... dataFilePaths) {
+        this.path = Paths.get(path);
+        this.dataFilePaths = dataFilePaths.clone();
+    }
+
+    /**
+     * Carica i dati dall'istantanea, se presente e aggiornata rispetto ai file
+     * di dati.
+     * <p>
+     * Le mappe di {@code storage} vengono assegnate solo se l'intera
+     * istantanea &egrave; stata letta correttamente.
+     * </p>
+     *
+     * @param storage L'archivio in cui caricare i dati.
+     * @return {@code true} se i dati sono stati caricati, {@code false} se
+     *         devono essere letti dai file di dati.
+     */
+    boolean read(DataStorage storage) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (!readHeader(buffer) || buffer.remaining() < 2 * Long.BYTES)
+                return false;
+
+            long payloadLength = buffer.getLong();
+            long checksum = buffer.getLong();
+            if (payloadLength != buffer.remaining())
+                return false;
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != checksum)
+                return false;
+
+            HashMap<Integer, RecordOperator> operatorMap = readOperators(buffer);
+            HashMap<Integer, RecordCenter> centerMap = readCenters(buffer);
+            WeatherColumns weatherMap = WeatherColumns.readSnapshot(buffer);
+            if (buffer.hasRemaining())
+                return false;
+
+            storage.operatorMap = operatorMap;
+            storage.centerMap = centerMap;
+            storage.weatherMap = weatherMap;
+            return true;
+
+        } catch (NoSuchFileException e) {
+            return false;
+
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Istantanea dei dati non valida, lettura dai file di dati: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Indica se l'istantanea &egrave; presente e aggiornata rispetto ai file di
+     * dati, senza verificarne il contenuto.
+     *
+     * @return {@code true} se l'istantanea &egrave; aggiornata.
+     */
+    boolean isCurrent() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(headerSize()).order(ByteOrder.LITTLE_ENDIAN);
+            int read = 0;
+            while (buffer.hasRemaining() && read >= 0) {
+                read = channel.read(buffer);
+            }
+            buffer.flip();
+            return buffer.remaining() == headerSize() && readHeader(buffer);
+
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Scrive l'istantanea dei dati di un archivio.
+     * <p>
+     * Lo stato dei file di dati viene rilevato prima della scrittura, quindi
+     * l'archivio deve corrispondere al loro contenuto attuale.
+     * </p>
+     *
+     * @param storage L'archivio da salvare, con tutte le mappe caricate.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    void write(DataStorage storage) throws IOException {
+        long[] stamps = readStamps(dataFilePaths);
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporaryPath,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer header = ByteBuffer.allocate(headerSize() + 2 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.position(header.capacity());
+            header.flip();
+            writeFully(channel, header);
+
+            Output output = new Output(channel);
+            writeOperators(output, storage.operatorMap);
+            writeCenters(output, storage.centerMap);
+            storage.weatherMap.writeSnapshot(output);
+            output.flush();
+
+            header.clear();
+            header.putInt(MAGIC).putInt(VERSION).putInt(journalingFlag()).putInt(stamps.length);
+            for (long stamp : stamps) {
+                header.putLong(stamp);
+            }
+            header.putLong(output.length).putLong(output.crc.getValue());
+            header.flip();
+            channel.position(0);
+            writeFully(channel, header);
+            channel.force(true);
+        }
+
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Legge e verifica l'intestazione dell'istantanea, fino alla lunghezza del
+     * contenuto esclusa.
+     *
+     * @param buffer Il buffer posizionato all'inizio del file.
+     * @return {@code true} se formato, versione e stato dei file di dati
+     *         corrispondono.
+     * @throws IOException Se non &egrave; possibile rilevare lo stato dei file
+     *                     di dati.
+     */
+    private boolean readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < headerSize())
+            return false;
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != journalingFlag())
+            return false;
+
+        long[] stamps = readStamps(dataFilePaths);
+        if (buffer.getInt() != stamps.length)
+            return false;
+        for (long stamp : stamps) {
+            if (buffer.getLong() != stamp)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Restituisce la dimensione dell'intestazione, esclusi lunghezza e codice
+     * di controllo del contenuto.
+     *
+     * @return La dimensione in byte.
+     */
+    private int headerSize() {
+        return 4 * Integer.BYTES + 4 * dataFilePaths.length * Long.BYTES;
+    }
+
+    /**
+     * Restituisce la modalit&agrave; di journaling, che determina il contenuto
+     * dei dati letti dai file.
+     *
+     * @return 1 se il journal &egrave; abilitato, 0 altrimenti.
+     */
+    private static int journalingFlag() {
+        return Constants.Storage.JOURNALING ? 1 : 0;
+    }
+
+    /**
+     * Rileva lo stato dei file di dati e dei rispettivi journal.
+     *
+     * @param dataFilePaths I percorsi dei file di dati.
+     * @return Per ciascun file, la dimensione e la data di ultima modifica, o
+     *         -1 se il file non esiste.
+     * @throws IOException Se non &egrave; possibile rilevare lo stato di un file.
+     */
+    static long[] readStamps(String... dataFilePaths) throws IOException {
+        long[] stamps = new long[4 * dataFilePaths.length];
+        int i = 0;
+        for (String dataFilePath : dataFilePaths) {
+            for (Path file : new Path[] { Paths.get(dataFilePath), Paths.get(dataFilePath + Journal.EXTENSION) }) {
+                boolean exists = Files.exists(file);
+                stamps[i++] = exists ? Files.size(file) : -1;
+                stamps[i++] = exists ? Files.getLastModifiedTime(file).toMillis() : -1;
+            }
+        }
+        return stamps;
+    }
+
+    /**
+     * Scrive l'intero contenuto di un buffer in un canale.
+     *
+     * @param channel Il canale.
+     * @param buffer  Il buffer da scrivere.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Scrive gli operatori nell'istantanea.
+     *
+     * @param output Il contenuto in scrittura.
+     * @param map    La mappa degli operatori.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private static void writeOperators(Output output, Map<Integer, RecordOperator> map) throws IOException {
+        output.putInt(map.size());
+        for (RecordOperator operator : map.values()) {
+            output.putInt(operator.ID());
+            output.putString(operator.nameSurname());
+            output.putString(operator.taxCode());
+            output.putString(operator.email());
+            output.putString(operator.username());
+            output.putString(operator.password());
+            output.putInt(operator.centerID() == null ? NULL_ID : operator.centerID());
+        }
+    }
+
+    /**
+     * Legge gli operatori dall'istantanea.
+     *
+     * @param input Il contenuto in lettura.
+     * @return La mappa degli operatori.
+     */
+    private static HashMap<Integer, RecordOperator> readOperators(ByteBuffer input) {
+        int count = input.getInt();
+        HashMap<Integer, RecordOperator> map = new HashMap<>(capacityFor(count));
+        for (int i = 0; i < count; i++) {
+            int ID = input.getInt();
+            String nameSurname = getString(input);
+            String taxCode = getString(input);
+            String email = getString(input);
+            String username = getString(input);
+            String password = getString(input);
+            int centerID = input.getInt();
+            map.put(ID, new RecordOperator(ID, nameSurname, taxCode, email, username, password,
+                    centerID == NULL_ID ? null : centerID));
+        }
+        return map;
+    }
+
+    /**
+     * Scrive i centri nell'istantanea.
+     *
+     * @param output Il contenuto in scrittura.
+     * @param map    La mappa dei centri.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private static void writeCenters(Output output, Map<Integer, RecordCenter> map) throws IOException {
+        output.putInt(map.size());
+        for (RecordCenter center : map.values()) {
+            output.putInt(center.ID());
+            output.putString(center.centerName());
+            output.putString(center.streetName());
+            output.putString(center.streetNumber());
+            output.putString(center.CAP());
+            output.putString(center.townName());
+            output.putString(center.districtName());
+
+            Integer[] cityIDs = center.cityIDs();
+            output.putInt(cityIDs == null ? NULL_LENGTH : cityIDs.length);
+            if (cityIDs != null) {
+                for (Integer cityID : cityIDs) {
+                    output.putInt(cityID == null ? NULL_ID : cityID);
+                }
+            }
+        }
+    }
+
+    /**
+     * Legge i centri dall'istantanea.
+     *
+     * @param input Il contenuto in lettura.
+     * @return La mappa dei centri.
+     */
+    private static HashMap<Integer, RecordCenter> readCenters(ByteBuffer input) {
+        int count = input.getInt();
+        HashMap<Integer, RecordCenter> map = new HashMap<>(capacityFor(count));
+        for (int i = 0; i < count; i++) {
+            int ID = input.getInt();
+            String centerName = getString(input);
+            String streetName = getString(input);
+            String streetNumber = getString(input);
+            String CAP = getString(input);
+            String townName = getString(input);
+            String districtName = getString(input);
+
+            int cityCount = input.getInt();
+            Integer[] cityIDs = null;
+            if (cityCount != NULL_LENGTH) {
+                cityIDs = new Integer[cityCount];
+                for (int j = 0; j < cityCount; j++) {
+                    int cityID = input.getInt();
+                    cityIDs[j] = cityID == NULL_ID ? null : cityID;
+                }
+            }
+            map.put(ID, new RecordCenter(ID, centerName, streetName, streetNumber, CAP, townName, districtName,
+                    cityIDs));
+        }
+        return map;
+    }
+
+    /**
+     * Restituisce la capacit&agrave; iniziale di una {@code HashMap} destinata a
+     * contenere il numero di elementi specificato senza essere ridimensionata.
+     *
+     * @param count Il numero di elementi.
+     * @return La capacit&agrave; iniziale.
+     */
+    private static int capacityFor(int count) {
+        return (int) Math.min(Integer.MAX_VALUE, count * 4L / 3 + 1);
+    }
+
+    /**
+     * Legge una stringa scritta con {@link Output#putString}.
+     *
+     * @param input Il contenuto in lettura.
+     * @return La stringa letta, eventualmente {@code null}.
+     */
+    static String getString(ByteBuffer input) {
+        int length = input.getInt();
+        if (length == NULL_LENGTH)
+            return null;
+
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Legge una colonna di {@code int} scritta con {@link Output#putInts}.
+     *
+     * @param input    Il contenuto in lettura.
+     * @param count    Il numero di valori.
+     * @param capacity La lunghezza dell'array restituito, almeno {@code count}.
+     * @return Un nuovo array contenente i valori letti.
+     */
+    static int[] getInts(ByteBuffer input, int count, int capacity) {
+        int[] values = new int[capacity];
+        input.asIntBuffer().get(values, 0, count);
+        input.position(input.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * Legge una colonna di {@code long} scritta con {@link Output#putLongs}.
+     *
+     * @param input    Il contenuto in lettura.
+     * @param count    Il numero di valori.
+     * @param capacity La lunghezza dell'array restituito, almeno {@code count}.
+     * @return Un nuovo array contenente i valori letti.
+     */
+    static long[] getLongs(ByteBuffer input, int count, int capacity) {
+        long[] values = new long[capacity];
+        input.asLongBuffer().get(values, 0, count);
+        input.position(input.position() + count * Long.BYTES);
+        return values;
+    }
+
+    /**
+     * Legge una colonna di {@code byte} scritta con {@link Output#putBytes}.
+     *
+     * @param input    Il contenuto in lettura.
+     * @param count    Il numero di valori.
+     * @param capacity La lunghezza dell'array restituito, almeno {@code count}.
+     * @return Un nuovo array contenente i valori letti.
+     */
+    static byte[] getBytes(ByteBuffer input, int count, int capacity) {
+        byte[] values = new byte[capacity];
+        input.get(values, 0, count);
+        return values;
+    }
+
+    /**
+     * Il contenuto di un'istantanea in scrittura.
+     * <p>
+     * I valori vengono accumulati in un buffer diretto in ordine
+     * little-endian, che viene scritto sul canale quando &egrave; pieno;
+     * lunghezza e codice di controllo vengono calcolati durante la scrittura.
+     * </p>
+     */
+    static class Output {
+
+        /**
+         * Il canale su cui scrivere.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Il buffer di scrittura.
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        /**
+         * Il codice di controllo dei byte scritti.
+         */
+        private final CRC32 crc = new CRC32();
+
+        /**
+         * Il numero di byte scritti.
+         */
+        private long length;
+
+        /**
+         * Crea un nuovo contenuto in scrittura.
+         *
+         * @param channel Il canale su cui scrivere, posizionato dopo
+         *                l'intestazione.
+         */
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Scrive un {@code int}.
+         *
+         * @param value Il valore.
+         * @throws IOException Se si verifica un errore durante la scrittura.
+         */
+        void putInt(int value) throws IOException {
+            ensureRemaining(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        /**
+         * Scrive un {@code double}.
+         *
+         * @param value Il valore.
+         * @throws IOException Se si verifica un errore durante la scrittura.
+         */
+        void putDouble(double value) throws IOException {
+            ensureRemaining(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        /**
+         * Scrive una stringa come lunghezza in byte seguita dalla codifica
+         * UTF-8.
+         *
+         * @param value La stringa, eventualmente {@code null}.
+         * @throws IOException Se si verifica un errore durante la scrittura.
+         */
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(NULL_LENGTH);
+                return;
+            }
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes, bytes.length);
+        }
+
+        /**
+         * Scrive i primi valori di una colonna di {@code int}.
+         *
+         * @param values La colonna.
+         * @param count  Il numero di valori da scrivere.
+         * @throws IOException Se si verifica un errore durante la scrittura.
+         */
+        void putInts(int[] values, int count) throws IOException {
+            int offset = 0;
+            while (offset < count) {
+                ensureRemaining(Integer.BYTES);
+                int chunk = Math.min(count - offset, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, offset, chunk);
+                buffer.position(buffer.position() + chunk * Integer.BYTES);
+                offset += chunk;
+            }
+        }
+
+        /**
+         * Scrive i primi valori di una colonna di {@code long}.
+         *
+         * @param values La colonna.
+         * @param count  Il numero di valori da scrivere.
+         * @throws IOException Se si verifica un errore durante la scrittura.
+         */
+        void putLongs(long[] values, int count) throws IOException {
+            int offset = 0;
+            while (offset < count) {
+                ensureRemaining(Long.BYTES);
+                int chunk = Math.min(count - offset, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(values, offset, chunk);
+                buffer.position(buffer.position() + chunk * Long.BYTES);
+                offset += chunk;
+            }
+        }
+
+        /**
+         * Scrive i primi valori di una colonna di {@code byte}.
+         *
+         * @param values La colonna.
+         * @param count  Il numero di valori da scrivere.
+         * @throws IOException Se si verifica un errore durante la scrittura.
+         */
+        void putBytes(byte[] values, int count) throws IOException {
+            int offset = 0;
+            while (offset < count) {
+                ensureRemaining(1);
+                int chunk = Math.min(count - offset, buffer.remaining());
+                buffer.put(values, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        /**
+         * Svuota il buffer se non contiene lo spazio richiesto.
+         *
+         * @param bytes Il numero di byte da scrivere.
+         * @throws IOException Se si verifica un errore durante la scrittura.
+         */
+        private void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+
+        /**
+         * Scrive sul canale il contenuto del buffer, aggiornando lunghezza e
+         * codice di controllo.
+         *
+         * @throws IOException Se si verifica un errore durante la scrittura.
+         */
+        void flush() throws IOException {
+            buffer.flip();
+            length += buffer.remaining();
+            crc.update(buffer.duplicate());
+            writeFully(channel, buffer);
+            buffer.clear();
+        }
+    }
+}
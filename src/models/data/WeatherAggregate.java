@@ -0,0 +1,238 @@
+package models.data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import models.record.RecordWeather;
+import models.record.RecordWeather.WeatherData;
+
+/**
+ * La classe {@code WeatherAggregate} mantiene i dati meteorologici aggregati
+ * di una citt&agrave;.
+ * <p>
+ * Per ciascuna categoria meteorologica conserva la somma e il numero dei
+ * punteggi, aggiornati a ogni inserimento o aggiornamento di un record tramite
+ * {@link #add(RecordWeather)} e {@link #remove(RecordWeather)}. In questo modo
+ * il riepilogo di una citt&agrave; &egrave; disponibile senza scorrere tutti i
+ * suoi record. I commenti vengono mantenuti dall'aggregato oppure, per gli
+ * aggregati di {@code DataStorage}, letti dall'archivio dei dati
+ * meteorologici.
+ * </p>
+ * <p>
+ * Le categorie sono identificate dalla loro posizione, nell'ordine dei campi di
+ * {@code RecordWeather}: vento, umidit&agrave;, pressione, temperatura,
+ * precipitazioni, altitudine e massa dei ghiacciai.
+ * </p>
+ *
+ * @see models.data.DataStorage
+ * @see models.record.RecordWeather
+ * @see models.logic.LogicCity.WeatherTableData
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class WeatherAggregate {
+
+    /**
+     * Numero di categorie meteorologiche.
+     */
+    public static final int CATEGORY_COUNT = 7;
+
+    /**
+     * Somma dei punteggi per ciascuna categoria.
+     */
+    private final long[] scoreSums = new long[CATEGORY_COUNT];
+
+    /**
+     * Numero dei punteggi per ciascuna categoria.
+     */
+    private final int[] scoreCounts = new int[CATEGORY_COUNT];
+
+    /**
+     * Commenti per ciascuna categoria, per ID del record, nell'ordine di
+     * inserimento; {@code null} se i commenti vengono letti da
+     * {@link #commentSource}.
+     */
+    private final List<LinkedHashMap<Integer, String>> comments;
+
+    /**
+     * Funzione che restituisce i commenti di una categoria leggendoli
+     * dall'archivio dei dati, o {@code null} se i commenti sono mantenuti
+     * dall'aggregato.
+     */
+    private final IntFunction<List<String>> commentSource;
+
+    /**
+     * Numero di record aggregati.
+     */
+    private int recordCount;
+
+    /**
+     * Crea un aggregato vuoto che mantiene anche i commenti dei record
+     * aggiunti.
+     */
+    public WeatherAggregate() {
+        this.comments = new ArrayList<>(CATEGORY_COUNT);
+        this.commentSource = null;
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            comments.add(new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Crea un aggregato vuoto che mantiene solo punteggi e conteggi e legge i
+     * commenti dall'archivio dei dati quando richiesti.
+     *
+     * @param commentSource La funzione che restituisce i commenti di una
+     *                      categoria, data la sua posizione.
+     */
+    public WeatherAggregate(IntFunction<List<String>> commentSource) {
+        this.comments = null;
+        this.commentSource = commentSource;
+    }
+
+    /**
+     * Aggiunge un record all'aggregato.
+     *
+     * @param weather Il record da aggiungere.
+     */
+    public void add(RecordWeather weather) {
+        WeatherData[] weatherDatas = categoriesOf(weather);
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            WeatherData data = weatherDatas[i];
+            if (data == null)
+                continue;
+
+            if (data.score() != null) {
+                scoreSums[i] += data.score();
+                scoreCounts[i]++;
+            }
+
+            if (comments != null && data.comment() != null)
+                comments.get(i).put(weather.ID(), data.comment());
+        }
+        recordCount++;
+    }
+
+    /**
+     * Rimuove dall'aggregato un record aggiunto in precedenza.
+     *
+     * @param weather Il record da rimuovere, nella versione aggiunta.
+     */
+    public void remove(RecordWeather weather) {
+        WeatherData[] weatherDatas = categoriesOf(weather);
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            WeatherData data = weatherDatas[i];
+            if (data == null)
+                continue;
+
+            if (data.score() != null) {
+                scoreSums[i] -= data.score();
+                scoreCounts[i]--;
+            }
+
+            if (comments != null)
+                comments.get(i).remove(weather.ID());
+        }
+        recordCount--;
+    }
+
+    /**
+     * Aggiunge all'aggregato i totali di un gruppo di record gi&agrave;
+     * calcolati, senza creare i record. Usato quando l'aggregato legge i
+     * commenti dall'archivio tramite la funzione indicata al costruttore.
+     *
+     * @param recordCount Il numero di record del gruppo.
+     * @param scoreSums   La somma dei punteggi di ciascuna categoria.
+     * @param scoreCounts Il numero di punteggi presenti in ciascuna categoria.
+     */
+    void addTotals(int recordCount, long[] scoreSums, int[] scoreCounts) {
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            this.scoreSums[i] += scoreSums[i];
+            this.scoreCounts[i] += scoreCounts[i];
+        }
+        this.recordCount += recordCount;
+    }
+
+    /**
+     * Crea una copia dell'aggregato, che non viene modificata dagli
+     * inserimenti e dagli aggiornamenti successivi. Se i commenti vengono
+     * letti dall'archivio dei dati, la copia continua a leggerli da questo.
+     *
+     * @return La copia dell'aggregato.
+     */
+    WeatherAggregate copy() {
+        WeatherAggregate copy = comments == null ? new WeatherAggregate(commentSource) : new WeatherAggregate();
+        copy.addTotals(recordCount, scoreSums, scoreCounts);
+        if (comments != null) {
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                copy.comments.get(i).putAll(comments.get(i));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Restituisce il numero di record aggregati.
+     *
+     * @return Il numero di record.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Restituisce la somma dei punteggi di una categoria.
+     *
+     * @param category La posizione della categoria.
+     * @return La somma dei punteggi.
+     */
+    public long getScoreSum(int category) {
+        return scoreSums[category];
+    }
+
+    /**
+     * Restituisce il numero dei punteggi di una categoria.
+     *
+     * @param category La posizione della categoria.
+     * @return Il numero dei punteggi.
+     */
+    public int getScoreCount(int category) {
+        return scoreCounts[category];
+    }
+
+    /**
+     * Restituisce i commenti di una categoria, nell'ordine di inserimento dei
+     * record.
+     *
+     * @param category La posizione della categoria.
+     * @return Una nuova lista contenente i commenti.
+     */
+    public List<String> getComments(int category) {
+        if (commentSource != null)
+            return commentSource.apply(category);
+        return new ArrayList<>(comments.get(category).values());
+    }
+
+    /**
+     * Restituisce i dati di un record nell'ordine delle categorie.
+     *
+     * @param weather Il record.
+     * @return Un array contenente i dati di ciascuna categoria.
+     */
+    private static WeatherData[] categoriesOf(RecordWeather weather) {
+        return new WeatherData[] {
+                weather.wind(),
+                weather.humidity(),
+                weather.pressure(),
+                weather.temperature(),
+                weather.precipitation(),
+                weather.glacierElevation(),
+                weather.glacierMass() };
+    }
+
+}
@@ -0,0 +1,1590 @@
+package models.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+import models.data.DataQuery.QueryCondition;
+import models.record.RecordWeather;
+import models.record.RecordWeather.WeatherData;
+
+/**
+ * La classe {@code WeatherColumns} archivia i dati meteorologici per colonne,
+ * utilizzando array di tipi primitivi.
+ * <p>
+ * Ogni record occupa una riga: ID, citt&agrave; e centro sono memorizzati in
+ * array di {@code int}, la data come numero di giorni dall'epoca, i punteggi
+ * di ciascuna categoria in array di {@code byte} e i commenti come riferimenti
+ * a un insieme di stringhe senza duplicati. I record {@code RecordWeather}
+ * vengono creati solo quando richiesti, ad esempio dal metodo {@link #get}.
+ * </p>
+ * <p>
+ * La classe implementa l'interfaccia {@code Map} per ID, in modo da poter
+ * sostituire la mappa dei dati meteorologici di {@code DataStorage}. Un record
+ * pu&ograve; essere rimosso, ad esempio per annullare un inserimento non
+ * riuscito: la sua riga viene occupata dal record dell'ultima riga, che cambia
+ * quindi posizione nell'ordine di inserimento e di iterazione. Mantiene
+ * inoltre gli elenchi delle righe
+ * per citt&agrave;, centro e data, usati da {@code DataQuery} per risolvere le
+ * condizioni di uguaglianza senza creare i record scartati, e un indice
+ * temporale, complessivo e per citt&agrave;, che ordina le righe per data e
+ * permette di selezionare un intervallo di date con una ricerca binaria.
+ * </p>
+ *
+ * @see models.data.DataStorage
+ * @see models.data.DataQuery
+ * @see models.record.RecordWeather
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class WeatherColumns extends AbstractMap<Integer, RecordWeather> {
+
+    /**
+     * Numero di categorie meteorologiche di un record.
+     */
+    private static final int CATEGORY_COUNT = WeatherAggregate.CATEGORY_COUNT;
+
+    /**
+     * Valore che rappresenta un ID assente.
+     */
+    private static final int NULL_ID = Integer.MIN_VALUE;
+
+    /**
+     * Valore che rappresenta un punteggio assente.
+     */
+    private static final byte NULL_SCORE = Byte.MIN_VALUE;
+
+    /**
+     * Riferimento che rappresenta un commento assente.
+     */
+    private static final int NULL_COMMENT = -1;
+
+    /**
+     * Riferimento che rappresenta un dato meteorologico assente.
+     */
+    private static final int NULL_DATA = -2;
+
+    /**
+     * Valore che rappresenta una data non convertibile in giorni, conservata
+     * come testo.
+     */
+    private static final int RAW_DATE = Integer.MIN_VALUE;
+
+    /**
+     * Capacit&agrave; iniziale delle colonne.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Numero di ID oltre il doppio delle righe occupate entro cui la tabella
+     * delle righe per ID resta un array; un ID pi&ugrave; alto fa passare
+     * alla tabella hash.
+     */
+    private static final int DENSE_ID_SLACK = 1 << 16;
+
+    /**
+     * Numero di righe occupate.
+     */
+    private int size;
+
+    /**
+     * ID dei record, per riga.
+     */
+    private int[] ids;
+
+    /**
+     * ID delle citt&agrave;, per riga.
+     */
+    private int[] cityIDs;
+
+    /**
+     * ID dei centri, per riga.
+     */
+    private int[] centerIDs;
+
+    /**
+     * Date come giorni dall'epoca, per riga.
+     */
+    private int[] dates;
+
+    /**
+     * Punteggi per categoria e per riga.
+     */
+    private byte[][] scores;
+
+    /**
+     * Riferimenti ai commenti per categoria e per riga.
+     */
+    private int[][] comments;
+
+    /**
+     * Riga di ciascun record, per ID; -1 se l'ID non &egrave; presente.
+     */
+    private int[] rowByID = new int[0];
+
+    /**
+     * Riga di ciascun record, per ID, se gli ID dei record non sono contigui;
+     * {@code null} se viene usato {@link #rowByID}.
+     */
+    private HashMap<Integer, Integer> rowBySparseID;
+
+    /**
+     * Date non convertibili in giorni, per riga.
+     */
+    private final HashMap<Integer, String> rawDates = new HashMap<>();
+
+    /**
+     * Insieme dei commenti senza duplicati, per riferimento.
+     */
+    private final ArrayList<String> commentPool = new ArrayList<>();
+
+    /**
+     * Riferimento di ciascun commento dell'insieme.
+     */
+    private final HashMap<String, Integer> commentRefs = new HashMap<>();
+
+    /**
+     * Righe per ID della citt&agrave;.
+     */
+    private final HashMap<Integer, RowList> rowsByCity = new HashMap<>();
+
+    /**
+     * Righe per ID del centro.
+     */
+    private final HashMap<Integer, RowList> rowsByCenter = new HashMap<>();
+
+    /**
+     * Righe per data (giorni dall'epoca, oppure testo se non convertibile).
+     */
+    private final HashMap<Object, RowList> rowsByDate = new HashMap<>();
+
+    /**
+     * Indice temporale delle righe con una data valida.
+     */
+    private final TimeIndex timeIndex = new TimeIndex();
+
+    /**
+     * Indice temporale delle righe con una data valida, per ID della
+     * citt&agrave;.
+     */
+    private final HashMap<Integer, TimeIndex> timeIndexByCity = new HashMap<>();
+
+    /**
+     * Crea un archivio vuoto, con una tabella delle righe per ID adatta a ID
+     * contigui.
+     */
+    public WeatherColumns() {
+        this(INITIAL_CAPACITY, false);
+    }
+
+    /**
+     * Crea un archivio vuoto.
+     * <p>
+     * La tabella delle righe per ID occupa spazio fino all'ID pi&ugrave; alto
+     * presente; per un archivio che contiene solo una parte dei record, ad
+     * esempio quelli di una citt&agrave;, gli ID possono essere invece
+     * memorizzati in una tabella hash. Si passa comunque alla tabella hash
+     * quando un ID supera di molto il numero di righe occupate.
+     * </p>
+     *
+     * @param capacity  La capacit&agrave; iniziale delle colonne.
+     * @param sparseIDs {@code true} per memorizzare gli ID in una tabella hash.
+     */
+    WeatherColumns(int capacity, boolean sparseIDs) {
+        capacity = Math.max(capacity, 1);
+        ids = new int[capacity];
+        cityIDs = new int[capacity];
+        centerIDs = new int[capacity];
+        dates = new int[capacity];
+        scores = new byte[CATEGORY_COUNT][capacity];
+        comments = new int[CATEGORY_COUNT][capacity];
+        rowBySparseID = sparseIDs ? new HashMap<>(capacity * 2) : null;
+    }
+
+    /**
+     * Inserisce un record o sostituisce quello con lo stesso ID.
+     *
+     * @param ID      L'ID del record, uguale a {@code weather.ID()}.
+     * @param weather Il record da inserire.
+     * @return Il record sostituito, o {@code null} se l'ID non era presente.
+     *
+     * @throws IllegalArgumentException Se l'ID &egrave; negativo, non coincide
+     *                                  con quello del record, o se un punteggio
+     *                                  non &egrave; rappresentabile.
+     */
+    @Override
+    public RecordWeather put(Integer ID, RecordWeather weather) {
+        if (ID == null || ID < 0 || !ID.equals(weather.ID()))
+            throw new IllegalArgumentException("ID non valido: " + ID);
+        if (!hasValidScores(weather))
+            throw new IllegalArgumentException("Punteggio non valido nel record " + ID);
+
+        int row = rowOf(ID);
+        RecordWeather oldWeather = null;
+
+        if (row < 0) {
+            row = size++;
+            ensureCapacity(size);
+            setRow(ID, row);
+            ids[row] = ID;
+        } else {
+            oldWeather = recordAt(row);
+            unindexRow(row);
+        }
+
+        cityIDs[row] = encodeID(weather.cityID());
+        centerIDs[row] = encodeID(weather.centerID());
+        writeDate(row, weather.date());
+
+        WeatherData[] weatherDatas = categoriesOf(weather);
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            writeData(i, row, weatherDatas[i]);
+        }
+
+        indexRow(row);
+        return oldWeather;
+    }
+
+    @Override
+    public RecordWeather get(Object key) {
+        int row = key instanceof Integer ? rowOf((Integer) key) : -1;
+        return row < 0 ? null : recordAt(row);
+    }
+
+    /**
+     * Rimuove un record. La riga del record viene occupata dal record
+     * dell'ultima riga, che cambia quindi posizione nell'ordine di
+     * inserimento.
+     *
+     * @param key L'ID del record.
+     * @return Il record rimosso, o {@code null} se l'ID non era presente.
+     */
+    @Override
+    public RecordWeather remove(Object key) {
+        int row = key instanceof Integer ? rowOf((Integer) key) : -1;
+        if (row < 0)
+            return null;
+
+        RecordWeather oldWeather = recordAt(row);
+        unindexRow(row);
+        setRow(ids[row], -1);
+        rawDates.remove(row);
+
+        int last = --size;
+        if (row != last) {
+            unindexRow(last);
+            ids[row] = ids[last];
+            cityIDs[row] = cityIDs[last];
+            centerIDs[row] = centerIDs[last];
+            dates[row] = dates[last];
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                scores[i][row] = scores[i][last];
+                comments[i][row] = comments[i][last];
+            }
+            if (dates[row] == RAW_DATE)
+                rawDates.put(row, rawDates.remove(last));
+            setRow(ids[row], row);
+            indexRow(row);
+        }
+        return oldWeather;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && rowOf((Integer) key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Restituisce una stima della memoria occupata dalle colonne e dai
+     * commenti dell'archivio. Gli indici non sono compresi nella stima.
+     *
+     * @return Il numero stimato di byte.
+     */
+    long estimateBytes() {
+        long bytes = (long) Integer.BYTES * (ids.length + cityIDs.length + centerIDs.length + dates.length
+                + rowByID.length);
+        for (int i = 0; i < CATEGORY_COUNT; i++)
+            bytes += scores[i].length + (long) Integer.BYTES * comments[i].length;
+        for (String comment : commentPool)
+            bytes += 40 + comment.length();
+        return bytes;
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new RowIterator<>() {
+                    @Override
+                    Integer valueAt(int row) {
+                        return ids[row];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Integer, RecordWeather>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, RecordWeather>> iterator() {
+                return new RowIterator<>() {
+                    @Override
+                    Entry<Integer, RecordWeather> valueAt(int row) {
+                        return new SimpleImmutableEntry<>(ids[row], recordAt(row));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Restituisce tutte le righe occupate, nell'ordine di inserimento.
+     *
+     * @return Una lista non modificabile delle righe.
+     */
+    List<Integer> allRows() {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Restituisce le righe che soddisfano una condizione di uguaglianza, se la
+     * chiave della condizione &egrave; indicizzata.
+     *
+     * @param key   La chiave della condizione ({@code ID}, {@code cityID},
+     *              {@code centerID} o {@code date}).
+     * @param value Il valore cercato.
+     * @return Una lista non modificabile delle righe, o {@code null} se la chiave
+     *         non &egrave; indicizzata o il valore non &egrave; del tipo atteso.
+     */
+    List<Integer> rowsWith(String key, Object value) {
+        RowList rows;
+
+        switch (key) {
+            case "ID":
+                if (!(value instanceof Integer))
+                    return null;
+                int row = rowOf((Integer) value);
+                return row < 0 ? Collections.emptyList() : Collections.singletonList(row);
+            case "cityID":
+                if (!(value instanceof Integer))
+                    return null;
+                rows = rowsByCity.get(value);
+                break;
+            case "centerID":
+                if (!(value instanceof Integer))
+                    return null;
+                rows = rowsByCenter.get(value);
+                break;
+            case "date":
+                if (!(value instanceof String))
+                    return null;
+                rows = rowsByDate.get(dateKey((String) value));
+                break;
+            default:
+                return null;
+        }
+
+        return rows == null ? Collections.emptyList() : rows.asList();
+    }
+
+    /**
+     * Restituisce le righe con una data compresa in un intervallo, in ordine di
+     * data, tramite l'indice temporale.
+     * <p>
+     * L'intervallo viene individuato con una ricerca binaria, quindi il costo
+     * &egrave; logaritmico nel numero di righe indicizzate pi&ugrave; il numero
+     * di righe restituite. Le righe con una data non valida non vengono mai
+     * restituite.
+     * </p>
+     *
+     * @param cityID  L'ID della citt&agrave;, o {@code null} per tutte le
+     *                citt&agrave;.
+     * @param fromDay Il primo giorno dell'intervallo, in giorni dall'epoca.
+     * @param toDay   L'ultimo giorno dell'intervallo, in giorni dall'epoca.
+     * @return Una lista non modificabile delle righe.
+     */
+    List<Integer> rowsBetween(Integer cityID, int fromDay, int toDay) {
+        TimeIndex index = cityID == null ? timeIndex : timeIndexByCity.get(cityID);
+        if (index == null || fromDay > toDay)
+            return Collections.emptyList();
+        return index.between(fromDay, toDay);
+    }
+
+    /**
+     * Restituisce i commenti di una categoria per tutti i record di una
+     * citt&agrave;, leggendoli direttamente dalle colonne.
+     *
+     * @param cityID   L'ID della citt&agrave;.
+     * @param category La posizione della categoria.
+     * @return Una nuova lista contenente i commenti, nell'ordine delle righe.
+     */
+    List<String> getComments(int cityID, int category) {
+        List<String> cityComments = new ArrayList<>();
+        RowList rows = rowsByCity.get(cityID);
+        if (rows == null)
+            return cityComments;
+
+        int[] categoryComments = comments[category];
+        for (int i = 0; i < rows.count; i++) {
+            int comment = categoryComments[rows.rows[i]];
+            if (comment >= 0)
+                cityComments.add(commentPool.get(comment));
+        }
+        return cityComments;
+    }
+
+    /**
+     * Aggiunge i punteggi di tutte le righe ai dati aggregati della rispettiva
+     * citt&agrave;, leggendoli direttamente dalle colonne senza creare i record.
+     *
+     * @param aggregateOf La funzione che restituisce i dati aggregati di una
+     *                    citt&agrave; dato il suo ID.
+     */
+    void aggregateByCity(Function<Integer, WeatherAggregate> aggregateOf) {
+        long[] scoreSums = new long[CATEGORY_COUNT];
+        int[] scoreCounts = new int[CATEGORY_COUNT];
+
+        for (Entry<Integer, RowList> entry : rowsByCity.entrySet()) {
+            RowList rows = entry.getValue();
+            if (rows.count == 0)
+                continue;
+
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                byte[] categoryScores = scores[i];
+                long sum = 0;
+                int count = 0;
+                for (int j = 0; j < rows.count; j++) {
+                    byte score = categoryScores[rows.rows[j]];
+                    if (score != NULL_SCORE) {
+                        sum += score;
+                        count++;
+                    }
+                }
+                scoreSums[i] = sum;
+                scoreCounts[i] = count;
+            }
+            aggregateOf.apply(decodeID(entry.getKey())).addTotals(rows.count, scoreSums, scoreCounts);
+        }
+    }
+
+    /**
+     * Scrive le colonne in un'istantanea binaria.
+     * <p>
+     * Oltre alle colonne e all'insieme dei commenti vengono scritti gli elenchi
+     * delle righe e gli indici temporali, ordinati, in modo che la lettura non
+     * debba ricostruirli riga per riga.
+     * </p>
+     *
+     * @param output L'istantanea in scrittura.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    void writeSnapshot(StorageSnapshot.Output output) throws IOException {
+        output.putInt(size);
+        output.putInts(ids, size);
+        output.putInts(cityIDs, size);
+        output.putInts(centerIDs, size);
+        output.putInts(dates, size);
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            output.putBytes(scores[i], size);
+            output.putInts(comments[i], size);
+        }
+
+        output.putInt(rawDates.size());
+        for (Entry<Integer, String> entry : rawDates.entrySet()) {
+            output.putInt(entry.getKey());
+            output.putString(entry.getValue());
+        }
+
+        output.putInt(commentPool.size());
+        for (String comment : commentPool) {
+            output.putString(comment);
+        }
+
+        writeRowLists(output, rowsByCity);
+        writeRowLists(output, rowsByCenter);
+        writeRowLists(output, rowsByDate);
+
+        timeIndex.writeSnapshot(output);
+        output.putInt(timeIndexByCity.size());
+        for (Entry<Integer, TimeIndex> entry : timeIndexByCity.entrySet()) {
+            output.putInt(entry.getKey());
+            entry.getValue().writeSnapshot(output);
+        }
+    }
+
+    /**
+     * Crea un archivio a partire dalle colonne scritte in un'istantanea
+     * binaria da {@link #writeSnapshot}, ricostruendo solo la tabella delle
+     * righe per ID e i riferimenti dei commenti.
+     *
+     * @param input L'istantanea in lettura, posizionata all'inizio delle
+     *              colonne.
+     * @return L'archivio letto.
+     * @throws IllegalArgumentException Se le colonne non sono valide.
+     */
+    static WeatherColumns readSnapshot(ByteBuffer input) {
+        WeatherColumns columns = new WeatherColumns();
+        int size = input.getInt();
+        int capacity = Math.max(size, INITIAL_CAPACITY);
+
+        columns.ids = StorageSnapshot.getInts(input, size, capacity);
+        columns.cityIDs = StorageSnapshot.getInts(input, size, capacity);
+        columns.centerIDs = StorageSnapshot.getInts(input, size, capacity);
+        columns.dates = StorageSnapshot.getInts(input, size, capacity);
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            columns.scores[i] = StorageSnapshot.getBytes(input, size, capacity);
+            columns.comments[i] = StorageSnapshot.getInts(input, size, capacity);
+        }
+
+        int rawDateCount = input.getInt();
+        for (int i = 0; i < rawDateCount; i++) {
+            columns.rawDates.put(input.getInt(), StorageSnapshot.getString(input));
+        }
+
+        int commentCount = input.getInt();
+        for (int i = 0; i < commentCount; i++) {
+            String comment = StorageSnapshot.getString(input);
+            columns.commentPool.add(comment);
+            columns.commentRefs.put(comment, i);
+        }
+
+        readRowLists(input, columns.rowsByCity);
+        readRowLists(input, columns.rowsByCenter);
+        readRowLists(input, columns.rowsByDate);
+
+        columns.timeIndex.readSnapshot(input);
+        int cityCount = input.getInt();
+        for (int i = 0; i < cityCount; i++) {
+            TimeIndex index = new TimeIndex();
+            columns.timeIndexByCity.put(input.getInt(), index);
+            index.readSnapshot(input);
+        }
+
+        int highestID = -1;
+        for (int row = 0; row < size; row++) {
+            if (columns.ids[row] < 0)
+                throw new IllegalArgumentException("ID non valido: " + columns.ids[row]);
+            highestID = Math.max(highestID, columns.ids[row]);
+        }
+
+        columns.size = size;
+        if (!columns.isSparseID(highestID))
+            columns.ensureIDCapacity(highestID);
+        for (int row = 0; row < size; row++) {
+            columns.setRow(columns.ids[row], row);
+        }
+        return columns;
+    }
+
+    /**
+     * Scrive in un'istantanea binaria gli elenchi delle righe per chiave. Le
+     * chiavi sono ID o giorni dall'epoca, oppure date come testo.
+     *
+     * @param output Il contenuto in scrittura.
+     * @param lists  Gli elenchi delle righe per chiave.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private static void writeRowLists(StorageSnapshot.Output output, HashMap<?, RowList> lists) throws IOException {
+        output.putInt(lists.size());
+        for (Entry<?, RowList> entry : lists.entrySet()) {
+            if (entry.getKey() instanceof Integer) {
+                output.putInt(0);
+                output.putInt((Integer) entry.getKey());
+            } else {
+                output.putInt(1);
+                output.putString((String) entry.getKey());
+            }
+            output.putInt(entry.getValue().count);
+            output.putInts(entry.getValue().rows, entry.getValue().count);
+        }
+    }
+
+    /**
+     * Legge da un'istantanea binaria gli elenchi delle righe scritti da
+     * {@link #writeRowLists}.
+     *
+     * @param <K>   Il tipo delle chiavi.
+     * @param input Il contenuto in lettura.
+     * @param lists Gli elenchi delle righe per chiave, da popolare.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K> void readRowLists(ByteBuffer input, HashMap<K, RowList> lists) {
+        int listCount = input.getInt();
+        for (int i = 0; i < listCount; i++) {
+            Object key = input.getInt() == 0 ? (Object) input.getInt() : StorageSnapshot.getString(input);
+            RowList rowList = new RowList();
+            rowList.count = input.getInt();
+            rowList.rows = StorageSnapshot.getInts(input, rowList.count, Math.max(rowList.count, 4));
+            lists.put((K) key, rowList);
+        }
+    }
+
+    /**
+     * Compila una lista di condizioni in un predicato sulle righe, che legge
+     * direttamente le colonne senza creare i record.
+     * <p>
+     * Le condizioni sugli ID vengono verificate prima di quelle sulla data; le
+     * condizioni con pi&ugrave; valori vengono convertite in array ordinati di
+     * {@code int} consultati tramite ricerca binaria.
+     * </p>
+     *
+     * @param conditions La lista di condizioni.
+     * @return Il predicato soddisfatto dalle righe che soddisfano tutte le
+     *         condizioni.
+     *
+     * @throws IllegalArgumentException Se una condizione si riferisce a una
+     *                                  chiave non valida.
+     */
+    IntPredicate compile(List<QueryCondition> conditions) {
+        List<IntPredicate> idPredicates = new ArrayList<>();
+        List<IntPredicate> datePredicates = new ArrayList<>();
+
+        for (QueryCondition condition : conditions) {
+            Collection<?> values = condition.hasMultipleValues()
+                    ? condition.getValues()
+                    : Collections.singletonList(condition.getValue());
+
+            switch (condition.getKey()) {
+                case "ID":
+                    idPredicates.add(intPredicate(ids, values));
+                    break;
+                case "cityID":
+                    idPredicates.add(intPredicate(cityIDs, values));
+                    break;
+                case "centerID":
+                    idPredicates.add(intPredicate(centerIDs, values));
+                    break;
+                case "date":
+                    datePredicates.add(datePredicate(values));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Chiave non valida");
+            }
+        }
+
+        idPredicates.addAll(datePredicates);
+        IntPredicate[] predicates = idPredicates.toArray(new IntPredicate[0]);
+
+        return row -> {
+            for (IntPredicate predicate : predicates) {
+                if (!predicate.test(row))
+                    return false;
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Compila un criterio in un predicato sulle righe.
+     * <p>
+     * I confronti su ID, citt&agrave;, centro, data e punteggi vengono
+     * verificati direttamente sulle colonne; le date non valide sono
+     * considerate assenti. Gli altri confronti vengono verificati sul record
+     * della riga.
+     * </p>
+     *
+     * @param criterion Il criterio.
+     * @return Il predicato soddisfatto dalle righe che soddisfano il criterio.
+     */
+    IntPredicate compile(Criterion<RecordWeather> criterion) {
+        if (criterion instanceof Criterion.All)
+            return row -> true;
+
+        if (criterion instanceof Criterion.And) {
+            IntPredicate[] predicates = compileAll(((Criterion.And<RecordWeather>) criterion).children);
+            return row -> {
+                for (IntPredicate predicate : predicates) {
+                    if (!predicate.test(row))
+                        return false;
+                }
+                return true;
+            };
+        }
+
+        if (criterion instanceof Criterion.Or) {
+            IntPredicate[] predicates = compileAll(((Criterion.Or<RecordWeather>) criterion).children);
+            return row -> {
+                for (IntPredicate predicate : predicates) {
+                    if (predicate.test(row))
+                        return true;
+                }
+                return false;
+            };
+        }
+
+        if (criterion instanceof Criterion.Not)
+            return compile(((Criterion.Not<RecordWeather>) criterion).child).negate();
+
+        IntPredicate predicate = compileComparison((Criterion.Comparison<RecordWeather, ?>) criterion);
+        return predicate != null ? predicate : row -> criterion.test(recordAt(row));
+    }
+
+    /**
+     * Compila una lista di criteri, mantenendone l'ordine.
+     *
+     * @param criteria I criteri.
+     * @return Un array dei predicati corrispondenti.
+     */
+    private IntPredicate[] compileAll(List<Criterion<RecordWeather>> criteria) {
+        IntPredicate[] predicates = new IntPredicate[criteria.size()];
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = compile(criteria.get(i));
+        }
+        return predicates;
+    }
+
+    /**
+     * Compila un confronto in un predicato che legge direttamente una colonna.
+     *
+     * @param comparison Il confronto.
+     * @return Il predicato, o {@code null} se il campo del confronto non
+     *         corrisponde a una colonna.
+     */
+    private IntPredicate compileComparison(Criterion.Comparison<RecordWeather, ?> comparison) {
+        QueryField<RecordWeather, ?> field = comparison.field;
+        List<?> values = comparison.values;
+
+        if (field == QueryField.Weather.ID) {
+            int[] column = ids;
+            return columnPredicate(row -> column[row], NULL_ID, comparison.operator, encodeValues(values));
+        }
+        if (field == QueryField.Weather.CITY_ID) {
+            int[] column = cityIDs;
+            return columnPredicate(row -> column[row], NULL_ID, comparison.operator, encodeValues(values));
+        }
+        if (field == QueryField.Weather.CENTER_ID) {
+            int[] column = centerIDs;
+            return columnPredicate(row -> column[row], NULL_ID, comparison.operator, encodeValues(values));
+        }
+        if (field == QueryField.Weather.DATE) {
+            int[] column = dates;
+            return columnPredicate(row -> column[row], RAW_DATE, comparison.operator, encodeValues(values));
+        }
+
+        int category = QueryField.Weather.SCORES.indexOf(field);
+        if (category >= 0) {
+            byte[] column = scores[category];
+            return columnPredicate(row -> column[row], NULL_SCORE, comparison.operator, encodeValues(values));
+        }
+
+        return null;
+    }
+
+    /**
+     * Converte i valori di un confronto nella rappresentazione delle colonne:
+     * gli interi restano invariati, le date diventano giorni dall'epoca. I
+     * valori {@code null} vengono scartati.
+     *
+     * @param values I valori del confronto.
+     * @return Un array ordinato dei valori convertiti, senza duplicati.
+     */
+    private static int[] encodeValues(List<?> values) {
+        return values.stream()
+                .filter(value -> value != null)
+                .mapToInt(value -> value instanceof LocalDate
+                        ? epochDay((LocalDate) value)
+                        : (Integer) value)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    /**
+     * Crea il predicato di un confronto su una colonna di interi.
+     *
+     * @param column    La funzione che legge la colonna per riga.
+     * @param nullValue Il valore che rappresenta un campo assente.
+     * @param operator  L'operatore di confronto.
+     * @param targets   I valori del confronto, ordinati.
+     * @return Il predicato sulle righe.
+     */
+    private static IntPredicate columnPredicate(IntUnaryOperator column, int nullValue,
+            Criterion.Operator operator, int[] targets) {
+        if (operator == Criterion.Operator.NULL)
+            return row -> column.applyAsInt(row) == nullValue;
+        if (targets.length == 0)
+            return row -> false;
+
+        int target = targets[0];
+        switch (operator) {
+            case EQUAL:
+                return row -> column.applyAsInt(row) == target;
+            case IN:
+                if (targets.length == 1)
+                    return row -> column.applyAsInt(row) == target;
+                return row -> Arrays.binarySearch(targets, column.applyAsInt(row)) >= 0;
+            case LESS:
+                return row -> {
+                    int value = column.applyAsInt(row);
+                    return value != nullValue && value < target;
+                };
+            case LESS_EQUAL:
+                return row -> {
+                    int value = column.applyAsInt(row);
+                    return value != nullValue && value <= target;
+                };
+            case GREATER:
+                return row -> {
+                    int value = column.applyAsInt(row);
+                    return value != nullValue && value > target;
+                };
+            default:
+                return row -> {
+                    int value = column.applyAsInt(row);
+                    return value != nullValue && value >= target;
+                };
+        }
+    }
+
+    /**
+     * Crea un predicato che verifica se una colonna di ID contiene uno dei valori
+     * specificati.
+     *
+     * @param column La colonna.
+     * @param values I valori cercati, di tipo {@code Integer}.
+     * @return Il predicato sulle righe.
+     */
+    private static IntPredicate intPredicate(int[] column, Collection<?> values) {
+        int[] targets = values.stream()
+                .filter(value -> value != null)
+                .mapToInt(value -> (Integer) value)
+                .filter(value -> value != NULL_ID)
+                .sorted()
+                .distinct()
+                .toArray();
+
+        if (targets.length == 0)
+            return row -> false;
+        if (targets.length == 1) {
+            int target = targets[0];
+            return row -> column[row] == target;
+        }
+        return row -> Arrays.binarySearch(targets, column[row]) >= 0;
+    }
+
+    /**
+     * Crea un predicato che verifica se la data di una riga coincide con una
+     * delle date specificate.
+     *
+     * @param values Le date cercate, di tipo {@code String}.
+     * @return Il predicato sulle righe.
+     */
+    private IntPredicate datePredicate(Collection<?> values) {
+        List<Integer> epochDays = new ArrayList<>();
+        Set<String> textDates = new HashSet<>();
+
+        for (Object value : values) {
+            Object key = dateKey((String) value);
+            if (key instanceof Integer)
+                epochDays.add((Integer) key);
+            else if (key != null)
+                textDates.add((String) key);
+        }
+
+        int[] targets = epochDays.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+
+        return row -> dates[row] == RAW_DATE
+                ? textDates.contains(rawDates.get(row))
+                : Arrays.binarySearch(targets, dates[row]) >= 0;
+    }
+
+    /**
+     * Crea il record memorizzato in una riga.
+     *
+     * @param row La riga.
+     * @return Il record corrispondente.
+     */
+    RecordWeather recordAt(int row) {
+        WeatherData[] weatherDatas = new WeatherData[CATEGORY_COUNT];
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            weatherDatas[i] = readData(i, row);
+        }
+
+        return new RecordWeather(
+                ids[row],
+                decodeID(cityIDs[row]),
+                decodeID(centerIDs[row]),
+                dateAt(row),
+                weatherDatas[0],
+                weatherDatas[1],
+                weatherDatas[2],
+                weatherDatas[3],
+                weatherDatas[4],
+                weatherDatas[5],
+                weatherDatas[6]);
+    }
+
+    /**
+     * Restituisce la data di una riga indicizzata nell'indice temporale.
+     *
+     * @param row La riga, con una data valida.
+     * @return Il numero di giorni dall'epoca.
+     */
+    int dayAt(int row) {
+        return dates[row];
+    }
+
+    /**
+     * Restituisce la riga di un ID.
+     *
+     * @param ID L'ID del record.
+     * @return La riga del record, o -1 se non presente.
+     */
+    private int rowOf(int ID) {
+        if (rowBySparseID != null)
+            return rowBySparseID.getOrDefault(ID, -1);
+        return ID >= 0 && ID < rowByID.length ? rowByID[ID] : -1;
+    }
+
+    /**
+     * Imposta la riga di un ID nella tabella delle righe per ID.
+     *
+     * @param ID  L'ID.
+     * @param row La riga, o -1 per rimuovere l'ID.
+     */
+    private void setRow(int ID, int row) {
+        if (rowBySparseID != null) {
+            if (row < 0) {
+                rowBySparseID.remove(ID);
+            } else {
+                rowBySparseID.put(ID, row);
+            }
+        } else if (row < 0) {
+            if (ID < rowByID.length)
+                rowByID[ID] = -1;
+        } else if (ID >= rowByID.length && isSparseID(ID)) {
+            rowBySparseID = new HashMap<>(size * 2);
+            for (int i = 0; i < rowByID.length; i++) {
+                if (rowByID[i] >= 0)
+                    rowBySparseID.put(i, rowByID[i]);
+            }
+            rowByID = new int[0];
+            rowBySparseID.put(ID, row);
+        } else {
+            ensureIDCapacity(ID);
+            rowByID[ID] = row;
+        }
+    }
+
+    /**
+     * Verifica se un ID &egrave; troppo alto, rispetto al numero di righe
+     * occupate, per essere memorizzato nell'array delle righe per ID.
+     *
+     * @param ID L'ID.
+     * @return {@code true} se l'ID va memorizzato nella tabella hash.
+     */
+    private boolean isSparseID(int ID) {
+        return ID > 2L * size + DENSE_ID_SLACK;
+    }
+
+    /**
+     * Restituisce la data di una riga nel formato dei record.
+     *
+     * @param row La riga.
+     * @return La data.
+     */
+    private String dateAt(int row) {
+        return dates[row] == RAW_DATE ? rawDates.get(row) : formatDate(dates[row]);
+    }
+
+    /**
+     * Memorizza la data di una riga come giorni dall'epoca, oppure come testo se
+     * non &egrave; nel formato previsto.
+     *
+     * @param row  La riga.
+     * @param date La data.
+     */
+    private void writeDate(int row, String date) {
+        Object key = dateKey(date);
+        if (key instanceof Integer) {
+            dates[row] = (Integer) key;
+            rawDates.remove(row);
+        } else {
+            dates[row] = RAW_DATE;
+            rawDates.put(row, date);
+        }
+    }
+
+    /**
+     * Restituisce la chiave con cui una data viene memorizzata e indicizzata.
+     *
+     * @param date La data.
+     * @return Il numero di giorni dall'epoca, o la data stessa se non &egrave;
+     *         una data valida nel formato {@code dd/MM/yyyy}.
+     */
+    private static Object dateKey(String date) {
+        if (date == null || date.length() != 10 || date.charAt(2) != '/' || date.charAt(5) != '/')
+            return date;
+
+        int day = parseDigits(date, 0, 2);
+        int month = parseDigits(date, 3, 5);
+        int year = parseDigits(date, 6, 10);
+        if (day < 0 || month < 0 || year < 1)
+            return date;
+
+        try {
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return date;
+        }
+    }
+
+    /**
+     * Converte una data nel formato dei record nel numero di giorni dall'epoca.
+     *
+     * @param date La data.
+     * @return Il numero di giorni dall'epoca, o {@code null} se la data non
+     *         &egrave; valida.
+     */
+    static Integer epochDayOf(String date) {
+        Object key = dateKey(date);
+        return key instanceof Integer ? (Integer) key : null;
+    }
+
+    /**
+     * Converte una data nel numero di giorni dall'epoca con cui viene
+     * memorizzata, limitandolo all'intervallo degli {@code int} diversi da
+     * {@link #RAW_DATE}.
+     *
+     * @param date La data.
+     * @return Il numero di giorni dall'epoca.
+     */
+    static int epochDay(LocalDate date) {
+        return (int) Math.max(RAW_DATE + 1L, Math.min(Integer.MAX_VALUE, date.toEpochDay()));
+    }
+
+    /**
+     * Converte in intero una sequenza di sole cifre.
+     *
+     * @param string La stringa.
+     * @param start  La posizione della prima cifra.
+     * @param end    La posizione successiva all'ultima cifra.
+     * @return Il valore delle cifre, o -1 se la sequenza contiene altri
+     *         caratteri.
+     */
+    private static int parseDigits(String string, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = string.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Converte un numero di giorni dall'epoca in una data nel formato dei
+     * record ({@code dd/MM/yyyy}).
+     *
+     * @param epochDay Il numero di giorni dall'epoca.
+     * @return La data.
+     */
+    private static String formatDate(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        char[] chars = new char[10];
+        writeDigits(chars, 0, 2, date.getDayOfMonth());
+        chars[2] = '/';
+        writeDigits(chars, 3, 5, date.getMonthValue());
+        chars[5] = '/';
+        writeDigits(chars, 6, 10, date.getYear());
+        return new String(chars);
+    }
+
+    /**
+     * Scrive un intero come sequenza di cifre di lunghezza fissa.
+     *
+     * @param chars L'array in cui scrivere.
+     * @param start La posizione della prima cifra.
+     * @param end   La posizione successiva all'ultima cifra.
+     * @param value Il valore da scrivere.
+     */
+    private static void writeDigits(char[] chars, int start, int end, int value) {
+        for (int i = end - 1; i >= start; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Memorizza un dato meteorologico in una riga.
+     *
+     * @param category La posizione della categoria.
+     * @param row      La riga.
+     * @param data     Il dato meteorologico.
+     */
+    private void writeData(int category, int row, WeatherData data) {
+        if (data == null) {
+            scores[category][row] = NULL_SCORE;
+            comments[category][row] = NULL_DATA;
+            return;
+        }
+
+        Integer score = data.score();
+        scores[category][row] = score == null ? NULL_SCORE : score.byteValue();
+        comments[category][row] = data.comment() == null ? NULL_COMMENT : commentRef(data.comment());
+    }
+
+    /**
+     * Verifica che tutti i punteggi di un record siano rappresentabili nelle
+     * colonne, cio&egrave; compresi tra -127 e 127.
+     *
+     * @param weather Il record.
+     * @return {@code true} se tutti i punteggi presenti sono validi,
+     *         {@code false} altrimenti.
+     */
+    static boolean hasValidScores(RecordWeather weather) {
+        for (WeatherData data : categoriesOf(weather)) {
+            Integer score = data == null ? null : data.score();
+            if (score != null && (score <= NULL_SCORE || score > Byte.MAX_VALUE))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Legge un dato meteorologico da una riga.
+     *
+     * @param category La posizione della categoria.
+     * @param row      La riga.
+     * @return Il dato meteorologico, o {@code null} se assente.
+     */
+    private WeatherData readData(int category, int row) {
+        int comment = comments[category][row];
+        if (comment == NULL_DATA)
+            return null;
+
+        byte score = scores[category][row];
+        return new WeatherData(
+                score == NULL_SCORE ? null : (int) score,
+                comment == NULL_COMMENT ? null : commentPool.get(comment));
+    }
+
+    /**
+     * Restituisce il riferimento di un commento, aggiungendolo all'insieme se
+     * non presente.
+     *
+     * @param comment Il commento.
+     * @return Il riferimento del commento.
+     */
+    private int commentRef(String comment) {
+        Integer ref = commentRefs.get(comment);
+        if (ref == null) {
+            ref = commentPool.size();
+            commentPool.add(comment);
+            commentRefs.put(comment, ref);
+        }
+        return ref;
+    }
+
+    /**
+     * Aggiunge una riga agli elenchi per citt&agrave;, centro e data e agli
+     * indici temporali.
+     *
+     * @param row La riga.
+     */
+    private void indexRow(int row) {
+        rowsByCity.computeIfAbsent(cityIDs[row], key -> new RowList()).add(row);
+        rowsByCenter.computeIfAbsent(centerIDs[row], key -> new RowList()).add(row);
+        rowsByDate.computeIfAbsent(storedDateKey(row), key -> new RowList()).add(row);
+
+        if (dates[row] != RAW_DATE) {
+            timeIndex.add(dates[row], row);
+            timeIndexByCity.computeIfAbsent(cityIDs[row], key -> new TimeIndex()).add(dates[row], row);
+        }
+    }
+
+    /**
+     * Rimuove una riga dagli elenchi per citt&agrave;, centro e data e dagli
+     * indici temporali.
+     *
+     * @param row La riga.
+     */
+    private void unindexRow(int row) {
+        rowsByCity.get(cityIDs[row]).remove(row);
+        rowsByCenter.get(centerIDs[row]).remove(row);
+        rowsByDate.get(storedDateKey(row)).remove(row);
+
+        if (dates[row] != RAW_DATE) {
+            timeIndex.remove(dates[row], row);
+            timeIndexByCity.get(cityIDs[row]).remove(dates[row], row);
+        }
+    }
+
+    /**
+     * Restituisce la chiave di indicizzazione della data memorizzata in una
+     * riga.
+     *
+     * @param row La riga.
+     * @return Il numero di giorni dall'epoca, o la data come testo.
+     */
+    private Object storedDateKey(int row) {
+        return dates[row] == RAW_DATE ? rawDates.get(row) : (Object) dates[row];
+    }
+
+    /**
+     * Aumenta la capacit&agrave; delle colonne, se necessario.
+     *
+     * @param capacity Il numero minimo di righe.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length)
+            return;
+
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        cityIDs = Arrays.copyOf(cityIDs, newCapacity);
+        centerIDs = Arrays.copyOf(centerIDs, newCapacity);
+        dates = Arrays.copyOf(dates, newCapacity);
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            scores[i] = Arrays.copyOf(scores[i], newCapacity);
+            comments[i] = Arrays.copyOf(comments[i], newCapacity);
+        }
+    }
+
+    /**
+     * Aumenta la dimensione della tabella delle righe per ID, se necessario.
+     *
+     * @param ID L'ID da poter memorizzare.
+     */
+    private void ensureIDCapacity(int ID) {
+        if (ID < rowByID.length)
+            return;
+
+        int oldLength = rowByID.length;
+        int newLength = (int) Math.min(Integer.MAX_VALUE - 8L, Math.max(ID + 1L, oldLength + (oldLength >> 1) + 16L));
+        rowByID = Arrays.copyOf(rowByID, newLength);
+        Arrays.fill(rowByID, oldLength, newLength, -1);
+    }
+
+    /**
+     * Converte un ID in un valore di colonna.
+     *
+     * @param ID L'ID, eventualmente {@code null}.
+     * @return Il valore di colonna.
+     */
+    private static int encodeID(Integer ID) {
+        return ID == null ? NULL_ID : ID;
+    }
+
+    /**
+     * Converte un valore di colonna in un ID.
+     *
+     * @param value Il valore di colonna.
+     * @return L'ID, o {@code null} se assente.
+     */
+    private static Integer decodeID(int value) {
+        return value == NULL_ID ? null : value;
+    }
+
+    /**
+     * Restituisce i dati di un record nell'ordine delle categorie.
+     *
+     * @param weather Il record.
+     * @return Un array contenente i dati di ciascuna categoria.
+     */
+    private static WeatherData[] categoriesOf(RecordWeather weather) {
+        return new WeatherData[] {
+                weather.wind(),
+                weather.humidity(),
+                weather.pressure(),
+                weather.temperature(),
+                weather.precipitation(),
+                weather.glacierElevation(),
+                weather.glacierMass() };
+    }
+
+    /**
+     * Iteratore sulle righe occupate, nell'ordine di inserimento.
+     *
+     * @param <E> Il tipo degli elementi restituiti.
+     */
+    private abstract class RowIterator<E> implements Iterator<E> {
+
+        /**
+         * La prossima riga da restituire.
+         */
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public E next() {
+            if (next >= size)
+                throw new NoSuchElementException();
+            return valueAt(next++);
+        }
+
+        /**
+         * Restituisce l'elemento corrispondente a una riga.
+         *
+         * @param row La riga.
+         * @return L'elemento.
+         */
+        abstract E valueAt(int row);
+    }
+
+    /**
+     * Elenco di righe in ordine di inserimento, memorizzato in un array di
+     * {@code int}.
+     */
+    private static class RowList {
+
+        /**
+         * Le righe.
+         */
+        private int[] rows = new int[4];
+
+        /**
+         * Il numero di righe.
+         */
+        private int count;
+
+        /**
+         * Aggiunge una riga in coda all'elenco.
+         *
+         * @param row La riga.
+         */
+        void add(int row) {
+            if (count == rows.length)
+                rows = Arrays.copyOf(rows, count * 2);
+            rows[count++] = row;
+        }
+
+        /**
+         * Rimuove una riga dall'elenco, mantenendo l'ordine delle altre.
+         *
+         * @param row La riga.
+         */
+        void remove(int row) {
+            for (int i = 0; i < count; i++) {
+                if (rows[i] == row) {
+                    System.arraycopy(rows, i + 1, rows, i, count - i - 1);
+                    count--;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Restituisce una vista dell'elenco come lista non modificabile.
+         *
+         * @return La lista delle righe.
+         */
+        List<Integer> asList() {
+            return new AbstractList<>() {
+                @Override
+                public Integer get(int index) {
+                    return rows[index];
+                }
+
+                @Override
+                public int size() {
+                    return count;
+                }
+            };
+        }
+    }
+
+    /**
+     * Indice temporale delle righe, ordinato per data e, a parit&agrave; di
+     * data, per riga.
+     * <p>
+     * Ogni voce &egrave; un {@code long} che contiene il giorno nei 32 bit
+     * pi&ugrave; significativi e la riga in quelli meno significativi, in modo
+     * che l'ordine numerico delle voci coincida con quello per data. Le voci
+     * vengono aggiunte in coda e l'array viene riordinato solo alla prima
+     * ricerca o rimozione successiva a un inserimento fuori ordine: il
+     * caricamento iniziale costa quindi un solo ordinamento, e gli inserimenti
+     * di dati pi&ugrave; recenti mantengono l'indice ordinato.
+     * </p>
+     */
+    private static class TimeIndex {
+
+        /**
+         * Le voci dell'indice.
+         */
+        private long[] entries = new long[4];
+
+        /**
+         * Il numero di voci.
+         */
+        private int count;
+
+        /**
+         * Indica se le voci sono ordinate.
+         */
+        private boolean sorted = true;
+
+        /**
+         * Aggiunge una riga all'indice.
+         *
+         * @param day Il giorno della riga, in giorni dall'epoca.
+         * @param row La riga.
+         */
+        void add(int day, int row) {
+            long entry = entry(day, row);
+            if (count == entries.length)
+                entries = Arrays.copyOf(entries, count * 2);
+            if (count > 0 && entries[count - 1] > entry)
+                sorted = false;
+            entries[count++] = entry;
+        }
+
+        /**
+         * Rimuove una riga dall'indice.
+         *
+         * @param day Il giorno con cui la riga &egrave; stata aggiunta.
+         * @param row La riga.
+         */
+        void remove(int day, int row) {
+            ensureSorted();
+            int position = Arrays.binarySearch(entries, 0, count, entry(day, row));
+            if (position >= 0) {
+                System.arraycopy(entries, position + 1, entries, position, count - position - 1);
+                count--;
+            }
+        }
+
+        /**
+         * Restituisce le righe con una data compresa in un intervallo.
+         *
+         * @param fromDay Il primo giorno dell'intervallo.
+         * @param toDay   L'ultimo giorno dell'intervallo.
+         * @return Una vista non modificabile delle righe, in ordine di data.
+         */
+        List<Integer> between(int fromDay, int toDay) {
+            ensureSorted();
+            int start = lowerBound((long) fromDay << 32);
+            int end = toDay == Integer.MAX_VALUE ? count : lowerBound(((long) toDay + 1) << 32);
+            long[] view = entries;
+
+            return new AbstractList<>() {
+                @Override
+                public Integer get(int index) {
+                    return (int) view[start + index];
+                }
+
+                @Override
+                public int size() {
+                    return end - start;
+                }
+            };
+        }
+
+        /**
+         * Scrive le voci, ordinate, in un'istantanea binaria.
+         *
+         * @param output Il contenuto in scrittura.
+         * @throws IOException Se si verifica un errore durante la scrittura.
+         */
+        void writeSnapshot(StorageSnapshot.Output output) throws IOException {
+            ensureSorted();
+            output.putInt(count);
+            output.putLongs(entries, count);
+        }
+
+        /**
+         * Sostituisce le voci con quelle scritte in un'istantanea binaria da
+         * {@link #writeSnapshot}.
+         *
+         * @param input Il contenuto in lettura.
+         */
+        void readSnapshot(ByteBuffer input) {
+            count = input.getInt();
+            entries = StorageSnapshot.getLongs(input, count, Math.max(count, 4));
+            sorted = true;
+        }
+
+        /**
+         * Ordina le voci, se necessario. Pu&ograve; essere invocato da
+         * pi&ugrave; interrogazioni in parallelo.
+         */
+        private synchronized void ensureSorted() {
+            if (!sorted) {
+                Arrays.sort(entries, 0, count);
+                sorted = true;
+            }
+        }
+
+        /**
+         * Restituisce la posizione della prima voce maggiore o uguale a una
+         * chiave.
+         *
+         * @param key La chiave.
+         * @return La posizione della voce, o il numero di voci se non presente.
+         */
+        private int lowerBound(long key) {
+            int position = Arrays.binarySearch(entries, 0, count, key);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        /**
+         * Crea la voce di una riga.
+         *
+         * @param day Il giorno della riga.
+         * @param row La riga, non negativa.
+         * @return La voce.
+         */
+        private static long entry(int day, int row) {
+            return ((long) day << 32) | row;
+        }
+    }
+
+}
@@ -0,0 +1,888 @@
+package models.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import models.file.FileHandler;
+import models.record.RecordWeather;
+import utils.Constants;
+
+/**
+ * La classe {@code WeatherHistory} archivia i dati meteorologici caricandoli
+ * su richiesta, una citt&agrave; alla volta, invece che tutti all'avvio.
+ * <p>
+ * All'avvio il file dei dati meteorologici viene scorso una sola volta senza
+ * convertire le righe in record: per ogni riga vengono letti solo l'ID del
+ * record e quello della citt&agrave;, e ne viene memorizzata la posizione nel
+ * file. Alla prima consultazione di una citt&agrave; le sue righe vengono
+ * lette dalle posizioni memorizzate e archiviate in un {@link WeatherColumns},
+ * insieme ai dati aggregati e agli aggregati per periodo di tempo. Solo le
+ * citt&agrave; consultate pi&ugrave; di recente restano in memoria, fino al
+ * numero massimo indicato al costruttore.
+ * </p>
+ * <p>
+ * I record inseriti o modificati dopo la lettura del file, comprese le voci
+ * del journal riapplicate all'avvio, vengono conservati in memoria e
+ * sostituiscono quelli del file con lo stesso ID, finch&eacute; il file non
+ * viene compattato o, se sono stati scritti direttamente nel file, finch&eacute;
+ * le posizioni delle righe non vengono ricalcolate. Se una riga non si trova
+ * pi&ugrave; nella posizione memorizzata, ad esempio perch&eacute; il file
+ * &egrave; stato riscritto, le posizioni vengono ricalcolate.
+ * </p>
+ * <p>
+ * La compattazione copia il file riga per riga, sostituendo le righe dei
+ * record modificati e aggiungendo quelli inseriti nell'ordine degli ID, senza
+ * caricare in memoria l'intero archivio.
+ * </p>
+ * <p>
+ * La classe implementa l'interfaccia {@code Map} per ID; l'iterazione legge
+ * l'intero file. Non &egrave; possibile rimuovere record.
+ * </p>
+ *
+ * @see models.data.DataStorage
+ * @see models.data.WeatherColumns
+ * @see models.record.RecordWeather
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class WeatherHistory extends AbstractMap<Integer, RecordWeather> {
+
+    /**
+     * Valore che rappresenta la citt&agrave; di un record non presente.
+     */
+    private static final int NO_CITY = Integer.MIN_VALUE;
+
+    /**
+     * Numero di ID oltre il doppio dei record presenti entro cui le
+     * citt&agrave; dei record restano in un array; un ID pi&ugrave; alto fa
+     * passare a una tabella hash.
+     */
+    private static final int DENSE_ID_SLACK = 1 << 16;
+
+    /**
+     * Dimensione del buffer usato per scorrere il file.
+     */
+    private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Dimensione iniziale del buffer usato per leggere una riga.
+     */
+    private static final int LINE_BUFFER_SIZE = 4096;
+
+    /**
+     * Il percorso del file dei dati meteorologici.
+     */
+    private final Path path;
+
+    /**
+     * ID della citt&agrave; di ciascun record, per ID; {@link #NO_CITY} se
+     * l'ID non &egrave; presente.
+     */
+    private int[] cityByID = new int[0];
+
+    /**
+     * ID della citt&agrave; di ciascun record, per ID, se gli ID dei record
+     * non sono contigui; {@code null} se viene usato {@link #cityByID}.
+     */
+    private HashMap<Integer, Integer> cityBySparseID;
+
+    /**
+     * Numero di ID presenti.
+     */
+    private int count;
+
+    /**
+     * L'ID pi&ugrave; alto presente, o -1 se non ci sono record.
+     */
+    private int highestID = -1;
+
+    /**
+     * Posizioni delle righe del file, per ID della citt&agrave;.
+     */
+    private final HashMap<Integer, Offsets> offsetsByCity = new HashMap<>();
+
+    /**
+     * Record inseriti o modificati dopo la lettura del file, per ID,
+     * nell'ordine di inserimento.
+     */
+    private final LinkedHashMap<Integer, RecordWeather> changes = new LinkedHashMap<>();
+
+    /**
+     * Citt&agrave; caricate in memoria, per ID, dalla meno recente alla
+     * pi&ugrave; recente consultazione.
+     */
+    private final LinkedHashMap<Integer, Resident> residents;
+
+    /**
+     * Buffer usato per leggere le righe del file.
+     */
+    private ByteBuffer lineBuffer = ByteBuffer.allocate(LINE_BUFFER_SIZE);
+
+    /**
+     * Crea l'archivio di un file di dati meteorologici e calcola le posizioni
+     * delle sue righe.
+     *
+     * @param filePath      Il percorso del file dei dati meteorologici.
+     * @param residentLimit Il numero massimo di citt&agrave; mantenute in
+     *                      memoria.
+     * @throws IOException Se si verifica un errore durante la lettura del
+     *                     file.
+     */
+    public WeatherHistory(String filePath, int residentLimit) throws IOException {
+        this.path = Paths.get(filePath);
+        this.residents = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Resident> eldest) {
+                return size() > Math.max(residentLimit, 1);
+            }
+        };
+        index();
+    }
+
+    /**
+     * Inserisce un record o sostituisce quello con lo stesso ID, aggiornando
+     * la citt&agrave; del record se &egrave; in memoria. Se il record cambia
+     * citt&agrave;, entrambe le citt&agrave; vengono rimosse dalla memoria e
+     * ricaricate alla consultazione successiva.
+     *
+     * @param weather Il record da inserire.
+     * @throws IllegalArgumentException Se un punteggio del record non &egrave;
+     *                                  rappresentabile; in tal caso l'archivio
+     *                                  non viene modificato.
+     */
+    public synchronized void put(RecordWeather weather) {
+        if (!WeatherColumns.hasValidScores(weather))
+            throw new IllegalArgumentException("Punteggio non valido nel record " + weather.ID());
+
+        int oldCityID = cityOf(weather.ID());
+        int cityID = weather.cityID() == null ? NO_CITY : weather.cityID();
+        changes.put(weather.ID(), weather);
+        setCity(weather.ID(), cityID);
+
+        if (oldCityID != NO_CITY && oldCityID != cityID) {
+            residents.remove(oldCityID);
+            residents.remove(cityID);
+            return;
+        }
+
+        Resident resident = residents.get(cityID);
+        if (resident != null)
+            resident.put(weather);
+    }
+
+    /**
+     * Rimuove un record inserito dopo la lettura del file. La citt&agrave; del
+     * record viene rimossa dalla memoria e ricaricata alla consultazione
+     * successiva.
+     *
+     * @param ID L'ID del record.
+     */
+    synchronized void removeChange(int ID) {
+        if (changes.remove(ID) == null)
+            return;
+
+        int cityID = cityOf(ID);
+        setCity(ID, NO_CITY);
+        residents.remove(cityID);
+    }
+
+    @Override
+    public synchronized RecordWeather get(Object key) {
+        if (!(key instanceof Integer))
+            return null;
+
+        int cityID = cityOf((Integer) key);
+        return cityID == NO_CITY ? null : resident(cityID).columns.get(key);
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        return key instanceof Integer && cityOf((Integer) key) != NO_CITY;
+    }
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Restituisce il numero di record inseriti o modificati conservati in
+     * memoria.
+     *
+     * @return Il numero di record.
+     */
+    synchronized int changeCount() {
+        return changes.size();
+    }
+
+    /**
+     * Restituisce il numero di citt&agrave; i cui record sono in memoria.
+     *
+     * @return Il numero di citt&agrave; in memoria.
+     */
+    synchronized int residentCount() {
+        return residents.size();
+    }
+
+    /**
+     * Restituisce una stima della memoria occupata dai record delle
+     * citt&agrave; in memoria.
+     *
+     * @return Il numero stimato di byte.
+     *
+     * @see WeatherColumns#estimateBytes()
+     */
+    synchronized long estimateBytes() {
+        long bytes = 0;
+        for (Resident resident : residents.values())
+            bytes += resident.columns.estimateBytes();
+        return bytes;
+    }
+
+    @Override
+    public Set<Entry<Integer, RecordWeather>> entrySet() {
+        return loadAll().entrySet();
+    }
+
+    /**
+     * Restituisce l'ID pi&ugrave; alto presente.
+     *
+     * @return L'ID, o -1 se non ci sono record.
+     */
+    public synchronized int getHighestID() {
+        return highestID;
+    }
+
+    /**
+     * Restituisce l'ID della citt&agrave; di un record.
+     *
+     * @param ID L'ID del record.
+     * @return L'ID della citt&agrave;, o {@code null} se il record non &egrave;
+     *         presente.
+     */
+    synchronized Integer getCityID(int ID) {
+        int cityID = cityOf(ID);
+        return cityID == NO_CITY ? null : cityID;
+    }
+
+    /**
+     * Restituisce l'archivio a colonne dei record di una citt&agrave;,
+     * caricandoli se non sono in memoria.
+     *
+     * @param cityID L'ID della citt&agrave;.
+     * @return L'archivio dei record della citt&agrave;.
+     */
+    synchronized WeatherColumns getColumns(int cityID) {
+        return resident(cityID).columns;
+    }
+
+    /**
+     * Restituisce i dati aggregati di una citt&agrave;, caricandone i record
+     * se non sono in memoria.
+     *
+     * @param cityID L'ID della citt&agrave;.
+     * @return I dati aggregati della citt&agrave;.
+     */
+    synchronized WeatherAggregate getAggregate(int cityID) {
+        return resident(cityID).aggregate;
+    }
+
+    /**
+     * Restituisce gli aggregati per periodo di tempo di una citt&agrave;,
+     * caricandone i record se non sono in memoria.
+     *
+     * @param cityID L'ID della citt&agrave;.
+     * @return Gli aggregati per periodo della citt&agrave;.
+     */
+    synchronized WeatherRollup getRollup(int cityID) {
+        return resident(cityID).rollup;
+    }
+
+    /**
+     * Legge tutti i record in un nuovo archivio a colonne, che non viene
+     * mantenuto in memoria. Usato dalle interrogazioni che non riguardano una
+     * sola citt&agrave;.
+     *
+     * @return L'archivio di tutti i record.
+     */
+    synchronized WeatherColumns loadAll() {
+        WeatherColumns columns = new WeatherColumns();
+
+        try {
+            FileHandler.readRecords(path.toString(),
+                    DataStorage::parseWeather,
+                    weather -> columns.put(weather.ID(), weather));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (RecordWeather weather : changes.values()) {
+            columns.put(weather.ID(), weather);
+        }
+        return columns;
+    }
+
+    /**
+     * Riscrive il file con lo stato corrente dei record e ricalcola le
+     * posizioni delle righe; i record inseriti o modificati non vengono
+     * quindi pi&ugrave; conservati in memoria.
+     * <p>
+     * Il file viene copiato riga per riga: le righe dei record modificati
+     * vengono sostituite con la nuova versione, e i record inseriti vengono
+     * aggiunti nell'ordine degli ID, prima della prima riga con un ID
+     * maggiore. In memoria vengono mantenuti solo i record inseriti o
+     * modificati, indipendentemente dalla dimensione del file.
+     * </p>
+     *
+     * @throws IOException Se si verifica un errore durante la lettura o la
+     *                     scrittura del file.
+     */
+    synchronized void compact() throws IOException {
+        HashSet<Integer> changedInFile = new HashSet<>();
+        for (Offsets offsets : offsetsByCity.values()) {
+            for (int i = 0; i < offsets.count; i++) {
+                if (changes.containsKey(offsets.ids[i]))
+                    changedInFile.add(offsets.ids[i]);
+            }
+        }
+
+        TreeSet<Integer> inserted = new TreeSet<>(changes.keySet());
+        inserted.removeAll(changedInFile);
+
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            reader.readLine();
+            Iterator<String> lines = new CompactedLines(reader, inserted);
+            Iterable<String> records = () -> lines;
+            FileHandler.rewriteFile(path.toString(), records);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        reindex();
+    }
+
+    /**
+     * Ricalcola le posizioni delle righe dopo che i record inseriti o
+     * modificati sono stati scritti nel file, che non vengono quindi
+     * pi&ugrave; conservati in memoria. Le citt&agrave; in memoria restano
+     * valide, dato che il loro contenuto non cambia.
+     *
+     * @throws IOException Se si verifica un errore durante la lettura del
+     *                     file.
+     */
+    synchronized void reindex() throws IOException {
+        index();
+        changes.clear();
+    }
+
+    /**
+     * Restituisce una citt&agrave; in memoria, caricandola se necessario.
+     *
+     * @param cityID L'ID della citt&agrave;.
+     * @return La citt&agrave; in memoria.
+     */
+    private Resident resident(int cityID) {
+        Resident resident = residents.get(cityID);
+        if (resident != null)
+            return resident;
+
+        try {
+            WeatherColumns columns = readCity(cityID);
+            if (columns == null) {
+                index();
+                columns = readCity(cityID);
+                if (columns == null)
+                    throw new IllegalStateException("Posizioni non valide nel file: " + path);
+            }
+
+            resident = new Resident(cityID, columns);
+            residents.put(cityID, resident);
+            return resident;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Legge i record di una citt&agrave; dalle posizioni memorizzate e vi
+     * applica quelli inseriti o modificati in seguito. I record vengono
+     * archiviati nell'ordine degli ID, che corrisponde a quello in cui
+     * verrebbero caricati dal file di dati e dal journal.
+     *
+     * @param cityID L'ID della citt&agrave;.
+     * @return L'archivio dei record della citt&agrave;, o {@code null} se una
+     *         riga non si trova pi&ugrave; nella posizione memorizzata.
+     * @throws IOException Se si verifica un errore durante la lettura del
+     *                     file.
+     */
+    private WeatherColumns readCity(int cityID) throws IOException {
+        Offsets offsets = offsetsByCity.get(cityID);
+        TreeMap<Integer, RecordWeather> cityRecords = new TreeMap<>();
+
+        if (offsets != null) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                for (int i = 0; i < offsets.count; i++) {
+                    int ID = offsets.ids[i];
+                    if (cityOf(ID) != cityID || changes.containsKey(ID))
+                        continue;
+
+                    String[] fields = readLine(channel, offsets.positions[i], ID);
+                    if (fields == null)
+                        return null;
+
+                    RecordWeather weather = DataStorage.parseWeather(fields);
+                    if (weather != null && isOf(weather, cityID))
+                        cityRecords.put(ID, weather);
+                }
+            }
+        }
+
+        for (RecordWeather weather : changes.values()) {
+            if (isOf(weather, cityID))
+                cityRecords.put(weather.ID(), weather);
+        }
+
+        WeatherColumns columns = new WeatherColumns(cityRecords.size(), true);
+        for (RecordWeather weather : cityRecords.values()) {
+            columns.put(weather.ID(), weather);
+        }
+        return columns;
+    }
+
+    /**
+     * Legge e suddivide in campi la riga che inizia nella posizione indicata.
+     *
+     * @param channel  Il canale del file.
+     * @param position La posizione di inizio della riga.
+     * @param ID       L'ID del record atteso nella riga.
+     * @return I campi della riga, o {@code null} se la riga non contiene il
+     *         record atteso.
+     * @throws IOException Se si verifica un errore durante la lettura del
+     *                     file.
+     */
+    private String[] readLine(FileChannel channel, long position, int ID) throws IOException {
+        lineBuffer.clear();
+        int lineEnd = -1;
+
+        while (lineEnd < 0) {
+            int read = channel.read(lineBuffer, position + lineBuffer.position());
+            for (int i = lineBuffer.position() - Math.max(read, 0); i < lineBuffer.position(); i++) {
+                if (lineBuffer.get(i) == '\n') {
+                    lineEnd = i;
+                    break;
+                }
+            }
+
+            if (lineEnd >= 0)
+                break;
+            if (read <= 0) {
+                lineEnd = lineBuffer.position();
+            } else if (!lineBuffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(lineBuffer.capacity() * 2);
+                lineBuffer.flip();
+                lineBuffer = larger.put(lineBuffer);
+            }
+        }
+
+        if (lineEnd > 0 && lineBuffer.get(lineEnd - 1) == '\r')
+            lineEnd--;
+
+        String line = new String(lineBuffer.array(), 0, lineEnd, StandardCharsets.UTF_8);
+        String[] fields = FileHandler.splitFields(line, Constants.CSV_SEPARATOR.charAt(0));
+
+        try {
+            if (fields.length < 2 || Integer.parseInt(fields[0]) != ID)
+                return null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return fields;
+    }
+
+    /**
+     * Scorre il file e memorizza, per ogni riga, l'ID del record, quello della
+     * citt&agrave; e la posizione della riga. La riga di intestazione e le
+     * righe che non iniziano con due numeri interi vengono ignorate.
+     *
+     * @throws IOException Se si verifica un errore durante la lettura del
+     *                     file.
+     */
+    private void index() throws IOException {
+        offsetsByCity.clear();
+        Arrays.fill(cityByID, NO_CITY);
+        cityBySparseID = null;
+        count = 0;
+        highestID = -1;
+
+        byte separator = (byte) Constants.CSV_SEPARATOR.charAt(0);
+
+        try (InputStream input = Files.newInputStream(path)) {
+            byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+            long bufferStart = 0;
+            long lineStart = 0;
+            boolean header = true;
+            int field = 0;
+            long value = 0;
+            int digits = 0;
+            boolean negative = false;
+            int ID = 0;
+            int read;
+
+            while ((read = input.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+
+                    if (b == '\n') {
+                        header = false;
+                        field = 0;
+                        value = 0;
+                        digits = 0;
+                        negative = false;
+                        lineStart = bufferStart + i + 1;
+
+                    } else if (header || field > 1) {
+                        continue;
+
+                    } else if (b == separator) {
+                        boolean valid = digits > 0 && digits <= 10 && value <= Integer.MAX_VALUE;
+                        if (valid && field == 0 && !negative) {
+                            ID = (int) value;
+                            field = 1;
+                        } else if (valid && field == 1) {
+                            indexLine(ID, (int) (negative ? -value : value), lineStart);
+                            field = 2;
+                        } else {
+                            field = 2;
+                        }
+                        value = 0;
+                        digits = 0;
+                        negative = false;
+
+                    } else if (b >= '0' && b <= '9') {
+                        value = value * 10 + (b - '0');
+                        digits++;
+
+                    } else if (b == '-' && digits == 0 && !negative) {
+                        negative = true;
+
+                    } else {
+                        field = 2;
+                    }
+                }
+                bufferStart += read;
+            }
+        }
+
+        for (RecordWeather weather : changes.values()) {
+            setCity(weather.ID(), weather.cityID() == null ? NO_CITY : weather.cityID());
+        }
+    }
+
+    /**
+     * Verifica se un record appartiene a una citt&agrave;.
+     *
+     * @param weather Il record.
+     * @param cityID  L'ID della citt&agrave;.
+     * @return {@code true} se il record appartiene alla citt&agrave;.
+     */
+    private static boolean isOf(RecordWeather weather, int cityID) {
+        return weather.cityID() != null && weather.cityID() == cityID;
+    }
+
+    /**
+     * Memorizza la posizione di una riga del file.
+     *
+     * @param ID       L'ID del record.
+     * @param cityID   L'ID della citt&agrave; del record.
+     * @param position La posizione di inizio della riga.
+     */
+    private void indexLine(int ID, int cityID, long position) {
+        offsetsByCity.computeIfAbsent(cityID, key -> new Offsets()).add(ID, position);
+        setCity(ID, cityID);
+    }
+
+    /**
+     * Restituisce l'ID della citt&agrave; di un record.
+     *
+     * @param ID L'ID del record.
+     * @return L'ID della citt&agrave;, o {@link #NO_CITY} se il record non
+     *         &egrave; presente.
+     */
+    private int cityOf(int ID) {
+        if (cityBySparseID != null)
+            return cityBySparseID.getOrDefault(ID, NO_CITY);
+        return ID >= 0 && ID < cityByID.length ? cityByID[ID] : NO_CITY;
+    }
+
+    /**
+     * Imposta la citt&agrave; di un record. Un record privo di citt&agrave;
+     * viene conservato solo tra quelli inseriti o modificati e non risulta
+     * presente.
+     *
+     * @param ID     L'ID del record.
+     * @param cityID L'ID della citt&agrave;, o {@link #NO_CITY} se assente.
+     */
+    private void setCity(int ID, int cityID) {
+        int oldCityID = cityOf(ID);
+        if (oldCityID == NO_CITY && cityID != NO_CITY)
+            count++;
+        else if (oldCityID != NO_CITY && cityID == NO_CITY)
+            count--;
+        highestID = Math.max(highestID, ID);
+
+        if (cityBySparseID == null && ID >= cityByID.length) {
+            if (cityID == NO_CITY)
+                return;
+
+            if (ID > 2L * count + DENSE_ID_SLACK) {
+                cityBySparseID = new HashMap<>(count * 2);
+                for (int i = 0; i < cityByID.length; i++) {
+                    if (cityByID[i] != NO_CITY)
+                        cityBySparseID.put(i, cityByID[i]);
+                }
+                cityByID = new int[0];
+            } else {
+                int oldLength = cityByID.length;
+                int newLength = (int) Math.min(Integer.MAX_VALUE - 8L,
+                        Math.max(ID + 1L, oldLength + (oldLength >> 1) + 16L));
+                cityByID = Arrays.copyOf(cityByID, newLength);
+                Arrays.fill(cityByID, oldLength, newLength, NO_CITY);
+            }
+        }
+
+        if (cityBySparseID == null) {
+            cityByID[ID] = cityID;
+        } else if (cityID == NO_CITY) {
+            cityBySparseID.remove(ID);
+        } else {
+            cityBySparseID.put(ID, cityID);
+        }
+    }
+
+    /**
+     * La classe interna {@code CompactedLines} restituisce, una alla volta, le
+     * righe del file compattato: le righe del file, con quelle dei record
+     * modificati sostituite dalla nuova versione, e i record inseriti
+     * nell'ordine degli ID. Il file viene chiuso appena letto per intero.
+     */
+    private class CompactedLines implements Iterator<String> {
+
+        /**
+         * Il lettore del file, posizionato dopo la riga di intestazione.
+         */
+        private final BufferedReader reader;
+
+        /**
+         * Gli ID dei record inseriti non ancora restituiti, in ordine.
+         */
+        private final TreeSet<Integer> inserted;
+
+        /**
+         * La riga del file letta ma non ancora restituita, o {@code null}.
+         */
+        private String line;
+
+        /**
+         * L'ID del record della riga letta, o {@code null} se la riga non
+         * inizia con un ID.
+         */
+        private Integer lineID;
+
+        /**
+         * Indica se il file &egrave; stato letto per intero.
+         */
+        private boolean endOfFile;
+
+        /**
+         * Crea l'elenco delle righe del file compattato.
+         *
+         * @param reader   Il lettore del file, posizionato dopo la riga di
+         *                 intestazione.
+         * @param inserted Gli ID dei record inseriti, che non compaiono nel
+         *                 file.
+         */
+        CompactedLines(BufferedReader reader, TreeSet<Integer> inserted) {
+            this.reader = reader;
+            this.inserted = inserted;
+        }
+
+        @Override
+        public boolean hasNext() {
+            readLine();
+            return line != null || !inserted.isEmpty();
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            if (!inserted.isEmpty() && (line == null || (lineID != null && inserted.first() < lineID)))
+                return changes.get(inserted.pollFirst()).toString();
+
+            String next = line;
+            if (lineID != null && changes.containsKey(lineID))
+                next = changes.get(lineID).toString();
+            line = null;
+            return next;
+        }
+
+        /**
+         * Legge la riga successiva del file, se quella precedente &egrave;
+         * gi&agrave; stata restituita, saltando le righe vuote.
+         */
+        private void readLine() {
+            try {
+                while (line == null && !endOfFile) {
+                    line = reader.readLine();
+                    if (line == null) {
+                        endOfFile = true;
+                        reader.close();
+                    } else if (line.isEmpty()) {
+                        line = null;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            if (line != null)
+                lineID = parseID(line);
+        }
+
+        /**
+         * Restituisce l'ID del record di una riga.
+         *
+         * @param line La riga.
+         * @return L'ID del record, o {@code null} se la riga non inizia con un
+         *         ID.
+         */
+        private Integer parseID(String line) {
+            int separator = line.indexOf(Constants.CSV_SEPARATOR.charAt(0));
+            try {
+                return Integer.valueOf(separator < 0 ? line : line.substring(0, separator));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * La classe interna {@code Offsets} memorizza le posizioni nel file delle
+     * righe di una citt&agrave;, nell'ordine del file.
+     */
+    private static class Offsets {
+
+        /**
+         * ID dei record delle righe.
+         */
+        private int[] ids = new int[4];
+
+        /**
+         * Posizioni di inizio delle righe.
+         */
+        private long[] positions = new long[4];
+
+        /**
+         * Numero di righe memorizzate.
+         */
+        private int count;
+
+        /**
+         * Aggiunge una riga.
+         *
+         * @param ID       L'ID del record della riga.
+         * @param position La posizione di inizio della riga.
+         */
+        void add(int ID, long position) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+            ids[count] = ID;
+            positions[count] = position;
+            count++;
+        }
+    }
+
+    /**
+     * La classe interna {@code Resident} contiene i record di una
+     * citt&agrave; caricata in memoria, con i relativi dati aggregati.
+     */
+    private class Resident {
+
+        /**
+         * L'archivio dei record della citt&agrave;.
+         */
+        private final WeatherColumns columns;
+
+        /**
+         * I dati aggregati della citt&agrave;.
+         */
+        private final WeatherAggregate aggregate;
+
+        /**
+         * Gli aggregati per periodo di tempo della citt&agrave;.
+         */
+        private final WeatherRollup rollup;
+
+        /**
+         * Crea una citt&agrave; in memoria e ne calcola i dati aggregati, che
+         * leggono i commenti dall'archivio mantenendo acquisito il lock
+         * dell'archivio dei dati meteorologici.
+         *
+         * @param cityID  L'ID della citt&agrave;.
+         * @param columns L'archivio dei record della citt&agrave;.
+         */
+        Resident(int cityID, WeatherColumns columns) {
+            this.columns = columns;
+            this.aggregate = new WeatherAggregate(category -> {
+                synchronized (WeatherHistory.this) {
+                    return columns.getComments(cityID, category);
+                }
+            });
+            this.rollup = new WeatherRollup(columns);
+            columns.aggregateByCity(ID -> aggregate);
+        }
+
+        /**
+         * Inserisce o sostituisce un record, aggiornando i dati aggregati.
+         *
+         * @param weather Il record da inserire.
+         */
+        void put(RecordWeather weather) {
+            RecordWeather oldWeather = columns.put(weather.ID(), weather);
+            if (oldWeather != null) {
+                aggregate.remove(oldWeather);
+                rollup.remove(oldWeather);
+            }
+            aggregate.add(weather);
+            rollup.add(weather);
+        }
+    }
+
+}
@@ -0,0 +1,640 @@
+package models.data;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import models.record.RecordWeather;
+import models.record.RecordWeather.WeatherData;
+
+/**
+ * La classe {@code WeatherRollup} mantiene i dati meteorologici di ogni
+ * citt&agrave; aggregati per periodo di tempo.
+ * <p>
+ * Per ciascun mese e ciascuna categoria meteorologica vengono mantenuti il
+ * numero, la somma, il minimo e il massimo dei punteggi, aggiornati a ogni
+ * inserimento o aggiornamento di un record. Gli aggregati annuali vengono
+ * ottenuti sommando quelli mensili; quelli giornalieri vengono calcolati dai
+ * soli record dell'intervallo richiesto, selezionati tramite l'indice temporale
+ * di {@link WeatherColumns}, poich&eacute; un aggregato per giorno occuperebbe
+ * quanto i record stessi.
+ * </p>
+ * <p>
+ * Gli aggregati mensili di una citt&agrave; sono memorizzati in un unico array
+ * di {@code int}, ordinato per mese, e vengono calcolati dai record la prima
+ * volta che sono richiesti, in modo che il caricamento dei dati non debba
+ * aggregare le citt&agrave; che non verranno consultate. Se un aggiornamento
+ * rimuove il punteggio minimo o massimo di un mese, l'aggregato del mese viene
+ * ricalcolato dai record alla lettura successiva.
+ * </p>
+ *
+ * @see models.data.DataStorage
+ * @see models.data.WeatherAggregate
+ * @see models.data.WeatherColumns
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class WeatherRollup {
+
+    /**
+     * La durata dei periodi in cui vengono aggregati i dati.
+     */
+    public enum Granularity {
+        /**
+         * Aggregati giornalieri.
+         */
+        DAY,
+        /**
+         * Aggregati mensili.
+         */
+        MONTH,
+        /**
+         * Aggregati annuali.
+         */
+        YEAR
+    }
+
+    /**
+     * Numero di categorie meteorologiche.
+     */
+    private static final int CATEGORY_COUNT = WeatherAggregate.CATEGORY_COUNT;
+
+    /**
+     * Numero di {@code int} occupati da un aggregato mensile: numero di record
+     * e, per ogni categoria, numero, somma e minimo/massimo dei punteggi.
+     */
+    private static final int STRIDE = 1 + 3 * CATEGORY_COUNT;
+
+    /**
+     * Bit del numero di record che indica un aggregato mensile da ricalcolare.
+     */
+    private static final int STALE = Integer.MIN_VALUE;
+
+    /**
+     * L'archivio dei dati meteorologici, usato per i ricalcoli e per gli
+     * aggregati giornalieri.
+     */
+    private final WeatherColumns columns;
+
+    /**
+     * Gli aggregati mensili delle citt&agrave; gi&agrave; consultate, per ID
+     * della citt&agrave;.
+     */
+    private final HashMap<Integer, MonthList> monthsByCity = new HashMap<>();
+
+    /**
+     * Crea gli aggregati vuoti di un archivio di dati meteorologici.
+     *
+     * @param columns L'archivio dei dati meteorologici.
+     */
+    WeatherRollup(WeatherColumns columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Aggiunge un record agli aggregati, dopo che &egrave; stato inserito
+     * nell'archivio. I record privi di citt&agrave; o con una data non valida
+     * vengono ignorati, cos&igrave; come quelli delle citt&agrave; non ancora
+     * consultate, i cui aggregati verranno calcolati dall'archivio.
+     *
+     * @param weather Il record da aggiungere.
+     */
+    void add(RecordWeather weather) {
+        Integer day = WeatherColumns.epochDayOf(weather.date());
+        if (weather.cityID() == null || day == null)
+            return;
+
+        MonthList months = monthsByCity.get(weather.cityID());
+        if (months != null)
+            months.add(months.offsetOf(monthKey(LocalDate.ofEpochDay(day))), weather);
+    }
+
+    /**
+     * Rimuove dagli aggregati un record aggiunto in precedenza.
+     *
+     * @param weather Il record da rimuovere, nella versione aggiunta.
+     */
+    void remove(RecordWeather weather) {
+        Integer day = WeatherColumns.epochDayOf(weather.date());
+        if (weather.cityID() == null || day == null)
+            return;
+
+        MonthList months = monthsByCity.get(weather.cityID());
+        if (months != null)
+            months.remove(months.offsetOf(monthKey(LocalDate.ofEpochDay(day))), weather);
+    }
+
+    /**
+     * Restituisce gli aggregati di una citt&agrave; per i periodi che
+     * intersecano un intervallo di date.
+     * <p>
+     * Gli aggregati mensili e annuali si riferiscono sempre all'intero periodo,
+     * anche se l'intervallo ne comprende solo una parte. I periodi senza record
+     * non vengono restituiti.
+     * </p>
+     * <p>
+     * Il metodo &egrave; sincronizzato perch&eacute; gli aggregati mensili
+     * vengono calcolati o ricalcolati alla consultazione, anche da
+     * interrogazioni eseguite in parallelo.
+     * </p>
+     *
+     * @param cityID      L'ID della citt&agrave;.
+     * @param granularity La durata dei periodi.
+     * @param from        La prima data dell'intervallo.
+     * @param to          L'ultima data dell'intervallo.
+     * @return La lista degli aggregati, in ordine cronologico.
+     */
+    public synchronized List<Bucket> getBuckets(int cityID, Granularity granularity, LocalDate from, LocalDate to) {
+        if (from.isAfter(to))
+            return new ArrayList<>();
+
+        switch (granularity) {
+            case DAY:
+                return getDays(cityID, from, to);
+            case MONTH:
+                return getMonths(cityID, monthKey(from), monthKey(to));
+            default:
+                List<Bucket> years = new ArrayList<>();
+                Bucket year = null;
+                for (Bucket month : getMonths(cityID, from.getYear() * 12, to.getYear() * 12 + 11)) {
+                    if (year == null || year.start.getYear() != month.start.getYear()) {
+                        year = new Bucket(month.start.withDayOfYear(1),
+                                month.start.withDayOfYear(month.start.lengthOfYear()));
+                        years.add(year);
+                    }
+                    year.merge(month);
+                }
+                return years;
+        }
+    }
+
+    /**
+     * Calcola gli aggregati giornalieri di una citt&agrave; dai record
+     * dell'intervallo.
+     *
+     * @param cityID L'ID della citt&agrave;.
+     * @param from   La prima data dell'intervallo.
+     * @param to     L'ultima data dell'intervallo.
+     * @return La lista degli aggregati, in ordine cronologico.
+     */
+    private List<Bucket> getDays(int cityID, LocalDate from, LocalDate to) {
+        List<Bucket> days = new ArrayList<>();
+        Bucket day = null;
+        int currentDay = 0;
+
+        for (int row : columns.rowsBetween(cityID, WeatherColumns.epochDay(from), WeatherColumns.epochDay(to))) {
+            int rowDay = columns.dayAt(row);
+            if (day == null || rowDay != currentDay) {
+                currentDay = rowDay;
+                LocalDate date = LocalDate.ofEpochDay(rowDay);
+                day = new Bucket(date, date);
+                days.add(day);
+            }
+            day.add(columns.recordAt(row));
+        }
+        return days;
+    }
+
+    /**
+     * Restituisce gli aggregati mensili di una citt&agrave; in un intervallo di
+     * mesi, ricalcolando quelli non aggiornati.
+     *
+     * @param cityID    L'ID della citt&agrave;.
+     * @param fromMonth Il primo mese, come chiave di {@link #monthKey}.
+     * @param toMonth   L'ultimo mese, come chiave di {@link #monthKey}.
+     * @return La lista degli aggregati, in ordine cronologico.
+     */
+    private List<Bucket> getMonths(int cityID, int fromMonth, int toMonth) {
+        List<Bucket> months = new ArrayList<>();
+        MonthList monthList = monthsByCity.computeIfAbsent(cityID, this::computeMonths);
+
+        for (int i = monthList.lowerBound(fromMonth); i < monthList.count && monthList.keys[i] <= toMonth; i++) {
+            int offset = i * STRIDE;
+            if ((monthList.data[offset] & STALE) != 0)
+                recompute(cityID, monthList, i);
+            if (monthList.data[offset] == 0)
+                continue;
+
+            YearMonth month = monthOf(monthList.keys[i]);
+            Bucket bucket = new Bucket(month.atDay(1), month.atEndOfMonth());
+            bucket.merge(monthList.data, offset);
+            months.add(bucket);
+        }
+        return months;
+    }
+
+    /**
+     * Calcola gli aggregati mensili di una citt&agrave; dai suoi record, letti
+     * in ordine di data tramite l'indice temporale.
+     *
+     * @param cityID L'ID della citt&agrave;.
+     * @return Gli aggregati mensili della citt&agrave;.
+     */
+    private MonthList computeMonths(int cityID) {
+        MonthList monthList = new MonthList();
+        for (int row : columns.rowsBetween(cityID, WeatherColumns.epochDay(LocalDate.MIN),
+                WeatherColumns.epochDay(LocalDate.MAX))) {
+            monthList.add(monthList.offsetOf(monthKey(LocalDate.ofEpochDay(columns.dayAt(row)))),
+                    columns.recordAt(row));
+        }
+        return monthList;
+    }
+
+    /**
+     * Ricalcola un aggregato mensile dai record del mese.
+     *
+     * @param cityID    L'ID della citt&agrave;.
+     * @param monthList Gli aggregati mensili della citt&agrave;.
+     * @param index     La posizione del mese.
+     */
+    private void recompute(int cityID, MonthList monthList, int index) {
+        int offset = index * STRIDE;
+        Arrays.fill(monthList.data, offset, offset + STRIDE, 0);
+
+        YearMonth month = monthOf(monthList.keys[index]);
+        for (int row : columns.rowsBetween(cityID, WeatherColumns.epochDay(month.atDay(1)),
+                WeatherColumns.epochDay(month.atEndOfMonth()))) {
+            monthList.add(offset, columns.recordAt(row));
+        }
+    }
+
+    /**
+     * Restituisce la chiave del mese di una data, crescente con la data.
+     *
+     * @param date La data.
+     * @return La chiave del mese.
+     */
+    private static int monthKey(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * Restituisce il mese corrispondente a una chiave di {@link #monthKey}.
+     *
+     * @param key La chiave del mese.
+     * @return Il mese.
+     */
+    private static YearMonth monthOf(int key) {
+        return YearMonth.of(Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1);
+    }
+
+    /**
+     * Restituisce i dati di un record nell'ordine delle categorie.
+     *
+     * @param weather Il record.
+     * @return Un array contenente i dati di ciascuna categoria.
+     */
+    private static WeatherData[] categoriesOf(RecordWeather weather) {
+        return new WeatherData[] {
+                weather.wind(),
+                weather.humidity(),
+                weather.pressure(),
+                weather.temperature(),
+                weather.precipitation(),
+                weather.glacierElevation(),
+                weather.glacierMass() };
+    }
+
+    /**
+     * Codifica il minimo e il massimo di una categoria in un unico {@code int}.
+     *
+     * @param min Il punteggio minimo.
+     * @param max Il punteggio massimo.
+     * @return Il valore codificato.
+     */
+    private static int packRange(int min, int max) {
+        return (min << 16) | (max & 0xFFFF);
+    }
+
+    /**
+     * Estrae il punteggio minimo da un valore codificato con
+     * {@link #packRange}.
+     *
+     * @param range Il valore codificato.
+     * @return Il punteggio minimo.
+     */
+    private static int minOf(int range) {
+        return range >> 16;
+    }
+
+    /**
+     * Estrae il punteggio massimo da un valore codificato con
+     * {@link #packRange}.
+     *
+     * @param range Il valore codificato.
+     * @return Il punteggio massimo.
+     */
+    private static int maxOf(int range) {
+        return (short) range;
+    }
+
+    /**
+     * Gli aggregati mensili di una citt&agrave;, ordinati per mese.
+     */
+    private static class MonthList {
+
+        /**
+         * Le chiavi dei mesi, in ordine crescente.
+         */
+        private int[] keys = new int[2];
+
+        /**
+         * Gli aggregati dei mesi, {@link #STRIDE} valori per mese.
+         */
+        private int[] data = new int[2 * STRIDE];
+
+        /**
+         * Il numero di mesi.
+         */
+        private int count;
+
+        /**
+         * Restituisce la posizione nei dati dell'aggregato di un mese,
+         * creandolo se non presente.
+         *
+         * @param key La chiave del mese.
+         * @return La posizione del primo valore dell'aggregato.
+         */
+        int offsetOf(int key) {
+            int index = lowerBound(key);
+            if (index < count && keys[index] == key)
+                return index * STRIDE;
+
+            if (count == keys.length) {
+                int capacity = count + (count >> 1) + 1;
+                keys = Arrays.copyOf(keys, capacity);
+                data = Arrays.copyOf(data, capacity * STRIDE);
+            }
+            System.arraycopy(keys, index, keys, index + 1, count - index);
+            System.arraycopy(data, index * STRIDE, data, (index + 1) * STRIDE, (count - index) * STRIDE);
+            keys[index] = key;
+            Arrays.fill(data, index * STRIDE, (index + 1) * STRIDE, 0);
+            count++;
+            return index * STRIDE;
+        }
+
+        /**
+         * Restituisce la posizione del primo mese con chiave maggiore o uguale a
+         * quella specificata.
+         *
+         * @param key La chiave del mese.
+         * @return La posizione del mese, o il numero di mesi se non presente.
+         */
+        int lowerBound(int key) {
+            int index = Arrays.binarySearch(keys, 0, count, key);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        /**
+         * Aggiunge un record all'aggregato di un mese.
+         *
+         * @param offset  La posizione dell'aggregato.
+         * @param weather Il record.
+         */
+        void add(int offset, RecordWeather weather) {
+            WeatherData[] weatherDatas = categoriesOf(weather);
+            data[offset]++;
+
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                if (weatherDatas[i] == null || weatherDatas[i].score() == null)
+                    continue;
+
+                int score = weatherDatas[i].score();
+                int base = offset + 1 + 3 * i;
+                data[base + 2] = data[base] == 0
+                        ? packRange(score, score)
+                        : packRange(Math.min(minOf(data[base + 2]), score), Math.max(maxOf(data[base + 2]), score));
+                data[base]++;
+                data[base + 1] += score;
+            }
+        }
+
+        /**
+         * Rimuove un record dall'aggregato di un mese. Se il record contiene il
+         * punteggio minimo o massimo di una categoria l'aggregato viene
+         * segnato per il ricalcolo.
+         *
+         * @param offset  La posizione dell'aggregato.
+         * @param weather Il record, nella versione aggiunta.
+         */
+        void remove(int offset, RecordWeather weather) {
+            WeatherData[] weatherDatas = categoriesOf(weather);
+            data[offset]--;
+
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                if (weatherDatas[i] == null || weatherDatas[i].score() == null)
+                    continue;
+
+                int score = weatherDatas[i].score();
+                int base = offset + 1 + 3 * i;
+                data[base]--;
+                data[base + 1] -= score;
+                if (data[base] > 0 && (score == minOf(data[base + 2]) || score == maxOf(data[base + 2])))
+                    data[offset] |= STALE;
+            }
+        }
+    }
+
+    /**
+     * La classe {@code Bucket} rappresenta i dati meteorologici aggregati di una
+     * citt&agrave; in un periodo di tempo.
+     */
+    public static class Bucket {
+
+        /**
+         * Il primo giorno del periodo.
+         */
+        private final LocalDate start;
+
+        /**
+         * L'ultimo giorno del periodo.
+         */
+        private final LocalDate end;
+
+        /**
+         * Numero di record aggregati.
+         */
+        private int recordCount;
+
+        /**
+         * Numero dei punteggi per ciascuna categoria.
+         */
+        private final int[] scoreCounts = new int[CATEGORY_COUNT];
+
+        /**
+         * Somma dei punteggi per ciascuna categoria.
+         */
+        private final long[] scoreSums = new long[CATEGORY_COUNT];
+
+        /**
+         * Punteggio minimo per ciascuna categoria.
+         */
+        private final int[] minScores = new int[CATEGORY_COUNT];
+
+        /**
+         * Punteggio massimo per ciascuna categoria.
+         */
+        private final int[] maxScores = new int[CATEGORY_COUNT];
+
+        /**
+         * Crea un aggregato vuoto.
+         *
+         * @param start Il primo giorno del periodo.
+         * @param end   L'ultimo giorno del periodo.
+         */
+        private Bucket(LocalDate start, LocalDate end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Aggiunge un record all'aggregato.
+         *
+         * @param weather Il record.
+         */
+        private void add(RecordWeather weather) {
+            WeatherData[] weatherDatas = categoriesOf(weather);
+            recordCount++;
+
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                if (weatherDatas[i] != null && weatherDatas[i].score() != null)
+                    addScores(i, 1, weatherDatas[i].score(), weatherDatas[i].score(), weatherDatas[i].score());
+            }
+        }
+
+        /**
+         * Aggiunge all'aggregato un aggregato mensile.
+         *
+         * @param data   I dati degli aggregati mensili.
+         * @param offset La posizione dell'aggregato.
+         */
+        private void merge(int[] data, int offset) {
+            recordCount += data[offset] & ~STALE;
+
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                int base = offset + 1 + 3 * i;
+                if (data[base] > 0)
+                    addScores(i, data[base], data[base + 1], minOf(data[base + 2]), maxOf(data[base + 2]));
+            }
+        }
+
+        /**
+         * Aggiunge all'aggregato un altro aggregato.
+         *
+         * @param other L'aggregato da aggiungere.
+         */
+        private void merge(Bucket other) {
+            recordCount += other.recordCount;
+
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                if (other.scoreCounts[i] > 0)
+                    addScores(i, other.scoreCounts[i], other.scoreSums[i], other.minScores[i], other.maxScores[i]);
+            }
+        }
+
+        /**
+         * Aggiunge dei punteggi a una categoria.
+         *
+         * @param category La posizione della categoria.
+         * @param count    Il numero di punteggi.
+         * @param sum      La somma dei punteggi.
+         * @param min      Il punteggio minimo.
+         * @param max      Il punteggio massimo.
+         */
+        private void addScores(int category, int count, long sum, int min, int max) {
+            if (scoreCounts[category] == 0) {
+                minScores[category] = min;
+                maxScores[category] = max;
+            } else {
+                minScores[category] = Math.min(minScores[category], min);
+                maxScores[category] = Math.max(maxScores[category], max);
+            }
+            scoreCounts[category] += count;
+            scoreSums[category] += sum;
+        }
+
+        /**
+         * Restituisce il primo giorno del periodo.
+         *
+         * @return Il primo giorno.
+         */
+        public LocalDate getStart() {
+            return start;
+        }
+
+        /**
+         * Restituisce l'ultimo giorno del periodo.
+         *
+         * @return L'ultimo giorno.
+         */
+        public LocalDate getEnd() {
+            return end;
+        }
+
+        /**
+         * Restituisce il numero di record aggregati.
+         *
+         * @return Il numero di record.
+         */
+        public int getRecordCount() {
+            return recordCount;
+        }
+
+        /**
+         * Restituisce il numero dei punteggi di una categoria.
+         *
+         * @param category La posizione della categoria.
+         * @return Il numero dei punteggi.
+         */
+        public int getScoreCount(int category) {
+            return scoreCounts[category];
+        }
+
+        /**
+         * Restituisce la somma dei punteggi di una categoria.
+         *
+         * @param category La posizione della categoria.
+         * @return La somma dei punteggi.
+         */
+        public long getScoreSum(int category) {
+            return scoreSums[category];
+        }
+
+        /**
+         * Restituisce il punteggio minimo di una categoria.
+         *
+         * @param category La posizione della categoria.
+         * @return Il punteggio minimo, o {@code null} se non ci sono punteggi.
+         */
+        public Integer getMinScore(int category) {
+            return scoreCounts[category] == 0 ? null : minScores[category];
+        }
+
+        /**
+         * Restituisce il punteggio massimo di una categoria.
+         *
+         * @param category La posizione della categoria.
+         * @return Il punteggio massimo, o {@code null} se non ci sono punteggi.
+         */
+        public Integer getMaxScore(int category) {
+            return scoreCounts[category] == 0 ? null : maxScores[category];
+        }
+
+        /**
+         * Restituisce la media dei punteggi di una categoria.
+         *
+         * @param category La posizione della categoria.
+         * @return La media dei punteggi, o {@code null} se non ci sono punteggi.
+         */
+        public Double getAverageScore(int category) {
+            return scoreCounts[category] == 0 ? null : (double) scoreSums[category] / scoreCounts[category];
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package models.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * La classe {@code AppendChannel} rappresenta un canale di scrittura in coda a
+ * un file, aperto una sola volta e riutilizzato per tutte le aggiunte.
+ * <p>
+ * Le righe aggiunte vengono scritte su disco secondo la {@link FlushPolicy}
+ * specificata: immediatamente, oppure accumulate in memoria e scritte quando
+ * il buffer &egrave; pieno o quando viene invocato {@link #flush()}.
+ * </p>
+ *
+ * @see models.file.FileHandler
+ * @see models.file.FlushPolicy
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class AppendChannel {
+
+    /**
+     * Dimensione in caratteri oltre la quale le righe accumulate vengono
+     * scritte nel file.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Il canale aperto in aggiunta sul file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * La politica di scrittura su disco.
+     */
+    private final FlushPolicy policy;
+
+    /**
+     * Le righe aggiunte e non ancora scritte nel file.
+     */
+    private final StringBuilder pending = new StringBuilder();
+
+    /**
+     * Indica se sono presenti dati scritti nel file ma non ancora resi
+     * persistenti su disco.
+     */
+    private boolean dirty;
+
+    /**
+     * Apre un canale di scrittura in coda al file specificato.
+     *
+     * @param filePath Il percorso del file.
+     * @param policy   La politica di scrittura su disco.
+     *
+     * @throws IOException Se si verifica un errore durante l'apertura del file.
+     */
+    public AppendChannel(String filePath, FlushPolicy policy) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filePath),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.policy = policy;
+    }
+
+    /**
+     * Aggiunge una riga in coda al file.
+     *
+     * @param line La riga da aggiungere, senza il carattere di nuova riga.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    public synchronized void append(String line) throws IOException {
+        pending.append(line).append(System.lineSeparator());
+        afterAppend();
+    }
+
+    /**
+     * Aggiunge pi&ugrave; righe in coda al file come un unico blocco.
+     *
+     * @param records I record da aggiungere, scritti tramite {@code toString()}.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    public synchronized void appendAll(Collection<?> records) throws IOException {
+        for (Object record : records) {
+            pending.append(record).append(System.lineSeparator());
+        }
+        afterAppend();
+    }
+
+    /**
+     * Scrive nel file le righe accumulate e le rende persistenti su disco.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    public synchronized void flush() throws IOException {
+        writePending();
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Scrive su disco le righe accumulate e chiude il canale.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura o la
+     *                     chiusura.
+     */
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen())
+            return;
+
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Applica la politica di scrittura dopo un'aggiunta.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private void afterAppend() throws IOException {
+        if (policy == FlushPolicy.WRITE) {
+            flush();
+        } else if (pending.length() >= BUFFER_SIZE) {
+            writePending();
+        }
+    }
+
+    /**
+     * Scrive nel file le righe accumulate, senza attendere che siano su disco.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private void writePending() throws IOException {
+        if (pending.length() == 0)
+            return;
+
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+
+        pending.setLength(0);
+        dirty = true;
+    }
+
+}
@@ -1,12 +1,27 @@
 package models.file;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-import javax.swing.JOptionPane;
-
+import models.metrics.Counter;
+import models.metrics.Metrics;
+import models.metrics.Timer;
 import utils.Constants;
+import utils.Functions;
 
 /**
  * La classe {@code FileHandler} gestisce le operazioni di lettura e scrittura
@@ -19,6 +34,9 @@ import utils.Constants;
  * </p>
  * 
  * 
+ * @see models.file.AppendChannel
+ * @see models.file.FlushPolicy
+ * @see models.file.Journal
  * @see utils.Constants
  * 
  * @author Andrea Tettamanti
@@ -28,6 +46,57 @@ import utils.Constants;
  */
 public class FileHandler {
 
+    /**
+     * Journal associati ai file di dati, per percorso del file.
+     */
+    private static final Map<String, Journal> journals = new ConcurrentHashMap<>();
+
+    /**
+     * Canali di scrittura in coda ai file, per percorso del file.
+     */
+    private static final Map<String, AppendChannel> appendChannels = new ConcurrentHashMap<>();
+
+    /**
+     * La politica di scrittura su disco dei canali in coda e dei journal.
+     */
+    private static final FlushPolicy flushPolicy = FlushPolicy.fromName(Constants.Storage.FLUSH_POLICY);
+
+    /**
+     * La durata delle letture dei file di dati.
+     */
+    private static final Timer readTimer = Metrics.timer("file.read");
+
+    /**
+     * La durata delle scritture e riscritture complete dei file di dati.
+     */
+    private static final Timer writeTimer = Metrics.timer("file.write");
+
+    /**
+     * La durata delle aggiunte in coda ai file di dati.
+     */
+    private static final Timer appendTimer = Metrics.timer("file.append");
+
+    /**
+     * Il numero di righe aggiunte in coda ai file di dati.
+     */
+    private static final Counter appendedLines = Metrics.counter("file.appendedLines");
+
+    static {
+        if (flushPolicy == FlushPolicy.GROUP) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "FileHandler-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(FileHandler::flushAll,
+                    Constants.Storage.FLUSH_INTERVAL,
+                    Constants.Storage.FLUSH_INTERVAL,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(FileHandler::closeAll));
+    }
+
     /**
      * Costruttore della classe {@code FileHandler}.
      * <p>
@@ -85,17 +154,14 @@ public class FileHandler {
 
         } catch (IOException e) {
             e.printStackTrace();
-            JOptionPane.showMessageDialog(
-                    null,
-                    "Errore nella creazione dei file.",
-                    "Errore",
-                    JOptionPane.ERROR_MESSAGE);
+            Functions.showError("Errore nella creazione dei file.");
 
         }
     }
 
     /**
-     * Inizializza un file con gli header specificati se il file non esiste.
+     * Inizializza un file con gli header specificati se il file non esiste,
+     * creando se necessario la cartella che lo contiene.
      * 
      * @param filePath    Il percorso del file da inizializzare.
      * @param fileHeaders Gli header da aggiungere al file.
@@ -105,6 +171,9 @@ public class FileHandler {
     private static void initFile(String filePath, String[] fileHeaders) throws IOException {
         File file = new File(filePath);
         if (!file.exists()) {
+            File directory = file.getParentFile();
+            if (directory != null)
+                directory.mkdirs();
             file.createNewFile();
 
             FileWriter writer = new FileWriter(file);
@@ -123,7 +192,269 @@ public class FileHandler {
      * @throws IOException Se si verifica un errore durante la lettura del file.
      */
     public static List<String> readFile(String filePath) throws IOException {
-        return Files.readAllLines(Paths.get(filePath));
+        releaseAppendChannel(filePath);
+
+        long start = System.nanoTime();
+        try {
+            return Files.readAllLines(Paths.get(filePath));
+        } finally {
+            readTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Legge un file CSV in streaming, riga per riga, convertendo ogni riga in un
+     * record tramite il parser specificato e passandolo al consumer.
+     * <p>
+     * A differenza di {@link #readFile(String)} il contenuto del file non viene
+     * mai mantenuto interamente in memoria: la riga di intestazione viene saltata
+     * e le righe vuote vengono ignorate.
+     * </p>
+     *
+     * @param <T>      Il tipo dei record prodotti dal parser.
+     * @param filePath Il percorso del file da leggere.
+     * @param parser   La funzione che converte i campi di una riga in un record
+     *                 (pu&ograve; restituire {@code null} per scartare la riga).
+     * @param consumer La funzione che riceve ogni record letto.
+     *
+     * @throws IOException Se si verifica un errore durante la lettura del file.
+     */
+    public static <T> void readRecords(String filePath,
+            Function<String[], T> parser,
+            Consumer<T> consumer) throws IOException {
+
+        long start = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(filePath))) {
+            char separator = Constants.CSV_SEPARATOR.charAt(0);
+
+            // Salta la riga di intestazione
+            String line = reader.readLine();
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty())
+                    continue;
+
+                T record = parser.apply(splitFields(line, separator));
+                if (record != null)
+                    consumer.accept(record);
+            }
+        } finally {
+            readTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Legge un file CSV suddividendolo in porzioni che vengono analizzate in
+     * parallelo.
+     * <p>
+     * Il file viene diviso in porzioni di circa {@code chunkSize} byte allineate
+     * all'inizio di una riga; ogni porzione viene letta e convertita in record da
+     * un thread diverso. I record vengono poi passati al consumer, dal thread
+     * chiamante, nello stesso ordine in cui compaiono nel file.
+     * </p>
+     * <p>
+     * Al pi&ugrave; {@link Constants.Storage#LOADING_WINDOW} porzioni vengono
+     * analizzate contemporaneamente: la porzione successiva viene avviata solo
+     * dopo che i record della prima in attesa sono stati passati al consumer, e
+     * le porzioni gi&agrave; consumate non restano raggiungibili. In questo modo
+     * la memoria occupata dai record non ancora consumati &egrave; limitata a
+     * poche porzioni e non dipende dalla dimensione del file.
+     * </p>
+     *
+     * @param <T>       Il tipo dei record prodotti dal parser.
+     * @param filePath  Il percorso del file da leggere.
+     * @param parser    La funzione che converte i campi di una riga in un record
+     *                  (pu&ograve; restituire {@code null} per scartare la riga).
+     * @param consumer  La funzione che riceve ogni record letto.
+     * @param chunkSize La dimensione indicativa in byte di ogni porzione.
+     *
+     * @throws IOException Se si verifica un errore durante la lettura del file.
+     */
+    public static <T> void readRecordsParallel(String filePath,
+            Function<String[], T> parser,
+            Consumer<T> consumer,
+            long chunkSize) throws IOException {
+
+        Path path = Paths.get(filePath);
+        long[] bounds = computeChunkBounds(path, chunkSize);
+
+        if (bounds.length <= 2) {
+            readRecords(filePath, parser, consumer);
+            return;
+        }
+
+        int window = Math.max(1, Math.min(Constants.Storage.LOADING_WINDOW, bounds.length - 1));
+        ExecutorService executor = Executors.newFixedThreadPool(window, runnable -> {
+            Thread thread = new Thread(runnable, "chunk-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long readStart = System.nanoTime();
+        Deque<CompletableFuture<List<T>>> pending = new ArrayDeque<>(window);
+        int next = 0;
+
+        try {
+            while (next < bounds.length - 1 || !pending.isEmpty()) {
+                while (next < bounds.length - 1 && pending.size() < window) {
+                    long start = bounds[next];
+                    long end = bounds[next + 1];
+                    pending.addLast(CompletableFuture.supplyAsync(() -> readChunk(path, start, end, parser), executor));
+                    next++;
+                }
+
+                pending.pollFirst().join().forEach(consumer);
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException)
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            throw e;
+        } finally {
+            pending.forEach(chunk -> chunk.cancel(false));
+            executor.shutdownNow();
+            readTimer.record(System.nanoTime() - readStart);
+        }
+    }
+
+    /**
+     * Calcola le posizioni di inizio delle porzioni in cui dividere un file,
+     * allineandole all'inizio di una riga e saltando la riga di intestazione.
+     *
+     * @param path      Il percorso del file.
+     * @param chunkSize La dimensione indicativa in byte di ogni porzione.
+     * @return Le posizioni delimitatrici delle porzioni; l'ultima coincide con la
+     *         dimensione del file.
+     *
+     * @throws IOException Se si verifica un errore durante la lettura del file.
+     */
+    private static long[] computeChunkBounds(Path path, long chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Long> bounds = new ArrayList<>();
+
+            long position = nextLineStart(channel, 0);
+            while (position < size) {
+                bounds.add(position);
+                position = nextLineStart(channel, position + Math.max(chunkSize, 1));
+            }
+            bounds.add(size);
+
+            long[] result = new long[bounds.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = bounds.get(i);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Restituisce la posizione del primo byte successivo al primo carattere di
+     * nuova riga a partire dalla posizione indicata.
+     *
+     * @param channel  Il canale del file.
+     * @param position La posizione da cui iniziare la ricerca.
+     * @return La posizione di inizio della riga successiva, o la dimensione del
+     *         file se non ci sono altre righe.
+     *
+     * @throws IOException Se si verifica un errore durante la lettura del file.
+     */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        while (position < channel.size()) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0)
+                break;
+
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n')
+                    return position + i + 1;
+            }
+            position += read;
+        }
+
+        return channel.size();
+    }
+
+    /**
+     * Legge e converte in record le righe comprese in una porzione del file.
+     *
+     * @param <T>    Il tipo dei record prodotti dal parser.
+     * @param path   Il percorso del file.
+     * @param start  La posizione di inizio della porzione (inizio di una riga).
+     * @param end    La posizione di fine della porzione (esclusa).
+     * @param parser La funzione che converte i campi di una riga in un record.
+     * @return La lista dei record letti, nell'ordine in cui compaiono nel file.
+     */
+    private static <T> List<T> readChunk(Path path, long start, long end, Function<String[], T> parser) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) > 0)
+                ;
+
+            String content = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+            char separator = Constants.CSV_SEPARATOR.charAt(0);
+            List<T> records = new ArrayList<>();
+
+            int lineStart = 0;
+            while (lineStart < content.length()) {
+                int lineEnd = content.indexOf('\n', lineStart);
+                if (lineEnd < 0)
+                    lineEnd = content.length();
+
+                int lineLimit = lineEnd > lineStart && content.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                if (lineLimit > lineStart) {
+                    T record = parser.apply(splitFields(content.substring(lineStart, lineLimit), separator));
+                    if (record != null)
+                        records.add(record);
+                }
+
+                lineStart = lineEnd + 1;
+            }
+
+            return records;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Divide una riga nei suoi campi utilizzando il separatore specificato.
+     * <p>
+     * Equivale a {@code String.split} con un separatore letterale (i campi vuoti
+     * finali vengono scartati), ma non utilizza espressioni regolari.
+     * </p>
+     *
+     * @param line      La riga da dividere.
+     * @param separator Il carattere separatore.
+     * @return Un array contenente i campi della riga.
+     */
+    public static String[] splitFields(String line, char separator) {
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) == separator)
+            end--;
+
+        int count = 1;
+        for (int i = 0; i < end; i++) {
+            if (line.charAt(i) == separator)
+                count++;
+        }
+
+        String[] fields = new String[count];
+        int start = 0;
+        int field = 0;
+
+        for (int i = 0; i < end; i++) {
+            if (line.charAt(i) == separator) {
+                fields[field++] = line.substring(start, i);
+                start = i + 1;
+            }
+        }
+        fields[field] = line.substring(start, end);
+
+        return fields;
     }
 
     /**
@@ -135,11 +466,95 @@ public class FileHandler {
      * @throws IOException Se si verifica un errore durante la scrittura nel file.
      */
     public static void writeFile(String filePath, List<String> lines) throws IOException {
-        Files.write(Paths.get(filePath), lines);
+        releaseAppendChannel(filePath);
+
+        long start = System.nanoTime();
+        try {
+            Files.write(Paths.get(filePath), lines);
+        } finally {
+            writeTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Riscrive un file di dati con i record specificati, mantenendo la riga di
+     * intestazione esistente.
+     * <p>
+     * Il nuovo contenuto viene scritto in un file temporaneo, reso persistente
+     * su disco e poi sostituito atomicamente al file originale, in modo che
+     * un'interruzione durante la scrittura non lasci il file incompleto.
+     * </p>
+     * 
+     * @param filePath Il percorso del file da riscrivere.
+     * @param records  I record da scrivere, uno per riga, nell'ordine dato;
+     *                 vengono scorsi una sola volta.
+     * 
+     * @throws IOException Se si verifica un errore durante la scrittura del file.
+     */
+    public static void rewriteFile(String filePath, Iterable<?> records) throws IOException {
+        releaseAppendChannel(filePath);
+
+        long start = System.nanoTime();
+        Path path = Paths.get(filePath);
+        Path temporaryPath = Paths.get(filePath + ".tmp");
+
+        String header;
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            header = reader.readLine();
+        }
+
+        try (FileChannel channel = FileChannel.open(temporaryPath,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+                BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
+
+            if (header != null) {
+                writer.write(header);
+                writer.newLine();
+            }
+
+            for (Object record : records) {
+                writer.write(record.toString());
+                writer.newLine();
+            }
+
+            writer.flush();
+            channel.force(true);
+        }
+
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writeTimer.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Restituisce il journal associato al file di dati specificato.
+     * 
+     * @param filePath Il percorso del file di dati.
+     * @return Il journal del file, unico per tutta l'applicazione.
+     * 
+     * @see models.file.Journal
+     */
+    public static Journal getJournal(String filePath) {
+        return journals.computeIfAbsent(filePath, Journal::new);
+    }
+
+    /**
+     * Restituisce la politica di scrittura su disco in uso.
+     * 
+     * @return La politica configurata in {@link Constants.Storage#FLUSH_POLICY}.
+     */
+    public static FlushPolicy getFlushPolicy() {
+        return flushPolicy;
     }
 
     /**
      * Aggiunge una nuova linea alla fine di un file esistente.
+     * <p>
+     * La linea viene scritta tramite il canale in coda del file, aperto alla
+     * prima aggiunta e mantenuto per le successive, e resa persistente su disco
+     * secondo la {@link FlushPolicy} in uso.
+     * </p>
      * 
      * @param filePath Il percorso del file a cui aggiungere la nuova linea.
      * @param newLine  La nuova linea da aggiungere al file.
@@ -148,12 +563,131 @@ public class FileHandler {
      *                     linea.
      */
     public static void appendToFile(String filePath, String newLine) throws IOException {
-        FileWriter fout = new FileWriter(filePath, true);
-        BufferedWriter wfbuffer = new BufferedWriter(fout);
+        long start = System.nanoTime();
+        try {
+            getAppendChannel(filePath).append(newLine);
+            appendedLines.increment();
+        } finally {
+            appendTimer.record(System.nanoTime() - start);
+        }
+    }
 
-        wfbuffer.write(newLine);
-        wfbuffer.newLine();
-        wfbuffer.close();
+    /**
+     * Aggiunge pi&ugrave; record alla fine di un file esistente con un'unica
+     * scrittura tramite il canale in coda del file, rendendoli persistenti su
+     * disco una sola volta per l'intero blocco secondo la {@link FlushPolicy} in
+     * uso.
+     * 
+     * @param filePath Il percorso del file a cui aggiungere i record.
+     * @param records  I record da aggiungere, scritti tramite {@code toString()}.
+     * 
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    public static void appendAllToFile(String filePath, Collection<?> records) throws IOException {
+        if (records.isEmpty())
+            return;
+
+        long start = System.nanoTime();
+        try {
+            getAppendChannel(filePath).appendAll(records);
+            appendedLines.add(records.size());
+        } finally {
+            appendTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Scrive nel file specificato le linee accumulate nel suo canale in coda,
+     * se aperto, e le rende persistenti su disco.
+     * 
+     * @param filePath Il percorso del file.
+     * 
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    public static void flush(String filePath) throws IOException {
+        AppendChannel channel = appendChannels.get(filePath);
+        if (channel != null)
+            channel.flush();
+    }
+
+    /**
+     * Restituisce il canale in coda del file specificato, aprendolo se
+     * necessario.
+     * 
+     * @param filePath Il percorso del file.
+     * @return Il canale in coda del file.
+     * 
+     * @throws IOException Se si verifica un errore durante l'apertura del file.
+     */
+    private static AppendChannel getAppendChannel(String filePath) throws IOException {
+        try {
+            return appendChannels.computeIfAbsent(filePath, path -> {
+                try {
+                    return new AppendChannel(path, flushPolicy);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Chiude il canale in coda del file specificato, se aperto, scrivendo su
+     * disco le linee accumulate.
+     * <p>
+     * Viene invocato prima di leggere o riscrivere il file, in modo che il
+     * contenuto letto sia completo e che il canale non resti associato al file
+     * sostituito.
+     * </p>
+     * 
+     * @param filePath Il percorso del file.
+     * 
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private static void releaseAppendChannel(String filePath) throws IOException {
+        AppendChannel channel = appendChannels.remove(filePath);
+        if (channel != null)
+            channel.close();
+    }
+
+    /**
+     * Rende persistenti su disco i dati accumulati in tutti i canali in coda e
+     * in tutti i journal.
+     * <p>
+     * Con la politica {@link FlushPolicy#GROUP} viene invocato periodicamente,
+     * ogni {@link Constants.Storage#FLUSH_INTERVAL} millisecondi.
+     * </p>
+     */
+    public static void flushAll() {
+        try {
+            for (AppendChannel channel : appendChannels.values()) {
+                channel.flush();
+            }
+            for (Journal journal : journals.values()) {
+                journal.sync();
+            }
+        } catch (IOException e) {
+            System.out.println("Errore nella scrittura dei dati: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Chiude tutti i canali in coda e tutti i journal, rendendo persistenti su
+     * disco i dati accumulati. Viene invocato alla chiusura dell'applicazione.
+     */
+    private static void closeAll() {
+        try {
+            for (String filePath : appendChannels.keySet()) {
+                releaseAppendChannel(filePath);
+            }
+            for (Journal journal : journals.values()) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Errore nella scrittura dei dati: " + e.getMessage());
+        }
     }
 
 }
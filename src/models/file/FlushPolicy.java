@@ -0,0 +1,57 @@
+package models.file;
+
+/**
+ * L'enumerazione {@code FlushPolicy} definisce quando i dati aggiunti in coda
+ * ai file vengono scritti su disco.
+ * <p>
+ * Con {@link #WRITE} ogni scrittura attende che i dati siano su disco prima di
+ * restituire il controllo. Con {@link #GROUP} le scritture vengono accumulate e
+ * rese persistenti insieme a intervalli regolari, perdendo in caso di arresto
+ * improvviso al pi&ugrave; le scritture dell'ultimo intervallo. Con
+ * {@link #SHUTDOWN} i dati vengono resi persistenti solo alla chiusura
+ * dell'applicazione.
+ * </p>
+ *
+ * @see models.file.AppendChannel
+ * @see models.file.Journal
+ * @see utils.Constants.Storage#FLUSH_POLICY
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public enum FlushPolicy {
+
+    /**
+     * Scrittura su disco a ogni operazione.
+     */
+    WRITE,
+
+    /**
+     * Scrittura su disco di gruppo, a intervalli regolari.
+     */
+    GROUP,
+
+    /**
+     * Scrittura su disco alla chiusura dell'applicazione.
+     */
+    SHUTDOWN;
+
+    /**
+     * Restituisce la politica corrispondente al nome specificato, senza
+     * distinzione tra maiuscole e minuscole.
+     *
+     * @param name Il nome della politica.
+     * @return La politica corrispondente, o {@link #WRITE} se il nome non
+     *         &egrave; valido.
+     */
+    public static FlushPolicy fromName(String name) {
+        for (FlushPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name))
+                return policy;
+        }
+        return WRITE;
+    }
+
+}
@@ -0,0 +1,339 @@
+package models.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import models.metrics.Metrics;
+import models.metrics.Timer;
+import utils.Constants;
+
+/**
+ * La classe {@code Journal} gestisce il registro delle modifiche (write-ahead
+ * log) associato a un file di dati.
+ * <p>
+ * Ogni inserimento o aggiornamento di un record viene aggiunto in coda al
+ * journal come riga CSV completa del record, preceduta dal suo checksum
+ * CRC32, e reso persistente su disco secondo la {@link FlushPolicy} in uso. Al
+ * caricamento dei dati le voci del journal vengono riapplicate, nell'ordine, al
+ * contenuto del file di dati; periodicamente il file di dati viene riscritto
+ * con lo stato corrente e il journal svuotato.
+ * </p>
+ * <p>
+ * Una voce scritta solo in parte (ad esempio per un arresto improvviso
+ * dell'applicazione) viene riconosciuta tramite il checksum e scartata insieme
+ * a tutto ci&ograve; che la segue.
+ * </p>
+ *
+ * @see models.file.FileHandler
+ * @see models.file.FlushPolicy
+ * @see utils.Constants
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class Journal {
+
+    /**
+     * Estensione aggiunta al percorso del file di dati per ottenere quello del
+     * journal.
+     */
+    public static final String EXTENSION = ".journal";
+
+    /**
+     * La durata delle aggiunte al journal, inclusa l'attesa della scrittura su
+     * disco.
+     */
+    private static final Timer appendTimer = Metrics.timer("journal.append");
+
+    /**
+     * La durata della riapplicazione del journal al caricamento.
+     */
+    private static final Timer replayTimer = Metrics.timer("journal.replay");
+
+    /**
+     * Il percorso del journal.
+     */
+    private final Path path;
+
+    /**
+     * Il canale utilizzato per aggiungere le voci al journal.
+     */
+    private FileChannel channel;
+
+    /**
+     * Il numero di voci presenti nel journal.
+     */
+    private int entries;
+
+    /**
+     * Indica se sono presenti voci scritte ma non ancora rese persistenti su
+     * disco.
+     */
+    private boolean dirty;
+
+    /**
+     * Crea il journal associato al file di dati specificato.
+     *
+     * @param dataFilePath Il percorso del file di dati.
+     */
+    public Journal(String dataFilePath) {
+        this.path = Paths.get(dataFilePath + EXTENSION);
+    }
+
+    /**
+     * Riapplica le voci del journal, convertendole in record tramite il parser
+     * specificato.
+     * <p>
+     * Le eventuali voci incomplete o corrotte in coda al journal vengono
+     * rimosse dal file.
+     * </p>
+     *
+     * @param <T>      Il tipo dei record prodotti dal parser.
+     * @param parser   La funzione che converte i campi di una riga in un record.
+     * @param consumer La funzione che riceve ogni record letto.
+     * @return Il numero di voci riapplicate.
+     *
+     * @throws IOException Se si verifica un errore durante la lettura del
+     *                     journal.
+     */
+    public synchronized <T> int replay(Function<String[], T> parser, Consumer<T> consumer) throws IOException {
+        entries = 0;
+
+        if (!Files.exists(path))
+            return 0;
+
+        long start = System.nanoTime();
+        byte[] content = Files.readAllBytes(path);
+        char separator = Constants.CSV_SEPARATOR.charAt(0);
+        int validEnd = 0;
+
+        while (validEnd < content.length) {
+            int lineEnd = validEnd;
+            while (lineEnd < content.length && content[lineEnd] != '\n')
+                lineEnd++;
+
+            if (lineEnd == content.length)
+                break;
+
+            String line = decode(new String(content, validEnd, lineEnd - validEnd, StandardCharsets.UTF_8));
+            if (line == null)
+                break;
+
+            T record = parser.apply(FileHandler.splitFields(line, separator));
+            if (record != null)
+                consumer.accept(record);
+
+            entries++;
+            validEnd = lineEnd + 1;
+        }
+
+        if (validEnd < content.length) {
+            System.out.println("Journal incompleto, voci scartate: " + path);
+            channel().truncate(validEnd);
+            channel.force(true);
+        }
+
+        replayTimer.record(System.nanoTime() - start);
+        return entries;
+    }
+
+    /**
+     * Aggiunge una voce al journal e, secondo la {@link FlushPolicy} in uso,
+     * attende che sia scritta su disco.
+     *
+     * @param line La riga CSV del record inserito o aggiornato.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    public synchronized void append(String line) throws IOException {
+        long start = System.nanoTime();
+        write(ByteBuffer.wrap(encode(line).getBytes(StandardCharsets.UTF_8)));
+        entries++;
+        afterWrite();
+        appendTimer.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Aggiunge pi&ugrave; voci al journal con un'unica scrittura e, secondo la
+     * {@link FlushPolicy} in uso, attende una sola volta per l'intero blocco che
+     * siano scritte su disco.
+     *
+     * @param lines Le righe CSV dei record inseriti o aggiornati.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    public synchronized void appendAll(Collection<String> lines) throws IOException {
+        if (lines.isEmpty())
+            return;
+
+        long start = System.nanoTime();
+        StringBuilder block = new StringBuilder();
+        for (String line : lines) {
+            block.append(encode(line));
+        }
+
+        write(ByteBuffer.wrap(block.toString().getBytes(StandardCharsets.UTF_8)));
+        entries += lines.size();
+        afterWrite();
+        appendTimer.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Svuota il journal, dopo che il suo contenuto &egrave; stato riportato nel
+     * file di dati.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    public synchronized void truncate() throws IOException {
+        channel().truncate(0);
+        channel.force(true);
+        entries = 0;
+        dirty = false;
+    }
+
+    /**
+     * Restituisce il numero di voci presenti nel journal.
+     *
+     * @return Il numero di voci.
+     */
+    public synchronized int size() {
+        return entries;
+    }
+
+    /**
+     * Indica se il journal non contiene voci, controllando anche il file su
+     * disco nel caso in cui non sia stato riapplicato.
+     *
+     * @return {@code true} se il journal &egrave; vuoto o assente.
+     *
+     * @throws IOException Se si verifica un errore durante la lettura della
+     *                     dimensione del file.
+     */
+    public synchronized boolean isEmpty() throws IOException {
+        return entries == 0 && (!Files.exists(path) || Files.size(path) == 0);
+    }
+
+    /**
+     * Rende persistenti su disco le voci scritte dopo l'ultima sincronizzazione.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    public synchronized void sync() throws IOException {
+        if (dirty && channel != null && channel.isOpen()) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Chiude il canale del journal, se aperto, dopo aver reso persistenti su
+     * disco le voci scritte.
+     *
+     * @throws IOException Se si verifica un errore durante la chiusura.
+     */
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            sync();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Applica la politica di scrittura su disco dopo l'aggiunta di voci.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private void afterWrite() throws IOException {
+        dirty = true;
+        if (FileHandler.getFlushPolicy() == FlushPolicy.WRITE)
+            sync();
+    }
+
+    /**
+     * Scrive completamente il buffer specificato in coda al journal.
+     *
+     * @param buffer Il buffer da scrivere.
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    private void write(ByteBuffer buffer) throws IOException {
+        FileChannel journalChannel = channel();
+        journalChannel.position(journalChannel.size());
+
+        while (buffer.hasRemaining())
+            journalChannel.write(buffer);
+    }
+
+    /**
+     * Restituisce il canale del journal, aprendolo se necessario.
+     *
+     * @return Il canale del journal.
+     *
+     * @throws IOException Se si verifica un errore durante l'apertura.
+     */
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+
+    /**
+     * Codifica una riga come voce del journal, anteponendo il suo checksum.
+     *
+     * @param line La riga da codificare.
+     * @return La voce del journal, terminata da un carattere di nuova riga.
+     */
+    static String encode(String line) {
+        return String.format("%08x", checksum(line)) + Constants.CSV_SEPARATOR + line + "\n";
+    }
+
+    /**
+     * Decodifica una voce del journal verificandone il checksum.
+     *
+     * @param entry La voce del journal, senza il carattere di nuova riga.
+     * @return La riga CSV contenuta nella voce, o {@code null} se la voce non
+     *         &egrave; valida.
+     */
+    static String decode(String entry) {
+        int separator = entry.indexOf(Constants.CSV_SEPARATOR);
+        if (separator != 8)
+            return null;
+
+        String line = entry.substring(separator + 1);
+        try {
+            return Long.parseLong(entry.substring(0, separator), 16) == checksum(line) ? line : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calcola il checksum CRC32 di una riga.
+     *
+     * @param line La riga.
+     * @return Il checksum della riga.
+     */
+    private static long checksum(String line) {
+        CRC32 crc = new CRC32();
+        crc.update(line.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+}
@@ -0,0 +1,215 @@
+package models.logic;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import models.data.DataHandler;
+import models.metrics.Counter;
+import models.metrics.Metrics;
+import models.metrics.Timer;
+import models.record.RecordOperator;
+
+/**
+ * La classe {@code AuthService} verifica le credenziali degli operatori.
+ * <p>
+ * Gli operatori vengono cercati tramite l'indice sul nome utente, quindi la
+ * durata di un tentativo non dipende dal numero di operatori registrati. Per
+ * ogni tentativo l'hash della password viene calcolato una sola volta e
+ * confrontato con quello memorizzato in tempo costante, indipendentemente
+ * dal punto in cui i due hash differiscono; anche i tentativi con un nome
+ * utente inesistente eseguono lo stesso confronto.
+ * </p>
+ * <p>
+ * Le credenziali verificate con successo pi&ugrave; di recente vengono
+ * conservate in memoria insieme all'hash della password: un nuovo tentativo
+ * con le stesse credenziali viene verificato senza consultare i dati, finch&eacute;
+ * nessun operatore viene inserito o aggiornato.
+ * </p>
+ *
+ * @see models.data.DataHandler
+ * @see models.logic.LogicOperator
+ * @see models.record.RecordOperator
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class AuthService {
+
+    /**
+     * Il numero massimo di credenziali verificate conservate.
+     */
+    private static final int CACHE_SIZE = 64;
+
+    /**
+     * L'hash confrontato nei tentativi con un nome utente inesistente.
+     */
+    private static final byte[] MISSING_DIGEST = new byte[32];
+
+    /**
+     * L'istanza dell'algoritmo {@code SHA-256} di ogni thread.
+     */
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Algoritmo SHA-256 non disponibile", e);
+        }
+    });
+
+    /**
+     * Timer del calcolo dell'hash delle password.
+     */
+    private static final Timer hashTimer = Metrics.timer("operator.hashPassword");
+
+    /**
+     * Numero di tentativi verificati tramite le credenziali conservate.
+     */
+    private static final Counter cacheHits = Metrics.counter("operator.credentialCacheHits");
+
+    /**
+     * Credenziali verificate di un operatore.
+     *
+     * @param version  Il numero di scritture degli operatori al momento della
+     *                 verifica.
+     * @param operator Il record dell'operatore.
+     * @param digest   L'hash della password verificata.
+     */
+    private record Credential(long version, RecordOperator operator, byte[] digest) {
+    }
+
+    /**
+     * Gestore dei dati dell'applicazione.
+     */
+    private final DataHandler dataHandler;
+
+    /**
+     * Le credenziali verificate, per nome utente, dalla meno alla pi&ugrave;
+     * recentemente usata.
+     */
+    private final Map<String, Credential> verified = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Credential> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Costruttore della classe {@code AuthService}.
+     *
+     * @param dataHandler Il gestore dei dati utilizzato per la ricerca degli
+     *                    operatori.
+     */
+    public AuthService(DataHandler dataHandler) {
+        this.dataHandler = dataHandler;
+    }
+
+    /**
+     * Verifica le credenziali di un operatore.
+     *
+     * @param username Il nome utente dell'operatore.
+     * @param password La password dell'operatore.
+     * @return Il record dell'operatore, o {@code null} se le credenziali non
+     *         sono corrette.
+     */
+    public RecordOperator authenticate(String username, String password) {
+        byte[] digest = digest(username, password);
+        long version = dataHandler.getOperatorVersion();
+
+        Credential credential;
+        synchronized (verified) {
+            credential = verified.get(username);
+        }
+        if (credential != null && credential.version() == version
+                && MessageDigest.isEqual(credential.digest(), digest)) {
+            cacheHits.increment();
+            return credential.operator();
+        }
+
+        RecordOperator[] operators = dataHandler.getOperatorsByUsername(username);
+        RecordOperator match = null;
+        int matches = 0;
+
+        if (operators.length == 0)
+            MessageDigest.isEqual(MISSING_DIGEST, digest);
+
+        for (RecordOperator operator : operators) {
+            if (MessageDigest.isEqual(parseDigest(operator.password()), digest)) {
+                match = operator;
+                matches++;
+            }
+        }
+
+        if (matches != 1)
+            return null;
+
+        synchronized (verified) {
+            verified.put(username, new Credential(version, match, digest));
+        }
+        return match;
+    }
+
+    /**
+     * Verifica se un nome utente &egrave; gi&agrave; utilizzato da un
+     * operatore.
+     *
+     * @param username Il nome utente da verificare.
+     * @return {@code true} se esiste un operatore con il nome utente
+     *         specificato, {@code false} altrimenti.
+     */
+    public boolean isUsernameTaken(String username) {
+        return dataHandler.getOperatorsByUsername(username).length > 0;
+    }
+
+    /**
+     * Cifra la password di un operatore usando l'algoritmo {@code SHA-256} e
+     * un approccio di concatenazione tra username e password.
+     *
+     * @param username L'username dell'utente.
+     * @param password La password dell'utente.
+     * @return La password cifrata, in esadecimale.
+     */
+    public static String hashPassword(String username, String password) {
+        return HexFormat.of().formatHex(digest(username, password));
+    }
+
+    /**
+     * Calcola l'hash {@code SHA-256} della concatenazione tra username e
+     * password.
+     *
+     * @param username L'username dell'utente.
+     * @param password La password dell'utente.
+     * @return L'hash della password.
+     */
+    private static byte[] digest(String username, String password) {
+        long start = System.nanoTime();
+        try {
+            return DIGEST.get().digest((username + password).getBytes(StandardCharsets.UTF_8));
+        } finally {
+            hashTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Converte una password cifrata memorizzata nel relativo hash.
+     *
+     * @param password La password cifrata, in esadecimale.
+     * @return L'hash della password, o un array vuoto se la password &egrave;
+     *         assente o non &egrave; in esadecimale.
+     */
+    private static byte[] parseDigest(String password) {
+        if (password == null)
+            return new byte[0];
+
+        try {
+            return HexFormat.of().parseHex(password);
+        } catch (IllegalArgumentException e) {
+            return new byte[0];
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package models.logic;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import models.data.DataHandler;
+import models.data.WeatherAggregate;
+import models.data.WeatherRollup;
 import models.record.RecordWeather;
-import models.record.RecordWeather.WeatherData;
 
 /**
  * La classe {@code LogicCity} gestisce la logica relativa alle citt&agrave;.
@@ -16,8 +17,9 @@ import models.record.RecordWeather.WeatherData;
  * </p>
  * 
  * @see models.data.DataHandler
+ * @see models.data.WeatherAggregate
+ * @see models.data.WeatherRollup
  * @see models.record.RecordWeather
- * @see models.record.RecordWeather.WeatherData
  * 
  * @author Andrea Tettamanti
  * @author Luca Mascetti
@@ -26,6 +28,11 @@ import models.record.RecordWeather.WeatherData;
  */
 public class LogicCity {
 
+    /**
+     * Gestore dei dati dell'applicazione.
+     */
+    private DataHandler dataHandler;
+
     /**
      * Costruttore della classe {@code LogicCity}.
      * 
@@ -33,13 +40,110 @@ public class LogicCity {
      *                    citt&agrave;.
      */
     public LogicCity(DataHandler dataHandler) {
+        this.dataHandler = dataHandler;
+    }
+
+    /**
+     * Calcola l'andamento dei dati meteorologici di una citt&agrave; in una
+     * finestra temporale che termina oggi.
+     * <p>
+     * I valori vengono letti dai dati aggregati per periodo, senza scorrere i
+     * record della citt&agrave;. Ogni riga contiene l'etichetta del periodo, il
+     * numero di campionamenti e, per ogni categoria, la media dei punteggi con
+     * il minimo e il massimo, oppure {@code "N/A"} se non sono presenti
+     * punteggi.
+     * </p>
+     * 
+     * @param cityID L'ID della citt&agrave;.
+     * @param window La finestra temporale.
+     * @return Le righe della tabella dell'andamento, in ordine cronologico.
+     */
+    public Object[][] getWeatherTrend(Integer cityID, TrendWindow window) {
+        LocalDate today = LocalDate.now();
+        List<WeatherRollup.Bucket> buckets = dataHandler.getWeatherRollup(cityID, window.granularity,
+                window.startFrom(today), today);
+
+        Object[][] rows = new Object[buckets.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            WeatherRollup.Bucket bucket = buckets.get(i);
+            Object[] row = new Object[2 + WeatherTableData.keys.length];
+            row[0] = bucket.getStart().format(window.labelFormatter);
+            row[1] = bucket.getRecordCount();
+            for (int category = 0; category < WeatherTableData.keys.length; category++) {
+                Double average = bucket.getAverageScore(category);
+                row[2 + category] = average == null
+                        ? "N/A"
+                        : String.format("%.1f (%d-%d)", average, bucket.getMinScore(category),
+                                bucket.getMaxScore(category));
+            }
+            rows[i] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * Le finestre temporali per cui &egrave; possibile visualizzare l'andamento
+     * dei dati meteorologici di una citt&agrave;.
+     */
+    public enum TrendWindow {
+        /**
+         * Gli ultimi 30 giorni, per giorno.
+         */
+        LAST_30_DAYS("Ultimi 30 giorni", WeatherRollup.Granularity.DAY, "dd/MM/yyyy"),
+        /**
+         * Gli ultimi 12 mesi, per mese.
+         */
+        LAST_12_MONTHS("Ultimi 12 mesi", WeatherRollup.Granularity.MONTH, "MM/yyyy"),
+        /**
+         * Gli ultimi 10 anni, per anno.
+         */
+        LAST_10_YEARS("Ultimi 10 anni", WeatherRollup.Granularity.YEAR, "yyyy");
+
+        /**
+         * Il nome della finestra da mostrare all'utente.
+         */
+        public final String label;
+
+        /**
+         * La durata dei periodi della finestra.
+         */
+        private final WeatherRollup.Granularity granularity;
+
+        /**
+         * Il formato delle etichette dei periodi.
+         */
+        private final DateTimeFormatter labelFormatter;
+
+        TrendWindow(String label, WeatherRollup.Granularity granularity, String labelPattern) {
+            this.label = label;
+            this.granularity = granularity;
+            this.labelFormatter = DateTimeFormatter.ofPattern(labelPattern);
+        }
+
+        /**
+         * Restituisce il primo giorno della finestra.
+         * 
+         * @param today Il giorno in cui termina la finestra.
+         * @return Il primo giorno della finestra.
+         */
+        private LocalDate startFrom(LocalDate today) {
+            switch (granularity) {
+                case DAY:
+                    return today.minusDays(29);
+                case MONTH:
+                    return today.minusMonths(11).withDayOfMonth(1);
+                default:
+                    return today.minusYears(9).withDayOfYear(1);
+            }
+        }
     }
 
     /**
      * La classe {@code WeatherTableData} elabora i dati meteorologici delle citt&agrave;.
      * <p>
      * Fornisce metodi per calcolare la media dei punteggi, il conteggio dei record
-     * e i commenti per diverse categorie meteorologiche.
+     * e i commenti per diverse categorie meteorologiche, a partire dai dati
+     * aggregati di una citt&agrave;.
      * </p>
      */
     public static class WeatherTableData {
@@ -57,19 +161,9 @@ public class LogicCity {
                 "glacierMass", };
 
         /**
-         * Mappa per archiviare il punteggio per ciascuna categoria di dati.
-         */
-        private Map<String, Float> categoryScore = new HashMap<>();
-
-        /**
-         * Mappa per archiviare il conteggio dei record per ciascuna categoria di dati.
-         */
-        private Map<String, Integer> categoryRecordCounts = new HashMap<>();
-
-        /**
-         * Mappa per archiviare i commenti relativi a ciascuna categoria di dati.
+         * I dati aggregati da cui vengono calcolati i valori della tabella.
          */
-        private Map<String, List<String>> categoryComments = new HashMap<>();
+        private final WeatherAggregate aggregate;
 
         /**
          * Costruttore della classe {@code WeatherTableData}.
@@ -80,42 +174,25 @@ public class LogicCity {
          * @param weatherRecords Un array di record meteorologici.
          */
         public WeatherTableData(RecordWeather[] weatherRecords) {
+            aggregate = new WeatherAggregate();
             for (RecordWeather record : weatherRecords) {
-                processCategory(record.wind(), keys[0]);
-                processCategory(record.humidity(), keys[1]);
-                processCategory(record.pressure(), keys[2]);
-                processCategory(record.temperature(), keys[3]);
-                processCategory(record.precipitation(), keys[4]);
-                processCategory(record.glacierElevation(), keys[5]);
-                processCategory(record.glacierMass(), keys[6]);
+                aggregate.add(record);
             }
         }
 
         /**
-         * Processa i dati meteorologici per una categoria specifica.
+         * Costruttore della classe {@code WeatherTableData}.
          * <p>
-         * Aggiorna i punteggi, i conteggi dei record e i commenti per la categoria
-         * data.
+         * Utilizza i dati aggregati gi&agrave; mantenuti per una citt&agrave;,
+         * senza elaborare i singoli record.
          * </p>
          * 
-         * @param data     I dati meteorologici da processare.
-         * @param category La categoria meteorologica a cui appartengono i dati.
+         * @param aggregate I dati meteorologici aggregati.
+         * 
+         * @see models.data.DataQuery#getWeatherAggregate(Integer)
          */
-        private void processCategory(WeatherData data, String category) {
-            if (data.score() != null) {
-
-                categoryScore.put(category, categoryScore.getOrDefault(category, 0f) + data.score());
-                categoryRecordCounts.put(category, categoryRecordCounts.getOrDefault(category, 0) + 1);
-
-            }
-
-            if (data.comment() != null) {
-
-                List<String> comments = categoryComments.getOrDefault(category, new ArrayList<>());
-                comments.add(data.comment());
-                categoryComments.put(category, comments);
-
-            }
+        public WeatherTableData(WeatherAggregate aggregate) {
+            this.aggregate = aggregate;
         }
 
         /**
@@ -129,7 +206,7 @@ public class LogicCity {
             if (getCategoryRecordCount(category) == 0) {
                 return null;
             }
-            return Math.round(categoryScore.getOrDefault(category, 0.0f) / getCategoryRecordCount(category));
+            return Math.round((float) aggregate.getScoreSum(indexOf(category)) / getCategoryRecordCount(category));
         }
 
         /**
@@ -139,7 +216,8 @@ public class LogicCity {
          * @return Il conteggio dei record per la categoria.
          */
         public int getCategoryRecordCount(String category) {
-            return categoryRecordCounts.getOrDefault(category, 0);
+            int index = indexOf(category);
+            return index < 0 ? 0 : aggregate.getScoreCount(index);
         }
 
         /**
@@ -150,7 +228,22 @@ public class LogicCity {
          *         sono commenti.
          */
         public List<String> getCategoryComments(String category) {
-            return categoryComments.getOrDefault(category, new ArrayList<>());
+            int index = indexOf(category);
+            return index < 0 ? new ArrayList<>() : aggregate.getComments(index);
+        }
+
+        /**
+         * Restituisce la posizione di una categoria meteorologica in {@link #keys}.
+         * 
+         * @param category La categoria meteorologica.
+         * @return La posizione della categoria, o -1 se non esiste.
+         */
+        private static int indexOf(String category) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(category))
+                    return i;
+            }
+            return -1;
         }
     }
 
@@ -1,15 +1,12 @@
 package models.logic;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
-import java.util.List;
 
 import models.CurrentOperator;
 import models.data.DataHandler;
-import models.data.DataQuery.QueryCondition;
+import models.metrics.Counter;
+import models.metrics.Metrics;
+import models.metrics.Timer;
 import models.record.RecordOperator;
 
 /**
@@ -22,7 +19,8 @@ import models.record.RecordOperator;
  * 
  * @see models.CurrentOperator
  * @see models.data.DataHandler
- * @see models.data.DataQuery.QueryCondition
+ * @see models.logic.AuthService
+ * @see models.metrics.Metrics
  * @see models.record.RecordOperator
  * 
  * @author Andrea Tettamanti
@@ -32,11 +30,26 @@ import models.record.RecordOperator;
  */
 public class LogicOperator {
 
+    /**
+     * Timer dei tentativi di login.
+     */
+    private static final Timer loginTimer = Metrics.timer("operator.login");
+
+    /**
+     * Numero di tentativi di login non riusciti.
+     */
+    private static final Counter loginFailures = Metrics.counter("operator.loginFailures");
+
     /**
      * Gestore dei dati dell'applicazione.
      */
     private DataHandler dataHandler;
 
+    /**
+     * Servizio di verifica delle credenziali degli operatori.
+     */
+    private AuthService authService;
+
     /**
      * Costruttore della classe {@code LogicOperator}.
      * 
@@ -45,11 +58,16 @@ public class LogicOperator {
      */
     public LogicOperator(DataHandler dataHandler) {
         this.dataHandler = dataHandler;
+        this.authService = new AuthService(dataHandler);
     }
 
     /**
      * Effettua il login di un operatore utilizzando il nome utente e la password
      * forniti.
+     * <p>
+     * Le credenziali vengono verificate da {@link AuthService}, tramite
+     * l'indice sul nome utente e con un confronto in tempo costante degli hash.
+     * </p>
      * 
      * @param username Il nome utente dell'operatore.
      * @param password La password dell'operatore.
@@ -62,22 +80,24 @@ public class LogicOperator {
             throw new IllegalArgumentException("Username e password non possono essere vuoti.");
         }
 
+        long start = System.nanoTime();
         CurrentOperator currentOperator = CurrentOperator.getInstance();
 
         if (currentOperator.isUserLogged()) {
             currentOperator.performLogout();
         }
 
-        List<QueryCondition> conditions = new ArrayList<>();
-        conditions.add(new QueryCondition("username", username));
-        conditions.add(new QueryCondition("password", hashPassword(username, password)));
-
-        RecordOperator[] result = dataHandler.getOperatorBy(conditions);
-        if (result.length == 1) {
-            currentOperator.setCurrentOperator(result[0]);
-        } else {
-            currentOperator.performLogout();
-            throw new IllegalArgumentException("Username o password non sono corretti.");
+        try {
+            RecordOperator operator = authService.authenticate(username, password);
+            if (operator != null) {
+                currentOperator.setCurrentOperator(operator);
+            } else {
+                loginFailures.increment();
+                currentOperator.performLogout();
+                throw new IllegalArgumentException("Username o password non sono corretti.");
+            }
+        } finally {
+            loginTimer.record(System.nanoTime() - start);
         }
     }
 
@@ -217,15 +237,7 @@ public class LogicOperator {
      * @return {@code true} se il formato &egrave; valido, {@code false} altrimenti.
      */
     public boolean isValidUsername(String username) {
-        QueryCondition condition = new QueryCondition("username", username);
-        RecordOperator[] result = dataHandler.getOperatorBy(condition);
-        boolean correct = true;
-        for (RecordOperator recordOperator : result) {
-            if (recordOperator.username().equals(username))
-                correct = false;
-
-        }
-        return (username.matches("^[a-zA-Z0-9._-]{3,}$") && correct);
+        return username.matches("^[a-zA-Z0-9._-]{3,}$") && !authService.isUsernameTaken(username);
     }
 
     /**
@@ -248,22 +260,7 @@ public class LogicOperator {
      * @return La password cifrata.
      */
     public String hashPassword(String username, String password) {
-        try {
-            String combinedString = username + password;
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hashedBytes = md.digest(combinedString.getBytes(StandardCharsets.UTF_8));
-
-            StringBuilder sb = new StringBuilder();
-            for (byte hashedByte : hashedBytes) {
-                sb.append(String.format("%02x", hashedByte));
-            }
-            
-            return sb.toString();
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
-            return null;
-        }
-
+        return AuthService.hashPassword(username, password);
     }
 
 }
@@ -0,0 +1,326 @@
+package models.logic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import models.data.DataHandler;
+import models.file.FileHandler;
+import models.record.RecordWeather;
+import models.record.RecordWeather.WeatherData;
+import utils.Constants;
+import utils.Functions;
+
+/**
+ * La classe {@code LogicWeatherImport} gestisce l'inserimento in blocco dei
+ * dati meteorologici.
+ * <p>
+ * Ogni blocco di righe viene validato riga per riga: le righe non valide
+ * vengono segnalate con il relativo errore senza interrompere l'inserimento
+ * delle altre, che vengono aggiunte al sistema con un'unica scrittura.
+ * </p>
+ * <p>
+ * Le righe hanno lo stesso formato del file dei dati meteorologici, senza la
+ * colonna dell'ID: ID della citt&agrave;, ID del centro, data e i sette dati
+ * meteorologici nel formato {@code punteggio|commento}.
+ * </p>
+ *
+ * @see models.data.DataHandler
+ * @see models.file.FileHandler
+ * @see models.record.RecordWeather
+ * @see utils.Constants
+ * @see utils.Functions
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class LogicWeatherImport {
+
+    /**
+     * Numero di campi di una riga da importare.
+     */
+    private static final int FIELD_COUNT = 3 + LogicCity.WeatherTableData.keys.length;
+
+    /**
+     * Punteggio minimo ammesso per un dato meteorologico.
+     */
+    private static final int MIN_SCORE = 1;
+
+    /**
+     * Punteggio massimo ammesso per un dato meteorologico.
+     */
+    private static final int MAX_SCORE = 5;
+
+    /**
+     * Lunghezza massima consentita per i commenti.
+     */
+    private static final int MAX_COMMENT_LENGTH = 256;
+
+    /**
+     * Gestore dei dati dell'applicazione.
+     */
+    private DataHandler dataHandler;
+
+    /**
+     * Costruttore della classe {@code LogicWeatherImport}.
+     *
+     * @param dataHandler Il gestore dei dati utilizzato per l'accesso ai dati
+     *                    dell'applicazione.
+     */
+    public LogicWeatherImport(DataHandler dataHandler) {
+        this.dataHandler = dataHandler;
+    }
+
+    /**
+     * Valida e aggiunge al sistema un blocco di record meteorologici.
+     * <p>
+     * Gli ID dei record ricevuti vengono ignorati e sostituiti da nuove chiavi
+     * primarie.
+     * </p>
+     *
+     * @param weathers I record meteorologici da aggiungere.
+     * @return Il risultato dell'inserimento, con i record aggiunti e gli errori
+     *         delle righe scartate (numerate a partire da 1).
+     *
+     * @throws IOException Se si verifica un errore durante la scrittura; in tal
+     *                     caso nessun record del blocco viene aggiunto.
+     */
+    public ImportResult addWeatherBatch(List<RecordWeather> weathers) throws IOException {
+        ImportResult result = new ImportResult();
+        List<RecordWeather> validWeathers = new ArrayList<>(weathers.size());
+
+        for (int i = 0; i < weathers.size(); i++) {
+            try {
+                validateWeather(weathers.get(i));
+                validWeathers.add(weathers.get(i));
+            } catch (IllegalArgumentException e) {
+                result.errors.add(new RowError(i + 1, e.getMessage()));
+            }
+        }
+
+        result.imported.addAll(dataHandler.addNewRecords(validWeathers));
+        return result;
+    }
+
+    /**
+     * Importa i dati meteorologici da un file CSV.
+     * <p>
+     * Il file viene letto in streaming e le righe vengono inserite a blocchi di
+     * {@link Constants.Storage#IMPORT_BATCH_SIZE} righe, ognuno scritto con
+     * un'unica operazione. La prima riga del file viene considerata
+     * un'intestazione e ignorata. Il journal dei dati meteorologici viene
+     * compattato, se necessario, una sola volta al termine dell'importazione.
+     * </p>
+     *
+     * @param filePath Il percorso del file da importare.
+     * @return Il risultato dell'importazione, con i record aggiunti e gli errori
+     *         delle righe scartate (numerate a partire dalla prima riga di dati).
+     *
+     * @throws IOException Se si verifica un errore durante la lettura del file o
+     *                     la scrittura o la compattazione dei dati; i
+     *                     blocchi gi&agrave; scritti restano nel sistema.
+     */
+    public ImportResult importFile(String filePath) throws IOException {
+        ImportResult result = new ImportResult();
+        List<String[]> rows = new ArrayList<>(Constants.Storage.IMPORT_BATCH_SIZE);
+        int[] firstRow = { 1 };
+
+        try {
+            FileHandler.readRecords(filePath, fields -> fields, fields -> {
+                rows.add(fields);
+                if (rows.size() == Constants.Storage.IMPORT_BATCH_SIZE) {
+                    importRows(rows, firstRow[0], result);
+                    firstRow[0] += rows.size();
+                    rows.clear();
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        importRows(rows, firstRow[0], result);
+        dataHandler.compactWeathersIfNeeded();
+        result.errors.sort(Comparator.comparingInt(RowError::row));
+        return result;
+    }
+
+    /**
+     * Converte e inserisce un blocco di righe lette da un file, aggiungendo il
+     * risultato a quello complessivo.
+     *
+     * @param rows     Le righe del blocco, suddivise in campi.
+     * @param firstRow Il numero della prima riga del blocco.
+     * @param result   Il risultato complessivo dell'importazione.
+     *
+     * @throws UncheckedIOException Se si verifica un errore durante la scrittura.
+     */
+    private void importRows(List<String[]> rows, int firstRow, ImportResult result) {
+        List<RecordWeather> weathers = new ArrayList<>(rows.size());
+        List<Integer> rowNumbers = new ArrayList<>(rows.size());
+
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                weathers.add(parseRow(rows.get(i)));
+                rowNumbers.add(firstRow + i);
+            } catch (IllegalArgumentException e) {
+                result.errors.add(new RowError(firstRow + i, e.getMessage()));
+            }
+        }
+
+        try {
+            ImportResult batchResult = addWeatherBatch(weathers);
+            result.imported.addAll(batchResult.imported);
+            for (RowError error : batchResult.errors) {
+                result.errors.add(new RowError(rowNumbers.get(error.row() - 1), error.message()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Converte una riga da importare in un record meteorologico privo di ID.
+     *
+     * @param fields I campi della riga.
+     * @return Il record meteorologico corrispondente.
+     *
+     * @throws IllegalArgumentException Se la riga non &egrave; nel formato
+     *                                  previsto.
+     */
+    private static RecordWeather parseRow(String[] fields) {
+        if (fields.length != FIELD_COUNT)
+            throw new IllegalArgumentException("Numero di campi non valido: " + fields.length);
+
+        WeatherData[] weatherDatas = new WeatherData[FIELD_COUNT - 3];
+        for (int i = 3; i < FIELD_COUNT; i++) {
+            String[] data = FileHandler.splitFields(fields[i], Constants.CSV_SUB_SEPARATOR.charAt(0));
+            if (data.length == 0 || data.length > 2)
+                throw new IllegalArgumentException("Dato meteorologico non valido: " + fields[i]);
+
+            String comment = data.length == 2 && !data[1].isBlank() ? data[1].trim() : Constants.EMPTY_STRING;
+            weatherDatas[i - 3] = new WeatherData(
+                    data[0].isBlank() || data[0].equals(Constants.EMPTY_STRING) ? null : parseInteger(data[0]),
+                    comment);
+        }
+
+        return new RecordWeather(
+                null,
+                parseInteger(fields[0]),
+                parseInteger(fields[1]),
+                fields[2].trim(),
+                weatherDatas[0],
+                weatherDatas[1],
+                weatherDatas[2],
+                weatherDatas[3],
+                weatherDatas[4],
+                weatherDatas[5],
+                weatherDatas[6]);
+    }
+
+    /**
+     * Converte un campo in un intero.
+     *
+     * @param field Il campo da convertire.
+     * @return L'intero corrispondente.
+     *
+     * @throws IllegalArgumentException Se il campo non &egrave; un intero.
+     */
+    private static Integer parseInteger(String field) {
+        try {
+            return Integer.parseInt(field.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Numero non valido: " + field);
+        }
+    }
+
+    /**
+     * Verifica che un record meteorologico possa essere aggiunto al sistema.
+     *
+     * @param weather Il record da verificare.
+     *
+     * @throws IllegalArgumentException Se uno dei dati del record non &egrave;
+     *                                  valido.
+     */
+    private void validateWeather(RecordWeather weather) {
+        if (weather.cityID() == null || dataHandler.getCityBy(weather.cityID()) == null)
+            throw new IllegalArgumentException("Città non valida: " + weather.cityID());
+        if (weather.centerID() == null || dataHandler.getCenterBy(weather.centerID()) == null)
+            throw new IllegalArgumentException("Centro non valido: " + weather.centerID());
+        if (weather.date() == null || !Functions.isDateValid(weather.date()))
+            throw new IllegalArgumentException("Data non valida: " + weather.date());
+
+        WeatherData[] weatherDatas = {
+                weather.wind(),
+                weather.humidity(),
+                weather.pressure(),
+                weather.temperature(),
+                weather.precipitation(),
+                weather.glacierElevation(),
+                weather.glacierMass() };
+
+        boolean allScoresNull = true;
+        for (WeatherData weatherData : weatherDatas) {
+            if (weatherData == null)
+                throw new IllegalArgumentException("Dati non validi");
+
+            Integer score = weatherData.score();
+            if (score != null) {
+                if (score < MIN_SCORE || score > MAX_SCORE)
+                    throw new IllegalArgumentException("Punteggio non valido: " + score);
+                allScoresNull = false;
+            }
+
+            String comment = weatherData.comment();
+            if (comment == null)
+                throw new IllegalArgumentException("Commento non valido");
+            if (comment.length() > MAX_COMMENT_LENGTH)
+                throw new IllegalArgumentException(
+                        "Il commento supera il limite di " + MAX_COMMENT_LENGTH + " caratteri.");
+            if (comment.contains(Constants.CSV_SEPARATOR) || comment.contains(Constants.CSV_SUB_SEPARATOR)
+                    || comment.contains("\n") || comment.contains("\r"))
+                throw new IllegalArgumentException("Il commento contiene caratteri non ammessi.");
+        }
+
+        if (allScoresNull)
+            throw new IllegalArgumentException("Dati non validi");
+    }
+
+    /**
+     * La classe {@code RowError} rappresenta l'errore di una riga scartata
+     * durante l'inserimento in blocco.
+     *
+     * @param row     Il numero della riga scartata.
+     * @param message La descrizione dell'errore.
+     */
+    public record RowError(
+            int row,
+            String message) {
+
+        @Override
+        public String toString() {
+            return "Riga " + row + ": " + message;
+        }
+    }
+
+    /**
+     * La classe {@code ImportResult} raccoglie il risultato di un inserimento in
+     * blocco: i record aggiunti e gli errori delle righe scartate.
+     */
+    public static class ImportResult {
+
+        /**
+         * I record meteorologici aggiunti, con le chiavi primarie assegnate.
+         */
+        public final List<RecordWeather> imported = new ArrayList<>();
+
+        /**
+         * Gli errori delle righe scartate.
+         */
+        public final List<RowError> errors = new ArrayList<>();
+    }
+
+}
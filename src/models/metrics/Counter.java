@@ -0,0 +1,62 @@
+package models.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import utils.Constants;
+
+/**
+ * La classe {@code Counter} conta le occorrenze di un evento.
+ * <p>
+ * Pu&ograve; essere incrementata da pi&ugrave; thread contemporaneamente senza
+ * che questi si contendano un'unica variabile.
+ * </p>
+ *
+ * @see models.metrics.Metrics
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class Counter {
+
+    /**
+     * Il numero di occorrenze contate.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Costruttore della classe {@code Counter}. I contatori vengono creati dal
+     * registro delle metriche.
+     *
+     * @see models.metrics.Metrics#counter(String)
+     */
+    Counter() {
+    }
+
+    /**
+     * Conta un'occorrenza dell'evento.
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Conta pi&ugrave; occorrenze dell'evento.
+     *
+     * @param occurrences Il numero di occorrenze.
+     */
+    public void add(long occurrences) {
+        if (Constants.Metrics.ENABLED)
+            count.add(occurrences);
+    }
+
+    /**
+     * Restituisce il numero di occorrenze contate.
+     *
+     * @return Il numero di occorrenze.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,259 @@
+package models.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import utils.Constants;
+
+/**
+ * La classe {@code Metrics} &egrave; il registro delle metriche
+ * dell'applicazione.
+ * <p>
+ * Le metriche sono identificate da un nome gerarchico (es.
+ * {@code query.weatherBy}) e sono di tre tipi: i contatori contano gli eventi,
+ * i timer misurano la distribuzione delle durate delle operazioni e gli
+ * indicatori leggono un valore corrente, come il numero di record caricati.
+ * Contatori e timer vengono creati alla prima richiesta e conservati per
+ * tutta la durata dell'applicazione; conviene quindi ottenerli una sola volta
+ * e memorizzarli in un campo statico.
+ * </p>
+ * <p>
+ * Le metriche possono essere consultate nel pannello di diagnostica, scritte su
+ * file oppure, se abilitato in {@link Constants.Metrics#JMX}, lette tramite JMX
+ * come attributo dell'MBean {@code models.metrics:type=Metrics}. Se indicato in
+ * {@link Constants.Metrics#DUMP_FILE}, alla chiusura dell'applicazione le
+ * metriche vengono scritte nel file.
+ * </p>
+ *
+ * @see models.metrics.Counter
+ * @see models.metrics.Timer
+ * @see GUI.panels.Diagnostics
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class Metrics {
+
+    /**
+     * L'interfaccia {@code MetricsMXBean} espone le metriche tramite JMX.
+     */
+    public interface MetricsMXBean {
+
+        /**
+         * Restituisce il valore corrente di ogni metrica: il conteggio dei
+         * contatori, il valore degli indicatori e, per i timer, il numero di
+         * durate registrate, la media e i percentili in millisecondi.
+         *
+         * @return I valori delle metriche, ordinati per nome.
+         */
+        Map<String, Double> getValues();
+
+        /**
+         * Scrive le metriche su file.
+         *
+         * @param filePath Il percorso del file.
+         * @throws IOException Se si verifica un errore durante la scrittura.
+         */
+        void dump(String filePath) throws IOException;
+    }
+
+    /**
+     * I contatori registrati, per nome.
+     */
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * I timer registrati, per nome.
+     */
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Gli indicatori registrati, per nome.
+     */
+    private static final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    static {
+        gauge("jvm.heap.used", () -> Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        gauge("jvm.heap.max", () -> Runtime.getRuntime().maxMemory());
+
+        if (Constants.Metrics.JMX) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMXBean() {
+                    @Override
+                    public Map<String, Double> getValues() {
+                        return Metrics.getValues();
+                    }
+
+                    @Override
+                    public void dump(String filePath) throws IOException {
+                        Metrics.dump(filePath);
+                    }
+                }, new ObjectName("models.metrics:type=Metrics"));
+            } catch (JMException e) {
+                System.out.println("Errore nella registrazione delle metriche su JMX: " + e.getMessage());
+            }
+        }
+
+        if (Constants.Metrics.DUMP_FILE != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    dump(Constants.Metrics.DUMP_FILE);
+                } catch (IOException e) {
+                    System.out.println("Errore nel salvataggio delle metriche: " + e.getMessage());
+                }
+            }));
+        }
+    }
+
+    /**
+     * Questa classe &egrave; progettata per essere usata solo tramite i suoi
+     * metodi statici.
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Restituisce il contatore con il nome specificato, creandolo se non
+     * esiste.
+     *
+     * @param name Il nome del contatore.
+     * @return Il contatore.
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * Restituisce il timer con il nome specificato, creandolo se non esiste.
+     *
+     * @param name Il nome del timer.
+     * @return Il timer.
+     */
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, key -> new Timer());
+    }
+
+    /**
+     * Registra un indicatore, sostituendo quello con lo stesso nome
+     * eventualmente presente.
+     *
+     * @param name  Il nome dell'indicatore.
+     * @param value La funzione che legge il valore corrente dell'indicatore;
+     *              viene invocata a ogni consultazione delle metriche, anche
+     *              da thread diversi.
+     */
+    public static void gauge(String name, Supplier<? extends Number> value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Restituisce i contatori registrati.
+     *
+     * @return I contatori, ordinati per nome.
+     */
+    public static SortedMap<String, Counter> getCounters() {
+        return new TreeMap<>(counters);
+    }
+
+    /**
+     * Restituisce i timer registrati.
+     *
+     * @return I timer, ordinati per nome.
+     */
+    public static SortedMap<String, Timer> getTimers() {
+        return new TreeMap<>(timers);
+    }
+
+    /**
+     * Restituisce il valore corrente degli indicatori registrati.
+     *
+     * @return I valori degli indicatori, ordinati per nome; il valore &egrave;
+     *         {@code null} se non &egrave; stato possibile leggerlo.
+     */
+    public static SortedMap<String, Number> getGauges() {
+        SortedMap<String, Number> values = new TreeMap<>();
+        gauges.forEach((name, value) -> {
+            try {
+                values.put(name, value.get());
+            } catch (RuntimeException e) {
+                values.put(name, null);
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Restituisce il valore corrente di ogni metrica.
+     *
+     * @return I valori delle metriche, ordinati per nome.
+     *
+     * @see MetricsMXBean#getValues()
+     */
+    public static Map<String, Double> getValues() {
+        Map<String, Double> values = new TreeMap<>();
+
+        getCounters().forEach((name, counter) -> values.put(name, (double) counter.getCount()));
+        getGauges().forEach((name, value) -> values.put(name, value == null ? Double.NaN : value.doubleValue()));
+        getTimers().forEach((name, timer) -> {
+            values.put(name + ".count", (double) timer.getCount());
+            values.put(name + ".meanMs", timer.getMean() / 1e6);
+            values.put(name + ".p50Ms", timer.getPercentile(50) / 1e6);
+            values.put(name + ".p99Ms", timer.getPercentile(99) / 1e6);
+            values.put(name + ".maxMs", timer.getMax() / 1e6);
+        });
+        return values;
+    }
+
+    /**
+     * Restituisce una rappresentazione testuale delle metriche, una per riga.
+     *
+     * @return Le righe del rapporto, precedute da un'intestazione con la data.
+     */
+    public static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add("# Metriche al " + LocalDateTime.now().withNano(0));
+
+        getCounters().forEach((name, counter) -> lines.add(String.format(Locale.ROOT,
+                "counter %-40s %d", name, counter.getCount())));
+
+        getGauges().forEach((name, value) -> lines.add(String.format(Locale.ROOT,
+                "gauge   %-40s %s", name, value)));
+
+        getTimers().forEach((name, timer) -> lines.add(String.format(Locale.ROOT,
+                "timer   %-40s count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms p999=%.3fms max=%.3fms",
+                name, timer.getCount(), timer.getMean() / 1e6,
+                timer.getPercentile(50) / 1e6,
+                timer.getPercentile(90) / 1e6,
+                timer.getPercentile(99) / 1e6,
+                timer.getPercentile(99.9) / 1e6,
+                timer.getMax() / 1e6)));
+
+        return lines;
+    }
+
+    /**
+     * Scrive le metriche su file, sostituendone il contenuto.
+     *
+     * @param filePath Il percorso del file.
+     * @throws IOException Se si verifica un errore durante la scrittura.
+     */
+    public static void dump(String filePath) throws IOException {
+        Files.write(Paths.get(filePath), report());
+    }
+}
@@ -0,0 +1,193 @@
+package models.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import utils.Constants;
+
+/**
+ * La classe {@code Timer} misura la durata di un'operazione e ne calcola la
+ * distribuzione.
+ * <p>
+ * Le durate vengono registrate in un istogramma log-lineare, come in un
+ * istogramma HDR: ogni potenza di due &egrave; suddivisa in 64 intervalli
+ * uguali, quindi i percentili vengono calcolati con un errore relativo
+ * inferiore all'1,6% su tutto l'intervallo di valori, senza conservare le
+ * singole durate. Registrare una durata costa un incremento atomico e non
+ * alloca memoria.
+ * </p>
+ *
+ * @see models.metrics.Metrics
+ *
+ * @author Andrea Tettamanti
+ * @author Luca Mascetti
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class Timer {
+
+    /**
+     * Il numero di bit della parte lineare dell'indice di un intervallo.
+     */
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /**
+     * Il numero di intervalli in cui &egrave; suddivisa ogni potenza di due.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Il numero di intervalli dell'istogramma, sufficiente per qualsiasi valore
+     * positivo di tipo {@code long}.
+     */
+    private static final int BUCKETS = 2 * SUB_BUCKETS + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    /**
+     * Il numero di durate registrate in ogni intervallo.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Il numero di durate registrate.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * La somma delle durate registrate, in nanosecondi.
+     */
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * La durata massima registrata, in nanosecondi.
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Costruttore della classe {@code Timer}. I timer vengono creati dal
+     * registro delle metriche.
+     *
+     * @see models.metrics.Metrics#timer(String)
+     */
+    Timer() {
+    }
+
+    /**
+     * Registra la durata di un'operazione.
+     *
+     * @param nanos La durata, in nanosecondi.
+     */
+    public void record(long nanos) {
+        if (!Constants.Metrics.ENABLED)
+            return;
+
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(indexOf(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Esegue un'operazione registrandone la durata.
+     *
+     * @param <T>    Il tipo del risultato.
+     * @param action L'operazione da eseguire.
+     * @return Il risultato dell'operazione.
+     */
+    public <T> T time(Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Restituisce il numero di durate registrate.
+     *
+     * @return Il numero di durate.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Restituisce la durata media registrata.
+     *
+     * @return La durata media, in nanosecondi, o 0 se non sono state registrate
+     *         durate.
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) total.sum() / count;
+    }
+
+    /**
+     * Restituisce la durata massima registrata.
+     *
+     * @return La durata massima, in nanosecondi.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Restituisce un percentile delle durate registrate.
+     *
+     * @param percentile Il percentile, tra 0 e 100.
+     * @return La durata del percentile, in nanosecondi, o 0 se non sono state
+     *         registrate durate.
+     */
+    public long getPercentile(double percentile) {
+        long count = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(highestValueOf(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Restituisce l'intervallo dell'istogramma di una durata.
+     *
+     * @param value La durata, non negativa.
+     * @return L'indice dell'intervallo.
+     */
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS)
+            return (int) value;
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Restituisce la durata pi&ugrave; alta che ricade in un intervallo
+     * dell'istogramma.
+     *
+     * @param index L'indice dell'intervallo.
+     * @return La durata pi&ugrave; alta dell'intervallo, in nanosecondi.
+     */
+    static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKETS)
+            return index;
+
+        int shift = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+        long mantissa = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return (mantissa << shift) + (1L << shift) - 1;
+    }
+}
@@ -229,6 +229,12 @@ public class Constants {
          * dati.
          */
         public static final class Files {
+            /**
+             * Cartella dei file di dati (propriet&agrave; di sistema
+             * {@code storage.dataDir}, predefinita {@code data}).
+             */
+            public static final String DIRECTORY = System.getProperty("storage.dataDir", "data");
+
             /**
              * Percorso del file dati meteorologici.
              */
@@ -249,6 +255,21 @@ public class Constants {
              */
             public static final String CENTER = getPath("Center.data.csv");
 
+            /**
+             * Percorso del file delle sequenze delle chiavi primarie.
+             */
+            public static final String SEQUENCE = getPath("Sequence.data.csv");
+
+            /**
+             * Percorso dell'istantanea binaria dei dati.
+             */
+            public static final String SNAPSHOT = getPath("Storage.snapshot");
+
+            /**
+             * Percorso del catalogo binario delle citt&agrave;.
+             */
+            public static final String CITY_CATALOG = getPath("City.catalog");
+
             /**
              * Questa classe interna &egrave; progettata per memorizzare costanti per i
              * percorsi
@@ -258,7 +279,7 @@ public class Constants {
             }
 
             private static String getPath(String fileName) {
-                return Paths.get("data", fileName).toString();
+                return Paths.get(DIRECTORY, fileName).toString();
             }
         }
 
@@ -299,6 +320,203 @@ public class Constants {
         }
     }
 
+    /**
+     * La classe interna {@code Storage} fornisce costanti per la configurazione
+     * del caricamento e della persistenza dei dati.
+     * <p>
+     * I valori possono essere modificati all'avvio tramite le propriet&agrave; di
+     * sistema indicate (es. {@code -Dstorage.parallelLoading=false}).
+     * </p>
+     */
+    public static final class Storage {
+
+        /**
+         * Indica se i file di dati devono essere caricati in parallelo
+         * (propriet&agrave; {@code storage.parallelLoading}, predefinito
+         * {@code true}).
+         */
+        public static final boolean PARALLEL_LOADING = Boolean
+                .parseBoolean(System.getProperty("storage.parallelLoading", "true"));
+
+        /**
+         * Dimensione in byte delle porzioni in cui vengono suddivisi i file di dati
+         * durante il caricamento parallelo (propriet&agrave;
+         * {@code storage.chunkSize}, predefinito 4 MB).
+         */
+        public static final long LOADING_CHUNK_SIZE = Long
+                .getLong("storage.chunkSize", 4L * 1024 * 1024);
+
+        /**
+         * Numero massimo di porzioni di un file analizzate contemporaneamente
+         * durante il caricamento parallelo (propriet&agrave;
+         * {@code storage.loadingWindow}, predefinito il numero di processori
+         * disponibili).
+         */
+        public static final int LOADING_WINDOW = Integer
+                .getInteger("storage.loadingWindow", Runtime.getRuntime().availableProcessors());
+
+        /**
+         * Indica se inserimenti e aggiornamenti vengono registrati nel journal
+         * invece di modificare direttamente i file di dati (propriet&agrave;
+         * {@code storage.journaling}, predefinito {@code true}).
+         */
+        public static final boolean JOURNALING = Boolean
+                .parseBoolean(System.getProperty("storage.journaling", "true"));
+
+        /**
+         * Numero di voci del journal oltre il quale il file di dati viene
+         * riscritto e il journal svuotato (propriet&agrave;
+         * {@code storage.compactionThreshold}, predefinito 1000).
+         */
+        public static final int JOURNAL_COMPACTION_THRESHOLD = Integer
+                .getInteger("storage.compactionThreshold", 1000);
+
+        /**
+         * Numero di righe inserite con un'unica scrittura durante l'importazione
+         * dei dati meteorologici da file (propriet&agrave;
+         * {@code storage.importBatchSize}, predefinito 5000).
+         */
+        public static final int IMPORT_BATCH_SIZE = Integer
+                .getInteger("storage.importBatchSize", 5000);
+
+        /**
+         * Politica di scrittura su disco dei dati aggiunti in coda ai file e ai
+         * journal (propriet&agrave; {@code storage.flushPolicy}): {@code write}
+         * a ogni scrittura, {@code group} a intervalli regolari o
+         * {@code shutdown} alla chiusura dell'applicazione. Predefinito
+         * {@code write}.
+         * <p>
+         * La durabilit&agrave; del journal dipende da questa politica: solo con
+         * {@code write} una voce &egrave; su disco quando l'inserimento o
+         * l'aggiornamento termina. Con {@code group} un arresto del sistema
+         * operativo o un'interruzione di corrente possono far perdere le voci
+         * dell'ultimo intervallo {@link #FLUSH_INTERVAL}, con {@code shutdown}
+         * fino a tutte quelle successive all'ultima compattazione. Senza
+         * journal le righe aggiunte ai file di dati vengono inoltre accumulate
+         * in memoria, quindi con queste due politiche vanno perse anche se si
+         * interrompe solo l'applicazione.
+         * </p>
+         */
+        public static final String FLUSH_POLICY = System.getProperty("storage.flushPolicy", "write");
+
+        /**
+         * Intervallo in millisecondi tra due scritture su disco con la politica
+         * {@code group} (propriet&agrave; {@code storage.flushInterval},
+         * predefinito 50).
+         */
+        public static final long FLUSH_INTERVAL = Long.getLong("storage.flushInterval", 50L);
+
+        /**
+         * Indica se i dati vengono salvati in un'istantanea binaria, letta
+         * all'avvio al posto dei file di dati se ancora aggiornata
+         * (propriet&agrave; {@code storage.snapshot}, predefinito {@code true}).
+         */
+        public static final boolean SNAPSHOT = Boolean
+                .parseBoolean(System.getProperty("storage.snapshot", "true"));
+
+        /**
+         * Indica se i dati meteorologici vengono caricati su richiesta, una
+         * citt&agrave; alla volta, invece che tutti all'avvio (propriet&agrave;
+         * {@code storage.lazyWeather}, predefinito {@code false}). In questa
+         * modalit&agrave; l'istantanea binaria non viene usata.
+         * <p>
+         * I record inseriti o modificati restano in memoria finch&eacute; non
+         * sono nel file di dati: con il journal fino alla compattazione
+         * successiva, che per le importazioni avviene solo al termine; senza
+         * journal fino a {@link #LAZY_WEATHER_CHANGES} record, oltre i quali
+         * le posizioni delle righe vengono ricalcolate rileggendo il file.
+         * </p>
+         */
+        public static final boolean LAZY_WEATHER = Boolean
+                .parseBoolean(System.getProperty("storage.lazyWeather", "false"));
+
+        /**
+         * Numero di record meteorologici inseriti o modificati, scritti
+         * direttamente nel file di dati senza journal, oltre il quale le
+         * posizioni delle righe dei dati caricati su richiesta vengono
+         * ricalcolate e i record rimossi dalla memoria (propriet&agrave;
+         * {@code storage.lazyWeatherChanges}, predefinito 10000).
+         */
+        public static final int LAZY_WEATHER_CHANGES = Integer
+                .getInteger("storage.lazyWeatherChanges", 10000);
+
+        /**
+         * Numero massimo di citt&agrave; i cui dati meteorologici restano in
+         * memoria quando vengono caricati su richiesta (propriet&agrave;
+         * {@code storage.residentCities}, predefinito 32).
+         */
+        public static final int RESIDENT_CITIES = Integer
+                .getInteger("storage.residentCities", 32);
+
+        /**
+         * Numero massimo di risultati di interrogazioni conservati nella cache
+         * (propriet&agrave; {@code storage.queryCacheSize}, predefinito 1024;
+         * 0 per disabilitare la cache).
+         */
+        public static final int QUERY_CACHE_SIZE = Integer
+                .getInteger("storage.queryCacheSize", 1024);
+
+        /**
+         * Numero massimo di record complessivamente conservati nella cache
+         * delle interrogazioni (propriet&agrave; {@code storage.queryCacheWeight},
+         * predefinito 100000).
+         */
+        public static final long QUERY_CACHE_WEIGHT = Long
+                .getLong("storage.queryCacheWeight", 100_000L);
+
+        /**
+         * Questa classe interna &egrave; progettata per memorizzare costanti per la
+         * configurazione dell'archiviazione dei dati.
+         * <p>
+         * Non &egrave; possibile creare istanze di questa classe in quanto tutti i
+         * membri sono
+         * statici.
+         * </p>
+         */
+        private Storage() {
+        }
+    }
+
+    /**
+     * La classe interna {@code Metrics} fornisce costanti per la configurazione
+     * delle metriche dell'applicazione.
+     * <p>
+     * I valori possono essere modificati all'avvio tramite le propriet&agrave; di
+     * sistema indicate (es. {@code -Dmetrics.dumpFile=metriche.txt}).
+     * </p>
+     */
+    public static final class Metrics {
+
+        /**
+         * Indica se le metriche vengono registrate (propriet&agrave;
+         * {@code metrics.enabled}, predefinito {@code true}).
+         */
+        public static final boolean ENABLED = Boolean
+                .parseBoolean(System.getProperty("metrics.enabled", "true"));
+
+        /**
+         * Indica se le metriche vengono esposte tramite JMX (propriet&agrave;
+         * {@code metrics.jmx}, predefinito {@code false}): l'avvio del server
+         * degli MBean rallenta l'avvio dell'applicazione.
+         */
+        public static final boolean JMX = Boolean
+                .parseBoolean(System.getProperty("metrics.jmx", "false"));
+
+        /**
+         * Percorso del file in cui scrivere le metriche alla chiusura
+         * dell'applicazione (propriet&agrave; {@code metrics.dumpFile}), o
+         * {@code null} per non scriverle.
+         */
+        public static final String DUMP_FILE = System.getProperty("metrics.dumpFile");
+
+        /**
+         * Questa classe interna &egrave; progettata per memorizzare costanti per la
+         * configurazione delle metriche.
+         */
+        private Metrics() {
+        }
+    }
+
     /**
      * La classe {@code GUI} fornisce costanti predefinite per le dimensioni della
      * finestra GUI principale.
@@ -328,6 +546,11 @@ public class Constants {
          */
         public static final Dimension WIDGET_DIMENSION = new Dimension(300, 40);
 
+        /**
+         * Numero massimo di suggerimenti mostrati durante la digitazione.
+         */
+        public static final Integer MAX_SUGGESTIONS = 8;
+
         /**
          * Questa classe &egrave; progettata per fornire costanti predefinite per le
          * dimensioni
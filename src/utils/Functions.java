@@ -1,5 +1,6 @@
 package utils;
 
+import java.awt.GraphicsEnvironment;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
@@ -8,6 +9,8 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.Date;
 
+import javax.swing.JOptionPane;
+
 /**
  * La classe {@code Functions} fornisce una serie di funzioni di utilit&agrave;
  * per la
@@ -89,4 +92,24 @@ public class Functions {
         return newString;
     }
 
+    /**
+     * Mostra all'utente un messaggio di errore. Se non &egrave; disponibile uno
+     * schermo, ad esempio durante un'importazione da riga di comando, il
+     * messaggio viene stampato invece di essere mostrato in una finestra.
+     * 
+     * @param message Il messaggio da mostrare.
+     */
+    public static void showError(String message) {
+        if (GraphicsEnvironment.isHeadless()) {
+            System.out.println(message);
+            return;
+        }
+
+        JOptionPane.showMessageDialog(
+                null,
+                message,
+                "Errore",
+                JOptionPane.ERROR_MESSAGE);
+    }
+
 }